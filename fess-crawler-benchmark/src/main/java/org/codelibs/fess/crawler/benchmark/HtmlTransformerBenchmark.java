@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.codelibs.fess.crawler.entity.ResponseData;
+import org.codelibs.fess.crawler.entity.ResultData;
+import org.codelibs.fess.crawler.transformer.impl.HtmlTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the default and the single-pass mode of {@link HtmlTransformer}
+ * on a file-backed response body.
+ *
+ * @author shinsuke
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlTransformerBenchmark {
+
+    @Param({ "16384", "262144" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean singlePassEnabled;
+
+    private HtmlTransformer htmlTransformer;
+
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        htmlTransformer = new HtmlTransformer();
+        htmlTransformer.setName("htmlTransformer");
+        final Map<String, String> featureMap = new HashMap<>();
+        featureMap.put("http://xml.org/sax/features/namespaces", "false");
+        htmlTransformer.setFeatureMap(featureMap);
+        htmlTransformer.setPropertyMap(new HashMap<>());
+        final Map<String, String> childUrlRuleMap = new HashMap<>();
+        childUrlRuleMap.put("//A", "href");
+        childUrlRuleMap.put("//IMG", "src");
+        childUrlRuleMap.put("//LINK", "href");
+        childUrlRuleMap.put("//SCRIPT", "src");
+        htmlTransformer.setChildUrlRuleMap(childUrlRuleMap);
+        htmlTransformer.setSinglePassEnabled(singlePassEnabled);
+
+        final StringBuilder buf = new StringBuilder(size + 1000);
+        buf.append("<html><head><meta http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\">");
+        buf.append("<title>benchmark</title><link rel=\"stylesheet\" href=\"/style.css\"></head><body>");
+        for (int i = 0; buf.length() < size; i++) {
+            buf.append("<p>paragraph ").append(i).append(" <a href=\"page").append(i % 100).append(".html\">link</a>");
+            buf.append(" <img src=\"/img/").append(i % 50).append(".png\"></p>\n");
+        }
+        buf.append("</body></html>");
+        file = File.createTempFile("htmlbench-", ".html");
+        Files.write(file.toPath(), buf.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public ResultData transform() throws IOException {
+        try (final ResponseData responseData = new ResponseData()) {
+            responseData.setUrl("http://localhost/index.html");
+            responseData.setResponseBody(file, false);
+            responseData.setMimeType("text/html");
+            return htmlTransformer.transform(responseData);
+        }
+    }
+}
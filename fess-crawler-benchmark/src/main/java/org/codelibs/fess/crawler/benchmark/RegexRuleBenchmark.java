@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.codelibs.core.beans.util.BeanUtil;
+import org.codelibs.core.beans.util.CopyOptions;
+import org.codelibs.fess.crawler.entity.ResponseData;
+import org.codelibs.fess.crawler.rule.impl.RegexRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link RegexRule#match(ResponseData)} with the former matching,
+ * which copied all bean properties of a response into a map.
+ *
+ * @author shinsuke
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegexRuleBenchmark {
+
+    private Map<String, Pattern> regexMap;
+
+    private RegexRule regexRule;
+
+    private ResponseData responseData;
+
+    @Setup
+    public void setup() {
+        regexMap = new HashMap<>();
+        regexMap.put("url", Pattern.compile("https?://example\\.com/.*"));
+        regexMap.put("mimeType", Pattern.compile("text/html"));
+        regexRule = new RegexRule();
+        regexRule.setRegexMap(regexMap);
+        responseData = new ResponseData();
+        responseData.setUrl("http://example.com/dir/index.html");
+        responseData.setMimeType("text/html");
+        responseData.setHttpStatusCode(200);
+        responseData.setCharSet("UTF-8");
+        responseData.setContentLength(1000L);
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        final Map<String, Object> map = new HashMap<>();
+        BeanUtil.copyBeanToMap(responseData, map, CopyOptions::excludeWhitespace);
+        for (final Map.Entry<String, Pattern> entry : regexMap.entrySet()) {
+            final Object obj = map.get(entry.getKey());
+            if (!entry.getValue().matcher(obj != null ? obj.toString() : "").matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    public boolean match() {
+        return regexRule.match(responseData);
+    }
+}
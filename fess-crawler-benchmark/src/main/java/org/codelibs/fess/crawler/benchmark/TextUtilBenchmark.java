@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.codelibs.fess.crawler.util.LegacyTextUtil;
+import org.codelibs.fess.crawler.util.TextUtil;
+import org.codelibs.fess.crawler.util.TextUtil.TextNormalizeContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link TextUtil} with the previous char-by-char implementation.
+ *
+ * @author shinsuke
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextUtilBenchmark {
+
+    @Param({ "1048576", "8388608" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean duplicateTermRemoved;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        text = createText(new Random(1), size);
+    }
+
+    @Benchmark
+    public String legacy() throws IOException {
+        return LegacyTextUtil.normalizeText(new StringReader(text), 100, 50, duplicateTermRemoved);
+    }
+
+    @Benchmark
+    public String execute() {
+        return new TextNormalizeContext(new StringReader(text)).maxAlphanumTermSize(100)
+                .maxSymbolTermSize(50)
+                .duplicateTermRemoved(duplicateTermRemoved)
+                .execute();
+    }
+
+    @Benchmark
+    public long executeToWriter() throws IOException {
+        final CountingWriter out = new CountingWriter();
+        new TextNormalizeContext(new StringReader(text)).maxAlphanumTermSize(100)
+                .maxSymbolTermSize(50)
+                .duplicateTermRemoved(duplicateTermRemoved)
+                .execute(out);
+        return out.count;
+    }
+
+    static String createText(final Random random, final int size) {
+        final String[] words = new String[5000];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = Integer.toString(random.nextInt(Integer.MAX_VALUE), 36);
+        }
+        final StringBuilder buf = new StringBuilder(size + 100);
+        while (buf.length() < size) {
+            switch (random.nextInt(10)) {
+            case 0:
+                buf.append("　日本語のテキスト、");
+                break;
+            case 1:
+                buf.append(" -- ");
+                break;
+            case 2:
+                buf.append('\n');
+                break;
+            default:
+                buf.append(words[random.nextInt(words.length)]).append(' ');
+                break;
+            }
+        }
+        return buf.toString();
+    }
+
+    static class CountingWriter extends Writer {
+        long count = 0;
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            count += len;
+        }
+
+        @Override
+        public Writer append(final CharSequence csq, final int start, final int end) {
+            count += end - start;
+            return this;
+        }
+
+        @Override
+        public void flush() {
+            // nothing
+        }
+
+        @Override
+        public void close() {
+            // nothing
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.codelibs.fess.crawler.filter.impl.UrlPatternMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a linear scan of url patterns with {@link UrlPatternMatcher}.
+ *
+ * @author shinsuke
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlPatternMatcherBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int numOfPatterns;
+
+    private List<Pattern> patternList;
+
+    private UrlPatternMatcher urlPatternMatcher;
+
+    private String[] urls;
+
+    @Setup
+    public void setup() {
+        patternList = new ArrayList<>();
+        for (int i = 0; i < numOfPatterns; i++) {
+            patternList.add(Pattern.compile("https?://site" + i + "\\.example\\.com/.*"));
+        }
+        patternList.add(Pattern.compile(".*\\.(gif|jpg|png)"));
+        urlPatternMatcher = new UrlPatternMatcher(patternList);
+        urls = new String[100];
+        for (int i = 0; i < urls.length; i++) {
+            // half of them do not match any pattern
+            urls[i] = "http://site" + (i * 7 % (numOfPatterns * 2)) + ".example.com/dir/page" + i + ".html";
+        }
+    }
+
+    @Benchmark
+    public int linear() {
+        int count = 0;
+        for (final String url : urls) {
+            for (final Pattern pattern : patternList) {
+                if (pattern.matcher(url).matches()) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int matcher() {
+        int count = 0;
+        for (final String url : urls) {
+            if (urlPatternMatcher.matches(url)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
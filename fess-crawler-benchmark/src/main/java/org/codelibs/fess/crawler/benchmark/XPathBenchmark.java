@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.benchmark;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.xpath.CachedXPathAPI;
+import org.codelibs.fess.crawler.util.CompiledXPathAPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * Compares a fresh {@link CachedXPathAPI} per document, as the transformers
+ * used before, with {@link CompiledXPathAPI} sharing compiled expressions.
+ *
+ * @author shinsuke
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XPathBenchmark {
+
+    private static final String[] PATHS = { "//A", "//IMG", "//LINK", "//SCRIPT", "//META", "//HTML/BODY | //@alt | //@title",
+            "//TITLE/text()" };
+
+    private Document document;
+
+    @Setup
+    public void setup() throws Exception {
+        final StringBuilder buf = new StringBuilder();
+        buf.append("<HTML><HEAD><TITLE>benchmark</TITLE><META name=\"robots\" content=\"index\"/>");
+        buf.append("<LINK rel=\"stylesheet\" href=\"/style.css\"/><SCRIPT src=\"/app.js\"></SCRIPT></HEAD><BODY>");
+        for (int i = 0; i < 200; i++) {
+            buf.append("<P>paragraph ").append(i).append(" <A href=\"page").append(i).append(".html\" title=\"t").append(i)
+                    .append("\">link</A>");
+            buf.append(" <IMG src=\"/img/").append(i).append(".png\" alt=\"a").append(i).append("\"/></P>");
+        }
+        buf.append("</BODY></HTML>");
+        document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(buf.toString())));
+    }
+
+    @Benchmark
+    public void cachedXPathAPI(final Blackhole bh) throws Exception {
+        final CachedXPathAPI xpathAPI = new CachedXPathAPI();
+        for (final String path : PATHS) {
+            bh.consume(xpathAPI.selectNodeList(document, path));
+        }
+    }
+
+    @Benchmark
+    public void compiledXPathAPI(final Blackhole bh) throws Exception {
+        final CompiledXPathAPI xpathAPI = new CompiledXPathAPI();
+        for (final String path : PATHS) {
+            bh.consume(xpathAPI.selectNodeList(document, path));
+        }
+    }
+}
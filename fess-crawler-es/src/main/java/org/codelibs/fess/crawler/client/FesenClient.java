@@ -31,7 +31,9 @@ import org.codelibs.core.lang.StringUtil;
 import org.codelibs.core.lang.ThreadUtil;
 import org.codelibs.fesen.client.HttpClient;
 import org.codelibs.fess.crawler.exception.EsAccessException;
+import org.opensearch.ExceptionsHelper;
 import org.opensearch.OpenSearchException;
+import org.opensearch.OpenSearchTimeoutException;
 import org.opensearch.action.ActionFuture;
 import org.opensearch.action.ActionListener;
 import org.opensearch.action.ActionRequest;
@@ -86,6 +88,14 @@ import org.opensearch.common.unit.TimeValue;
 import org.opensearch.index.IndexNotFoundException;
 import org.opensearch.index.engine.VersionConflictEngineException;
 import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.reindex.AbstractBulkByScrollRequest;
+import org.opensearch.index.reindex.BulkByScrollResponse;
+import org.opensearch.index.reindex.DeleteByQueryAction;
+import org.opensearch.index.reindex.DeleteByQueryRequestBuilder;
+import org.opensearch.index.reindex.UpdateByQueryAction;
+import org.opensearch.index.reindex.UpdateByQueryRequestBuilder;
+import org.opensearch.rest.RestStatus;
+import org.opensearch.script.Script;
 import org.opensearch.search.Scroll;
 import org.opensearch.search.SearchHit;
 import org.opensearch.threadpool.ThreadPool;
@@ -111,6 +121,12 @@ public class FesenClient implements Client {
 
     protected int sizeForDelete = 10;
 
+    protected boolean byQueryEnabled = true;
+
+    protected int slicesForByQuery = AbstractBulkByScrollRequest.AUTO_SLICES;
+
+    protected long byQueryTimeout = -1; // no timeout
+
     protected long retryInterval = 3 * 1000L;
 
     protected int maxRetryCount = 5;
@@ -508,6 +524,77 @@ public class FesenClient implements Client {
         return count;
     }
 
+    /**
+     * Deletes documents by _delete_by_query on the server side, and refreshes the index.
+     * See {@link #waitForByQuery(String, ActionFuture)} about a failure.
+     *
+     * @param index the index name
+     * @param queryBuilder the query to select documents
+     * @return the number of deleted documents
+     */
+    public long deleteByQuery(final String index, final QueryBuilder queryBuilder) {
+        final DeleteByQueryRequestBuilder builder = new DeleteByQueryRequestBuilder(this, DeleteByQueryAction.INSTANCE).source(index)
+                .filter(queryBuilder).abortOnVersionConflict(false).refresh(true).setSlices(slicesForByQuery);
+        final BulkByScrollResponse response = waitForByQuery("delete_by_query on " + index, builder.execute());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Deleted {} documents in {} ({}ms)", response.getDeleted(), index, response.getTook().getMillis());
+        }
+        return response.getDeleted();
+    }
+
+    /**
+     * Updates documents by _update_by_query on the server side.
+     * See {@link #waitForByQuery(String, ActionFuture)} about a failure.
+     *
+     * @param index the index name
+     * @param queryBuilder the query to select documents
+     * @param script the script to update a document
+     * @return the number of updated documents
+     */
+    public long updateByQuery(final String index, final QueryBuilder queryBuilder, final Script script) {
+        final UpdateByQueryRequestBuilder builder = new UpdateByQueryRequestBuilder(this, UpdateByQueryAction.INSTANCE).source(index)
+                .filter(queryBuilder).script(script).abortOnVersionConflict(false).setSlices(slicesForByQuery);
+        final BulkByScrollResponse response = waitForByQuery("update_by_query on " + index, builder.execute());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Updated {} documents in {} ({}ms)", response.getUpdated(), index, response.getTook().getMillis());
+        }
+        return response.getUpdated();
+    }
+
+    /**
+     * Waits for a by-query request up to byQueryTimeout. A timed out task is not cancelled and may still
+     * be running on the server, so documents of the request may be changed by another way only if
+     * {@link #isRejectedByQuery(Exception)} returns true for the thrown exception.
+     *
+     * @param name the name of the request for messages
+     * @param future the future of the request
+     * @return the response
+     */
+    protected BulkByScrollResponse waitForByQuery(final String name, final ActionFuture<BulkByScrollResponse> future) {
+        final BulkByScrollResponse response;
+        try {
+            response = byQueryTimeout >= 0 ? future.actionGet(byQueryTimeout) : future.actionGet();
+        } catch (final OpenSearchTimeoutException e) {
+            throw new EsAccessException("Timed out: " + name + ". The task may be still running.", e);
+        }
+        if (response.isTimedOut() || !response.getBulkFailures().isEmpty() || !response.getSearchFailures().isEmpty()) {
+            throw new EsAccessException("Failed to execute " + name + ": " + response);
+        }
+        return response;
+    }
+
+    /**
+     * Checks if a by-query request was rejected by the server before it ran, for example
+     * because the server does not support it.
+     *
+     * @param e the exception thrown by a by-query request
+     * @return true if no documents were changed by the request
+     */
+    public boolean isRejectedByQuery(final Exception e) {
+        final RestStatus status = ExceptionsHelper.status(ExceptionsHelper.unwrapCause(e));
+        return status == RestStatus.BAD_REQUEST || status == RestStatus.NOT_FOUND || status == RestStatus.METHOD_NOT_ALLOWED;
+    }
+
     public void clearScroll(final String scrollId) {
         if (scrollId != null) {
             prepareClearScroll().addScrollId(scrollId)
@@ -527,6 +614,22 @@ public class FesenClient implements Client {
         this.sizeForDelete = sizeForDelete;
     }
 
+    public boolean isByQueryEnabled() {
+        return byQueryEnabled;
+    }
+
+    public void setByQueryEnabled(final boolean byQueryEnabled) {
+        this.byQueryEnabled = byQueryEnabled;
+    }
+
+    public void setSlicesForByQuery(final int slicesForByQuery) {
+        this.slicesForByQuery = slicesForByQuery;
+    }
+
+    public void setByQueryTimeout(final long byQueryTimeout) {
+        this.byQueryTimeout = byQueryTimeout;
+    }
+
     public void setRetryInterval(final long retryInterval) {
         this.retryInterval = retryInterval;
     }
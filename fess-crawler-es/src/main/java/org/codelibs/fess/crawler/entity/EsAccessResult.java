@@ -16,9 +16,14 @@
 package org.codelibs.fess.crawler.entity;
 
 import java.io.IOException;
+import java.util.Map;
 
-import org.codelibs.core.beans.util.BeanUtil;
+import org.codelibs.core.lang.StringUtil;
+import org.codelibs.fess.crawler.exception.EsAccessException;
 import org.codelibs.fess.crawler.service.impl.EsDataService;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
 import org.lastaflute.di.core.SingletonLaContainer;
 import org.opensearch.common.xcontent.ToXContent;
 import org.opensearch.common.xcontent.XContentBuilder;
@@ -53,25 +58,146 @@ public class EsAccessResult extends AccessResultImpl<String> implements ToXConte
 
     public static final String ACCESS_RESULT_DATA = "accessResultData";
 
+    private static final DateTimeFormatter TIMESTAMP_PARSER = ISODateTimeFormat.dateTime().withZone(DateTimeZone.UTC);
+
     private boolean initializedData = false;
 
+    private Runnable accessResultDataLoader;
+
+    public EsAccessResult() {
+    }
+
+    public EsAccessResult(final Map<String, Object> src) {
+        if (hasValue(src, ID)) {
+            setId(toStringValue(src, ID));
+        }
+        if (hasValue(src, SESSION_ID)) {
+            setSessionId(toStringValue(src, SESSION_ID));
+        }
+        if (hasValue(src, RULE_ID)) {
+            setRuleId(toStringValue(src, RULE_ID));
+        }
+        if (hasValue(src, URL)) {
+            setUrl(toStringValue(src, URL));
+        }
+        if (hasValue(src, PARENT_URL)) {
+            setParentUrl(toStringValue(src, PARENT_URL));
+        }
+        if (hasValue(src, STATUS)) {
+            setStatus(toIntegerValue(src, STATUS));
+        }
+        if (hasValue(src, HTTP_STATUS_CODE)) {
+            setHttpStatusCode(toIntegerValue(src, HTTP_STATUS_CODE));
+        }
+        if (hasValue(src, METHOD)) {
+            setMethod(toStringValue(src, METHOD));
+        }
+        if (hasValue(src, MIME_TYPE)) {
+            setMimeType(toStringValue(src, MIME_TYPE));
+        }
+        if (hasValue(src, CREATE_TIME)) {
+            setCreateTime(toTimestampValue(src, CREATE_TIME));
+        }
+        if (hasValue(src, EXECUTION_TIME)) {
+            setExecutionTime(toIntegerValue(src, EXECUTION_TIME));
+        }
+        if (hasValue(src, CONTENT_LENGTH)) {
+            setContentLength(toLongValue(src, CONTENT_LENGTH));
+        }
+        if (hasValue(src, LAST_MODIFIED)) {
+            setLastModified(toTimestampValue(src, LAST_MODIFIED));
+        }
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> data = (Map<String, Object>) src.get(ACCESS_RESULT_DATA);
+        if (data != null) {
+            setAccessResultData(new EsAccessResultData(data));
+        }
+    }
+
+    private static boolean hasValue(final Map<String, Object> src, final String key) {
+        if (!src.containsKey(key)) {
+            return false;
+        }
+        final Object value = src.get(key);
+        return !(value instanceof String) || !StringUtil.isBlank((String) value);
+    }
+
+    private static String toStringValue(final Map<String, Object> src, final String key) {
+        final Object value = src.get(key);
+        return value != null ? value.toString() : null;
+    }
+
+    private static Integer toIntegerValue(final Map<String, Object> src, final String key) {
+        final Object value = src.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.toString().trim());
+        } catch (final NumberFormatException e) {
+            throw new EsAccessException(key + ": " + value, e);
+        }
+    }
+
+    private static Long toLongValue(final Map<String, Object> src, final String key) {
+        final Object value = src.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.toString().trim());
+        } catch (final NumberFormatException e) {
+            throw new EsAccessException(key + ": " + value, e);
+        }
+    }
+
+    private static Long toTimestampValue(final Map<String, Object> src, final String key) {
+        final Object value = src.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            return TIMESTAMP_PARSER.parseMillis(value.toString());
+        } catch (final IllegalArgumentException e) {
+            throw new EsAccessException(key + ": " + value, e);
+        }
+    }
+
     @Override
     public void init(final ResponseData responseData, final ResultData resultData) {
 
         setCreateTime(System.currentTimeMillis());
         if (responseData != null) {
-            BeanUtil.copyBeanToBean(responseData, this);
+            copyResponseData(responseData);
         }
 
         final EsAccessResultData accessResultData = new EsAccessResultData();
         if (resultData != null) {
-            BeanUtil.copyBeanToBean(resultData, accessResultData);
+            copyResultData(resultData, accessResultData);
         }
         setAccessResultData(accessResultData);
     }
 
+    @Override
+    protected boolean isDirectCopySupported() {
+        return getClass() == EsAccessResult.class;
+    }
+
     @Override
     public AccessResultData<String> getAccessResultData() {
+        final Runnable loader = accessResultDataLoader;
+        if (!initializedData && loader != null) {
+            loader.run();
+        }
         if (!initializedData) {
             final EsDataService dataService = SingletonLaContainer.getComponent(EsDataService.class);
             final EsAccessResult accessResult = dataService.getAccessResult(getSessionId(), getUrl());
@@ -88,6 +214,18 @@ public class EsAccessResult extends AccessResultImpl<String> implements ToXConte
     public void setAccessResultData(final AccessResultData<String> accessResultDataAsOne) {
         accessResultData = accessResultDataAsOne;
         initializedData = true;
+        accessResultDataLoader = null;
+    }
+
+    /**
+     * Sets a loader which is run instead of fetching this entry when the data is requested.
+     * The loader calls {@link #setAccessResultData(AccessResultData)} of this entry.
+     *
+     * @param accessResultDataLoader the loader
+     */
+    public void setAccessResultDataLoader(final Runnable accessResultDataLoader) {
+        this.accessResultDataLoader = accessResultDataLoader;
+        initializedData = false;
     }
 
     @Override
@@ -28,6 +28,11 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import javax.annotation.Resource;
@@ -75,6 +80,7 @@ import org.opensearch.index.query.QueryBuilder;
 import org.opensearch.index.query.QueryBuilders;
 import org.opensearch.search.SearchHit;
 import org.opensearch.search.SearchHits;
+import org.opensearch.search.slice.SliceBuilder;
 import org.opensearch.search.sort.SortBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -114,6 +120,8 @@ public abstract class AbstractCrawlerService {
 
     protected int scrollSize = 100;
 
+    protected int scrollSlices = 1; // sequential
+
     protected int bulkBufferSize = 10;
 
     protected int numberOfShards = 5;
@@ -287,6 +295,10 @@ public abstract class AbstractCrawlerService {
     }
 
     protected <T> BulkResponse doInsertAll(final List<T> list, final OpType opType) {
+        return doInsertAll(list, opType, RefreshPolicy.IMMEDIATE);
+    }
+
+    protected <T> BulkResponse doInsertAll(final List<T> list, final OpType opType, final RefreshPolicy refreshPolicy) {
         try {
             return getClient().get(c -> {
                 final BulkRequestBuilder bulkRequest = c.prepareBulk();
@@ -298,7 +310,7 @@ public abstract class AbstractCrawlerService {
                     setId(target, id);
                 }
 
-                return bulkRequest.setRefreshPolicy(RefreshPolicy.IMMEDIATE).execute();
+                return bulkRequest.setRefreshPolicy(refreshPolicy).execute();
             });
         } catch (final Exception e) {
             throw new EsAccessException("Failed to insert " + list, e);
@@ -328,15 +340,7 @@ public abstract class AbstractCrawlerService {
         final GetResponse response = getClient().get(c -> c.prepareGet().setIndex(index).setId(id).execute());
         if (response.isExists()) {
             final Map<String, Object> source = response.getSource();
-            final T bean = BeanUtil.copyMapToNewBean(source, clazz, option -> {
-                option.converter(new EsTimestampConverter(), timestampFields).excludeWhitespace();
-                option.exclude(EsAccessResult.ACCESS_RESULT_DATA);
-            });
-            @SuppressWarnings("unchecked")
-            final Map<String, Object> data = (Map<String, Object>) source.get(EsAccessResult.ACCESS_RESULT_DATA);
-            if (data != null) {
-                ((EsAccessResult) bean).setAccessResultData(new EsAccessResultData(data));
-            }
+            final T bean = createEntity(source, clazz);
             setId(bean, id);
             return bean;
         }
@@ -387,15 +391,7 @@ public abstract class AbstractCrawlerService {
             try {
                 for (final SearchHit searchHit : hits.getHits()) {
                     final Map<String, Object> source = searchHit.getSourceAsMap();
-                    final T target = BeanUtil.copyMapToNewBean(source, clazz, option -> {
-                        option.converter(new EsTimestampConverter(), timestampFields).excludeWhitespace();
-                        option.exclude(EsAccessResult.ACCESS_RESULT_DATA);
-                    });
-                    @SuppressWarnings("unchecked")
-                    final Map<String, Object> data = (Map<String, Object>) source.get(EsAccessResult.ACCESS_RESULT_DATA);
-                    if (data != null) {
-                        ((EsAccessResult) target).setAccessResultData(new EsAccessResultData(data));
-                    }
+                    final T target = createEntity(source, clazz);
                     setId(target, searchHit.getId());
                     targetList.add(target);
                 }
@@ -418,16 +414,99 @@ public abstract class AbstractCrawlerService {
     }
 
     protected void deleteBySessionId(final String sessionId) {
-        delete(builder -> builder.setQuery(QueryBuilders.termQuery(SESSION_ID, sessionId)));
+        deleteByQuery(QueryBuilders.termQuery(SESSION_ID, sessionId));
     }
 
     public void deleteAll() {
-        delete(builder -> builder.setQuery(QueryBuilders.matchAllQuery()));
+        deleteByQuery(QueryBuilders.matchAllQuery());
+    }
+
+    protected void deleteByQuery(final QueryBuilder queryBuilder) {
+        final FesenClient client = getClient();
+        if (client.isByQueryEnabled()) {
+            try {
+                client.deleteByQuery(index, queryBuilder);
+                return;
+            } catch (final Exception e) {
+                if (!client.isRejectedByQuery(e)) {
+                    throw new EsAccessException("Failed to delete documents by query in " + index, e);
+                }
+                logger.warn("Failed to delete documents by query in {}. Deleting them by scroll.", index, e);
+            }
+        }
+        delete(builder -> builder.setQuery(queryBuilder));
     }
 
     public void delete(final Consumer<SearchRequestBuilder> callback) {
+        scroll(scrollSize, callback, searchHits -> {
+            final BulkResponse bulkResponse = getClient().get(c -> {
+                final BulkRequestBuilder bulkBuilder = c.prepareBulk();
+                for (final SearchHit searchHit : searchHits) {
+                    bulkBuilder.add(c.prepareDelete().setIndex(index).setId(searchHit.getId()));
+                }
+
+                return bulkBuilder.execute();
+            });
+            if (bulkResponse.hasFailures()) {
+                throw new EsAccessException(bulkResponse.buildFailureMessage());
+            }
+        });
+
+        refresh();
+    }
+
+    /**
+     * Scrolls the search results and passes each page to hitsCallback. If
+     * scrollSlices is more than 1, the slices are scrolled in parallel and
+     * hitsCallback is invoked concurrently.
+     *
+     * @param size the page size per slice
+     * @param callback the callback to build the search request
+     * @param hitsCallback the callback to process a page
+     */
+    protected void scroll(final int size, final Consumer<SearchRequestBuilder> callback, final Consumer<SearchHits> hitsCallback) {
+        final int slices = scrollSlices;
+        if (slices <= 1) {
+            scroll(null, size, callback, hitsCallback);
+            return;
+        }
+
+        final AtomicInteger threadCounter = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(slices, r -> {
+            final Thread thread = new Thread(r, getClass().getSimpleName() + "-slice-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> futureList = new ArrayList<>(slices);
+            for (int i = 0; i < slices; i++) {
+                final SliceBuilder slice = new SliceBuilder(i, slices);
+                futureList.add(executor.submit(() -> scroll(slice, size, callback, hitsCallback)));
+            }
+            for (final Future<?> future : futureList) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EsAccessException("Interrupted while scrolling " + index, e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new EsAccessException("Failed to scroll " + index, cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    protected void scroll(final SliceBuilder slice, final int size, final Consumer<SearchRequestBuilder> callback,
+            final Consumer<SearchHits> hitsCallback) {
         SearchResponse response = getClient().get(c -> {
-            final SearchRequestBuilder builder = c.prepareSearch(index).setScroll(new TimeValue(scrollTimeout)).setSize(scrollSize);
+            final SearchRequestBuilder builder = c.prepareSearch(index).setScroll(new TimeValue(scrollTimeout)).setSize(size);
+            if (slice != null) {
+                builder.slice(slice);
+            }
             callback.accept(builder);
             return builder.execute();
         });
@@ -439,17 +518,7 @@ public abstract class AbstractCrawlerService {
                     break;
                 }
 
-                final BulkResponse bulkResponse = getClient().get(c -> {
-                    final BulkRequestBuilder bulkBuilder = c.prepareBulk();
-                    for (final SearchHit searchHit : searchHits) {
-                        bulkBuilder.add(c.prepareDelete().setIndex(index).setId(searchHit.getId()));
-                    }
-
-                    return bulkBuilder.execute();
-                });
-                if (bulkResponse.hasFailures()) {
-                    throw new EsAccessException(bulkResponse.buildFailureMessage());
-                }
+                hitsCallback.accept(searchHits);
 
                 final String sid = scrollId;
                 response = getClient().get(c -> c.prepareSearchScroll(sid).setScroll(new TimeValue(scrollTimeout)).execute());
@@ -461,8 +530,6 @@ public abstract class AbstractCrawlerService {
         } finally {
             getClient().clearScroll(scrollId);
         }
-
-        refresh();
     }
 
     private String getId(final String sessionId, final String url) {
@@ -517,6 +584,32 @@ public abstract class AbstractCrawlerService {
         this.scrollSize = scrollSize;
     }
 
+    public int getScrollSlices() {
+        return scrollSlices;
+    }
+
+    public void setScrollSlices(final int scrollSlices) {
+        this.scrollSlices = scrollSlices;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> T createEntity(final Map<String, Object> source, final Class<T> clazz) {
+        if (clazz == EsAccessResult.class) {
+            return (T) new EsAccessResult(source);
+        }
+
+        // custom entities are copied by reflection
+        final T bean = BeanUtil.copyMapToNewBean(source, clazz, option -> {
+            option.converter(new EsTimestampConverter(), timestampFields).excludeWhitespace();
+            option.exclude(EsAccessResult.ACCESS_RESULT_DATA);
+        });
+        final Map<String, Object> data = (Map<String, Object>) source.get(EsAccessResult.ACCESS_RESULT_DATA);
+        if (data != null) {
+            ((EsAccessResult) bean).setAccessResultData(new EsAccessResultData(data));
+        }
+        return bean;
+    }
+
     protected static class EsTimestampConverter implements Converter {
         public static final DateTimeFormatter DEFAULT_DATE_PRINTER = ISODateTimeFormat.dateTime().withZone(DateTimeZone.UTC);
 
@@ -15,30 +15,39 @@
  */
 package org.codelibs.fess.crawler.service.impl;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
 import javax.annotation.PostConstruct;
 
-import org.codelibs.core.beans.util.BeanUtil;
 import org.codelibs.fess.crawler.entity.EsAccessResult;
 import org.codelibs.fess.crawler.entity.EsAccessResultData;
 import org.codelibs.fess.crawler.exception.EsAccessException;
 import org.codelibs.fess.crawler.service.DataService;
 import org.codelibs.fess.crawler.util.AccessResultCallback;
+import org.codelibs.fess.crawler.util.AccessResultListCallback;
 import org.codelibs.fess.crawler.util.EsCrawlerConfig;
 import org.codelibs.fess.crawler.util.EsResultList;
 import org.opensearch.action.DocWriteRequest.OpType;
+import org.opensearch.action.get.GetResponse;
+import org.opensearch.action.get.MultiGetItemResponse;
+import org.opensearch.action.get.MultiGetRequest;
+import org.opensearch.action.get.MultiGetRequestBuilder;
+import org.opensearch.action.get.MultiGetResponse;
 import org.opensearch.action.search.SearchRequestBuilder;
 import org.opensearch.action.search.SearchResponse;
-import org.opensearch.common.unit.TimeValue;
 import org.opensearch.index.query.QueryBuilders;
 import org.opensearch.search.SearchHit;
 import org.opensearch.search.SearchHits;
+import org.opensearch.search.fetch.subphase.FetchSourceContext;
 
 public class EsDataService extends AbstractCrawlerService implements DataService<EsAccessResult> {
 
+    private static final String ACCESS_RESULT_DATA_FIELD = EsAccessResult.ACCESS_RESULT_DATA + "." + EsAccessResultData.DATA;
+
     public EsDataService(final EsCrawlerConfig crawlerConfig) {
         this.index = crawlerConfig.getDataIndex();
         setNumberOfShards(crawlerConfig.getDataShards());
@@ -147,39 +156,110 @@ public class EsDataService extends AbstractCrawlerService implements DataService
 
     @Override
     public void iterate(final String sessionId, final AccessResultCallback<EsAccessResult> callback) {
-        SearchResponse response = getClient().get(c -> c.prepareSearch(index).setScroll(new TimeValue(scrollTimeout))
-                .setQuery(QueryBuilders.boolQuery().filter(QueryBuilders.termQuery(SESSION_ID, sessionId))).setSize(scrollSize).execute());
-        String scrollId = response.getScrollId();
-        try {
-            while (scrollId != null) {
-                final SearchHits searchHits = response.getHits();
-                if (searchHits.getHits().length == 0) {
-                    break;
-                }
+        // callers expect the callback to be invoked sequentially
+        scroll(null, scrollSize,
+                builder -> builder.setQuery(QueryBuilders.boolQuery().filter(QueryBuilders.termQuery(SESSION_ID, sessionId))),
+                searchHits -> {
+                    for (final SearchHit searchHit : searchHits) {
+                        final Map<String, Object> source = searchHit.getSourceAsMap();
+                        final EsAccessResult accessResult = createEntity(source, EsAccessResult.class);
+                        callback.iterate(accessResult);
+                    }
+                });
+    }
 
-                for (final SearchHit searchHit : searchHits) {
-                    final Map<String, Object> source = searchHit.getSourceAsMap();
-                    final EsAccessResult accessResult = BeanUtil.copyMapToNewBean(source, EsAccessResult.class, option -> {
-                        option.converter(new EsTimestampConverter(), timestampFields).excludeWhitespace();
-                        option.exclude(EsAccessResult.ACCESS_RESULT_DATA);
-                    });
-                    @SuppressWarnings("unchecked")
-                    final Map<String, Object> data = (Map<String, Object>) source.get(EsAccessResult.ACCESS_RESULT_DATA);
-                    if (data != null) {
-                        accessResult.setAccessResultData(new EsAccessResultData(data));
+    /**
+     * Iterates access results of the session by a sliced scroll. The data
+     * field of accessResultData is left out of each page. When
+     * {@link EsAccessResult#getAccessResultData()} is called on one of the
+     * access results, the data of all results in the page is loaded by one
+     * search.
+     */
+    @Override
+    public void iterate(final String sessionId, final int batchSize, final AccessResultListCallback<EsAccessResult> callback) {
+        scroll(batchSize, builder -> builder.setQuery(QueryBuilders.boolQuery().filter(QueryBuilders.termQuery(SESSION_ID, sessionId)))
+                .setFetchSource(null, new String[] { ACCESS_RESULT_DATA_FIELD }), searchHits -> {
+                    final List<EsAccessResult> accessResultList = new ArrayList<>(searchHits.getHits().length);
+                    final Map<String, EsAccessResultData> accessResultDataMap = new HashMap<>();
+                    for (final SearchHit searchHit : searchHits) {
+                        final Map<String, Object> source = searchHit.getSourceAsMap();
+                        final EsAccessResult accessResult = createEntity(source, EsAccessResult.class);
+                        setId(accessResult, searchHit.getId());
+                        if (source.get(EsAccessResult.ACCESS_RESULT_DATA) != null) {
+                            accessResultDataMap.put(searchHit.getId(), (EsAccessResultData) accessResult.getAccessResultData());
+                        } else {
+                            accessResult.setAccessResultData(null);
+                        }
+                        accessResultList.add(accessResult);
                     }
-                    callback.iterate(accessResult);
-                }
+                    if (!accessResultDataMap.isEmpty()) {
+                        final Runnable loader = new AccessResultDataLoader(accessResultList, accessResultDataMap);
+                        accessResultList.stream().filter(r -> accessResultDataMap.containsKey(r.getId()))
+                                .forEach(r -> r.setAccessResultDataLoader(loader));
+                    }
+                    callback.iterate(accessResultList);
+                });
+    }
 
-                final String sid = scrollId;
-                response = getClient().get(c -> c.prepareSearchScroll(sid).setScroll(new TimeValue(scrollTimeout)).execute());
-                if (!scrollId.equals(response.getScrollId())) {
-                    getClient().clearScroll(scrollId);
+    /**
+     * Loads the data field of accessResultData for access results by one
+     * multi-get request, and sets it to the given accessResultData instances.
+     *
+     * @param accessResultDataMap a map of an id and accessResultData without the data
+     */
+    protected void loadAccessResultData(final Map<String, EsAccessResultData> accessResultDataMap) {
+        final FetchSourceContext fetchSourceContext = new FetchSourceContext(true, new String[] { ACCESS_RESULT_DATA_FIELD }, null);
+        final MultiGetResponse response = getClient().get(c -> {
+            final MultiGetRequestBuilder builder = c.prepareMultiGet();
+            for (final String id : accessResultDataMap.keySet()) {
+                builder.add(new MultiGetRequest.Item(index, id).fetchSourceContext(fetchSourceContext));
+            }
+            return builder.execute();
+        });
+        for (final MultiGetItemResponse itemResponse : response.getResponses()) {
+            if (itemResponse.isFailed()) {
+                throw new EsAccessException("Failed to load " + ACCESS_RESULT_DATA_FIELD + " of " + itemResponse.getId(),
+                        itemResponse.getFailure().getFailure());
+            }
+            final GetResponse getResponse = itemResponse.getResponse();
+            if (getResponse == null || !getResponse.isExists() || getResponse.isSourceEmpty()) {
+                continue;
+            }
+            final EsAccessResultData accessResultData = accessResultDataMap.get(getResponse.getId());
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> source = (Map<String, Object>) getResponse.getSourceAsMap().get(EsAccessResult.ACCESS_RESULT_DATA);
+            if (accessResultData != null && source != null) {
+                accessResultData.setData(new EsAccessResultData(source).getData());
+            }
+        }
+    }
+
+    protected class AccessResultDataLoader implements Runnable {
+        private final List<EsAccessResult> accessResultList;
+
+        private final Map<String, EsAccessResultData> accessResultDataMap;
+
+        private boolean loaded = false;
+
+        protected AccessResultDataLoader(final List<EsAccessResult> accessResultList,
+                final Map<String, EsAccessResultData> accessResultDataMap) {
+            this.accessResultList = accessResultList;
+            this.accessResultDataMap = accessResultDataMap;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (loaded) {
+                return;
+            }
+            loadAccessResultData(accessResultDataMap);
+            for (final EsAccessResult accessResult : accessResultList) {
+                final EsAccessResultData accessResultData = accessResultDataMap.get(accessResult.getId());
+                if (accessResultData != null) {
+                    accessResult.setAccessResultData(accessResultData);
                 }
-                scrollId = response.getScrollId();
             }
-        } finally {
-            getClient().clearScroll(scrollId);
+            loaded = true;
         }
     }
 }
@@ -16,11 +16,14 @@
 package org.codelibs.fess.crawler.service.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
@@ -29,6 +32,7 @@ import javax.annotation.Resource;
 
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.crawler.Constants;
+import org.codelibs.fess.crawler.client.FesenClient;
 import org.codelibs.fess.crawler.entity.AccessResult;
 import org.codelibs.fess.crawler.entity.EsUrlQueue;
 import org.codelibs.fess.crawler.entity.UrlQueue;
@@ -36,15 +40,16 @@ import org.codelibs.fess.crawler.exception.EsAccessException;
 import org.codelibs.fess.crawler.service.UrlQueueService;
 import org.codelibs.fess.crawler.util.EsCrawlerConfig;
 import org.opensearch.action.DocWriteRequest.OpType;
+import org.opensearch.action.bulk.BulkItemResponse;
 import org.opensearch.action.bulk.BulkRequestBuilder;
 import org.opensearch.action.bulk.BulkResponse;
-import org.opensearch.action.search.SearchResponse;
 import org.opensearch.action.support.WriteRequest.RefreshPolicy;
 import org.opensearch.action.update.UpdateRequestBuilder;
-import org.opensearch.common.unit.TimeValue;
 import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.rest.RestStatus;
+import org.opensearch.script.Script;
+import org.opensearch.script.ScriptType;
 import org.opensearch.search.SearchHit;
-import org.opensearch.search.SearchHits;
 import org.opensearch.search.sort.SortBuilders;
 import org.opensearch.search.sort.SortOrder;
 import org.slf4j.Logger;
@@ -62,6 +67,10 @@ public class EsUrlQueueService extends AbstractCrawlerService implements UrlQueu
 
     protected int maxCrawlingQueueSize = 100;
 
+    protected int generateBatchSize = 1000;
+
+    protected long generateLogInterval = 100000;
+
     public EsUrlQueueService(final EsCrawlerConfig crawlerConfig) {
         this.index = crawlerConfig.getQueueIndex();
         setNumberOfShards(crawlerConfig.getQueueShards());
@@ -94,41 +103,37 @@ public class EsUrlQueueService extends AbstractCrawlerService implements UrlQueu
 
     @Override
     public void updateSessionId(final String oldSessionId, final String newSessionId) {
-        SearchResponse response = getClient().get(c -> c.prepareSearch(index).setScroll(new TimeValue(scrollTimeout))
-                .setQuery(QueryBuilders.boolQuery().filter(QueryBuilders.termQuery(SESSION_ID, oldSessionId))).setSize(scrollSize)
-                .execute());
-        String scrollId = response.getScrollId();
-        try {
-            while (scrollId != null) {
-                final SearchHits searchHits = response.getHits();
-                if (searchHits.getHits().length == 0) {
-                    break;
+        final FesenClient client = getClient();
+        if (client.isByQueryEnabled()) {
+            try {
+                final Script script = new Script(ScriptType.INLINE, Script.DEFAULT_SCRIPT_LANG,
+                        "ctx._source." + SESSION_ID + "=params.sessionId", Collections.singletonMap("sessionId", newSessionId));
+                client.updateByQuery(index, QueryBuilders.termQuery(SESSION_ID, oldSessionId), script);
+                return;
+            } catch (final Exception e) {
+                if (!client.isRejectedByQuery(e)) {
+                    throw new EsAccessException("Failed to update session id by query in " + index, e);
                 }
+                logger.warn("Failed to update session id by query in {}. Updating it by scroll.", index, e);
+            }
+        }
 
-                final BulkResponse bulkResponse = getClient().get(c -> {
-                    final BulkRequestBuilder builder = c.prepareBulk();
-                    for (final SearchHit searchHit : searchHits) {
-                        final UpdateRequestBuilder updateRequest =
-                                c.prepareUpdate().setIndex(index).setId(searchHit.getId()).setDoc(SESSION_ID, newSessionId);
-                        builder.add(updateRequest);
-                    }
+        scroll(scrollSize, builder -> builder.setQuery(QueryBuilders.boolQuery().filter(QueryBuilders.termQuery(SESSION_ID, oldSessionId)))
+                .setFetchSource(false), searchHits -> {
+                    final BulkResponse bulkResponse = getClient().get(c -> {
+                        final BulkRequestBuilder builder = c.prepareBulk();
+                        for (final SearchHit searchHit : searchHits) {
+                            final UpdateRequestBuilder updateRequest =
+                                    c.prepareUpdate().setIndex(index).setId(searchHit.getId()).setDoc(SESSION_ID, newSessionId);
+                            builder.add(updateRequest);
+                        }
 
-                    return builder.execute();
+                        return builder.execute();
+                    });
+                    if (bulkResponse.hasFailures()) {
+                        throw new EsAccessException(bulkResponse.buildFailureMessage());
+                    }
                 });
-                if (bulkResponse.hasFailures()) {
-                    throw new EsAccessException(bulkResponse.buildFailureMessage());
-                }
-
-                final String sid = scrollId;
-                response = getClient().get(c -> c.prepareSearchScroll(sid).setScroll(new TimeValue(scrollTimeout)).execute());
-                if (!scrollId.equals(response.getScrollId())) {
-                    getClient().clearScroll(scrollId);
-                }
-                scrollId = response.getScrollId();
-            }
-        } finally {
-            getClient().clearScroll(scrollId);
-        }
     }
 
     @Override
@@ -299,19 +304,50 @@ public class EsUrlQueueService extends AbstractCrawlerService implements UrlQueu
         return ret;
     }
 
+    /**
+     * Generates url queues from access results of the previous session.
+     * Access results are read by a sliced scroll and each page is stored
+     * by one bulk request, so the number of concurrent bulk requests is
+     * bounded by scrollSlices.
+     */
     @Override
     public void generateUrlQueues(final String previousSessionId, final String sessionId) {
-        dataService.iterate(previousSessionId, accessResult -> {
-            final EsUrlQueue urlQueue = new EsUrlQueue();
-            urlQueue.setSessionId(sessionId);
-            urlQueue.setMethod(accessResult.getMethod());
-            urlQueue.setUrl(accessResult.getUrl());
-            urlQueue.setParentUrl(accessResult.getParentUrl());
-            urlQueue.setDepth(0);
-            urlQueue.setLastModified(accessResult.getLastModified());
-            urlQueue.setCreateTime(System.currentTimeMillis());
-            insert(urlQueue);
+        final AtomicLong counter = new AtomicLong();
+        dataService.iterate(previousSessionId, generateBatchSize, accessResultList -> {
+            final List<EsUrlQueue> urlQueueList = new ArrayList<>(accessResultList.size());
+            for (final AccessResult<String> accessResult : accessResultList) {
+                final EsUrlQueue urlQueue = new EsUrlQueue();
+                urlQueue.setSessionId(sessionId);
+                urlQueue.setMethod(accessResult.getMethod());
+                urlQueue.setUrl(accessResult.getUrl());
+                urlQueue.setParentUrl(accessResult.getParentUrl());
+                urlQueue.setDepth(0);
+                urlQueue.setLastModified(accessResult.getLastModified());
+                urlQueue.setCreateTime(System.currentTimeMillis());
+                urlQueueList.add(urlQueue);
+            }
+            final BulkResponse response = doInsertAll(urlQueueList, OpType.CREATE, RefreshPolicy.NONE);
+            if (response.hasFailures()) {
+                // a url queue which already exists is skipped
+                final String failureMessage = Arrays.stream(response.getItems())
+                        .filter(item -> item.isFailed() && item.getFailure().getStatus() != RestStatus.CONFLICT)
+                        .map(BulkItemResponse::getFailureMessage).collect(Collectors.joining("\n"));
+                if (failureMessage.length() > 0) {
+                    throw new EsAccessException("Failed to generate url queues for " + sessionId + ": " + failureMessage);
+                }
+            }
+
+            final long count = counter.addAndGet(urlQueueList.size());
+            if (count / generateLogInterval != (count - urlQueueList.size()) / generateLogInterval) {
+                logger.info("Generated {} url queues for {}", count, sessionId);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Generated {} url queues for {}", count, sessionId);
+            }
         });
+        refresh();
+        if (logger.isInfoEnabled()) {
+            logger.info("Generated {} url queues from {} for {}", counter.get(), previousSessionId, sessionId);
+        }
     }
 
     protected QueueHolder getQueueHolder(final String sessionId) {
@@ -337,4 +373,12 @@ public class EsUrlQueueService extends AbstractCrawlerService implements UrlQueu
     public void setMaxCrawlingQueueSize(final int maxCrawlingQueueSize) {
         this.maxCrawlingQueueSize = maxCrawlingQueueSize;
     }
+
+    public void setGenerateBatchSize(final int generateBatchSize) {
+        this.generateBatchSize = generateBatchSize;
+    }
+
+    public void setGenerateLogInterval(final long generateLogInterval) {
+        this.generateLogInterval = generateLogInterval;
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.entity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class EsAccessResultTest extends PlainTestCase {
+
+    public void test_new() {
+        final Map<String, Object> data = new HashMap<>();
+        data.put(EsAccessResultData.TRANSFORMER_NAME, "transformer");
+        data.put(EsAccessResultData.ENCODING, "UTF-8");
+        final Map<String, Object> source = new HashMap<>();
+        source.put(EsAccessResult.SESSION_ID, "sid");
+        source.put(EsAccessResult.RULE_ID, "rule");
+        source.put(EsAccessResult.URL, "http://example.com/");
+        source.put(EsAccessResult.PARENT_URL, null);
+        source.put(EsAccessResult.STATUS, 304);
+        source.put(EsAccessResult.HTTP_STATUS_CODE, 200);
+        source.put(EsAccessResult.METHOD, "GET");
+        source.put(EsAccessResult.MIME_TYPE, " ");
+        source.put(EsAccessResult.CREATE_TIME, 1000);
+        source.put(EsAccessResult.EXECUTION_TIME, 123L);
+        source.put(EsAccessResult.CONTENT_LENGTH, 456);
+        source.put(EsAccessResult.LAST_MODIFIED, "1970-01-01T00:00:02.000Z");
+        source.put(EsAccessResult.ACCESS_RESULT_DATA, data);
+
+        final EsAccessResult accessResult = new EsAccessResult(source);
+        assertNull(accessResult.getId());
+        assertEquals("sid", accessResult.getSessionId());
+        assertEquals("rule", accessResult.getRuleId());
+        assertEquals("http://example.com/", accessResult.getUrl());
+        assertNull(accessResult.getParentUrl());
+        assertEquals(Integer.valueOf(304), accessResult.getStatus());
+        assertEquals(Integer.valueOf(200), accessResult.getHttpStatusCode());
+        assertEquals("GET", accessResult.getMethod());
+        assertNull(accessResult.getMimeType());
+        assertEquals(Long.valueOf(1000L), accessResult.getCreateTime());
+        assertEquals(Integer.valueOf(123), accessResult.getExecutionTime());
+        assertEquals(Long.valueOf(456L), accessResult.getContentLength());
+        assertEquals(Long.valueOf(2000L), accessResult.getLastModified());
+        assertEquals("transformer", accessResult.getAccessResultData().getTransformerName());
+        assertEquals("UTF-8", accessResult.getAccessResultData().getEncoding());
+    }
+
+    public void test_new_empty() {
+        final EsAccessResult accessResult = new EsAccessResult(new HashMap<>());
+        assertNull(accessResult.getUrl());
+        assertEquals(Integer.valueOf(0), accessResult.getStatus());
+        assertNull(accessResult.getCreateTime());
+    }
+}
@@ -17,17 +17,26 @@ package org.codelibs.fess.crawler.service.impl;
 
 import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Resource;
 
 import org.codelibs.fess.crawler.client.FesenClient;
 import org.codelibs.fess.crawler.entity.AccessResult;
+import org.codelibs.fess.crawler.entity.AccessResultData;
 import org.codelibs.fess.crawler.entity.EsAccessResult;
+import org.codelibs.fess.crawler.entity.EsAccessResultData;
+import org.codelibs.fess.crawler.exception.EsAccessException;
 import org.codelibs.opensearch.runner.OpenSearchRunner;
 import org.dbflute.utflute.lastadi.LastaDiTestCase;
+import org.opensearch.OpenSearchTimeoutException;
+import org.opensearch.index.IndexNotFoundException;
 
 /**
  * @author shinsuke
@@ -179,4 +188,84 @@ public class EsDataServiceTest extends LastaDiTestCase {
         assertNull(dataService.getAccessResult("id2", "http://www.id2.com/"));
     }
 
+    public void test_iterate_batch() {
+        for (int i = 0; i < 25; i++) {
+            final EsAccessResult accessResult = new EsAccessResult();
+            accessResult.setCreateTime(System.currentTimeMillis());
+            accessResult.setMethod("GET");
+            accessResult.setSessionId("id1");
+            accessResult.setUrl("http://www.id1.com/" + i);
+            dataService.store(accessResult);
+        }
+
+        final List<String> urlList = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger maxBatchSize = new AtomicInteger();
+        final int scrollSlices = dataService.getScrollSlices();
+        dataService.setScrollSlices(2);
+        try {
+            dataService.iterate("id1", 10, accessResultList -> {
+                maxBatchSize.accumulateAndGet(accessResultList.size(), Math::max);
+                accessResultList.forEach(accessResult -> urlList.add(accessResult.getUrl()));
+            });
+        } finally {
+            dataService.setScrollSlices(scrollSlices);
+        }
+        assertEquals(25, urlList.size());
+        assertEquals(25, new HashSet<>(urlList).size());
+        assertTrue(maxBatchSize.get() <= 10);
+
+        final List<String> singleUrlList = new ArrayList<>();
+        dataService.iterate("id1", accessResult -> singleUrlList.add(accessResult.getUrl()));
+        assertEquals(25, singleUrlList.size());
+
+        dataService.delete("id1");
+    }
+
+    public void test_iterate_batch_data() {
+        for (int i = 0; i < 5; i++) {
+            final EsAccessResult accessResult = new EsAccessResult();
+            accessResult.setCreateTime(System.currentTimeMillis());
+            accessResult.setMethod("GET");
+            accessResult.setSessionId("id1");
+            accessResult.setUrl("http://www.id1.com/" + i);
+            if (i < 4) {
+                final EsAccessResultData accessResultData = new EsAccessResultData();
+                accessResultData.setTransformerName("transformer" + i);
+                accessResultData.setEncoding("UTF-8");
+                if (i < 3) {
+                    accessResultData.setData(("data" + i).getBytes(StandardCharsets.UTF_8));
+                }
+                accessResult.setAccessResultData(accessResultData);
+            }
+            dataService.store(accessResult);
+        }
+
+        final List<EsAccessResult> accessResultList = new ArrayList<>();
+        dataService.iterate("id1", 10, accessResultList::addAll);
+        assertEquals(5, accessResultList.size());
+        for (final EsAccessResult accessResult : accessResultList) {
+            final int i = Integer.parseInt(accessResult.getUrl().substring("http://www.id1.com/".length()));
+            final AccessResultData<String> accessResultData = accessResult.getAccessResultData();
+            if (i < 4) {
+                assertEquals("transformer" + i, accessResultData.getTransformerName());
+                assertEquals("UTF-8", accessResultData.getEncoding());
+                if (i < 3) {
+                    assertEquals("data" + i, new String(accessResultData.getData(), StandardCharsets.UTF_8));
+                } else {
+                    assertNull(accessResultData.getData());
+                }
+            } else {
+                assertNull(accessResultData);
+            }
+        }
+
+        dataService.delete("id1");
+    }
+
+    public void test_isRejectedByQuery() {
+        assertTrue(fesenClient.isRejectedByQuery(new IndexNotFoundException("test")));
+        assertTrue(fesenClient.isRejectedByQuery(new IllegalArgumentException("test")));
+        assertFalse(fesenClient.isRejectedByQuery(new EsAccessException("Timed out", new OpenSearchTimeoutException("test"))));
+        assertFalse(fesenClient.isRejectedByQuery(new IllegalStateException("Future got interrupted")));
+    }
 }
@@ -22,6 +22,7 @@ import java.util.UUID;
 import javax.annotation.Resource;
 
 import org.codelibs.fess.crawler.client.FesenClient;
+import org.codelibs.fess.crawler.entity.EsAccessResult;
 import org.codelibs.fess.crawler.entity.EsUrlQueue;
 import org.codelibs.opensearch.runner.OpenSearchRunner;
 import org.dbflute.utflute.lastadi.LastaDiTestCase;
@@ -35,6 +36,9 @@ public class EsUrlQueueServiceTest extends LastaDiTestCase {
     @Resource
     private EsUrlQueueService urlQueueService;
 
+    @Resource
+    private EsDataService dataService;
+
     @Resource
     private FesenClient fesenClient;
 
@@ -133,4 +137,25 @@ public class EsUrlQueueServiceTest extends LastaDiTestCase {
         assertFalse(fesenClient.prepareSearch("fess_crawler.queue").setTypes("queue").setQuery(QueryBuilders.termQuery("sessionId", "id2"))
                 .execute().actionGet().getHits().getTotalHits().value > 0);
     }
+
+    public void test_generateUrlQueues() {
+        for (int i = 0; i < 15; i++) {
+            final EsAccessResult accessResult = new EsAccessResult();
+            accessResult.setCreateTime(System.currentTimeMillis());
+            accessResult.setMethod("GET");
+            accessResult.setSessionId("prev");
+            accessResult.setUrl("http://www.example.com/" + i);
+            dataService.store(accessResult);
+        }
+
+        urlQueueService.setGenerateBatchSize(4);
+        urlQueueService.generateUrlQueues("prev", "next");
+        assertEquals(15, fesenClient.prepareSearch("fess_crawler.queue").setQuery(QueryBuilders.termQuery("sessionId", "next")).setSize(0)
+                .execute().actionGet().getHits().getTotalHits().value);
+
+        // existing url queues are skipped
+        urlQueueService.generateUrlQueues("prev", "next");
+        assertEquals(15, fesenClient.prepareSearch("fess_crawler.queue").setQuery(QueryBuilders.termQuery("sessionId", "next")).setSize(0)
+                .execute().actionGet().getHits().getTotalHits().value);
+    }
 }
@@ -17,7 +17,9 @@ package org.codelibs.fess.crawler;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.annotation.Resource;
 
@@ -27,6 +29,7 @@ import org.codelibs.fess.crawler.container.CrawlerContainer;
 import org.codelibs.fess.crawler.entity.AccessResult;
 import org.codelibs.fess.crawler.entity.UrlQueue;
 import org.codelibs.fess.crawler.filter.UrlFilter;
+import org.codelibs.fess.crawler.helper.UrlConvertHelper;
 import org.codelibs.fess.crawler.interval.IntervalController;
 import org.codelibs.fess.crawler.rule.RuleManager;
 import org.codelibs.fess.crawler.service.DataService;
@@ -37,6 +40,11 @@ import org.slf4j.LoggerFactory;
 /**
  * Crawler manages/controls a crawling information.
  *
+ * By default, {@link #cleanup(String)} returns before url queues and access
+ * results of the session are deleted. A caller which reuses the session id
+ * after a cleanup needs to call {@link #awaitCleanup(long)} first, or set
+ * backgroundCleanup to false.
+ *
  * @author shinsuke
  *
  */
@@ -77,6 +85,10 @@ public class Crawler implements Runnable {
 
     protected ThreadGroup crawlerThreadGroup;
 
+    protected boolean backgroundCleanup = true;
+
+    protected final List<Thread> cleanupThreadList = new CopyOnWriteArrayList<>();
+
     public Crawler() {
         crawlerContext = new CrawlerContext();
         final SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMddHHmmssSSS", Locale.ENGLISH);
@@ -127,11 +139,65 @@ public class Crawler implements Runnable {
         }
     }
 
+    /**
+     * Deletes url queues, access results and url filters of the session.
+     * If backgroundCleanup is true, url queues and access results are deleted
+     * in a background thread and this method returns without waiting for them.
+     * The thread is not a daemon thread, so the JVM does not exit until they are deleted.
+     *
+     * @param sessionId the session id
+     */
     public void cleanup(final String sessionId) {
+        urlFilter.clear();
+        if (!backgroundCleanup) {
+            deleteSessionData(sessionId);
+            return;
+        }
+
+        final Thread thread = new Thread(() -> {
+            try {
+                deleteSessionData(sessionId);
+            } catch (final Exception e) {
+                logger.warn("Failed to clean up " + sessionId, e);
+            } finally {
+                cleanupThreadList.remove(Thread.currentThread());
+            }
+        }, "CrawlerCleanup-" + sessionId);
+        // a daemon thread could leave the session half deleted at exit
+        thread.setDaemon(false);
+        thread.setPriority(threadPriority);
+        cleanupThreadList.add(thread);
+        thread.start();
+    }
+
+    protected void deleteSessionData(final String sessionId) {
         // TODO transaction?
         urlQueueService.delete(sessionId);
         dataService.delete(sessionId);
-        urlFilter.clear();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Deleted url queues and access results for {}", sessionId);
+        }
+    }
+
+    /**
+     * Waits for all cleanups running in background threads.
+     *
+     * @param millis the time to wait in total, or 0 to wait forever
+     */
+    public void awaitCleanup(final long millis) {
+        final long deadline = System.currentTimeMillis() + millis;
+        for (final Thread thread : cleanupThreadList) {
+            final long timeout = millis == 0 ? 0 : deadline - System.currentTimeMillis();
+            if (millis > 0 && timeout <= 0) {
+                return;
+            }
+            try {
+                thread.join(timeout);
+            } catch (final InterruptedException e) {
+                logger.warn("Interrupted job at {}", thread.getName());
+                return;
+            }
+        }
     }
 
     public void addIncludeFilter(final String regexp) {
@@ -193,6 +259,14 @@ public class Crawler implements Runnable {
         this.background = background;
     }
 
+    public boolean isBackgroundCleanup() {
+        return backgroundCleanup;
+    }
+
+    public void setBackgroundCleanup(final boolean backgroundCleanup) {
+        this.backgroundCleanup = backgroundCleanup;
+    }
+
     public boolean isDaemon() {
         return daemon;
     }
@@ -212,6 +286,7 @@ public class Crawler implements Runnable {
         crawlerContext.urlFilter = urlFilter;
         crawlerContext.ruleManager = ruleManager;
         crawlerContext.intervalController = intervalController;
+        crawlerContext.urlConvertHelper = getUrlConvertHelper();
 
         urlFilter.init(crawlerContext.sessionId);
 
@@ -250,6 +325,21 @@ public class Crawler implements Runnable {
         return crawlerContext;
     }
 
+    /**
+     * Looks up urlConvertHelper once for a crawl. It is optional, so child
+     * urls are not converted if it is not available.
+     */
+    protected UrlConvertHelper getUrlConvertHelper() {
+        try {
+            return crawlerContainer.getComponent("urlConvertHelper");
+        } catch (final Exception e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("urlConvertHelper is unavailable.", e);
+            }
+            return null;
+        }
+    }
+
     public void setNumOfThread(final int numOfThread) {
         crawlerContext.numOfThread = numOfThread;
     }
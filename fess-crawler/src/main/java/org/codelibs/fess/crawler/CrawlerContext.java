@@ -20,6 +20,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.codelibs.core.collection.LruHashSet;
 import org.codelibs.fess.crawler.filter.UrlFilter;
+import org.codelibs.fess.crawler.helper.UrlConvertHelper;
 import org.codelibs.fess.crawler.interval.IntervalController;
 import org.codelibs.fess.crawler.rule.RuleManager;
 
@@ -44,6 +45,8 @@ public class CrawlerContext {
 
     protected IntervalController intervalController;
 
+    protected UrlConvertHelper urlConvertHelper;
+
     protected Set<String> robotsTxtUrlSet = new LruHashSet<>(10000);
 
     protected ThreadLocal<String[]> sitemapsLocal = new ThreadLocal<>();
@@ -119,6 +122,17 @@ public class CrawlerContext {
         this.intervalController = intervalController;
     }
 
+    /**
+     * @return the helper to convert child urls, or null if it is not available
+     */
+    public UrlConvertHelper getUrlConvertHelper() {
+        return urlConvertHelper;
+    }
+
+    public void setUrlConvertHelper(final UrlConvertHelper urlConvertHelper) {
+        this.urlConvertHelper = urlConvertHelper;
+    }
+
     public Set<String> getRobotsTxtUrlSet() {
         return robotsTxtUrlSet;
     }
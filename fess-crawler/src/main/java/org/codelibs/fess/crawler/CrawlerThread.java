@@ -18,6 +18,7 @@ package org.codelibs.fess.crawler;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -37,6 +38,7 @@ import org.codelibs.fess.crawler.entity.UrlQueue;
 import org.codelibs.fess.crawler.exception.ChildUrlsException;
 import org.codelibs.fess.crawler.exception.CrawlingAccessException;
 import org.codelibs.fess.crawler.helper.LogHelper;
+import org.codelibs.fess.crawler.helper.UrlConvertHelper;
 import org.codelibs.fess.crawler.interval.IntervalController;
 import org.codelibs.fess.crawler.log.LogType;
 import org.codelibs.fess.crawler.processor.ResponseProcessor;
@@ -300,28 +302,34 @@ public class CrawlerThread implements Runnable {
         }
 
         // add url and filter
+        final UrlConvertHelper urlConvertHelper = crawlerContext.getUrlConvertHelper();
         final Set<String> urlSet = new HashSet<>();
-        final List<UrlQueue<?>> childList = childUrlList.stream().filter(d -> StringUtil.isNotBlank(d.getUrl())
-                && urlSet.add(d.getUrl() + "\n" + d.getMetaData()) && crawlerContext.urlFilter.match(d.getUrl())).map(d -> {
-                    final UrlQueue<?> uq = crawlerContainer.getComponent("urlQueue");
-                    uq.setCreateTime(SystemUtil.currentTimeMillis());
-                    uq.setDepth(depth);
-                    uq.setMethod(Constants.GET_METHOD);
-                    uq.setParentUrl(url);
-                    uq.setSessionId(crawlerContext.sessionId);
-                    uq.setUrl(d.getUrl());
-                    uq.setMetaData(d.getMetaData());
-                    return uq;
-                }).collect(Collectors.toList());
+        final List<UrlQueue<?>> childList = childUrlList.stream().filter(d -> StringUtil.isNotBlank(d.getUrl())).map(d -> {
+            final String childUrl = urlConvertHelper != null ? urlConvertHelper.canonicalize(d.getUrl()) : d.getUrl();
+            if (!urlSet.add(childUrl + "\n" + d.getMetaData()) || !crawlerContext.urlFilter.match(childUrl)) {
+                return null;
+            }
+            final UrlQueue<?> uq = crawlerContainer.getComponent("urlQueue");
+            uq.setCreateTime(SystemUtil.currentTimeMillis());
+            uq.setDepth(depth);
+            uq.setMethod(Constants.GET_METHOD);
+            uq.setParentUrl(url);
+            uq.setSessionId(crawlerContext.sessionId);
+            uq.setUrl(childUrl);
+            uq.setMetaData(d.getMetaData());
+            return uq;
+        }).filter(Objects::nonNull).collect(Collectors.toList());
         urlQueueService.offerAll(crawlerContext.sessionId, childList);
     }
 
-    protected void storeChildUrl(final String childUrl, final String parentUrl, final String metaData, final int depth) {
+    protected void storeChildUrl(final String url, final String parentUrl, final String metaData, final int depth) {
         if (crawlerContext.getMaxDepth() >= 0 && depth > crawlerContext.getMaxDepth()) {
             return;
         }
 
         // add url and filter
+        final UrlConvertHelper urlConvertHelper = crawlerContext.getUrlConvertHelper();
+        final String childUrl = urlConvertHelper != null && StringUtil.isNotBlank(url) ? urlConvertHelper.canonicalize(url) : url;
         if (StringUtil.isNotBlank(childUrl) && crawlerContext.urlFilter.match(childUrl)) {
             final List<UrlQueue<?>> childList = new ArrayList<>(1);
             final UrlQueue<?> uq = crawlerContainer.getComponent("urlQueue");
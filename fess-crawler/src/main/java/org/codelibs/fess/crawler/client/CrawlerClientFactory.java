@@ -15,6 +15,7 @@
  */
 package org.codelibs.fess.crawler.client;
 
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,6 +43,8 @@ public class CrawlerClientFactory {
 
     protected Map<Pattern, CrawlerClient> clientMap = new LinkedHashMap<>();
 
+    protected volatile ClientTable clientTable;
+
     @PostConstruct
     public void init() {
         try {
@@ -64,6 +67,7 @@ public class CrawlerClientFactory {
             throw new CrawlerSystemException("CrawlerClient is null.");
         }
         clientMap.put(Pattern.compile(regex), client);
+        clientTable = new ClientTable(clientMap);
     }
 
     public void addClient(final String regex, final CrawlerClient client, final int pos) {
@@ -88,6 +92,7 @@ public class CrawlerClientFactory {
             newClientMap.put(Pattern.compile(regex), client);
         }
         clientMap = newClientMap;
+        clientTable = new ClientTable(clientMap);
     }
 
     public void addClient(final List<String> regexList, final CrawlerClient client) {
@@ -102,6 +107,7 @@ public class CrawlerClientFactory {
                 clientMap.put(Pattern.compile(regex), client);
             }
         }
+        clientTable = new ClientTable(clientMap);
     }
 
     public CrawlerClient getClient(final String url) {
@@ -109,13 +115,12 @@ public class CrawlerClientFactory {
             return null;
         }
 
-        for (final Map.Entry<Pattern, CrawlerClient> entry : clientMap.entrySet()) {
-            final Matcher matcher = entry.getKey().matcher(url);
-            if (matcher.matches()) {
-                return entry.getValue();
-            }
+        ClientTable table = clientTable;
+        if (table == null || !table.isCreatedFrom(clientMap)) {
+            table = new ClientTable(clientMap);
+            clientTable = table;
         }
-        return null;
+        return table.getClient(url);
     }
 
     public void setInitParameterMap(final Map<String, Object> params) {
@@ -128,5 +133,78 @@ public class CrawlerClientFactory {
 
     public void setClientMap(final Map<Pattern, CrawlerClient> clientMap) {
         this.clientMap = clientMap;
+        clientTable = null;
+    }
+
+    /**
+     * ClientTable is an immutable lookup table of clients.
+     * A pattern like "http:.*" is looked up by the scheme of a url, and the
+     * other patterns are evaluated in the registered order.
+     */
+    protected static class ClientTable {
+        private static final Pattern SCHEME_PATTERN = Pattern.compile("\\^?([a-zA-Z][a-zA-Z0-9]*):\\.\\*");
+
+        protected final Map<Pattern, CrawlerClient> source;
+
+        protected final int size;
+
+        protected final Map<String, Integer> schemeMap = new HashMap<>();
+
+        protected final CrawlerClient[] clients;
+
+        protected final Pattern[] patterns;
+
+        protected ClientTable(final Map<Pattern, CrawlerClient> clientMap) {
+            source = clientMap;
+            size = clientMap.size();
+            clients = new CrawlerClient[size];
+            patterns = new Pattern[size];
+            int i = 0;
+            for (final Map.Entry<Pattern, CrawlerClient> entry : clientMap.entrySet()) {
+                final Pattern pattern = entry.getKey();
+                clients[i] = entry.getValue();
+                if (pattern.flags() == 0) {
+                    final Matcher matcher = SCHEME_PATTERN.matcher(pattern.pattern());
+                    if (matcher.matches()) {
+                        schemeMap.putIfAbsent(matcher.group(1), i);
+                        i++;
+                        continue;
+                    }
+                }
+                patterns[i] = pattern;
+                i++;
+            }
+        }
+
+        protected boolean isCreatedFrom(final Map<Pattern, CrawlerClient> clientMap) {
+            return source == clientMap && size == clientMap.size();
+        }
+
+        protected CrawlerClient getClient(final String url) {
+            int end = size;
+            final int pos = url.indexOf(':');
+            if (pos > 0 && !hasLineTerminator(url, pos + 1)) {
+                final Integer index = schemeMap.get(url.substring(0, pos));
+                if (index != null) {
+                    end = index;
+                }
+            }
+            for (int i = 0; i < end; i++) {
+                if (patterns[i] != null && patterns[i].matcher(url).matches()) {
+                    return clients[i];
+                }
+            }
+            return end < size ? clients[end] : null;
+        }
+
+        private static boolean hasLineTerminator(final String value, final int start) {
+            for (int i = start; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
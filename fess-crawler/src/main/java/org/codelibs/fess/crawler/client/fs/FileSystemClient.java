@@ -16,6 +16,7 @@
 package org.codelibs.fess.crawler.client.fs;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
@@ -149,7 +150,18 @@ public class FileSystemClient extends AbstractCrawlerClient {
                 responseData.setLastModified(new Date(file.lastModified()));
                 if (file.canRead()) {
                     final MimeTypeHelper mimeTypeHelper = crawlerContainer.getComponent("mimeTypeHelper");
-                    try (final InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+                    // a small file is read once and the bytes are also used to detect the type
+                    byte[] content = null;
+                    if (includeContent && file.length() < maxCachedContentSize) {
+                        try (InputStream contentStream = new BufferedInputStream(new FileInputStream(file))) {
+                            content = InputStreamUtil.getBytes(contentStream);
+                        } catch (final Exception e) {
+                            logger.warn("I/O Exception.", e);
+                            responseData.setHttpStatusCode(Constants.SERVER_ERROR_STATUS_CODE);
+                        }
+                    }
+                    try (final InputStream is = content != null ? new ByteArrayInputStream(content)
+                            : new BufferedInputStream(new FileInputStream(file))) {
                         responseData.setMimeType(mimeTypeHelper.getContentType(is, file.getName()));
                     } catch (final Exception e) {
                         responseData.setMimeType(mimeTypeHelper.getContentType(null, file.getName()));
@@ -165,11 +177,8 @@ public class FileSystemClient extends AbstractCrawlerClient {
 
                     if (includeContent) {
                         if (file.length() < maxCachedContentSize) {
-                            try (InputStream contentStream = new BufferedInputStream(new FileInputStream(file))) {
-                                responseData.setResponseBody(InputStreamUtil.getBytes(contentStream));
-                            } catch (final Exception e) {
-                                logger.warn("I/O Exception.", e);
-                                responseData.setHttpStatusCode(Constants.SERVER_ERROR_STATUS_CODE);
+                            if (content != null) {
+                                responseData.setResponseBody(content);
                             }
                         } else {
                             responseData.setResponseBody(file, false);
@@ -17,7 +17,6 @@ package org.codelibs.fess.crawler.client.http;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.ConnectException;
@@ -117,6 +116,7 @@ import org.codelibs.fess.crawler.helper.ContentLengthHelper;
 import org.codelibs.fess.crawler.helper.MimeTypeHelper;
 import org.codelibs.fess.crawler.helper.RobotsTxtHelper;
 import org.codelibs.fess.crawler.util.CrawlingParameterUtil;
+import org.codelibs.fess.crawler.util.PrefixCaptureInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -729,7 +729,9 @@ public class HcHttpClient extends AbstractCrawlerClient {
                     contentType = defaultMimeType;
                 }
             } else {
-                final InputStream responseBodyStream = httpEntity.getContent();
+                // keep the head of the body to detect a content type without reading the temp file
+                final PrefixCaptureInputStream responseBodyStream =
+                        new PrefixCaptureInputStream(httpEntity.getContent(), contentType == null ? mimeTypeHelper.getPrefixSize() : 0);
                 try (final DeferredFileOutputStream dfos = new DeferredFileOutputStream((int) maxCachedContentSize, "crawler-HcHttpClient-",
                         ".out", SystemUtils.getJavaIoTmpDir())) {
                     CopyUtil.copy(responseBodyStream, dfos);
@@ -751,7 +753,7 @@ public class HcHttpClient extends AbstractCrawlerClient {
                         responseData.setResponseBody(outputFile, true);
                         contentLength = outputFile.length();
                         if (contentType == null) {
-                            try (InputStream is = new FileInputStream(outputFile)) {
+                            try (InputStream is = responseBodyStream.getPrefixStream()) {
                                 contentType = mimeTypeHelper.getContentType(is, url);
                             } catch (final Exception e) {
                                 logger.debug("Failed to detect mime-type.", e);
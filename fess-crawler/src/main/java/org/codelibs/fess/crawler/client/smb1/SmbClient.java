@@ -17,6 +17,7 @@ package org.codelibs.fess.crawler.client.smb1;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
@@ -53,6 +54,7 @@ import org.codelibs.fess.crawler.exception.CrawlingAccessException;
 import org.codelibs.fess.crawler.exception.MaxLengthExceededException;
 import org.codelibs.fess.crawler.helper.ContentLengthHelper;
 import org.codelibs.fess.crawler.helper.MimeTypeHelper;
+import org.codelibs.fess.crawler.util.PrefixCaptureInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -274,6 +276,7 @@ public class SmbClient extends AbstractCrawlerClient {
                         if (logger.isDebugEnabled()) {
                             logger.debug("Parsing SmbFile Content: {}", filePath);
                         }
+                        byte[] prefix = null;
                         if (file.getContentLength() < maxCachedContentSize) {
                             try (InputStream contentStream = new BufferedInputStream(new SmbFileInputStream(file))) {
                                 responseData.setResponseBody(InputStreamUtil.getBytes(contentStream));
@@ -285,7 +288,7 @@ public class SmbClient extends AbstractCrawlerClient {
                             File outputFile = null;
                             try {
                                 outputFile = File.createTempFile("crawler-SmbClient-", ".out");
-                                copy(file, outputFile);
+                                prefix = copy(file, outputFile, mimeTypeHelper.getPrefixSize());
                                 responseData.setResponseBody(outputFile, true);
                             } catch (final Exception e) {
                                 logger.warn("I/O Exception.", e);
@@ -296,7 +299,7 @@ public class SmbClient extends AbstractCrawlerClient {
                         if (logger.isDebugEnabled()) {
                             logger.debug("Parsing SmbFile MIME Type: {}", filePath);
                         }
-                        try (final InputStream is = responseData.getResponseBody()) {
+                        try (final InputStream is = prefix != null ? new ByteArrayInputStream(prefix) : responseData.getResponseBody()) {
                             responseData.setMimeType(mimeTypeHelper.getContentType(is, file.getName()));
                         } catch (final Exception e) {
                             responseData.setMimeType(mimeTypeHelper.getContentType(null, file.getName()));
@@ -426,11 +429,14 @@ public class SmbClient extends AbstractCrawlerClient {
         }
     }
 
-    private void copy(final SmbFile src, final File dest) {
+    /**
+     * Copies the file and returns the first bytes of it.
+     */
+    private byte[] copy(final SmbFile src, final File dest, final int prefixSize) {
         if (dest.exists() && !dest.canWrite()) {
-            return;
+            return null;
         }
-        try (BufferedInputStream in = new BufferedInputStream(new SmbFileInputStream(src));
+        try (PrefixCaptureInputStream in = new PrefixCaptureInputStream(new BufferedInputStream(new SmbFileInputStream(src)), prefixSize);
                 BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(dest))) {
             final byte[] buf = new byte[1024];
             int length;
@@ -438,6 +444,7 @@ public class SmbClient extends AbstractCrawlerClient {
                 out.write(buf, 0, length);
                 out.flush();
             }
+            return in.getPrefix();
         } catch (final IOException e) {
             throw new IORuntimeException(e);
         }
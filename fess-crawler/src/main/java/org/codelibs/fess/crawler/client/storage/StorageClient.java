@@ -16,6 +16,7 @@
 package org.codelibs.fess.crawler.client.storage;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.util.Date;
@@ -44,6 +45,7 @@ import org.codelibs.fess.crawler.exception.CrawlingAccessException;
 import org.codelibs.fess.crawler.exception.MaxLengthExceededException;
 import org.codelibs.fess.crawler.helper.ContentLengthHelper;
 import org.codelibs.fess.crawler.helper.MimeTypeHelper;
+import org.codelibs.fess.crawler.util.PrefixCaptureInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -206,6 +208,8 @@ public class StorageClient extends AbstractCrawlerClient {
                 if (objectTags != null) {
                     objectTags.get().entrySet().forEach(e -> responseData.addMetaData(e.getKey(), e.getValue()));
                 }
+                final MimeTypeHelper mimeTypeHelper = crawlerContainer.getComponent("mimeTypeHelper");
+                byte[] prefix = null;
                 if (statObject.size() < maxCachedContentSize) {
                     final GetObjectArgs args = GetObjectArgs.builder().bucket(bucketName).object(path).build();
                     try (InputStream contentStream = new BufferedInputStream(minioClient.getObject(args))) {
@@ -219,7 +223,10 @@ public class StorageClient extends AbstractCrawlerClient {
                     try {
                         outputFile = File.createTempFile("crawler-SmbClient-", ".out");
                         final GetObjectArgs args = GetObjectArgs.builder().bucket(bucketName).object(path).build();
-                        CopyUtil.copy(minioClient.getObject(args), outputFile);
+                        final PrefixCaptureInputStream in =
+                                new PrefixCaptureInputStream(minioClient.getObject(args), mimeTypeHelper.getPrefixSize());
+                        CopyUtil.copy(in, outputFile);
+                        prefix = in.getPrefix();
                         responseData.setResponseBody(outputFile, true);
                     } catch (final Exception e) {
                         logger.warn("I/O Exception.", e);
@@ -228,8 +235,7 @@ public class StorageClient extends AbstractCrawlerClient {
                     }
                 }
 
-                final MimeTypeHelper mimeTypeHelper = crawlerContainer.getComponent("mimeTypeHelper");
-                try (final InputStream is = responseData.getResponseBody()) {
+                try (final InputStream is = prefix != null ? new ByteArrayInputStream(prefix) : responseData.getResponseBody()) {
                     responseData.setMimeType(mimeTypeHelper.getContentType(is, statObject.object()));
                 } catch (final Exception e) {
                     responseData.setMimeType(mimeTypeHelper.getContentType(null, statObject.object()));
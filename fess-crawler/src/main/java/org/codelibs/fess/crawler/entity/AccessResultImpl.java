@@ -15,6 +15,8 @@
  */
 package org.codelibs.fess.crawler.entity;
 
+import java.util.Date;
+
 import org.codelibs.core.beans.util.BeanUtil;
 import org.codelibs.fess.crawler.Constants;
 
@@ -56,16 +58,70 @@ public class AccessResultImpl<IDTYPE> implements AccessResult<IDTYPE> {
 
         setCreateTime(System.currentTimeMillis());
         if (responseData != null) {
-            BeanUtil.copyBeanToBean(responseData, this);
+            copyResponseData(responseData);
         }
 
         final AccessResultData<IDTYPE> accessResultData = new AccessResultDataImpl<>();
         if (resultData != null) {
-            BeanUtil.copyBeanToBean(resultData, accessResultData);
+            copyResultData(resultData, accessResultData);
         }
         setAccessResultData(accessResultData);
     }
 
+    /**
+     * Copies the properties of the response data to this access result.
+     * Custom subclasses on either side may have additional properties,
+     * so they are copied by reflection.
+     *
+     * @param responseData the response data
+     */
+    protected void copyResponseData(final ResponseData responseData) {
+        if (responseData.getClass() != ResponseData.class || !isDirectCopySupported()) {
+            BeanUtil.copyBeanToBean(responseData, this);
+            return;
+        }
+
+        setSessionId(responseData.getSessionId());
+        setRuleId(responseData.getRuleId());
+        setUrl(responseData.getUrl());
+        setParentUrl(responseData.getParentUrl());
+        setStatus(responseData.getStatus());
+        setHttpStatusCode(responseData.getHttpStatusCode());
+        setMethod(responseData.getMethod());
+        setMimeType(responseData.getMimeType());
+        setExecutionTime((int) responseData.getExecutionTime());
+        setContentLength(responseData.getContentLength());
+        final Date lastModified = responseData.getLastModified();
+        setLastModified(lastModified != null ? lastModified.getTime() : null);
+    }
+
+    /**
+     * Returns true if this class has no properties other than the ones
+     * copied by {@link #copyResponseData(ResponseData)}.
+     *
+     * @return true if the properties are copied without reflection
+     */
+    protected boolean isDirectCopySupported() {
+        return getClass() == AccessResultImpl.class;
+    }
+
+    /**
+     * Copies the properties of the result data to the access result data.
+     *
+     * @param resultData the result data
+     * @param accessResultData the access result data
+     */
+    protected static void copyResultData(final ResultData resultData, final AccessResultData<?> accessResultData) {
+        if (resultData.getClass() != ResultData.class) {
+            BeanUtil.copyBeanToBean(resultData, accessResultData);
+            return;
+        }
+
+        accessResultData.setTransformerName(resultData.getTransformerName());
+        accessResultData.setData(resultData.getData());
+        accessResultData.setEncoding(resultData.getEncoding());
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -50,6 +50,8 @@ public class ExtractData
 
     protected String content;
 
+    protected boolean truncated;
+
     public ExtractData() {
         // nothing
     }
@@ -82,8 +84,19 @@ public class ExtractData
         this.content = content;
     }
 
+    /**
+     * @return true if the content was cut at the output limit of the extractor
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(final boolean truncated) {
+        this.truncated = truncated;
+    }
+
     @Override
     public String toString() {
-        return "ExtractData [metadata=" + metadata + ", content=" + content + "]";
+        return "ExtractData [metadata=" + metadata + ", content=" + content + ", truncated=" + truncated + "]";
     }
 }
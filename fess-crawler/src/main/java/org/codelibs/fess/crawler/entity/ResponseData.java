@@ -18,7 +18,6 @@ package org.codelibs.fess.crawler.entity;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,6 +30,7 @@ import java.util.Set;
 import org.codelibs.core.exception.IORuntimeException;
 import org.codelibs.core.io.FileUtil;
 import org.codelibs.fess.crawler.Constants;
+import org.codelibs.fess.crawler.util.FileBackedInputStream;
 
 /**
  * @author shinsuke
@@ -94,7 +94,7 @@ public class ResponseData implements Closeable {
         }
         if (responseBodyFile != null) {
             try {
-                return new FileInputStream(responseBodyFile);
+                return new FileBackedInputStream(responseBodyFile);
             } catch (final FileNotFoundException e) {
                 throw new IORuntimeException(e);
             }
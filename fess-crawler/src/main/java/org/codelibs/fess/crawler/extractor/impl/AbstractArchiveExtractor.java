@@ -0,0 +1,351 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.extractor.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.apache.commons.lang3.SystemUtils;
+import org.codelibs.core.io.CopyUtil;
+import org.codelibs.core.io.FileUtil;
+import org.codelibs.fess.crawler.entity.ExtractData;
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+import org.codelibs.fess.crawler.exception.ExtractException;
+import org.codelibs.fess.crawler.extractor.Extractor;
+import org.codelibs.fess.crawler.extractor.ExtractorFactory;
+import org.codelibs.fess.crawler.helper.MimeTypeHelper;
+import org.codelibs.fess.crawler.util.IgnoreCloseInputStream;
+import org.codelibs.fess.crawler.util.WorkerExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class of extractors for archive files.
+ *
+ * Entries are extracted sequentially by default. If maxThreads is positive,
+ * each entry is buffered and extracted on a {@link WorkerExecutor}, and the
+ * texts are joined in the entry order. Nested archives are read as streams
+ * from the enclosing archive up to maxNestedDepth.
+ *
+ * @author shinsuke
+ *
+ */
+public abstract class AbstractArchiveExtractor extends AbstractExtractor {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractArchiveExtractor.class);
+
+    protected long maxContentSize = -1;
+
+    protected int maxNestedDepth = 5;
+
+    protected int maxThreads = 0; // sequential
+
+    protected int memorySize = 1024 * 1024; // 1M
+
+    protected final WorkerExecutor workerExecutor = new WorkerExecutor(getClass().getSimpleName());
+
+    @PreDestroy
+    public void destroy() {
+        workerExecutor.shutdown();
+    }
+
+    @Override
+    public ExtractData getText(final InputStream in, final Map<String, String> params) {
+        if (in == null) {
+            throw new CrawlerSystemException("The inputstream is null.");
+        }
+
+        final ArchiveContext context = new ArchiveContext(getMimeTypeHelper(), getExtractorFactory(), getMaxOutputChars(params));
+        try {
+            extract(in, context);
+            final ExtractData extractData = new ExtractData(context.getText());
+            extractData.setTruncated(context.isTruncated());
+            return extractData;
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Reads entries from the archive and passes them to
+     * {@link ArchiveContext#addEntry(String, InputStream)}.
+     *
+     * @param in the input stream of the archive
+     * @param context the context to store texts
+     */
+    protected abstract void extract(InputStream in, ArchiveContext context);
+
+    protected boolean isParallel() {
+        // an archive in an entry processed on a worker is extracted sequentially to avoid a deadlock
+        return maxThreads > 0 && !WorkerExecutor.isAnyWorkerThread();
+    }
+
+    protected class ArchiveContext {
+        protected final MimeTypeHelper mimeTypeHelper;
+
+        protected final ExtractorFactory extractorFactory;
+
+        protected final int depth;
+
+        protected final long maxChars;
+
+        protected final AtomicBoolean truncated;
+
+        protected final List<Object> resultList;
+
+        protected final AtomicLong outputChars;
+
+        protected final WorkerExecutor executor;
+
+        protected final Semaphore semaphore;
+
+        protected final List<File> tempFileList;
+
+        protected ArchiveContext(final MimeTypeHelper mimeTypeHelper, final ExtractorFactory extractorFactory, final long maxChars) {
+            this.mimeTypeHelper = mimeTypeHelper;
+            this.extractorFactory = extractorFactory;
+            this.maxChars = maxChars;
+            depth = 0;
+            truncated = new AtomicBoolean();
+            resultList = new ArrayList<>();
+            outputChars = new AtomicLong();
+            if (isParallel()) {
+                executor = workerExecutor;
+                // limits buffered entries waiting for extraction
+                semaphore = new Semaphore(maxThreads * 2);
+            } else {
+                executor = null;
+                semaphore = null;
+            }
+            tempFileList = new ArrayList<>();
+        }
+
+        protected ArchiveContext(final ArchiveContext parent) {
+            mimeTypeHelper = parent.mimeTypeHelper;
+            extractorFactory = parent.extractorFactory;
+            depth = parent.depth + 1;
+            maxChars = parent.maxChars;
+            truncated = parent.truncated;
+            resultList = parent.resultList;
+            outputChars = parent.outputChars;
+            executor = parent.executor;
+            semaphore = parent.semaphore;
+            tempFileList = parent.tempFileList;
+        }
+
+        /**
+         * Extracts a text from the entry. The stream is not closed.
+         *
+         * @param filename the name of the entry
+         * @param in the input stream of the entry
+         * @throws IOException if the entry cannot be buffered
+         */
+        public void addEntry(final String filename, final InputStream in) throws IOException {
+            if (isFull()) {
+                truncated.set(true);
+                return;
+            }
+            final String mimeType = mimeTypeHelper.getContentType(null, filename);
+            if (mimeType == null) {
+                return;
+            }
+            final Extractor extractor = extractorFactory.getExtractor(mimeType);
+            if (extractor == null) {
+                return;
+            }
+
+            if (extractor instanceof final AbstractArchiveExtractor archiveExtractor) {
+                if (depth >= maxNestedDepth) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Skipped {}: nested depth {} exceeds {}", filename, depth + 1, maxNestedDepth);
+                    }
+                    return;
+                }
+                try {
+                    archiveExtractor.extract(new IgnoreCloseInputStream(in), new ArchiveContext(this));
+                } catch (final Exception e) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Exception in an internal extractor.", e);
+                    }
+                }
+                return;
+            }
+
+            final Map<String, String> map = new HashMap<>();
+            map.put(ExtractData.RESOURCE_NAME_KEY, filename);
+            if (executor == null) {
+                addResult(extract(extractor, new IgnoreCloseInputStream(in), map));
+                return;
+            }
+
+            try {
+                semaphore.acquire();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExtractException("Interrupted while extracting " + filename, e);
+            }
+            boolean submitted = false;
+            try (DeferredFileOutputStream dfos = new DeferredFileOutputStream(memorySize, "archive", ".tmp", SystemUtils.getJavaIoTmpDir())) {
+                CopyUtil.copy(in, dfos);
+                dfos.flush();
+                final byte[] data = dfos.isInMemory() ? dfos.getData() : null;
+                final File file = dfos.isInMemory() ? null : dfos.getFile();
+                if (file != null) {
+                    tempFileList.add(file);
+                }
+                resultList.add(executor.submit(() -> {
+                    try {
+                        if (isFull()) {
+                            truncated.set(true);
+                            return null;
+                        }
+                        try (InputStream is = data != null ? new ByteArrayInputStream(data)
+                                : new BufferedInputStream(new FileInputStream(file))) {
+                            final String text = extract(extractor, is, map);
+                            if (text != null) {
+                                outputChars.addAndGet(text.length() + 1L);
+                            }
+                            return text;
+                        }
+                    } finally {
+                        semaphore.release();
+                    }
+                }));
+                submitted = true;
+            } finally {
+                if (!submitted) {
+                    semaphore.release();
+                }
+            }
+        }
+
+        protected String extract(final Extractor extractor, final InputStream in, final Map<String, String> params) {
+            try {
+                return extractor.getText(in, params).getContent();
+            } catch (final Exception e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Exception in an internal extractor.", e);
+                }
+                return null;
+            }
+        }
+
+        protected void addResult(final String text) {
+            if (text != null) {
+                resultList.add(text);
+                outputChars.addAndGet(text.length() + 1L);
+            }
+        }
+
+        /**
+         * @return true if the output reaches the limit
+         */
+        public boolean isFull() {
+            return maxChars >= 0 && outputChars.get() >= maxChars;
+        }
+
+        /**
+         * @return true if entries were skipped or the text was cut at the limit
+         */
+        public boolean isTruncated() {
+            return truncated.get();
+        }
+
+        public boolean isEmpty() {
+            return resultList.isEmpty();
+        }
+
+        protected String getText() {
+            final StringBuilder buf = new StringBuilder(1000);
+            for (final Object result : resultList) {
+                String text;
+                if (result instanceof final Future<?> future) {
+                    try {
+                        text = (String) future.get();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new ExtractException("Interrupted while extracting a text.", e);
+                    } catch (final ExecutionException e) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Exception in an internal extractor.", e);
+                        }
+                        text = null;
+                    }
+                } else {
+                    text = (String) result;
+                }
+                if (text != null) {
+                    buf.append(text);
+                    buf.append('\n');
+                }
+                if (maxChars >= 0 && buf.length() >= maxChars) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Output is truncated to {} chars.", maxChars);
+                    }
+                    truncated.set(true);
+                    buf.setLength((int) maxChars);
+                    break;
+                }
+            }
+            return buf.toString().trim();
+        }
+
+        protected void close() {
+            for (final Object result : resultList) {
+                if (result instanceof final Future<?> future) {
+                    future.cancel(true);
+                }
+            }
+            for (final File file : tempFileList) {
+                FileUtil.deleteInBackground(file);
+            }
+        }
+    }
+
+    public void setMaxContentSize(final long maxContentSize) {
+        this.maxContentSize = maxContentSize;
+    }
+
+    public void setMaxNestedDepth(final int maxNestedDepth) {
+        this.maxNestedDepth = maxNestedDepth;
+    }
+
+    public void setMaxThreads(final int maxThreads) {
+        this.maxThreads = maxThreads;
+        if (maxThreads > 0) {
+            workerExecutor.setMaxThreads(maxThreads);
+        }
+    }
+
+    public void setMemorySize(final int memorySize) {
+        this.memorySize = memorySize;
+    }
+}
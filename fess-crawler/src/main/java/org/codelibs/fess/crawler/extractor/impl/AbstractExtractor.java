@@ -16,20 +16,32 @@
 package org.codelibs.fess.crawler.extractor.impl;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 
 import org.codelibs.fess.crawler.container.CrawlerContainer;
+import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.extractor.Extractor;
 import org.codelibs.fess.crawler.extractor.ExtractorFactory;
 import org.codelibs.fess.crawler.helper.MimeTypeHelper;
+import org.codelibs.fess.crawler.helper.OutputLengthHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public abstract class AbstractExtractor implements Extractor {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractExtractor.class);
 
     @Resource
     protected CrawlerContainer crawlerContainer;
 
+    protected long maxOutputChars = -1;
+
+    protected OutputLengthHelper outputLengthHelper;
+
+    private volatile boolean outputLengthHelperLoaded = false;
+
     public void register(final List<String> keyList) {
         final ExtractorFactory extractorFactory = crawlerContainer.getComponent("extractorFactory");
         extractorFactory.addExtractor(keyList, this);
@@ -50,4 +62,46 @@ public abstract class AbstractExtractor implements Extractor {
         }
         return extractorFactory;
     }
+
+    /**
+     * Returns the maximum number of characters for the content type in the parameters.
+     * A limit of outputLengthHelper takes precedence over maxOutputChars of this extractor.
+     *
+     * @param params the parameters of the extraction
+     * @return the number of characters, or -1 for no limit
+     */
+    protected long getMaxOutputChars(final Map<String, String> params) {
+        final OutputLengthHelper helper = getOutputLengthHelper();
+        if (helper != null) {
+            final long maxChars = helper.getMaxChars(params == null ? null : params.get(ExtractData.CONTENT_TYPE));
+            if (maxChars >= 0) {
+                return maxChars;
+            }
+        }
+        return maxOutputChars;
+    }
+
+    protected OutputLengthHelper getOutputLengthHelper() {
+        if (!outputLengthHelperLoaded) {
+            if (outputLengthHelper == null && crawlerContainer != null) {
+                try {
+                    outputLengthHelper = crawlerContainer.getComponent("outputLengthHelper");
+                } catch (final Exception e) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("outputLengthHelper component is not found.", e);
+                    }
+                }
+            }
+            outputLengthHelperLoaded = true;
+        }
+        return outputLengthHelper;
+    }
+
+    public void setMaxOutputChars(final long maxOutputChars) {
+        this.maxOutputChars = maxOutputChars;
+    }
+
+    public void setOutputLengthHelper(final OutputLengthHelper outputLengthHelper) {
+        this.outputLengthHelper = outputLengthHelper;
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.extractor.impl;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.codelibs.core.io.CopyUtil;
+import org.codelibs.core.io.FileUtil;
+import org.codelibs.fess.crawler.entity.ExtractData;
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+import org.codelibs.fess.crawler.exception.ExtractException;
+import org.codelibs.fess.crawler.util.BoundedWriter;
+import org.codelibs.fess.crawler.util.FileBackedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class of extractors which read a document file with event-based APIs
+ * and write the text into a {@link BoundedWriter}.
+ *
+ * @author shinsuke
+ *
+ */
+public abstract class AbstractStreamingExtractor extends AbstractExtractor {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractStreamingExtractor.class);
+
+    @Override
+    public ExtractData getText(final InputStream in, final Map<String, String> params) {
+        if (in == null) {
+            throw new CrawlerSystemException("The inputstream is null.");
+        }
+
+        final BoundedWriter writer = new BoundedWriter(getMaxOutputChars(params));
+        File tempFile = null;
+        try {
+            File file = getInputFile(in);
+            if (file == null) {
+                tempFile = File.createTempFile("crawler-", getTempFileSuffix());
+                CopyUtil.copy(in, tempFile);
+                file = tempFile;
+            }
+            extract(file, writer);
+        } catch (final Exception e) {
+            // the limit may be wrapped by a parser
+            if (!writer.isTruncated()) {
+                throw new ExtractException(e);
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Stopped extraction at {} chars.", writer.length());
+            }
+        } finally {
+            FileUtil.deleteInBackground(tempFile);
+        }
+        final ExtractData extractData = new ExtractData(writer.toString().trim());
+        extractData.setTruncated(writer.isTruncated());
+        return extractData;
+    }
+
+    /**
+     * Writes a text of the file.
+     *
+     * @param file the document file
+     * @param writer the writer which throws {@link BoundedWriter.LimitExceededException} at the limit
+     * @throws Exception if the extraction fails
+     */
+    protected abstract void extract(File file, BoundedWriter writer) throws Exception;
+
+    protected String getTempFileSuffix() {
+        return ".tmp";
+    }
+
+    protected File getInputFile(final InputStream in) {
+        if (in instanceof final FileBackedInputStream fileBackedInputStream && fileBackedInputStream.isUnread()) {
+            return fileBackedInputStream.getFile();
+        }
+        return null;
+    }
+}
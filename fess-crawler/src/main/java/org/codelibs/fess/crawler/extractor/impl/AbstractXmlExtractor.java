@@ -53,6 +53,8 @@ public abstract class AbstractXmlExtractor extends AbstractExtractor {
             new LookupTranslator(EntityArrays.BASIC_UNESCAPE), new LookupTranslator(EntityArrays.ISO8859_1_UNESCAPE),
             new LookupTranslator(EntityArrays.HTML40_EXTENDED_UNESCAPE), new NumericEntityUnescaper());
 
+    private static final Pattern ATTR_PATTERN = Pattern.compile("\\s[^ ]+=\"([^\"]*)\"");
+
     protected String encoding = Constants.UTF_8;
 
     protected int preloadSizeForCharset = 2048;
@@ -72,6 +74,10 @@ public abstract class AbstractXmlExtractor extends AbstractExtractor {
             final BufferedInputStream bis = new BufferedInputStream(in);
             final String enc = getEncoding(bis);
             final String content = UNESCAPE_HTML4.translate(new String(InputStreamUtil.getBytes(bis), enc));
+            final long maxChars = getMaxOutputChars(params);
+            if (maxChars >= 0) {
+                return createExtractData(content, maxChars);
+            }
             return createExtractData(content);
         } catch (final Exception e) {
             throw new ExtractException(e);
@@ -82,6 +88,16 @@ public abstract class AbstractXmlExtractor extends AbstractExtractor {
         return new ExtractData(extractString(content));
     }
 
+    protected ExtractData createExtractData(final String content, final long maxChars) {
+        final String text = extractString(content, maxChars);
+        if (text.length() > maxChars) {
+            final ExtractData extractData = new ExtractData(text.substring(0, (int) maxChars).trim());
+            extractData.setTruncated(true);
+            return extractData;
+        }
+        return new ExtractData(text);
+    }
+
     protected String getEncoding(final BufferedInputStream bis) {
         final byte[] b = new byte[preloadSizeForCharset];
         try {
@@ -128,6 +144,18 @@ public abstract class AbstractXmlExtractor extends AbstractExtractor {
     }
 
     protected String extractString(final String content) {
+        return extractString(content, -1);
+    }
+
+    /**
+     * Removes tags and collapses white spaces. When maxChars is not negative,
+     * the tag matching stops as soon as the text exceeds maxChars.
+     *
+     * @param content the content
+     * @param maxChars the maximum number of characters, or -1 for no limit
+     * @return the text, which is longer than maxChars if more text remains
+     */
+    protected String extractString(final String content, final long maxChars) {
         String input = content.replaceAll("[\\r\\n]", " ");
         if (ignoreCommentTag) {
             input = input.replaceAll("<!--[^>]+-->", "");
@@ -135,19 +163,57 @@ public abstract class AbstractXmlExtractor extends AbstractExtractor {
             input = input.replace("<!--", "").replace("-->", "");
         }
         final Matcher matcher = getTagPattern().matcher(input);
-        final StringBuffer sb = new StringBuffer();
-        final Pattern attrPattern = Pattern.compile("\\s[^ ]+=\"([^\"]*)\"");
+        final StringBuilder sb = new StringBuilder(Math.min(input.length(), 10000));
+        int pos = 0;
         while (matcher.find()) {
-            final String tagStr = matcher.group();
-            final Matcher attrMatcher = attrPattern.matcher(tagStr);
-            final StringBuilder buf = new StringBuilder(100);
+            appendText(sb, input, pos, matcher.start());
+            final Matcher attrMatcher = ATTR_PATTERN.matcher(input).region(matcher.start(), matcher.end());
             while (attrMatcher.find()) {
-                buf.append(attrMatcher.group(1)).append(' ');
+                appendText(sb, input, attrMatcher.start(1), attrMatcher.end(1));
+                appendText(sb, " ", 0, 1);
+            }
+            pos = matcher.end();
+            if (maxChars >= 0 && sb.length() > maxChars) {
+                int begin = 0;
+                int end = sb.length();
+                while (begin < end && sb.charAt(begin) <= ' ') {
+                    begin++;
+                }
+                while (end > begin && sb.charAt(end - 1) <= ' ') {
+                    end--;
+                }
+                if (end - begin > maxChars) {
+                    return sb.substring(begin, end);
+                }
+            }
+        }
+        appendText(sb, input, pos, input.length());
+        return sb.toString().trim();
+    }
+
+    /**
+     * Appends the text and replaces white spaces with a single space.
+     */
+    private static void appendText(final StringBuilder sb, final CharSequence text, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            final char c = text.charAt(i);
+            switch (c) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\013':
+            case '\f':
+            case '\r':
+                final int length = sb.length();
+                if (length > 0 && sb.charAt(length - 1) != ' ') {
+                    sb.append(' ');
+                }
+                break;
+            default:
+                sb.append(c);
+                break;
             }
-            matcher.appendReplacement(sb, buf.toString().replace("\\", "\\\\").replace("$", "\\$"));
         }
-        matcher.appendTail(sb);
-        return sb.toString().replaceAll("\\s+", " ").trim();
     }
 
     public String getEncoding() {
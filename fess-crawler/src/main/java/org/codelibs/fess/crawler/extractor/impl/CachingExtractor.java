@@ -0,0 +1,583 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.extractor.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.apache.commons.lang3.SystemUtils;
+import org.codelibs.core.io.CopyUtil;
+import org.codelibs.core.io.FileUtil;
+import org.codelibs.fess.crawler.Constants;
+import org.codelibs.fess.crawler.entity.ExtractData;
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+import org.codelibs.fess.crawler.exception.ExtractException;
+import org.codelibs.fess.crawler.extractor.Extractor;
+import org.codelibs.fess.crawler.util.FileBackedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+
+/**
+ * Caches results of another extractor by the digest of the content.
+ *
+ * The cache key consists of the content digest, the extractor name and the
+ * parameters listed in keyParamNames. Per-document parameters such as the url,
+ * the resource name or passwords are not part of the key by default, so the
+ * same content crawled from different locations shares one entry. Metadata
+ * which the extractor copied from such parameters is not cached, and is set
+ * from the parameters of each call on a hit. Results are
+ * kept in memory and, if cacheDirectory is set, in a size-bounded directory so
+ * that they survive a restart.
+ *
+ * @author shinsuke
+ *
+ */
+public class CachingExtractor extends AbstractExtractor {
+    private static final Logger logger = LoggerFactory.getLogger(CachingExtractor.class);
+
+    private static final String CACHE_FILE_SUFFIX = ".dat.gz";
+
+    private static final int CACHE_FILE_MAGIC = 0x46435832; // FCX2
+
+    protected static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    protected Extractor extractor;
+
+    protected String extractorName;
+
+    protected File cacheDirectory = null;
+
+    protected long maxDiskCacheSize = 1024L * 1024L * 1024L; // 1GB
+
+    protected long maxMemoryCacheSize = 10L * 1024L * 1024L; // chars
+
+    protected int memorySize = 1024 * 1024; // 1M
+
+    protected Set<String> keyParamNames = new TreeSet<>(Arrays.asList(ExtractData.CONTENT_TYPE, ExtractData.CONTENT_ENCODING));
+
+    protected volatile Cache<String, CacheEntry> memoryCache;
+
+    protected final Map<String, Long> diskIndex = new LinkedHashMap<>(16, 0.75f, true);
+
+    protected long diskCacheSize = 0;
+
+    protected final AtomicLong hitCount = new AtomicLong();
+
+    protected final AtomicLong diskHitCount = new AtomicLong();
+
+    protected final AtomicLong missCount = new AtomicLong();
+
+    protected final AtomicLong savedCpuTime = new AtomicLong(); // nanosec
+
+    @PostConstruct
+    public synchronized void init() {
+        final Cache<String, CacheEntry> cache = CacheBuilder.newBuilder().maximumWeight(maxMemoryCacheSize)
+                .weigher((final String key, final CacheEntry value) -> value.getWeight()).build();
+
+        if (cacheDirectory != null) {
+            if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+                throw new CrawlerSystemException("Could not create " + cacheDirectory.getAbsolutePath());
+            }
+            final File[] files = cacheDirectory.listFiles((dir, name) -> name.endsWith(CACHE_FILE_SUFFIX));
+            if (files != null) {
+                Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+                synchronized (diskIndex) {
+                    for (final File file : files) {
+                        final String name = file.getName();
+                        diskIndex.put(name.substring(0, name.length() - CACHE_FILE_SUFFIX.length()), file.length());
+                        diskCacheSize += file.length();
+                    }
+                    evictDiskCache();
+                }
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Loaded {} cache files({} bytes) from {}", diskIndex.size(), diskCacheSize, cacheDirectory);
+            }
+        }
+
+        // publish the cache after the disk index is loaded
+        memoryCache = cache;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (logger.isInfoEnabled()) {
+            logger.info("Extraction cache: {}", getStats());
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.codelibs.fess.crawler.extractor.Extractor#getText(java.io.InputStream,
+     * java.util.Map)
+     */
+    @Override
+    public ExtractData getText(final InputStream in, final Map<String, String> params) {
+        if (in == null) {
+            throw new CrawlerSystemException("The inputstream is null.");
+        }
+        if (extractor == null) {
+            throw new CrawlerSystemException("extractor is null.");
+        }
+        if (memoryCache == null) {
+            synchronized (this) {
+                if (memoryCache == null) {
+                    init();
+                }
+            }
+        }
+
+        if (in instanceof FileBackedInputStream && ((FileBackedInputStream) in).isUnread()) {
+            // hash the file in place instead of copying it
+            final File file = ((FileBackedInputStream) in).getFile();
+            final String key;
+            try (InputStream fin = new BufferedInputStream(new FileInputStream(file))) {
+                key = createKey(hash(fin), params);
+            } catch (final IOException e) {
+                throw new ExtractException("Could not read " + file.getAbsolutePath(), e);
+            }
+            return getText(key, in, params);
+        }
+
+        File tempFile = null;
+        try (DeferredFileOutputStream dfos = new DeferredFileOutputStream(memorySize, "extcache", ".tmp", SystemUtils.getJavaIoTmpDir())) {
+            final HashingInputStream his = new HashingInputStream(HASH_FUNCTION, in);
+            CopyUtil.copy(his, dfos);
+            dfos.flush();
+            if (!dfos.isInMemory()) {
+                tempFile = dfos.getFile();
+            }
+            final String key = createKey(his.hash(), params);
+            try (InputStream content = dfos.isInMemory() ? new ByteArrayInputStream(dfos.getData())
+                    : new BufferedInputStream(new FileInputStream(tempFile))) {
+                return getText(key, content, params);
+            }
+        } catch (final IOException e) {
+            throw new ExtractException("Could not read a content.", e);
+        } finally {
+            FileUtil.deleteInBackground(tempFile);
+        }
+    }
+
+    protected ExtractData getText(final String key, final InputStream in, final Map<String, String> params) {
+        CacheEntry entry = memoryCache.getIfPresent(key);
+        if (entry == null) {
+            entry = readDiskCache(key);
+            if (entry != null) {
+                diskHitCount.incrementAndGet();
+                memoryCache.put(key, entry);
+            }
+        }
+        if (entry != null) {
+            hitCount.incrementAndGet();
+            savedCpuTime.addAndGet(entry.getCpuTime());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Cache hit: {}", key);
+            }
+            return entry.getExtractData(params);
+        }
+
+        missCount.incrementAndGet();
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        final boolean cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported();
+        final long startTime = cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime();
+        final ExtractData extractData = extractor.getText(in, params);
+        final long cpuTime = (cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime()) - startTime;
+        if (extractData != null) {
+            entry = new CacheEntry(extractData, cpuTime, getDocumentParamNames(extractData, params));
+            memoryCache.put(key, entry);
+            writeDiskCache(key, entry);
+        }
+        return extractData;
+    }
+
+    /**
+     * Returns names of metadata which come from per-document parameters, that is,
+     * parameters which are not a part of the cache key.
+     */
+    protected Set<String> getDocumentParamNames(final ExtractData extractData, final Map<String, String> params) {
+        final Set<String> names = new TreeSet<>();
+        if (params != null) {
+            for (final String name : extractData.getKeySet()) {
+                if (params.containsKey(name) && !keyParamNames.contains(name)) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+
+    protected HashCode hash(final InputStream in) throws IOException {
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        final byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            hasher.putBytes(buffer, 0, length);
+        }
+        return hasher.hash();
+    }
+
+    protected String createKey(final HashCode contentHash, final Map<String, String> params) {
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        hasher.putBytes(contentHash.asBytes());
+        hasher.putString(getExtractorName(), Constants.UTF_8_CHARSET);
+        if (params != null) {
+            // keyParamNames is sorted, so the key does not depend on the map order
+            for (final String name : keyParamNames) {
+                final String value = params.get(name);
+                if (value != null) {
+                    hasher.putChar('\n').putString(name, Constants.UTF_8_CHARSET);
+                    hasher.putChar('=').putString(value, Constants.UTF_8_CHARSET);
+                }
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    protected CacheEntry readDiskCache(final String key) {
+        if (cacheDirectory == null) {
+            return null;
+        }
+        synchronized (diskIndex) {
+            if (diskIndex.get(key) == null) {
+                return null;
+            }
+        }
+        final File file = getCacheFile(key);
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+            return CacheEntry.read(in);
+        } catch (final Exception e) {
+            logger.warn("Could not read {}", file.getAbsolutePath(), e);
+            removeDiskCache(key);
+            return null;
+        }
+    }
+
+    protected void writeDiskCache(final String key, final CacheEntry entry) {
+        if (cacheDirectory == null) {
+            return;
+        }
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile("extcache", ".tmp", cacheDirectory);
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))) {
+                entry.write(out);
+            }
+            final File file = getCacheFile(key);
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tempFile = null;
+            synchronized (diskIndex) {
+                final Long oldSize = diskIndex.put(key, file.length());
+                if (oldSize != null) {
+                    diskCacheSize -= oldSize;
+                }
+                diskCacheSize += file.length();
+                evictDiskCache();
+            }
+        } catch (final IOException e) {
+            logger.warn("Could not store a cache for {}", key, e);
+        } finally {
+            FileUtil.deleteInBackground(tempFile);
+        }
+    }
+
+    protected void removeDiskCache(final String key) {
+        synchronized (diskIndex) {
+            final Long size = diskIndex.remove(key);
+            if (size != null) {
+                diskCacheSize -= size;
+            }
+        }
+        FileUtil.deleteInBackground(getCacheFile(key));
+    }
+
+    // called while holding the lock of diskIndex
+    protected void evictDiskCache() {
+        final Iterator<Map.Entry<String, Long>> iter = diskIndex.entrySet().iterator();
+        while (diskCacheSize > maxDiskCacheSize && iter.hasNext()) {
+            final Map.Entry<String, Long> entry = iter.next();
+            iter.remove();
+            diskCacheSize -= entry.getValue();
+            FileUtil.deleteInBackground(getCacheFile(entry.getKey()));
+            if (logger.isDebugEnabled()) {
+                logger.debug("Evicted a cache: {}", entry.getKey());
+            }
+        }
+    }
+
+    protected File getCacheFile(final String key) {
+        return new File(cacheDirectory, key + CACHE_FILE_SUFFIX);
+    }
+
+    protected String getExtractorName() {
+        if (extractorName != null) {
+            return extractorName;
+        }
+        return extractor.getClass().getName();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public double getHitRatio() {
+        final long hits = hitCount.get();
+        final long total = hits + missCount.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public double getSavedCpuSeconds() {
+        return savedCpuTime.get() / 1_000_000_000.0;
+    }
+
+    public String getStats() {
+        final long diskSize;
+        synchronized (diskIndex) {
+            diskSize = diskCacheSize;
+        }
+        return "hit=" + hitCount.get() + ", diskHit=" + diskHitCount.get() + ", miss=" + missCount.get() + ", hitRatio="
+                + String.format("%.3f", getHitRatio()) + ", savedCpu=" + String.format("%.3f", getSavedCpuSeconds()) + "s, diskSize="
+                + diskSize;
+    }
+
+    public void setExtractor(final Extractor extractor) {
+        this.extractor = extractor;
+    }
+
+    public void setExtractorName(final String extractorName) {
+        this.extractorName = extractorName;
+    }
+
+    public void setCacheDirectory(final File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public void setMaxDiskCacheSize(final long maxDiskCacheSize) {
+        this.maxDiskCacheSize = maxDiskCacheSize;
+    }
+
+    public void setMaxMemoryCacheSize(final long maxMemoryCacheSize) {
+        this.maxMemoryCacheSize = maxMemoryCacheSize;
+    }
+
+    public void setMemorySize(final int memorySize) {
+        this.memorySize = memorySize;
+    }
+
+    /**
+     * Sets the names of the parameters that affect the extraction result and
+     * therefore are a part of the cache key.
+     *
+     * @param keyParamNames parameter names
+     */
+    public void setKeyParamNames(final Collection<String> keyParamNames) {
+        this.keyParamNames = new TreeSet<>(keyParamNames);
+    }
+
+    /**
+     * An entry is stored as a gzipped stream of length-prefixed values instead
+     * of Java serialization, so a cache file never instantiates arbitrary
+     * classes.
+     */
+    protected static class CacheEntry {
+
+        private final ExtractData extractData;
+
+        private final long cpuTime;
+
+        private final Set<String> documentParamNames;
+
+        /**
+         * @param extractData an extraction result
+         * @param cpuTime the time to extract it
+         * @param documentParamNames names of metadata which are not cached and are taken from parameters on a hit
+         */
+        protected CacheEntry(final ExtractData extractData, final long cpuTime, final Set<String> documentParamNames) {
+            this.extractData = copy(extractData, documentParamNames);
+            this.cpuTime = cpuTime;
+            this.documentParamNames = documentParamNames;
+        }
+
+        public ExtractData getExtractData(final Map<String, String> params) {
+            // callers may modify the returned data
+            final ExtractData data = copy(extractData, Collections.emptySet());
+            if (params != null) {
+                for (final String name : documentParamNames) {
+                    final String value = params.get(name);
+                    if (value != null) {
+                        data.putValue(name, value);
+                    }
+                }
+            }
+            return data;
+        }
+
+        private static ExtractData copy(final ExtractData source, final Set<String> excludedNames) {
+            final ExtractData data = new ExtractData(source.getContent());
+            data.setTruncated(source.isTruncated());
+            for (final String key : source.getKeySet()) {
+                if (!excludedNames.contains(key)) {
+                    final String[] values = source.getValues(key);
+                    data.putValues(key, values == null ? null : values.clone());
+                }
+            }
+            return data;
+        }
+
+        public long getCpuTime() {
+            return cpuTime;
+        }
+
+        protected int getWeight() {
+            final String content = extractData.getContent();
+            return content == null ? 1 : Math.max(1, content.length());
+        }
+
+        protected void write(final DataOutputStream out) throws IOException {
+            out.writeInt(CACHE_FILE_MAGIC);
+            out.writeLong(cpuTime);
+            out.writeBoolean(extractData.isTruncated());
+            writeString(out, extractData.getContent());
+            final Set<String> keys = extractData.getKeySet();
+            out.writeInt(keys.size());
+            for (final String key : keys) {
+                writeString(out, key);
+                final String[] values = extractData.getValues(key);
+                if (values == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(values.length);
+                    for (final String value : values) {
+                        writeString(out, value);
+                    }
+                }
+            }
+            out.writeInt(documentParamNames.size());
+            for (final String name : documentParamNames) {
+                writeString(out, name);
+            }
+        }
+
+        protected static CacheEntry read(final DataInputStream in) throws IOException {
+            if (in.readInt() != CACHE_FILE_MAGIC) {
+                throw new IOException("Unknown cache format.");
+            }
+            final long cpuTime = in.readLong();
+            final boolean truncated = in.readBoolean();
+            final ExtractData extractData = new ExtractData(readString(in));
+            extractData.setTruncated(truncated);
+            final int size = readLength(in);
+            for (int i = 0; i < size; i++) {
+                final String key = readString(in);
+                final int length = in.readInt();
+                if (length == -1) {
+                    extractData.putValues(key, null);
+                } else {
+                    if (length < 0) {
+                        throw new IOException("Invalid length: " + length);
+                    }
+                    final String[] values = new String[length];
+                    for (int j = 0; j < length; j++) {
+                        values[j] = readString(in);
+                    }
+                    extractData.putValues(key, values);
+                }
+            }
+            final int nameSize = readLength(in);
+            final Set<String> documentParamNames = new TreeSet<>();
+            for (int i = 0; i < nameSize; i++) {
+                documentParamNames.add(readString(in));
+            }
+            return new CacheEntry(extractData, cpuTime, documentParamNames);
+        }
+
+        private static void writeString(final DataOutputStream out, final String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                final byte[] bytes = value.getBytes(Constants.UTF_8_CHARSET);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        private static String readString(final DataInputStream in) throws IOException {
+            final int length = in.readInt();
+            if (length == -1) {
+                return null;
+            }
+            if (length < 0) {
+                throw new IOException("Invalid length: " + length);
+            }
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, Constants.UTF_8_CHARSET);
+        }
+
+        private static int readLength(final DataInputStream in) throws IOException {
+            final int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Invalid length: " + length);
+            }
+            return length;
+        }
+    }
+}
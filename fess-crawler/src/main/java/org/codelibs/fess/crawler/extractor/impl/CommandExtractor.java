@@ -15,11 +15,17 @@
  */
 package org.codelibs.fess.crawler.extractor.impl;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -27,16 +33,23 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
 
 import org.codelibs.core.io.CopyUtil;
 import org.codelibs.core.io.FileUtil;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.core.lang.ThreadUtil;
+import org.codelibs.core.timer.TimeoutManager;
+import org.codelibs.core.timer.TimeoutTask;
 import org.codelibs.fess.crawler.Constants;
 import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.exception.ExecutionTimeoutException;
 import org.codelibs.fess.crawler.exception.ExtractException;
+import org.codelibs.fess.crawler.util.FileBackedInputStream;
+import org.codelibs.fess.crawler.util.ProcessWorkerPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,6 +80,18 @@ public class CommandExtractor extends AbstractExtractor {
 
     protected boolean standardOutput = false;
 
+    protected boolean workerMode = false;
+
+    protected long healthCheckInterval = 60L * 1000L; // 1min
+
+    protected final ProcessWorkerPool<CommandWorker> workerPool =
+            new ProcessWorkerPool<>(CommandExtractor.class.getSimpleName(), this::startWorker);
+
+    @PreDestroy
+    public void destroy() {
+        workerPool.destroy();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -75,8 +100,59 @@ public class CommandExtractor extends AbstractExtractor {
      */
     @Override
     public ExtractData getText(final InputStream in, final Map<String, String> params) {
+        if (workerMode) {
+            return getTextByWorker(in, params);
+        }
+
         final String resourceName = params == null ? null : params.get(ExtractData.RESOURCE_NAME_KEY);
 
+        final String[] fileNameParts = getFileNameParts(resourceName);
+        final String filePrefix = fileNameParts[0];
+        final String extention = fileNameParts[1];
+        File inputFile = null;
+        File outputFile = null;
+        try {
+            inputFile = File.createTempFile("cmdextin_" + filePrefix + "_", StringUtil.isNotBlank(extention) ? "." + extention : extention,
+                    tempDir);
+            String ext;
+            if (outputExtension == null) {
+                if (StringUtil.isNotBlank(extention)) {
+                    ext = "." + extention;
+                } else {
+                    ext = extention;
+                }
+            } else {
+                ext = outputExtension;
+            }
+            outputFile = File.createTempFile("cmdextout_" + filePrefix + "_", ext, tempDir);
+
+            // store to a file
+            CopyUtil.copy(in, inputFile);
+
+            executeCommand(inputFile, outputFile);
+
+            final ExtractData extractData = new ExtractData(new String(FileUtil.readBytes(outputFile), outputEncoding));
+            if (StringUtil.isNotBlank(resourceName)) {
+                extractData.putValues("resourceName", new String[] { resourceName });
+            }
+
+            return extractData;
+        } catch (final IOException e) {
+            throw new ExtractException("Could not extract a content.", e);
+        } finally {
+            FileUtil.deleteInBackground(inputFile);
+            FileUtil.deleteInBackground(outputFile);
+        }
+    }
+
+    /**
+     * Splits the file name of the resource into a prefix and an extension in
+     * the same way as the temporary input file of a command.
+     *
+     * @param resourceName the resource name, or null
+     * @return the prefix and the extension, which may be empty
+     */
+    protected String[] getFileNameParts(final String resourceName) {
         String extention;
         String filePrefix;
         if (StringUtil.isNotBlank(resourceName)) {
@@ -101,39 +177,248 @@ public class CommandExtractor extends AbstractExtractor {
             filePrefix = "none";
             extention = "";
         }
+        return new String[] { filePrefix, extention };
+    }
+
+    /**
+     * Extracts a text with a long-running helper process.
+     *
+     * The helper reads requests from stdin and writes responses to stdout:
+     * <pre>
+     * EXTRACT &lt;length&gt; &lt;filename&gt;\n&lt;bytes&gt;  -&gt;  OK &lt;length&gt;\n&lt;bytes&gt; or ERROR &lt;message&gt;\n
+     * PING\n                                 -&gt;  PONG\n
+     * QUIT\n                                 -&gt;  (exit)
+     * </pre>
+     *
+     * The filename is built from the resource name as the input file of
+     * one-shot mode, such as "report.pdf", or "none" without a resource name,
+     * so that the helper can choose a parser by the extension.
+     */
+    protected ExtractData getTextByWorker(final InputStream in, final Map<String, String> params) {
+        if (in == null) {
+            throw new CrawlerSystemException("The inputstream is null.");
+        }
+
+        final String resourceName = params == null ? null : params.get(ExtractData.RESOURCE_NAME_KEY);
+        final String[] fileNameParts = getFileNameParts(resourceName);
+        final String fileName = (StringUtil.isNotBlank(fileNameParts[1]) ? fileNameParts[0] + "." + fileNameParts[1] : fileNameParts[0])
+                .replaceAll("[\\p{Zs}\\p{Cntrl}]", "_");
         File inputFile = null;
-        File outputFile = null;
         try {
-            inputFile = File.createTempFile("cmdextin_" + filePrefix + "_", StringUtil.isNotBlank(extention) ? "." + extention : extention,
-                    tempDir);
-            String ext;
-            if (outputExtension == null) {
-                if (StringUtil.isNotBlank(extention)) {
-                    ext = "." + extention;
-                } else {
-                    ext = extention;
-                }
+            final File file;
+            if (in instanceof final FileBackedInputStream fileBackedInputStream && fileBackedInputStream.isUnread()) {
+                file = fileBackedInputStream.getFile();
             } else {
-                ext = outputExtension;
+                // store to a file to send the length before the body
+                inputFile = File.createTempFile("cmdextin_" + fileNameParts[0] + "_",
+                        StringUtil.isNotBlank(fileNameParts[1]) ? "." + fileNameParts[1] : fileNameParts[1], tempDir);
+                CopyUtil.copy(in, inputFile);
+                file = inputFile;
             }
-            outputFile = File.createTempFile("cmdextout_" + filePrefix + "_", ext, tempDir);
-
-            // store to a file
-            CopyUtil.copy(in, inputFile);
-
-            executeCommand(inputFile, outputFile);
-
-            final ExtractData extractData = new ExtractData(new String(FileUtil.readBytes(outputFile), outputEncoding));
+            final byte[] output = workerPool.execute(worker -> worker.execute(file, fileName));
+            final ExtractData extractData = new ExtractData(new String(output, outputEncoding));
             if (StringUtil.isNotBlank(resourceName)) {
                 extractData.putValues("resourceName", new String[] { resourceName });
             }
-
             return extractData;
         } catch (final IOException e) {
             throw new ExtractException("Could not extract a content.", e);
         } finally {
             FileUtil.deleteInBackground(inputFile);
-            FileUtil.deleteInBackground(outputFile);
+        }
+    }
+
+    protected CommandWorker startWorker() {
+        if (StringUtil.isBlank(command)) {
+            throw new CrawlerSystemException("command is empty.");
+        }
+
+        final List<String> cmdList = parseCommand(command, new HashMap<>());
+        if (logger.isInfoEnabled()) {
+            logger.info("Worker Command: {}", cmdList);
+        }
+        final ProcessBuilder pb = new ProcessBuilder(cmdList);
+        if (workingDirectory != null) {
+            pb.directory(workingDirectory);
+        }
+        final CommandWorker worker;
+        try {
+            worker = new CommandWorker(pb.start());
+        } catch (final IOException e) {
+            throw new CrawlerSystemException("Could not start a command worker: " + cmdList, e);
+        }
+        if (!worker.ping()) {
+            worker.close();
+            throw new CrawlerSystemException("The command worker does not respond: " + cmdList);
+        }
+        return worker;
+    }
+
+    protected int getTimeoutInSeconds() {
+        return (int) Math.max(1L, (executionTimeout + 999L) / 1000L);
+    }
+
+    protected class CommandWorker implements ProcessWorkerPool.PooledWorker {
+        protected final Process process;
+
+        protected final OutputStream out;
+
+        protected final InputStream in;
+
+        protected final InputStreamThread errorThread;
+
+        protected int jobCount = 0;
+
+        protected long lastAccessTime = System.currentTimeMillis();
+
+        protected volatile boolean killed = false;
+
+        protected CommandWorker(final Process process) {
+            this.process = process;
+            out = new BufferedOutputStream(process.getOutputStream());
+            in = new BufferedInputStream(process.getInputStream());
+            errorThread = new InputStreamThread(process.getErrorStream(), commandOutputEncoding, maxOutputLine);
+            errorThread.setDaemon(true);
+            errorThread.start();
+        }
+
+        protected byte[] execute(final File inputFile, final String fileName) {
+            jobCount++;
+            lastAccessTime = System.currentTimeMillis();
+            final TimeoutTask timeoutTask = TimeoutManager.getInstance().addTimeoutTarget(this::kill, getTimeoutInSeconds(), false);
+            try {
+                writeHeader("EXTRACT " + inputFile.length() + " " + fileName);
+                try (InputStream fin = new FileInputStream(inputFile)) {
+                    CopyUtil.copy(fin, out);
+                }
+                out.flush();
+
+                final String header = readHeader();
+                if (header.startsWith("OK ")) {
+                    final int length = Integer.parseInt(header.substring(3).trim());
+                    final byte[] output = new byte[length];
+                    int offset = 0;
+                    while (offset < length) {
+                        final int n = in.read(output, offset, length - offset);
+                        if (n < 0) {
+                            throw new EOFException("Unexpected end of the output.");
+                        }
+                        offset += n;
+                    }
+                    return output;
+                }
+                if (header.startsWith("ERROR")) {
+                    throw new CommandWorkerException("The command worker failed: " + header.substring(5).trim());
+                }
+                throw new IOException("Unexpected response: " + header);
+            } catch (final IOException | NumberFormatException e) {
+                kill();
+                if (timeoutTask.isExpired()) {
+                    throw new ExecutionTimeoutException("The command execution is timeout: " + command, e);
+                }
+                throw new ExtractException("The command worker is terminated: " + command, e);
+            } finally {
+                timeoutTask.cancel();
+            }
+        }
+
+        protected boolean ping() {
+            final TimeoutTask timeoutTask = TimeoutManager.getInstance().addTimeoutTarget(this::kill, getTimeoutInSeconds(), false);
+            try {
+                writeHeader("PING");
+                out.flush();
+                if ("PONG".equals(readHeader())) {
+                    lastAccessTime = System.currentTimeMillis();
+                    return true;
+                }
+            } catch (final IOException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Health check failed: {}", this, e);
+                }
+            } finally {
+                timeoutTask.cancel();
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isHealthy() {
+            if (!isAlive()) {
+                return false;
+            }
+            if (healthCheckInterval >= 0 && System.currentTimeMillis() - lastAccessTime > healthCheckInterval) {
+                return ping();
+            }
+            return true;
+        }
+
+        protected void writeHeader(final String header) throws IOException {
+            out.write((header + "\n").getBytes(Constants.UTF_8_CHARSET));
+        }
+
+        protected String readHeader() throws IOException {
+            final ByteArrayOutputStream buf = new ByteArrayOutputStream(32);
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c == -1) {
+                    throw new EOFException("The command worker is closed.");
+                }
+                if (c != '\r') {
+                    buf.write(c);
+                }
+            }
+            return new String(buf.toByteArray(), Constants.UTF_8_CHARSET);
+        }
+
+        @Override
+        public int getJobCount() {
+            return jobCount;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return !killed && process.isAlive();
+        }
+
+        protected void kill() {
+            killed = true;
+            process.destroyForcibly();
+        }
+
+        @Override
+        public void close() {
+            if (isAlive()) {
+                try {
+                    writeHeader("QUIT");
+                    out.flush();
+                    out.close();
+                    if (process.waitFor(1, TimeUnit.SECONDS)) {
+                        return;
+                    }
+                } catch (final IOException e) {
+                    // ignore
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            kill();
+        }
+
+        @Override
+        public String toString() {
+            return "CommandWorker[jobs=" + jobCount + ", alive=" + process.isAlive() + "]";
+        }
+    }
+
+    /**
+     * Thrown when a helper process returns an error; the process is kept.
+     */
+    protected static class CommandWorkerException extends ProcessWorkerPool.WorkerJobException {
+
+        private static final long serialVersionUID = 1L;
+
+        public CommandWorkerException(final String message) {
+            super(message);
         }
     }
 
@@ -415,4 +700,24 @@ public class CommandExtractor extends AbstractExtractor {
     public void setStandardOutput(final boolean standardOutput) {
         this.standardOutput = standardOutput;
     }
+
+    public void setWorkerMode(final boolean workerMode) {
+        this.workerMode = workerMode;
+    }
+
+    public void setWorkerPoolSize(final int workerPoolSize) {
+        workerPool.setPoolSize(workerPoolSize);
+    }
+
+    public void setMaxJobsPerWorker(final int maxJobsPerWorker) {
+        workerPool.setMaxJobsPerWorker(maxJobsPerWorker);
+    }
+
+    public void setHealthCheckInterval(final long healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public int getWorkerCount() {
+        return workerPool.getWorkerCount();
+    }
 }
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.extractor.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.codelibs.core.lang.StringUtil;
+import org.codelibs.core.timer.TimeoutManager;
+import org.codelibs.core.timer.TimeoutTarget;
+import org.codelibs.core.timer.TimeoutTask;
+import org.codelibs.fess.crawler.Constants;
+import org.codelibs.fess.crawler.entity.ExtractData;
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+import org.codelibs.fess.crawler.exception.ExecutionTimeoutException;
+import org.codelibs.fess.crawler.exception.ExtractException;
+import org.codelibs.fess.crawler.util.ProcessWorkerPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Extract a text in a pool of long-lived child JVMs.
+ *
+ * Each worker runs {@link ForkedExtractorWorker} with the configured extractor
+ * class. A worker that exceeds the job timeout, runs out of memory or breaks
+ * the protocol is killed and replaced by a new one on the next request.
+ *
+ * @author shinsuke
+ *
+ */
+public class ForkedExtractor extends AbstractExtractor {
+    private static final Logger logger = LoggerFactory.getLogger(ForkedExtractor.class);
+
+    protected String extractorClassName;
+
+    protected String javaCommand = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+    protected String classpath = System.getProperty("java.class.path");
+
+    protected String maxHeapSize = "256m";
+
+    protected List<String> jvmOptions = new ArrayList<>(List.of("-Djava.awt.headless=true", "-XX:+ExitOnOutOfMemoryError"));
+
+    protected int executionTimeout = 60; // sec
+
+    protected int startupTimeout = 30; // sec
+
+    protected File workingDirectory = null;
+
+    protected final AtomicInteger workerCounter = new AtomicInteger();
+
+    protected final ProcessWorkerPool<Worker> workerPool = new ProcessWorkerPool<>(ForkedExtractor.class.getSimpleName(), this::startWorker);
+
+    public ForkedExtractor() {
+        workerPool.setPoolSize(2);
+        workerPool.setAcquireTimeout(10L * 60L * 1000L); // 10min
+    }
+
+    @PreDestroy
+    public void destroy() {
+        workerPool.destroy();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.codelibs.fess.crawler.extractor.Extractor#getText(java.io.InputStream,
+     * java.util.Map)
+     */
+    @Override
+    public ExtractData getText(final InputStream in, final Map<String, String> params) {
+        if (in == null) {
+            throw new CrawlerSystemException("The inputstream is null.");
+        }
+
+        return workerPool.execute(worker -> worker.execute(in, params, executionTimeout));
+    }
+
+    protected Worker startWorker() {
+        if (StringUtil.isBlank(extractorClassName)) {
+            throw new CrawlerSystemException("extractorClassName is empty.");
+        }
+
+        final List<String> cmdList = createCommand();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Command: {}", cmdList);
+        }
+        final ProcessBuilder pb = new ProcessBuilder(cmdList);
+        if (workingDirectory != null) {
+            pb.directory(workingDirectory);
+        }
+
+        final Worker worker;
+        try {
+            worker = new Worker("worker-" + workerCounter.incrementAndGet(), pb.start());
+        } catch (final IOException e) {
+            throw new CrawlerSystemException("Could not start an extraction worker: " + cmdList, e);
+        }
+        worker.awaitReady(startupTimeout);
+        if (logger.isInfoEnabled()) {
+            logger.info("Started an extraction worker: {}", worker);
+        }
+        return worker;
+    }
+
+    protected List<String> createCommand() {
+        final List<String> cmdList = new ArrayList<>();
+        cmdList.add(javaCommand);
+        if (StringUtil.isNotBlank(maxHeapSize)) {
+            cmdList.add("-Xmx" + maxHeapSize);
+        }
+        if (jvmOptions != null) {
+            cmdList.addAll(jvmOptions);
+        }
+        if (StringUtil.isNotBlank(classpath)) {
+            cmdList.add("-cp");
+            cmdList.add(classpath);
+        }
+        cmdList.add(ForkedExtractorWorker.class.getName());
+        cmdList.add(extractorClassName);
+        return cmdList;
+    }
+
+    public int getWorkerCount() {
+        return workerPool.getWorkerCount();
+    }
+
+    protected class Worker implements ProcessWorkerPool.PooledWorker {
+        protected final String name;
+
+        protected final Process process;
+
+        protected final DataOutputStream out;
+
+        protected final DataInputStream in;
+
+        protected final AtomicInteger jobCount = new AtomicInteger();
+
+        protected volatile boolean killed = false;
+
+        protected Worker(final String name, final Process process) {
+            this.name = name;
+            this.process = process;
+            out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream(), ForkedExtractorWorker.BUFFER_SIZE));
+            in = new DataInputStream(new BufferedInputStream(process.getInputStream(), ForkedExtractorWorker.BUFFER_SIZE));
+
+            final Thread errorThread = new Thread(this::logErrorStream, "ForkedExtractor-" + name);
+            errorThread.setDaemon(true);
+            errorThread.start();
+        }
+
+        protected void logErrorStream() {
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(process.getErrorStream(), Constants.UTF_8_CHARSET))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("[{}] {}", name, line);
+                    }
+                }
+            } catch (final IOException e) {
+                // the process is terminated
+            }
+        }
+
+        protected void awaitReady(final int timeout) {
+            final TimeoutTask timeoutTask = TimeoutManager.getInstance().addTimeoutTarget(new KillTarget(this), timeout, false);
+            try {
+                final int magic = in.readInt();
+                if (magic != ForkedExtractorWorker.READY) {
+                    throw new IOException("Unexpected response: " + magic);
+                }
+            } catch (final IOException e) {
+                close();
+                if (killed) {
+                    throw new ExecutionTimeoutException("The extraction worker did not start in " + timeout + "sec.", e);
+                }
+                throw new CrawlerSystemException("Failed to start an extraction worker.", e);
+            } finally {
+                timeoutTask.cancel();
+            }
+        }
+
+        protected ExtractData execute(final InputStream body, final Map<String, String> params, final int timeout) {
+            jobCount.incrementAndGet();
+            final TimeoutTask timeoutTask = TimeoutManager.getInstance().addTimeoutTarget(new KillTarget(this), timeout, false);
+            try {
+                ForkedExtractorWorker.writeParams(out, params);
+                ForkedExtractorWorker.writeChunks(out, body);
+                out.flush();
+                return readResult();
+            } catch (final IOException e) {
+                kill();
+                if (killed && timeoutTask.isExpired()) {
+                    throw new ExecutionTimeoutException("The extraction is timeout: " + name, e);
+                }
+                throw new ExtractException("The extraction worker is terminated: " + name, e);
+            } finally {
+                timeoutTask.cancel();
+            }
+        }
+
+        protected ExtractData readResult() throws IOException {
+            final byte status = in.readByte();
+            if (status == ForkedExtractorWorker.STATUS_ERROR) {
+                final String className = ForkedExtractorWorker.readString(in);
+                final String message = ForkedExtractorWorker.readString(in);
+                throw new ForkedExtractException(className + ": " + message);
+            }
+            if (status != ForkedExtractorWorker.STATUS_OK) {
+                throw new IOException("Unexpected status: " + status);
+            }
+            final ExtractData extractData = new ExtractData(ForkedExtractorWorker.readString(in));
+            extractData.setTruncated(in.readBoolean());
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                final String key = ForkedExtractorWorker.readString(in);
+                final int length = in.readInt();
+                if (length < 0) {
+                    extractData.putValues(key, null);
+                } else {
+                    final String[] values = new String[length];
+                    for (int j = 0; j < length; j++) {
+                        values[j] = ForkedExtractorWorker.readString(in);
+                    }
+                    extractData.putValues(key, values);
+                }
+            }
+            return extractData;
+        }
+
+        @Override
+        public int getJobCount() {
+            return jobCount.get();
+        }
+
+        @Override
+        public boolean isAlive() {
+            return !killed && process.isAlive();
+        }
+
+        protected void kill() {
+            killed = true;
+            process.destroyForcibly();
+        }
+
+        @Override
+        public void close() {
+            if (!killed && process.isAlive()) {
+                try {
+                    out.writeInt(ForkedExtractorWorker.SHUTDOWN);
+                    out.flush();
+                    if (process.waitFor(1, TimeUnit.SECONDS)) {
+                        return;
+                    }
+                } catch (final IOException e) {
+                    // ignore
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            kill();
+        }
+
+        @Override
+        public String toString() {
+            return name + "[jobs=" + jobCount.get() + ", alive=" + process.isAlive() + "]";
+        }
+    }
+
+    protected static class KillTarget implements TimeoutTarget {
+        private final Worker worker;
+
+        protected KillTarget(final Worker worker) {
+            this.worker = worker;
+        }
+
+        @Override
+        public void expired() {
+            if (logger.isInfoEnabled()) {
+                logger.info("Kill the extraction worker: {}", worker);
+            }
+            worker.kill();
+        }
+    }
+
+    /**
+     * Thrown when the extractor in a worker fails; the worker is kept.
+     */
+    protected static class ForkedExtractException extends ProcessWorkerPool.WorkerJobException {
+
+        private static final long serialVersionUID = 1L;
+
+        public ForkedExtractException(final String message) {
+            super(message);
+        }
+    }
+
+    public void setExtractorClassName(final String extractorClassName) {
+        this.extractorClassName = extractorClassName;
+    }
+
+    public void setJavaCommand(final String javaCommand) {
+        this.javaCommand = javaCommand;
+    }
+
+    public void setClasspath(final String classpath) {
+        this.classpath = classpath;
+    }
+
+    public void setMaxHeapSize(final String maxHeapSize) {
+        this.maxHeapSize = maxHeapSize;
+    }
+
+    public void setJvmOptions(final List<String> jvmOptions) {
+        this.jvmOptions = jvmOptions;
+    }
+
+    public void addJvmOption(final String jvmOption) {
+        jvmOptions.add(jvmOption);
+    }
+
+    public void setPoolSize(final int poolSize) {
+        workerPool.setPoolSize(poolSize);
+    }
+
+    public void setMaxJobsPerWorker(final int maxJobsPerWorker) {
+        workerPool.setMaxJobsPerWorker(maxJobsPerWorker);
+    }
+
+    public void setExecutionTimeout(final int executionTimeout) {
+        this.executionTimeout = executionTimeout;
+    }
+
+    public void setStartupTimeout(final int startupTimeout) {
+        this.startupTimeout = startupTimeout;
+    }
+
+    public void setAcquireTimeout(final long acquireTimeout) {
+        workerPool.setAcquireTimeout(acquireTimeout);
+    }
+
+    public void setWorkingDirectory(final File workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.extractor.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.codelibs.core.lang.ClassUtil;
+import org.codelibs.fess.crawler.Constants;
+import org.codelibs.fess.crawler.container.StandardCrawlerContainer;
+import org.codelibs.fess.crawler.entity.ExtractData;
+import org.codelibs.fess.crawler.extractor.Extractor;
+import org.codelibs.fess.crawler.extractor.ExtractorFactory;
+import org.codelibs.fess.crawler.helper.impl.MimeTypeHelperImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point of a child JVM started by {@link ForkedExtractor}.
+ *
+ * Jobs are read from stdin and results are written to stdout with a simple
+ * length-prefixed framing. Anything the extractor or a logger prints to
+ * System.out is redirected to System.err so that it cannot corrupt the framing.
+ *
+ * @author shinsuke
+ *
+ */
+public class ForkedExtractorWorker {
+
+    public static final int READY = 0x46455846; // FEXF
+
+    public static final int SHUTDOWN = -2;
+
+    public static final byte STATUS_OK = 0;
+
+    public static final byte STATUS_ERROR = 1;
+
+    protected static final int BUFFER_SIZE = 8192;
+
+    protected ForkedExtractorWorker() {
+        // nothing
+    }
+
+    public static void main(final String[] args) {
+        // stdout is used for results, so logs must not be written to it
+        final OutputStream stdout = new FileOutputStream(FileDescriptor.out);
+        System.setOut(System.err);
+        // a logger is created after the redirection so that a console appender does not hold stdout
+        final Logger logger = LoggerFactory.getLogger(ForkedExtractorWorker.class);
+
+        if (args.length == 0) {
+            logger.error("Usage: {} <extractor class>", ForkedExtractorWorker.class.getName());
+            System.exit(1);
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in), BUFFER_SIZE));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stdout, BUFFER_SIZE))) {
+            final Extractor extractor = createExtractor(args[0]);
+            out.writeInt(READY);
+            out.flush();
+            while (true) {
+                final Map<String, String> params;
+                try {
+                    params = readParams(in);
+                } catch (final EOFException e) {
+                    break;
+                }
+                if (params == null) {
+                    break;
+                }
+                processJob(extractor, params, in, out);
+            }
+        } catch (final Throwable t) {
+            logger.error("Failed to run {}.", args[0], t);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    protected static Extractor createExtractor(final String className) {
+        final StandardCrawlerContainer container = new StandardCrawlerContainer();
+        container.singleton("archiveStreamFactory", ArchiveStreamFactory.class)
+                .singleton("compressorStreamFactory", CompressorStreamFactory.class)
+                .singleton("mimeTypeHelper", MimeTypeHelperImpl.class)//
+                .singleton("extractorFactory", ExtractorFactory.class)//
+                .singleton("extractor", ClassUtil.forName(className));
+        return container.getComponent("extractor");
+    }
+
+    protected static void processJob(final Extractor extractor, final Map<String, String> params, final DataInputStream in,
+            final DataOutputStream out) throws IOException {
+        ExtractData extractData = null;
+        Throwable error = null;
+        try (InputStream body = new ChunkedInputStream(in)) {
+            extractData = extractor.getText(body, params);
+        } catch (final IOException e) {
+            throw e;
+        } catch (final Exception e) {
+            error = e;
+        }
+
+        if (error != null) {
+            out.writeByte(STATUS_ERROR);
+            writeString(out, error.getClass().getName());
+            writeString(out, error.getMessage());
+        } else {
+            out.writeByte(STATUS_OK);
+            writeString(out, extractData == null ? null : extractData.getContent());
+            out.writeBoolean(extractData != null && extractData.isTruncated());
+            if (extractData == null) {
+                out.writeInt(0);
+            } else {
+                out.writeInt(extractData.getKeySet().size());
+                for (final String key : extractData.getKeySet()) {
+                    writeString(out, key);
+                    final String[] values = extractData.getValues(key);
+                    if (values == null) {
+                        out.writeInt(-1);
+                    } else {
+                        out.writeInt(values.length);
+                        for (final String value : values) {
+                            writeString(out, value);
+                        }
+                    }
+                }
+            }
+        }
+        out.flush();
+    }
+
+    protected static Map<String, String> readParams(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size == SHUTDOWN) {
+            return null;
+        }
+        final Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            params.put(readString(in), readString(in));
+        }
+        return params;
+    }
+
+    protected static void writeParams(final DataOutputStream out, final Map<String, String> params) throws IOException {
+        if (params == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(params.size());
+        for (final Map.Entry<String, String> entry : params.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    protected static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(Constants.UTF_8_CHARSET);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    protected static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, Constants.UTF_8_CHARSET);
+    }
+
+    /**
+     * Copies the stream as length-prefixed chunks terminated by an empty chunk.
+     */
+    protected static void writeChunks(final DataOutputStream out, final InputStream in) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            if (length > 0) {
+                out.writeInt(length);
+                out.write(buffer, 0, length);
+            }
+        }
+        out.writeInt(0);
+    }
+
+    /**
+     * Reads chunks written by {@link ForkedExtractorWorker#writeChunks(DataOutputStream, InputStream)}.
+     * Closing this stream skips unread chunks so that the next job starts on a frame boundary.
+     */
+    protected static class ChunkedInputStream extends InputStream {
+        private final DataInputStream in;
+
+        private int remaining = 0;
+
+        private boolean eof = false;
+
+        protected ChunkedInputStream(final DataInputStream in) {
+            this.in = in;
+        }
+
+        private boolean fill() throws IOException {
+            if (eof) {
+                return false;
+            }
+            if (remaining == 0) {
+                remaining = in.readInt();
+                if (remaining <= 0) {
+                    remaining = 0;
+                    eof = true;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            final int c = in.read();
+            if (c < 0) {
+                throw new EOFException("Unexpected end of a chunk.");
+            }
+            remaining--;
+            return c;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            final int n = in.read(b, off, Math.min(len, remaining));
+            if (n < 0) {
+                throw new EOFException("Unexpected end of a chunk.");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return eof ? 0 : Math.min(remaining, in.available());
+        }
+
+        @Override
+        public void close() throws IOException {
+            while (fill()) {
+                final int n = (int) in.skip(remaining);
+                if (n <= 0) {
+                    in.readFully(new byte[remaining]);
+                    remaining = 0;
+                } else {
+                    remaining -= n;
+                }
+            }
+        }
+    }
+}
@@ -26,12 +26,12 @@ import java.util.stream.Collectors;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.CachedXPathAPI;
 import org.apache.xpath.objects.XObject;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.core.stream.StreamUtil;
 import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+import org.codelibs.fess.crawler.util.CompiledXPathAPI;
 import org.codelibs.nekohtml.parsers.DOMParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,7 +60,7 @@ public class HtmlExtractor extends AbstractXmlExtractor {
 
     protected Map<String, String> metadataXpathMap = new HashMap<>();
 
-    private final ThreadLocal<CachedXPathAPI> xpathAPI = new ThreadLocal<>();
+    private final ThreadLocal<CompiledXPathAPI> xpathAPI = new ThreadLocal<>();
 
     @Override
     protected ExtractData createExtractData(final String content) {
@@ -85,6 +85,18 @@ public class HtmlExtractor extends AbstractXmlExtractor {
         }
     }
 
+    @Override
+    protected ExtractData createExtractData(final String content, final long maxChars) {
+        // the XPath result is built from a whole DOM, so it is cut after parsing
+        final ExtractData extractData = createExtractData(content);
+        final String text = extractData.getContent();
+        if (text != null && text.length() > maxChars) {
+            extractData.setContent(text.substring(0, (int) maxChars).trim());
+            extractData.setTruncated(true);
+        }
+        return extractData;
+    }
+
     protected String[] getStringsByXPath(final Document document, final String path) {
         try {
             final XObject xObj = getXPathAPI().eval(document, path);
@@ -146,10 +158,10 @@ public class HtmlExtractor extends AbstractXmlExtractor {
         return parser;
     }
 
-    protected CachedXPathAPI getXPathAPI() {
-        CachedXPathAPI cachedXPathAPI = xpathAPI.get();
+    protected CompiledXPathAPI getXPathAPI() {
+        CompiledXPathAPI cachedXPathAPI = xpathAPI.get();
         if (cachedXPathAPI == null) {
-            cachedXPathAPI = new CachedXPathAPI();
+            cachedXPathAPI = new CompiledXPathAPI();
             xpathAPI.set(cachedXPathAPI);
         }
         return cachedXPathAPI;
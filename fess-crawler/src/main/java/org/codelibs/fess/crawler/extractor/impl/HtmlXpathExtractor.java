@@ -19,27 +19,19 @@ import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
-import javax.annotation.Resource;
-
-import org.apache.xpath.CachedXPathAPI;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.exception.ExtractException;
+import org.codelibs.fess.crawler.util.CompiledXPathAPI;
 import org.codelibs.nekohtml.parsers.DOMParser;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-
 /**
  * @author shinsuke
  *
@@ -54,22 +46,15 @@ public class HtmlXpathExtractor extends AbstractXmlExtractor {
 
     protected String targetNodePath = "//HTML/BODY | //@alt | //@title";
 
-    protected LoadingCache<String, CachedXPathAPI> xpathAPICache;
-
-    protected long cacheDuration = 10; // min
+    private final ThreadLocal<CompiledXPathAPI> xpathAPI = new ThreadLocal<>();
 
-    @Resource
+    /**
+     * @deprecated compiled XPath expressions are shared by {@link CompiledXPathAPI}
+     *             and no cache needs to be initialized.
+     */
+    @Deprecated
     public void init() {
-        xpathAPICache = CacheBuilder.newBuilder().expireAfterAccess(cacheDuration, TimeUnit.MINUTES)
-                .build(new CacheLoader<String, CachedXPathAPI>() {
-                    @Override
-                    public CachedXPathAPI load(final String key) {
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("created CachedXPathAPI by {}", key);
-                        }
-                        return new CachedXPathAPI();
-                    }
-                });
+        // NOP
     }
 
     /*
@@ -102,18 +87,18 @@ public class HtmlXpathExtractor extends AbstractXmlExtractor {
             return new ExtractData(buf.toString().replaceAll("\\s+", " ").trim());
         } catch (final Exception e) {
             throw new ExtractException(e);
+        } finally {
+            xpathAPI.remove();
         }
     }
 
-    protected CachedXPathAPI getXPathAPI() {
-        try {
-            return xpathAPICache.get(Thread.currentThread().getName());
-        } catch (final ExecutionException e) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("Failed to retrieval a cache.", e);
-            }
-            return new CachedXPathAPI();
+    protected CompiledXPathAPI getXPathAPI() {
+        CompiledXPathAPI compiledXPathAPI = xpathAPI.get();
+        if (compiledXPathAPI == null) {
+            compiledXPathAPI = new CompiledXPathAPI();
+            xpathAPI.set(compiledXPathAPI);
         }
+        return compiledXPathAPI;
     }
 
     protected DOMParser getDomParser() {
@@ -219,7 +204,13 @@ public class HtmlXpathExtractor extends AbstractXmlExtractor {
         this.targetNodePath = targetNodePath;
     }
 
+    /**
+     * @deprecated a per-thread XPath API is dropped after each document, so
+     *             this setting has no effect.
+     * @param cacheDuration the cache duration in minutes
+     */
+    @Deprecated
     public void setCacheDuration(final long cacheDuration) {
-        this.cacheDuration = cacheDuration;
+        // NOP
     }
 }
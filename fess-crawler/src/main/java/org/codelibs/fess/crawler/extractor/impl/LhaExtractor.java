@@ -20,20 +20,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.codelibs.core.io.CloseableUtil;
 import org.codelibs.core.io.CopyUtil;
 import org.codelibs.core.io.FileUtil;
-import org.codelibs.fess.crawler.entity.ExtractData;
-import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.exception.ExtractException;
 import org.codelibs.fess.crawler.exception.MaxLengthExceededException;
-import org.codelibs.fess.crawler.extractor.Extractor;
-import org.codelibs.fess.crawler.extractor.ExtractorFactory;
-import org.codelibs.fess.crawler.helper.MimeTypeHelper;
-import org.codelibs.fess.crawler.util.IgnoreCloseInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,21 +38,11 @@ import jp.gr.java_conf.dangan.util.lha.LhaHeader;
  * @author shinsuke
  *
  */
-public class LhaExtractor extends AbstractExtractor {
+public class LhaExtractor extends AbstractArchiveExtractor {
     private static final Logger logger = LoggerFactory.getLogger(LhaExtractor.class);
 
-    protected long maxContentSize = -1;
-
     @Override
-    public ExtractData getText(final InputStream in, final Map<String, String> params) {
-        if (in == null) {
-            throw new CrawlerSystemException("The inputstream is null.");
-        }
-
-        final MimeTypeHelper mimeTypeHelper = getMimeTypeHelper();
-        final ExtractorFactory extractorFactory = getExtractorFactory();
-        final StringBuilder buf = new StringBuilder(1000);
-
+    protected void extract(final InputStream in, final ArchiveContext context) {
         File tempFile = null;
         LhaFile lhaFile = null;
         try {
@@ -73,32 +55,22 @@ public class LhaExtractor extends AbstractExtractor {
             @SuppressWarnings("unchecked")
             final Enumeration<LhaHeader> entries = lhaFile.entries();
             long contentSize = 0;
-            while (entries.hasMoreElements()) {
+            while (!context.isFull() && entries.hasMoreElements()) {
                 final LhaHeader head = entries.nextElement();
                 contentSize += head.getOriginalSize();
                 if (maxContentSize != -1 && contentSize > maxContentSize) {
                     throw new MaxLengthExceededException("Extracted size is " + contentSize + " > " + maxContentSize);
                 }
-                final String filename = head.getPath();
-                final String mimeType = mimeTypeHelper.getContentType(null, filename);
-                if (mimeType != null) {
-                    final Extractor extractor = extractorFactory.getExtractor(mimeType);
-                    if (extractor != null) {
-                        InputStream is = null;
-                        try {
-                            is = lhaFile.getInputStream(head);
-                            final Map<String, String> map = new HashMap<>();
-                            map.put(ExtractData.RESOURCE_NAME_KEY, filename);
-                            buf.append(extractor.getText(new IgnoreCloseInputStream(is), map).getContent());
-                            buf.append('\n');
-                        } catch (final Exception e) {
-                            if (logger.isDebugEnabled()) {
-                                logger.debug("Exception in an internal extractor.", e);
-                            }
-                        } finally {
-                            CloseableUtil.closeQuietly(is);
-                        }
+                InputStream is = null;
+                try {
+                    is = lhaFile.getInputStream(head);
+                    context.addEntry(head.getPath(), is);
+                } catch (final Exception e) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Exception in an internal extractor.", e);
                     }
+                } finally {
+                    CloseableUtil.closeQuietly(is);
                 }
             }
         } catch (final MaxLengthExceededException e) {
@@ -115,11 +87,5 @@ public class LhaExtractor extends AbstractExtractor {
             }
             FileUtil.deleteInBackground(tempFile);
         }
-
-        return new ExtractData(buf.toString().trim());
-    }
-
-    public void setMaxContentSize(final long maxContentSize) {
-        this.maxContentSize = maxContentSize;
     }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.extractor.impl;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.codelibs.fess.crawler.exception.ExtractException;
+import org.codelibs.fess.crawler.util.BoundedWriter;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+/**
+ * Gets a text from .xls and .xlsx files with the event APIs of POI, so that
+ * a whole workbook is not loaded into memory.
+ *
+ * @author shinsuke
+ *
+ */
+public class MsExcelStreamingExtractor extends AbstractStreamingExtractor {
+
+    @Override
+    protected void extract(final File file, final BoundedWriter writer) throws Exception {
+        final FileMagic fileMagic = FileMagic.valueOf(file);
+        if (fileMagic == FileMagic.OLE2) {
+            extractHssf(file, writer);
+        } else if (fileMagic == FileMagic.OOXML) {
+            extractXssf(file, writer);
+        } else {
+            throw new ExtractException("Unsupported format: " + fileMagic);
+        }
+    }
+
+    protected void extractHssf(final File file, final BoundedWriter writer) throws Exception {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            final HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(new HssfTextListener(writer));
+            new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+        }
+    }
+
+    protected void extractXssf(final File file, final BoundedWriter writer) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            final XSSFReader reader = new XSSFReader(pkg);
+            final ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            final StylesTable styles = reader.getStylesTable();
+            final DataFormatter formatter = new DataFormatter();
+            final XSSFReader.SheetIterator iter = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (iter.hasNext()) {
+                try (InputStream stream = iter.next()) {
+                    writer.write(iter.getSheetName());
+                    writer.write('\n');
+                    final XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, new XssfTextHandler(writer), formatter, false));
+                    parser.parse(new InputSource(stream));
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    protected static class HssfTextListener extends AbortableHSSFListener {
+        private final BoundedWriter writer;
+
+        private final FormatTrackingHSSFListener formatListener;
+
+        private final List<String> sheetNameList = new ArrayList<>();
+
+        private SSTRecord sstRecord;
+
+        private int sheetIndex = -1;
+
+        private int lastRow = -1;
+
+        private boolean outputNextStringRecord = false;
+
+        protected HssfTextListener(final BoundedWriter writer) {
+            this.writer = writer;
+            formatListener = new FormatTrackingHSSFListener(record -> {});
+        }
+
+        @Override
+        public short abortableProcessRecord(final Record record) {
+            formatListener.processRecordInternally(record);
+
+            switch (record.getSid()) {
+            case BoundSheetRecord.sid:
+                sheetNameList.add(((BoundSheetRecord) record).getSheetname());
+                break;
+            case BOFRecord.sid:
+                if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                    sheetIndex++;
+                    if (sheetIndex > 0) {
+                        writer.write("\n\n");
+                    }
+                    if (sheetIndex < sheetNameList.size()) {
+                        writer.write(sheetNameList.get(sheetIndex));
+                        writer.write('\n');
+                    }
+                    lastRow = -1;
+                }
+                break;
+            case SSTRecord.sid:
+                sstRecord = (SSTRecord) record;
+                break;
+            case LabelSSTRecord.sid:
+                final LabelSSTRecord labelSSTRecord = (LabelSSTRecord) record;
+                if (sstRecord != null) {
+                    writeCell(labelSSTRecord, sstRecord.getString(labelSSTRecord.getSSTIndex()).getString());
+                }
+                break;
+            case LabelRecord.sid:
+                final LabelRecord labelRecord = (LabelRecord) record;
+                writeCell(labelRecord, labelRecord.getValue());
+                break;
+            case NumberRecord.sid:
+                final NumberRecord numberRecord = (NumberRecord) record;
+                writeCell(numberRecord, formatListener.formatNumberDateCell(numberRecord));
+                break;
+            case FormulaRecord.sid:
+                final FormulaRecord formulaRecord = (FormulaRecord) record;
+                if (formulaRecord.hasCachedResultString()) {
+                    // the value is in the next StringRecord
+                    writeCell(formulaRecord, "");
+                    outputNextStringRecord = true;
+                } else if (!Double.isNaN(formulaRecord.getValue())) {
+                    writeCell(formulaRecord, formatListener.formatNumberDateCell(formulaRecord));
+                }
+                break;
+            case StringRecord.sid:
+                if (outputNextStringRecord) {
+                    writer.write(((StringRecord) record).getString());
+                    outputNextStringRecord = false;
+                }
+                break;
+            default:
+                break;
+            }
+            return 0;
+        }
+
+        private void writeCell(final CellValueRecordInterface cell, final String value) {
+            if (cell.getRow() != lastRow) {
+                if (lastRow != -1) {
+                    writer.write('\n');
+                }
+                lastRow = cell.getRow();
+            } else {
+                writer.write('\t');
+            }
+            if (value != null) {
+                writer.write(value);
+            }
+        }
+    }
+
+    protected static class XssfTextHandler implements SheetContentsHandler {
+        private final BoundedWriter writer;
+
+        private boolean firstCell = true;
+
+        protected XssfTextHandler(final BoundedWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void startRow(final int rowNum) {
+            firstCell = true;
+        }
+
+        @Override
+        public void endRow(final int rowNum) {
+            writer.write('\n');
+        }
+
+        @Override
+        public void cell(final String cellReference, final String formattedValue, final XSSFComment comment) {
+            if (!firstCell) {
+                writer.write('\t');
+            }
+            firstCell = false;
+            if (formattedValue != null) {
+                writer.write(formattedValue);
+            }
+        }
+
+        @Override
+        public void headerFooter(final String text, final boolean isHeader, final String tagName) {
+            // ignore
+        }
+    }
+}
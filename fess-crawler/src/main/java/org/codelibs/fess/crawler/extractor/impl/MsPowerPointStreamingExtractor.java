@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.extractor.impl;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.poi.util.XMLHelper;
+import org.codelibs.fess.crawler.util.BoundedWriter;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+/**
+ * Gets a text from .pptx file by reading slides with SAX.
+ *
+ * @author shinsuke
+ *
+ */
+public class MsPowerPointStreamingExtractor extends AbstractStreamingExtractor {
+
+    protected static final Pattern SLIDE_ENTRY_PATTERN = Pattern.compile("ppt/slides/slide(\\d+)\\.xml");
+
+    @Override
+    protected void extract(final File file, final BoundedWriter writer) throws Exception {
+        try (ZipFile zipFile = new ZipFile(file)) {
+            // slides in the number order
+            final Map<Integer, ZipEntry> slideMap = new TreeMap<>();
+            zipFile.stream().forEach(entry -> {
+                final Matcher matcher = SLIDE_ENTRY_PATTERN.matcher(entry.getName());
+                if (matcher.matches()) {
+                    slideMap.put(Integer.valueOf(matcher.group(1)), entry);
+                }
+            });
+            for (final ZipEntry entry : slideMap.values()) {
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    final XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new OoxmlTextHandler(writer, OoxmlTextHandler.DRAWINGML_NS, Set.of("br")));
+                    parser.parse(new InputSource(in));
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    @Override
+    protected String getTempFileSuffix() {
+        return ".pptx";
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.extractor.impl;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.poi.util.XMLHelper;
+import org.codelibs.fess.crawler.exception.ExtractException;
+import org.codelibs.fess.crawler.util.BoundedWriter;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+/**
+ * Gets a text from .docx file by reading word/document.xml with SAX.
+ *
+ * @author shinsuke
+ *
+ */
+public class MsWordStreamingExtractor extends AbstractStreamingExtractor {
+
+    protected static final String DOCUMENT_ENTRY = "word/document.xml";
+
+    @Override
+    protected void extract(final File file, final BoundedWriter writer) throws Exception {
+        try (ZipFile zipFile = new ZipFile(file)) {
+            final ZipEntry entry = zipFile.getEntry(DOCUMENT_ENTRY);
+            if (entry == null) {
+                throw new ExtractException(DOCUMENT_ENTRY + " is not found.");
+            }
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                final XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new OoxmlTextHandler(writer, OoxmlTextHandler.WORDPROCESSINGML_NS, Set.of("br", "cr")));
+                parser.parse(new InputSource(in));
+            }
+        }
+    }
+
+    @Override
+    protected String getTempFileSuffix() {
+        return ".docx";
+    }
+}
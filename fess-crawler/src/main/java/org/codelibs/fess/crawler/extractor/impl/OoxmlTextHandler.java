@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.extractor.impl;
+
+import java.util.Set;
+
+import org.codelibs.fess.crawler.util.BoundedWriter;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * SAX handler which writes text runs of an Office Open XML part.
+ *
+ * @author shinsuke
+ *
+ */
+public class OoxmlTextHandler extends DefaultHandler {
+
+    public static final String WORDPROCESSINGML_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    public static final String DRAWINGML_NS = "http://schemas.openxmlformats.org/drawingml/2006/main";
+
+    private final BoundedWriter writer;
+
+    private final String namespace;
+
+    private final Set<String> breakNames;
+
+    private boolean inText = false;
+
+    /**
+     * @param writer the writer to store a text
+     * @param namespace the namespace of t, p, tab and break elements
+     * @param breakNames local names of elements which are output as a line break
+     */
+    public OoxmlTextHandler(final BoundedWriter writer, final String namespace, final Set<String> breakNames) {
+        this.writer = writer;
+        this.namespace = namespace;
+        this.breakNames = breakNames;
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) {
+        if (!namespace.equals(uri)) {
+            return;
+        }
+        if ("t".equals(localName)) {
+            inText = true;
+        } else if ("tab".equals(localName)) {
+            writer.write('\t');
+        } else if (breakNames.contains(localName)) {
+            writer.write('\n');
+        }
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) {
+        if (!namespace.equals(uri)) {
+            return;
+        }
+        if ("t".equals(localName)) {
+            inText = false;
+        } else if ("p".equals(localName)) {
+            writer.write('\n');
+        }
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) {
+        if (inText) {
+            writer.write(ch, start, length);
+        }
+    }
+}
@@ -15,15 +15,21 @@
  */
 package org.codelibs.fess.crawler.extractor.impl;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PreDestroy;
 
 import org.apache.pdfbox.cos.COSInputStream;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -38,13 +44,19 @@ import org.apache.pdfbox.pdmodel.common.filespecification.PDFileSpecification;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationFileAttachment;
 import org.apache.pdfbox.text.PDFTextStripper;
-import org.codelibs.core.lang.ThreadUtil;
+import org.codelibs.core.io.CopyUtil;
+import org.codelibs.core.io.FileUtil;
 import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.exception.ExtractException;
 import org.codelibs.fess.crawler.extractor.Extractor;
 import org.codelibs.fess.crawler.extractor.ExtractorFactory;
 import org.codelibs.fess.crawler.helper.MimeTypeHelper;
+import org.codelibs.fess.crawler.util.BoundedWriter;
+import org.codelibs.fess.crawler.util.BoundedWriter.LimitExceededException;
+import org.codelibs.fess.crawler.util.FileBackedInputStream;
+import org.codelibs.fess.crawler.util.WorkerExecutor;
+import org.codelibs.fess.crawler.util.WorkerExecutor.WorkerFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,6 +73,21 @@ public class PdfExtractor extends PasswordBasedExtractor {
 
     protected boolean isDaemonThread = false;
 
+    protected int splitPageThreshold = 0; // disabled
+
+    protected int pagesPerTask = 100;
+
+    protected final WorkerExecutor workerExecutor = new WorkerExecutor("PdfExtractor");
+
+    public PdfExtractor() {
+        workerExecutor.setDaemon(isDaemonThread);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        workerExecutor.shutdown();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -74,46 +101,173 @@ public class PdfExtractor extends PasswordBasedExtractor {
         }
 
         final String password = getPassword(params);
-        try (PDDocument document = PDDocument.load(in, password == null ? null : password)) {
-            final StringWriter writer = new StringWriter();
-            final PDFTextStripper stripper = new PDFTextStripper();
-            final AtomicBoolean done = new AtomicBoolean(false);
-            final PDDocument doc = document;
-            final Set<Exception> exceptionSet = new HashSet<>();
-            final Thread task = new Thread(() -> {
+        final long maxChars = getMaxOutputChars(params);
+        File tempFile = null;
+        try {
+            final File pdfFile;
+            if (splitPageThreshold > 0 && !isWorkerThread()) {
+                final File inputFile = getInputFile(in);
+                if (inputFile != null) {
+                    pdfFile = inputFile;
+                } else {
+                    tempFile = File.createTempFile("pdfextractor-", ".pdf");
+                    CopyUtil.copy(in, tempFile);
+                    pdfFile = tempFile;
+                }
+            } else {
+                pdfFile = null;
+            }
+
+            try (PDDocument document = pdfFile != null ? PDDocument.load(pdfFile, password) : PDDocument.load(in, password)) {
+                final BoundedWriter writer = new BoundedWriter(maxChars);
                 try {
-                    stripper.writeText(doc, writer);
-                    extractEmbeddedDocuments(doc, writer);
-                    extractAnnotations(doc, writer);
+                    if (pdfFile != null && document.getNumberOfPages() >= splitPageThreshold) {
+                        writeTextByPageRange(pdfFile, password, document, writer);
+                    } else {
+                        execute(() -> {
+                            createTextStripper().writeText(document, writer);
+                            extractEmbeddedDocuments(document, writer);
+                            extractAnnotations(document, writer);
+                            return null;
+                        });
+                    }
                 } catch (final Exception e) {
-                    exceptionSet.add(e);
-                } finally {
-                    done.set(true);
-                }
-            }, Thread.currentThread().getName() + "-pdf");
-            task.setDaemon(isDaemonThread);
-            task.start();
-            task.join(timeout);
-            if (!done.get()) {
-                for (int i = 0; i < 100 && !done.get(); i++) {
-                    task.interrupt();
-                    ThreadUtil.sleep(100L);
+                    if (!writer.isTruncated()) {
+                        throw e;
+                    }
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Stopped extraction at {} chars.", maxChars);
+                    }
                 }
-                throw new ExtractException("PDFBox process cannot finish in " + timeout + " sec.");
-            }
-            if (!exceptionSet.isEmpty()) {
-                throw exceptionSet.iterator().next();
+                final ExtractData extractData = new ExtractData(writer.toString());
+                extractData.setTruncated(writer.isTruncated());
+                extractMetadata(document, extractData);
+                return extractData;
             }
-            writer.flush();
-            final ExtractData extractData = new ExtractData(writer.toString());
-            extractMetadata(document, extractData);
-            return extractData;
         } catch (final Exception e) {
             throw new ExtractException(e);
+        } finally {
+            FileUtil.deleteInBackground(tempFile);
         }
     }
 
-    protected void extractAnnotations(final PDDocument doc, final StringWriter writer) {
+    /**
+     * Strips page ranges in parallel. Each task loads its own document because
+     * PDDocument is not thread-safe. Remaining tasks are cancelled when the writer reaches the limit.
+     */
+    protected void writeTextByPageRange(final File pdfFile, final String password, final PDDocument document, final BoundedWriter writer)
+            throws Exception {
+        // a range which exceeds the limit by itself is cut one char over the limit to truncate the writer
+        final long maxChars = writer.getMaxChars() < 0 ? -1 : writer.getMaxChars() + 1;
+        final int numberOfPages = document.getNumberOfPages();
+        final List<WorkerFuture<String>> futureList = new ArrayList<>();
+        try {
+            for (int start = 1; start <= numberOfPages; start += pagesPerTask) {
+                final int startPage = start;
+                final int endPage = Math.min(numberOfPages, start + pagesPerTask - 1);
+                futureList.add(submit(() -> {
+                    final BoundedWriter rangeWriter = new BoundedWriter(maxChars);
+                    try (PDDocument doc = PDDocument.load(pdfFile, password)) {
+                        final PDFTextStripper stripper = createTextStripper();
+                        stripper.setStartPage(startPage);
+                        stripper.setEndPage(endPage);
+                        stripper.writeText(doc, rangeWriter);
+                    } catch (final Exception e) {
+                        if (!rangeWriter.isTruncated()) {
+                            throw e;
+                        }
+                    }
+                    return rangeWriter.toString();
+                }));
+            }
+            futureList.add(submit(() -> {
+                final BoundedWriter attachmentWriter = new BoundedWriter(maxChars);
+                try {
+                    extractEmbeddedDocuments(document, attachmentWriter);
+                    extractAnnotations(document, attachmentWriter);
+                } catch (final LimitExceededException e) {
+                    // cut by the writer
+                }
+                return attachmentWriter.toString();
+            }));
+
+            for (final WorkerFuture<String> future : futureList) {
+                writer.write(getResult(future));
+            }
+        } finally {
+            for (final WorkerFuture<String> future : futureList) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    protected <T> T execute(final Callable<T> task) throws Exception {
+        if (isWorkerThread()) {
+            // a nested PDF is processed on the current worker to avoid a deadlock
+            return task.call();
+        }
+        final WorkerFuture<T> future = submit(task);
+        try {
+            return getResult(future);
+        } finally {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Submits the task to the shared executor. If its queue is full, the task
+     * runs on the current thread, where the timeout cannot stop it.
+     */
+    protected <T> WorkerFuture<T> submit(final Callable<T> task) {
+        return workerExecutor.submit(task);
+    }
+
+    protected <T> T getResult(final WorkerFuture<T> future) throws Exception {
+        try {
+            // the timeout starts when the task starts to run
+            return future.await(timeout);
+        } catch (final TimeoutException e) {
+            throw new ExtractException("PDFBox process cannot finish in " + timeout + " msec.", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExtractException("Interrupted while extracting a text.", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof final Exception ex) {
+                throw ex;
+            }
+            if (cause instanceof final Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    protected boolean isWorkerThread() {
+        return workerExecutor.isWorkerThread();
+    }
+
+    protected PDFTextStripper createTextStripper() throws IOException {
+        return new PDFTextStripper() {
+            @Override
+            protected void startPage(final PDPage page) throws IOException {
+                // stop a cancelled task at a page boundary
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("PDF extraction is cancelled.");
+                }
+                super.startPage(page);
+            }
+        };
+    }
+
+    protected File getInputFile(final InputStream in) {
+        if (in instanceof final FileBackedInputStream fileBackedInputStream && fileBackedInputStream.isUnread()) {
+            return fileBackedInputStream.getFile();
+        }
+        return null;
+    }
+
+    protected void extractAnnotations(final PDDocument doc, final Writer writer) {
         for (final PDPage page : doc.getPages()) {
             try {
                 for (final PDAnnotation annotation : page.getAnnotations()) {
@@ -131,7 +285,15 @@ public class PdfExtractor extends PasswordBasedExtractor {
         }
     }
 
-    protected void extractFile(final String filename, final PDEmbeddedFile embeddedFile, final StringWriter writer) {
+    /**
+     * @deprecated use {@link #extractAnnotations(PDDocument, Writer)} instead.
+     */
+    @Deprecated
+    protected void extractAnnotations(final PDDocument doc, final StringWriter writer) {
+        extractAnnotations(doc, (Writer) writer);
+    }
+
+    protected void extractFile(final String filename, final PDEmbeddedFile embeddedFile, final Writer writer) {
         final MimeTypeHelper mimeTypeHelper = getMimeTypeHelper();
         final ExtractorFactory extractorFactory = getExtractorFactory();
         final String mimeType = mimeTypeHelper.getContentType(null, filename);
@@ -144,6 +306,8 @@ public class PdfExtractor extends PasswordBasedExtractor {
                     final String content = extractor.getText(is, map).getContent();
                     writer.write(content);
                     writer.write('\n');
+                } catch (final LimitExceededException e) {
+                    throw e;
                 } catch (final Exception e) {
                     if (logger.isDebugEnabled()) {
                         logger.debug("Exception in an internal extractor.", e);
@@ -153,7 +317,15 @@ public class PdfExtractor extends PasswordBasedExtractor {
         }
     }
 
-    protected void extractEmbeddedDocuments(final PDDocument document, final StringWriter writer) {
+    /**
+     * @deprecated use {@link #extractFile(String, PDEmbeddedFile, Writer)} instead.
+     */
+    @Deprecated
+    protected void extractFile(final String filename, final PDEmbeddedFile embeddedFile, final StringWriter writer) {
+        extractFile(filename, embeddedFile, (Writer) writer);
+    }
+
+    protected void extractEmbeddedDocuments(final PDDocument document, final Writer writer) {
         final PDDocumentNameDictionary namesDictionary = new PDDocumentNameDictionary(document.getDocumentCatalog());
         final PDEmbeddedFilesNameTreeNode efTree = namesDictionary.getEmbeddedFiles();
         if (efTree == null) {
@@ -178,7 +350,15 @@ public class PdfExtractor extends PasswordBasedExtractor {
         }
     }
 
-    protected void processEmbeddedDocNames(final Map<String, PDComplexFileSpecification> embeddedFileNames, final StringWriter writer) {
+    /**
+     * @deprecated use {@link #extractEmbeddedDocuments(PDDocument, Writer)} instead.
+     */
+    @Deprecated
+    protected void extractEmbeddedDocuments(final PDDocument document, final StringWriter writer) {
+        extractEmbeddedDocuments(document, (Writer) writer);
+    }
+
+    protected void processEmbeddedDocNames(final Map<String, PDComplexFileSpecification> embeddedFileNames, final Writer writer) {
         if (embeddedFileNames == null || embeddedFileNames.isEmpty()) {
             return;
         }
@@ -192,6 +372,14 @@ public class PdfExtractor extends PasswordBasedExtractor {
         }
     }
 
+    /**
+     * @deprecated use {@link #processEmbeddedDocNames(Map, Writer)} instead.
+     */
+    @Deprecated
+    protected void processEmbeddedDocNames(final Map<String, PDComplexFileSpecification> embeddedFileNames, final StringWriter writer) {
+        processEmbeddedDocNames(embeddedFileNames, (Writer) writer);
+    }
+
     protected PDEmbeddedFile getEmbeddedFile(final PDComplexFileSpecification fileSpec) {
         // search for the first available alternative of the embedded file
         PDEmbeddedFile embeddedFile = null;
@@ -241,5 +429,25 @@ public class PdfExtractor extends PasswordBasedExtractor {
 
     public void setDaemonThread(final boolean isDaemonThread) {
         this.isDaemonThread = isDaemonThread;
+        workerExecutor.setDaemon(isDaemonThread);
+    }
+
+    /**
+     * @param maxThreads the number of worker threads, or 0 to use the number of crawler threads
+     */
+    public void setMaxThreads(final int maxThreads) {
+        workerExecutor.setMaxThreads(maxThreads);
+    }
+
+    public void setQueueSize(final int queueSize) {
+        workerExecutor.setQueueSize(queueSize);
+    }
+
+    public void setSplitPageThreshold(final int splitPageThreshold) {
+        this.splitPageThreshold = splitPageThreshold;
+    }
+
+    public void setPagesPerTask(final int pagesPerTask) {
+        this.pagesPerTask = pagesPerTask;
     }
 }
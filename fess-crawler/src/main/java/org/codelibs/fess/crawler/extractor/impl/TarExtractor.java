@@ -15,9 +15,8 @@
  */
 package org.codelibs.fess.crawler.extractor.impl;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Map;
 
 import javax.annotation.Resource;
 
@@ -25,14 +24,10 @@ import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.commons.compress.archivers.ArchiveStreamFactory;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.codelibs.core.io.CloseableUtil;
-import org.codelibs.fess.crawler.entity.ExtractData;
-import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.exception.ExtractException;
 import org.codelibs.fess.crawler.exception.MaxLengthExceededException;
-import org.codelibs.fess.crawler.extractor.Extractor;
 import org.codelibs.fess.crawler.extractor.ExtractorFactory;
 import org.codelibs.fess.crawler.helper.MimeTypeHelper;
-import org.codelibs.fess.crawler.util.IgnoreCloseInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,72 +35,56 @@ import org.slf4j.LoggerFactory;
  * @author shinsuke
  *
  */
-public class TarExtractor extends AbstractExtractor {
+public class TarExtractor extends AbstractArchiveExtractor {
     private static final Logger logger = LoggerFactory.getLogger(TarExtractor.class);
 
     @Resource
     protected ArchiveStreamFactory archiveStreamFactory;
 
-    protected long maxContentSize = -1;
-
     @Override
-    public ExtractData getText(final InputStream in, final Map<String, String> params) {
-        if (in == null) {
-            throw new CrawlerSystemException("The inputstream is null.");
-        }
-
-        final MimeTypeHelper mimeTypeHelper = getMimeTypeHelper();
-        final ExtractorFactory extractorFactory = getExtractorFactory();
-        return new ExtractData(getTextInternal(in, mimeTypeHelper, extractorFactory));
-    }
-
-    protected String getTextInternal(final InputStream in, final MimeTypeHelper mimeTypeHelper, final ExtractorFactory extractorFactory) {
-
-        final StringBuilder buf = new StringBuilder(1000);
-
+    protected void extract(final InputStream in, final ArchiveContext context) {
         ArchiveInputStream ais = null;
 
         try {
             ais = archiveStreamFactory.createArchiveInputStream("tar", in);
             TarArchiveEntry entry = null;
             long contentSize = 0;
-            while ((entry = (TarArchiveEntry) ais.getNextEntry()) != null) {
+            while (!context.isFull() && (entry = (TarArchiveEntry) ais.getNextEntry()) != null) {
                 contentSize += entry.getSize();
                 if (maxContentSize != -1 && contentSize > maxContentSize) {
                     throw new MaxLengthExceededException("Extracted size is " + contentSize + " > " + maxContentSize);
                 }
-                final String filename = entry.getName();
-                final String mimeType = mimeTypeHelper.getContentType(null, filename);
-                if (mimeType != null) {
-                    final Extractor extractor = extractorFactory.getExtractor(mimeType);
-                    if (extractor != null) {
-                        try {
-                            final Map<String, String> map = new HashMap<>();
-                            map.put(ExtractData.RESOURCE_NAME_KEY, filename);
-                            buf.append(extractor.getText(new IgnoreCloseInputStream(ais), map).getContent());
-                            buf.append('\n');
-                        } catch (final Exception e) {
-                            if (logger.isDebugEnabled()) {
-                                logger.debug("Exception in an internal extractor.", e);
-                            }
-                        }
+                try {
+                    context.addEntry(entry.getName(), ais);
+                } catch (final IOException e) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Exception in an internal extractor.", e);
                     }
                 }
             }
         } catch (final MaxLengthExceededException e) {
             throw e;
         } catch (final Exception e) {
-            if (buf.length() == 0) {
+            if (context.isEmpty()) {
                 throw new ExtractException("Could not extract a content.", e);
             }
         } finally {
             CloseableUtil.closeQuietly(ais);
         }
-
-        return buf.toString().trim();
     }
 
-    public void setMaxContentSize(final long maxContentSize) {
-        this.maxContentSize = maxContentSize;
+    /**
+     * @deprecated use {@link #getText(InputStream, java.util.Map)} or
+     *             {@link #extract(InputStream, ArchiveContext)} instead.
+     */
+    @Deprecated
+    protected String getTextInternal(final InputStream in, final MimeTypeHelper mimeTypeHelper, final ExtractorFactory extractorFactory) {
+        final ArchiveContext context = new ArchiveContext(mimeTypeHelper, extractorFactory, -1);
+        try {
+            extract(in, context);
+            return context.getText();
+        } finally {
+            context.close();
+        }
     }
 }
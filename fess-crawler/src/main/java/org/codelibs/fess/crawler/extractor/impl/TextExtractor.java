@@ -16,6 +16,8 @@
 package org.codelibs.fess.crawler.extractor.impl;
 
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.Map;
 
 import org.codelibs.core.io.InputStreamUtil;
@@ -23,6 +25,8 @@ import org.codelibs.fess.crawler.Constants;
 import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.exception.ExtractException;
+import org.codelibs.fess.crawler.util.BoundedWriter;
+import org.codelibs.fess.crawler.util.BoundedWriter.LimitExceededException;
 
 /**
  * @author shinsuke
@@ -37,6 +41,10 @@ public class TextExtractor extends AbstractExtractor {
         if (in == null) {
             throw new CrawlerSystemException("The inputstream is null.");
         }
+        final long maxChars = getMaxOutputChars(params);
+        if (maxChars >= 0) {
+            return getText(in, maxChars);
+        }
         try {
             return new ExtractData(new String(InputStreamUtil.getBytes(in), getEncoding()));
         } catch (final Exception e) {
@@ -44,6 +52,25 @@ public class TextExtractor extends AbstractExtractor {
         }
     }
 
+    protected ExtractData getText(final InputStream in, final long maxChars) {
+        final BoundedWriter writer = new BoundedWriter(maxChars);
+        try {
+            final Reader reader = new InputStreamReader(in, getEncoding());
+            final char[] buf = new char[8192];
+            int length;
+            while ((length = reader.read(buf)) != -1) {
+                writer.write(buf, 0, length);
+            }
+        } catch (final LimitExceededException e) {
+            // stop reading at the limit
+        } catch (final Exception e) {
+            throw new ExtractException(e);
+        }
+        final ExtractData extractData = new ExtractData(writer.toString());
+        extractData.setTruncated(writer.isTruncated());
+        return extractData;
+    }
+
     public String getEncoding() {
         return encoding;
     }
@@ -38,6 +38,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
@@ -75,7 +76,12 @@ import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.exception.ExtractException;
 import org.codelibs.fess.crawler.extractor.Extractor;
+import org.codelibs.fess.crawler.util.BoundedWriter;
+import org.codelibs.fess.crawler.util.BoundedWriter.LimitExceededException;
+import org.codelibs.fess.crawler.util.DemuxPrintStream;
+import org.codelibs.fess.crawler.util.FileBackedInputStream;
 import org.codelibs.fess.crawler.util.TextUtil;
+import org.codelibs.fess.crawler.util.TextUtil.TextNormalizeWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.ContentHandler;
@@ -151,9 +157,15 @@ public class TikaExtractor extends PasswordBasedExtractor {
 
         final File tempFile;
         final boolean isByteStream = inputStream instanceof ByteArrayInputStream;
+        final File inputFile = isByteStream ? null : getInputFile(inputStream);
         if (isByteStream) {
             inputStream.mark(0);
             tempFile = null;
+        } else if (inputFile != null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("read {} directly", inputFile.getAbsolutePath());
+            }
+            tempFile = null;
         } else {
             try {
                 tempFile = File.createTempFile("tikaExtractor-", ".out");
@@ -161,20 +173,24 @@ public class TikaExtractor extends PasswordBasedExtractor {
                 throw new ExtractException("Could not create a temp file.", e);
             }
         }
+        final File contentFile = inputFile != null ? inputFile : tempFile;
 
         try {
-            final PrintStream originalOutStream = System.out;
+            // capture output from Tika on this thread only
+            final DemuxPrintStream demuxOutStream = DemuxPrintStream.installOut();
             final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-            System.setOut(new PrintStream(outStream, true));
-            final PrintStream originalErrStream = System.err;
+            final PrintStream originalOutStream = demuxOutStream.bind(new PrintStream(outStream, true));
+            final DemuxPrintStream demuxErrStream = DemuxPrintStream.installErr();
             final ByteArrayOutputStream errStream = new ByteArrayOutputStream();
-            System.setErr(new PrintStream(errStream, true));
+            final PrintStream originalErrStream = demuxErrStream.bind(new PrintStream(errStream, true));
             try {
                 final String resourceName = params == null ? null : params.get(ExtractData.RESOURCE_NAME_KEY);
                 final String contentType = params == null ? null : params.get(ExtractData.CONTENT_TYPE);
                 String contentEncoding = params == null ? null : params.get(ExtractData.CONTENT_ENCODING);
                 final boolean normalizeText = params == null ? true : !Constants.FALSE.equalsIgnoreCase(params.get(NORMALIZE_TEXT));
                 final String pdfPassword = getPassword(params);
+                final long maxChars = getMaxOutputChars(params);
+                final AtomicBoolean truncated = new AtomicBoolean();
 
                 final Metadata metadata = createMetadata(resourceName, contentType, contentEncoding, pdfPassword);
 
@@ -185,10 +201,12 @@ public class TikaExtractor extends PasswordBasedExtractor {
                     InputStream in = null;
                     try {
                         if (!isByteStream) {
-                            try (OutputStream out = new FileOutputStream(tempFile)) {
-                                CopyUtil.copy(inputStream, out);
+                            if (tempFile != null) {
+                                try (OutputStream out = new FileOutputStream(tempFile)) {
+                                    CopyUtil.copy(inputStream, out);
+                                }
                             }
-                            in = new FileInputStream(tempFile);
+                            in = TikaInputStream.get(contentFile.toPath());
                         } else {
                             in = inputStream;
                         }
@@ -196,7 +214,7 @@ public class TikaExtractor extends PasswordBasedExtractor {
                     } finally {
                         CloseableUtil.closeQuietly(in);
                     }
-                }, contentEncoding, normalizeText);
+                }, contentEncoding, normalizeText, maxChars, truncated);
                 if (StringUtil.isBlank(content)) {
                     if (resourceName != null) {
                         if (logger.isDebugEnabled()) {
@@ -210,13 +228,13 @@ public class TikaExtractor extends PasswordBasedExtractor {
                                     inputStream.reset();
                                     in = inputStream;
                                 } else {
-                                    in = new FileInputStream(tempFile);
+                                    in = TikaInputStream.get(contentFile.toPath());
                                 }
                                 parser.parse(in, new BodyContentHandler(writer), metadata2, parseContext);
                             } finally {
                                 CloseableUtil.closeQuietly(in);
                             }
-                        }, contentEncoding, normalizeText);
+                        }, contentEncoding, normalizeText, maxChars, truncated);
                     }
                     if (StringUtil.isBlank(content) && contentType != null) {
                         if (logger.isDebugEnabled()) {
@@ -230,13 +248,13 @@ public class TikaExtractor extends PasswordBasedExtractor {
                                     inputStream.reset();
                                     in = inputStream;
                                 } else {
-                                    in = new FileInputStream(tempFile);
+                                    in = TikaInputStream.get(contentFile.toPath());
                                 }
                                 parser.parse(in, new BodyContentHandler(writer), metadata3, parseContext);
                             } finally {
                                 CloseableUtil.closeQuietly(in);
                             }
-                        }, contentEncoding, normalizeText);
+                        }, contentEncoding, normalizeText, maxChars, truncated);
                     }
 
                     if (StringUtil.isBlank(content)) {
@@ -270,21 +288,28 @@ public class TikaExtractor extends PasswordBasedExtractor {
                                     inputStream.reset();
                                     br = new BufferedReader(new InputStreamReader(inputStream, enc));
                                 } else {
-                                    br = new BufferedReader(new InputStreamReader(new FileInputStream(tempFile), enc));
+                                    br = new BufferedReader(new InputStreamReader(new FileInputStream(contentFile), enc));
                                 }
                                 String line;
                                 while ((line = br.readLine()) != null) {
                                     writer.write(line);
                                 }
+                            } catch (final LimitExceededException e) {
+                                throw e;
                             } catch (final Exception e) {
-                                logger.warn("Could not read " + (tempFile != null ? tempFile.getAbsolutePath() : "a byte stream"), e);
+                                logger.warn("Could not read " + (contentFile != null ? contentFile.getAbsolutePath() : "a byte stream"), e);
                             } finally {
                                 CloseableUtil.closeQuietly(br);
                             }
-                        }, contentEncoding, normalizeText);
+                        }, contentEncoding, normalizeText, maxChars, truncated);
                     }
                 }
+                if (maxChars >= 0 && content != null && content.length() > maxChars) {
+                    content = content.substring(0, (int) maxChars);
+                    truncated.set(true);
+                }
                 final ExtractData extractData = new ExtractData(content);
+                extractData.setTruncated(truncated.get());
 
                 final String[] names = metadata.names();
                 Arrays.sort(names);
@@ -311,7 +336,7 @@ public class TikaExtractor extends PasswordBasedExtractor {
                                 inputStream.reset();
                                 in = inputStream;
                             } else {
-                                in = new FileInputStream(tempFile);
+                                in = new FileInputStream(contentFile);
                             }
                             return xmlExtractor.getText(in, params);
                         } finally {
@@ -321,12 +346,8 @@ public class TikaExtractor extends PasswordBasedExtractor {
                 }
                 throw e;
             } finally {
-                if (originalOutStream != null) {
-                    System.setOut(originalOutStream);
-                }
-                if (originalErrStream != null) {
-                    System.setErr(originalErrStream);
-                }
+                demuxOutStream.unbind(originalOutStream);
+                demuxErrStream.unbind(originalErrStream);
                 try {
                     if (logger.isInfoEnabled()) {
                         final byte[] bs = outStream.toByteArray();
@@ -351,6 +372,33 @@ public class TikaExtractor extends PasswordBasedExtractor {
         }
     }
 
+    /**
+     * Returns a file which has the same content as the input stream, if the stream is backed by a file and not read yet.
+     *
+     * @param in an input stream
+     * @return a file, or null
+     */
+    protected File getInputFile(final InputStream in) {
+        if (in instanceof FileBackedInputStream) {
+            final FileBackedInputStream fbis = (FileBackedInputStream) in;
+            if (fbis.isUnread()) {
+                return fbis.getFile();
+            }
+        } else if (in instanceof TikaInputStream) {
+            final TikaInputStream tis = (TikaInputStream) in;
+            try {
+                if (tis.hasFile() && tis.getPosition() == 0) {
+                    return tis.getFile();
+                }
+            } catch (final IOException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Could not get a file from TikaInputStream.", e);
+                }
+            }
+        }
+        return null;
+    }
+
     protected ParseContext createParseContext(final Parser parser, final Map<String, String> params) {
         final ParseContext parseContext = new ParseContext();
         parseContext.set(Parser.class, parser);
@@ -398,6 +446,67 @@ public class TikaExtractor extends PasswordBasedExtractor {
     }
 
     protected String getContent(final ContentWriter out, final String encoding, final boolean normalizeText) throws TikaException {
+        return getContent(out, encoding, normalizeText, -1, new AtomicBoolean());
+    }
+
+    /**
+     * Writes a content with the writer, and stops a parser when the content reaches maxChars.
+     *
+     * @param out the content writer
+     * @param encoding the encoding for a temporary file
+     * @param normalizeText true if the content is normalized
+     * @param maxChars the maximum number of characters, or -1 for no limit
+     * @param truncated set to true if the content is truncated
+     * @return the content
+     * @throws TikaException if a parser fails
+     */
+    protected String getContent(final ContentWriter out, final String encoding, final boolean normalizeText, final long maxChars,
+            final AtomicBoolean truncated) throws TikaException {
+        truncated.set(false);
+        if (maxChars >= 0) {
+            final BoundedWriter boundedWriter = new BoundedWriter(maxChars);
+            try {
+                if (normalizeText) {
+                    final TextNormalizeWriter writer = TextUtil.normalizeText().initialCapacity(initialBufferSize)
+                            .maxAlphanumTermSize(maxAlphanumTermSize).maxSymbolTermSize(maxSymbolTermSize)
+                            .duplicateTermRemoved(replaceDuplication).spaceChars(spaceChars).writer(boundedWriter);
+                    out.accept(writer);
+                    writer.finish();
+                } else {
+                    out.accept(boundedWriter);
+                }
+                return boundedWriter.toString();
+            } catch (final Exception e) {
+                // the limit may be wrapped by a parser
+                if (!boundedWriter.isTruncated()) {
+                    if (e instanceof final TikaException tikaException) {
+                        throw tikaException;
+                    }
+                    throw new ExtractException("Failed to read a content.", e);
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Stopped parsing at {} chars.", maxChars);
+                }
+                truncated.set(true);
+                return boundedWriter.toString().trim();
+            }
+        }
+
+        if (normalizeText) {
+            // normalize text while Tika writes it
+            final TextNormalizeWriter writer = TextUtil.normalizeText().initialCapacity(initialBufferSize)
+                    .maxAlphanumTermSize(maxAlphanumTermSize).maxSymbolTermSize(maxSymbolTermSize).duplicateTermRemoved(replaceDuplication)
+                    .spaceChars(spaceChars).writer();
+            try {
+                out.accept(writer);
+                return writer.getText();
+            } catch (final TikaException e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new ExtractException("Failed to read a content.", e);
+            }
+        }
+
         File tempFile = null;
         final String enc = encoding == null ? Constants.UTF_8 : encoding;
         try (DeferredFileOutputStream dfos = new DeferredFileOutputStream(memorySize, "tika", ".tmp", SystemUtils.getJavaIoTmpDir())) {
@@ -410,10 +519,6 @@ public class TikaExtractor extends PasswordBasedExtractor {
             }
 
             try (Reader reader = new InputStreamReader(getContentStream(dfos), enc)) {
-                if (normalizeText) {
-                    return TextUtil.normalizeText(reader).initialCapacity(initialBufferSize).maxAlphanumTermSize(maxAlphanumTermSize)
-                            .maxSymbolTermSize(maxSymbolTermSize).duplicateTermRemoved(replaceDuplication).spaceChars(spaceChars).execute();
-                }
                 return ReaderUtil.readText(reader);
             }
         } catch (final TikaException e) {
@@ -18,7 +18,6 @@ package org.codelibs.fess.crawler.filter.impl;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -31,6 +30,10 @@ import org.codelibs.fess.crawler.service.UrlFilterService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
 /**
  * @author shinsuke
  *
@@ -56,6 +59,12 @@ public class UrlFilterImpl implements UrlFilter {
 
     protected UrlFilterService urlFilterService;
 
+    protected int matchCacheSize = 10000;
+
+    protected volatile MatchState matchState;
+
+    protected CacheStats matchCacheStats = new CacheStats(0, 0, 0, 0, 0, 0);
+
     /*
      * (non-Javadoc)
      *
@@ -76,6 +85,7 @@ public class UrlFilterImpl implements UrlFilter {
         } else {
             getUrlFilterService().addExcludeUrlFilter(sessionId, urlPattern);
         }
+        resetMatchState();
     }
 
     /*
@@ -98,6 +108,7 @@ public class UrlFilterImpl implements UrlFilter {
         } else {
             getUrlFilterService().addIncludeUrlFilter(sessionId, urlPattern);
         }
+        resetMatchState();
     }
 
     /*
@@ -112,6 +123,7 @@ public class UrlFilterImpl implements UrlFilter {
         if (sessionId != null) {
             getUrlFilterService().delete(sessionId);
         }
+        resetMatchState();
     }
 
     /*
@@ -138,6 +150,7 @@ public class UrlFilterImpl implements UrlFilter {
             }
             cachedExcludeSet.clear();
         }
+        resetMatchState();
     }
 
     /*
@@ -147,36 +160,67 @@ public class UrlFilterImpl implements UrlFilter {
      */
     @Override
     public boolean match(final String url) {
+        final MatchState state = getMatchState();
+        if (state.resultCache == null) {
+            return state.matches(url);
+        }
+        final Boolean cached = state.resultCache.getIfPresent(url);
+        if (cached != null) {
+            return cached;
+        }
+        final boolean result = state.matches(url);
+        state.resultCache.put(url, result);
+        return result;
+    }
+
+    /**
+     * Returns compiled patterns with the match results.
+     * They are compiled again when the patterns in UrlFilterService are changed,
+     * and reused when UrlFilterService only returns new lists with the same patterns.
+     */
+    protected MatchState getMatchState() {
         final List<Pattern> includeList = getUrlFilterService().getIncludeUrlPatternList(sessionId);
         final List<Pattern> excludeList = getUrlFilterService().getExcludeUrlPatternList(sessionId);
-
-        if (!includeList.isEmpty()) {
-            boolean match = false;
-            for (final Pattern pattern : includeList) {
-                final Matcher matcher = pattern.matcher(url);
-                if (matcher.matches()) {
-                    match = true;
+        final MatchState state = matchState;
+        if (state != null && state.isCompiledFrom(includeList, excludeList)) {
+            return state;
+        }
+        synchronized (this) {
+            if (matchState != null) {
+                if (matchState.updateSource(includeList, excludeList)) {
+                    return matchState;
                 }
+                addMatchCacheStats(matchState);
             }
-            if (!match) {
-                return false;
-            }
+            final MatchState newState = new MatchState(new UrlPatternMatcher(includeList), new UrlPatternMatcher(excludeList),
+                    matchCacheSize > 0 ? CacheBuilder.newBuilder().maximumSize(matchCacheSize).recordStats().build() : null);
+            matchState = newState;
+            return newState;
         }
+    }
 
-        if (!excludeList.isEmpty()) {
-            boolean match = false;
-            for (final Pattern pattern : excludeList) {
-                final Matcher matcher = pattern.matcher(url);
-                if (matcher.matches()) {
-                    match = true;
-                }
-            }
-            if (match) {
-                return false;
-            }
+    protected synchronized void resetMatchState() {
+        if (matchState != null) {
+            addMatchCacheStats(matchState);
+            matchState = null;
         }
+    }
 
-        return true;
+    private void addMatchCacheStats(final MatchState state) {
+        if (state.resultCache != null) {
+            matchCacheStats = matchCacheStats.plus(state.resultCache.stats());
+        }
+    }
+
+    /**
+     * @return statistics of the match result cache
+     */
+    public synchronized CacheStats getMatchCacheStats() {
+        final MatchState state = matchState;
+        if (state != null && state.resultCache != null) {
+            return matchCacheStats.plus(state.resultCache.stats());
+        }
+        return matchCacheStats;
     }
 
     /*
@@ -228,6 +272,11 @@ public class UrlFilterImpl implements UrlFilter {
         return urlFilterService;
     }
 
+    public void setMatchCacheSize(final int matchCacheSize) {
+        this.matchCacheSize = matchCacheSize;
+        resetMatchState();
+    }
+
     @Override
     public String toString() {
         return "UrlFilterImpl [urlPattern=" + urlPattern + ", includeFilteringPattern=" + includeFilteringPattern
@@ -235,4 +284,36 @@ public class UrlFilterImpl implements UrlFilter {
                 + cachedExcludeSet + ", sessionId=" + sessionId + ", urlFilterService=" + urlFilterService + "]";
     }
 
+    protected static class MatchState {
+        protected final UrlPatternMatcher includeMatcher;
+
+        protected final UrlPatternMatcher excludeMatcher;
+
+        protected final Cache<String, Boolean> resultCache;
+
+        protected MatchState(final UrlPatternMatcher includeMatcher, final UrlPatternMatcher excludeMatcher,
+                final Cache<String, Boolean> resultCache) {
+            this.includeMatcher = includeMatcher;
+            this.excludeMatcher = excludeMatcher;
+            this.resultCache = resultCache;
+        }
+
+        protected boolean isCompiledFrom(final List<Pattern> includeList, final List<Pattern> excludeList) {
+            return includeMatcher.isCompiledFrom(includeList) && excludeMatcher.isCompiledFrom(excludeList);
+        }
+
+        protected boolean updateSource(final List<Pattern> includeList, final List<Pattern> excludeList) {
+            return includeMatcher.updateSource(includeList) && excludeMatcher.updateSource(excludeList);
+        }
+
+        protected boolean matches(final String url) {
+            if (!includeMatcher.isEmpty() && !includeMatcher.matches(url)) {
+                return false;
+            }
+            if (!excludeMatcher.isEmpty() && excludeMatcher.matches(url)) {
+                return false;
+            }
+            return true;
+        }
+    }
 }
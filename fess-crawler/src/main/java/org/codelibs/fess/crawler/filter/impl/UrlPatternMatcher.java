@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.filter.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.codelibs.fess.crawler.util.PatternUtil;
+
+/**
+ * UrlPatternMatcher is a compiled form of url patterns.
+ * Patterns beginning with a literal string are kept in a prefix tree, so
+ * only patterns whose prefix matches a given url are evaluated, and the
+ * evaluation stops at the first matched pattern.
+ *
+ * @author shinsuke
+ *
+ */
+public class UrlPatternMatcher {
+
+    protected volatile List<Pattern> source;
+
+    protected final int size;
+
+    protected final Pattern[] patterns;
+
+    protected final Node root = new Node();
+
+    protected final List<Pattern> otherPatternList = new ArrayList<>();
+
+    public UrlPatternMatcher(final List<Pattern> patternList) {
+        source = patternList;
+        size = patternList.size();
+        patterns = patternList.toArray(new Pattern[0]);
+        for (final Pattern pattern : patterns) {
+            final String prefix = PatternUtil.getLiteralPrefix(pattern);
+            if (prefix.isEmpty()) {
+                otherPatternList.add(pattern);
+            } else {
+                Node node = root;
+                for (int i = 0; i < prefix.length(); i++) {
+                    node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+                }
+                node.patternList.add(pattern);
+            }
+        }
+    }
+
+    /**
+     * Check if this matcher is compiled from a given list.
+     * A pattern list is only appended to or replaced, so the list and the size are compared.
+     *
+     * @param patternList a list of patterns
+     * @return true if it's up to date
+     */
+    public boolean isCompiledFrom(final List<Pattern> patternList) {
+        return source == patternList && size == patternList.size();
+    }
+
+    /**
+     * Check if a given list has the same patterns as this matcher. If so, the
+     * list becomes the source of this matcher, and then
+     * {@link #isCompiledFrom(List)} returns true for it.
+     * A pattern list may be loaded again with the same patterns.
+     *
+     * @param patternList a list of patterns
+     * @return true if this matcher can be used for the list
+     */
+    public boolean updateSource(final List<Pattern> patternList) {
+        if (isCompiledFrom(patternList)) {
+            return true;
+        }
+        final Pattern[] newPatterns = patternList.toArray(new Pattern[0]);
+        if (newPatterns.length != size || newPatterns.length != patterns.length) {
+            return false;
+        }
+        for (int i = 0; i < patterns.length; i++) {
+            if (!patterns[i].pattern().equals(newPatterns[i].pattern()) || patterns[i].flags() != newPatterns[i].flags()) {
+                return false;
+            }
+        }
+        source = patternList;
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Check if a given url matches one of the patterns.
+     *
+     * @param url URL
+     * @return true if matched
+     */
+    public boolean matches(final String url) {
+        Node node = root;
+        for (int i = 0; i < url.length(); i++) {
+            node = node.children.get(url.charAt(i));
+            if (node == null) {
+                break;
+            }
+            for (final Pattern pattern : node.patternList) {
+                if (pattern.matcher(url).matches()) {
+                    return true;
+                }
+            }
+        }
+        for (final Pattern pattern : otherPatternList) {
+            if (pattern.matcher(url).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected static class Node {
+        protected final Map<Character, Node> children = new HashMap<>();
+
+        protected final List<Pattern> patternList = new ArrayList<>();
+    }
+}
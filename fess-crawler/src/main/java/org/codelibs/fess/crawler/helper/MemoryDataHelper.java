@@ -16,123 +16,115 @@
 package org.codelibs.fess.crawler.helper;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Pattern;
 
 import org.codelibs.fess.crawler.entity.AccessResultImpl;
 import org.codelibs.fess.crawler.entity.UrlQueueImpl;
 
 /**
+ * MemoryDataHelper keeps crawling data on memory.
+ * Maps are concurrent ones, and url patterns are copy-on-write lists,
+ * so that crawler threads do not wait for each other.
+ *
  * @author shinsuke
  *
  */
 public class MemoryDataHelper {
-    protected volatile Map<String, Queue<UrlQueueImpl<Long>>> urlQueueMap = new HashMap<>();
+    private static final String NULL_SESSION_ID = "\u0000";
+
+    protected volatile Map<String, Queue<UrlQueueImpl<Long>>> urlQueueMap = new ConcurrentHashMap<>();
 
-    protected volatile Map<String, Map<String, AccessResultImpl<Long>>> sessionMap = new HashMap<>();
+    protected volatile Map<String, Map<String, AccessResultImpl<Long>>> sessionMap = new ConcurrentHashMap<>();
 
-    protected volatile Map<String, List<Pattern>> includeUrlPatternMap = new HashMap<>();
+    protected volatile Map<String, List<Pattern>> includeUrlPatternMap = new ConcurrentHashMap<>();
 
-    protected volatile Map<String, List<Pattern>> excludeUrlPatternMap = new HashMap<>();
+    protected volatile Map<String, List<Pattern>> excludeUrlPatternMap = new ConcurrentHashMap<>();
 
     public void clear() {
         urlQueueMap.clear();
         sessionMap.clear();
     }
 
-    public synchronized Queue<UrlQueueImpl<Long>> getUrlQueueList(final String sessionId) {
-        Queue<UrlQueueImpl<Long>> urlQueueList = urlQueueMap.get(sessionId);
-        if (urlQueueList == null) {
-            urlQueueList = new LinkedList<>();
-            urlQueueMap.put(sessionId, urlQueueList);
-        }
-        return urlQueueList;
+    public Queue<UrlQueueImpl<Long>> getUrlQueueList(final String sessionId) {
+        return urlQueueMap.computeIfAbsent(toKey(sessionId), k -> new LinkedList<>());
     }
 
-    public synchronized void addUrlQueueList(final String sessionId, final Queue<UrlQueueImpl<Long>> urlQueueList) {
+    public void addUrlQueueList(final String sessionId, final Queue<UrlQueueImpl<Long>> urlQueueList) {
         final Queue<UrlQueueImpl<Long>> uqList = getUrlQueueList(sessionId);
-        uqList.addAll(urlQueueList);
-        urlQueueMap.put(sessionId, uqList);
+        synchronized (uqList) {
+            uqList.addAll(urlQueueList);
+        }
     }
 
-    public synchronized void removeUrlQueueList(final String sessionId) {
-        urlQueueMap.remove(sessionId);
+    public void removeUrlQueueList(final String sessionId) {
+        urlQueueMap.remove(toKey(sessionId));
     }
 
-    public synchronized void clearUrlQueueList() {
+    public void clearUrlQueueList() {
         urlQueueMap.clear();
     }
 
-    public synchronized Map<String, AccessResultImpl<Long>> getAccessResultMap(final String sessionId) {
-        Map<String, AccessResultImpl<Long>> arMap = sessionMap.get(sessionId);
-        if (arMap == null) {
-            arMap = new HashMap<>();
-            sessionMap.put(sessionId, arMap);
-        }
-        return arMap;
+    public Map<String, AccessResultImpl<Long>> getAccessResultMap(final String sessionId) {
+        return sessionMap.computeIfAbsent(toKey(sessionId), k -> new ConcurrentHashMap<>());
     }
 
-    public synchronized void deleteAccessResultMap(final String sessionId) {
-        sessionMap.remove(sessionId);
+    public void deleteAccessResultMap(final String sessionId) {
+        sessionMap.remove(toKey(sessionId));
     }
 
-    public synchronized void deleteAllAccessResultMap() {
+    public void deleteAllAccessResultMap() {
         sessionMap.clear();
     }
 
-    public synchronized List<AccessResultImpl<Long>> getAccessResultList(final String url) {
+    public List<AccessResultImpl<Long>> getAccessResultList(final String url) {
         final List<AccessResultImpl<Long>> acList = new ArrayList<>();
-        for (final Map.Entry<String, Map<String, AccessResultImpl<Long>>> entry : sessionMap.entrySet()) {
-            if (entry.getValue() != null) {
-                final AccessResultImpl<Long> ar = entry.getValue().get(url);
-                if (ar != null) {
-                    acList.add(ar);
-                }
+        if (url == null) {
+            return acList;
+        }
+        for (final Map<String, AccessResultImpl<Long>> arMap : sessionMap.values()) {
+            final AccessResultImpl<Long> ar = arMap.get(url);
+            if (ar != null) {
+                acList.add(ar);
             }
         }
         // TODO order
         return acList;
     }
 
-    public synchronized void addIncludeUrlPattern(final String sessionId, final String url) {
-        final List<Pattern> patternList = getIncludeUrlPatternList(sessionId);
-        patternList.add(Pattern.compile(url));
+    public void addIncludeUrlPattern(final String sessionId, final String url) {
+        getIncludeUrlPatternList(sessionId).add(Pattern.compile(url));
     }
 
     public List<Pattern> getIncludeUrlPatternList(final String sessionId) {
-        List<Pattern> patternList = includeUrlPatternMap.get(sessionId);
-        if (patternList == null) {
-            patternList = new ArrayList<>();
-            includeUrlPatternMap.put(sessionId, patternList);
-        }
-        return patternList;
+        return includeUrlPatternMap.computeIfAbsent(toKey(sessionId), k -> new CopyOnWriteArrayList<>());
     }
 
-    public synchronized void addExcludeUrlPattern(final String sessionId, final String url) {
-        final List<Pattern> patternList = getExcludeUrlPatternList(sessionId);
-        patternList.add(Pattern.compile(url));
+    public void addExcludeUrlPattern(final String sessionId, final String url) {
+        getExcludeUrlPatternList(sessionId).add(Pattern.compile(url));
     }
 
     public List<Pattern> getExcludeUrlPatternList(final String sessionId) {
-        List<Pattern> patternList = excludeUrlPatternMap.get(sessionId);
-        if (patternList == null) {
-            patternList = new ArrayList<>();
-            excludeUrlPatternMap.put(sessionId, patternList);
-        }
-        return patternList;
+        return excludeUrlPatternMap.computeIfAbsent(toKey(sessionId), k -> new CopyOnWriteArrayList<>());
     }
 
-    public synchronized void clearUrlPattern(final String sessionId) {
-        includeUrlPatternMap.remove(sessionId);
-        excludeUrlPatternMap.remove(sessionId);
+    public void clearUrlPattern(final String sessionId) {
+        includeUrlPatternMap.remove(toKey(sessionId));
+        excludeUrlPatternMap.remove(toKey(sessionId));
     }
 
-    public synchronized void clearUrlPattern() {
+    public void clearUrlPattern() {
         includeUrlPatternMap.clear();
         excludeUrlPatternMap.clear();
     }
+
+    private static String toKey(final String sessionId) {
+        // concurrent maps do not accept null
+        return sessionId == null ? NULL_SESSION_ID : sessionId;
+    }
 }
@@ -26,4 +26,14 @@ public interface MimeTypeHelper {
     String getContentType(InputStream is, String filename);
 
     String getContentType(InputStream is, Map<String, String> params);
+
+    /**
+     * Returns the number of bytes from the head of a content which is enough to detect the type.
+     * A client which has buffered this prefix can pass it as a ByteArrayInputStream instead of reading the content again.
+     *
+     * @return the number of bytes
+     */
+    default int getPrefixSize() {
+        return 64 * 1024;
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.helper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codelibs.core.lang.StringUtil;
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+
+/**
+ * Holds the maximum number of characters which an extractor outputs for a MIME type.
+ * A negative value means no limit.
+ *
+ * @author shinsuke
+ *
+ */
+public class OutputLengthHelper {
+
+    protected long defaultMaxChars = -1;
+
+    protected Map<String, Long> maxCharsMap = new HashMap<>();
+
+    public void addMaxChars(final String mimeType, final long maxChars) {
+        if (StringUtil.isBlank(mimeType)) {
+            throw new CrawlerSystemException("MIME type is a blank.");
+        }
+        maxCharsMap.put(mimeType, maxChars < 0 ? -1L : maxChars);
+    }
+
+    public long getMaxChars(final String mimeType) {
+        if (StringUtil.isBlank(mimeType)) {
+            return defaultMaxChars;
+        }
+        final Long maxChars = maxCharsMap.get(getBaseType(mimeType));
+        if (maxChars != null) {
+            return maxChars;
+        }
+        return defaultMaxChars;
+    }
+
+    protected String getBaseType(final String mimeType) {
+        // text/plain; charset=UTF-8 -> text/plain
+        final int pos = mimeType.indexOf(';');
+        return pos == -1 ? mimeType.trim() : mimeType.substring(0, pos).trim();
+    }
+
+    public long getDefaultMaxChars() {
+        return defaultMaxChars;
+    }
+
+    public void setDefaultMaxChars(final long defaultMaxChars) {
+        this.defaultMaxChars = defaultMaxChars;
+    }
+}
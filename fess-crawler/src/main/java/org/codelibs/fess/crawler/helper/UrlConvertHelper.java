@@ -15,12 +15,23 @@
  */
 package org.codelibs.fess.crawler.helper;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 
 /**
+ * UrlConvertHelper rewrites urls by regular expressions, and then
+ * canonicalizes them so that the same page is not crawled twice.
+ * Canonicalization rules are disabled by default.
+ *
  * @author shinsuke
  *
  */
@@ -28,15 +39,154 @@ public class UrlConvertHelper {
 
     protected Map<String, String> convertMap = new LinkedHashMap<>();
 
+    protected volatile ConvertRules convertRules;
+
+    protected boolean lowerCaseSchemeAndHost = false;
+
+    protected boolean removeDefaultPort = false;
+
+    protected boolean removeFragment = false;
+
+    protected boolean sortQueryParameters = false;
+
+    protected Set<String> removedParameterNameSet = new HashSet<>();
+
     public String convert(final String url) {
         if (url == null) {
             return null;
         }
-        String convertedUrl = url;
-        for (final Map.Entry<String, String> entry : convertMap.entrySet()) {
-            convertedUrl = convertedUrl.replaceAll(entry.getKey(), entry.getValue());
+        ConvertRules rules = convertRules;
+        if (rules == null || !rules.isCreatedFrom(convertMap)) {
+            rules = new ConvertRules(convertMap);
+            convertRules = rules;
+        }
+        return canonicalize(rules.convert(url));
+    }
+
+    /**
+     * Canonicalizes a given url by the enabled rules.
+     * The result is not changed by canonicalizing it again.
+     *
+     * @param url URL
+     * @return a canonical url
+     */
+    public String canonicalize(final String url) {
+        if (url == null || !lowerCaseSchemeAndHost && !removeDefaultPort && !removeFragment && !sortQueryParameters
+                && removedParameterNameSet.isEmpty()) {
+            return url;
+        }
+
+        String value = url;
+        String fragment = "";
+        final int fragmentPos = value.indexOf('#');
+        if (fragmentPos != -1) {
+            if (!removeFragment) {
+                fragment = value.substring(fragmentPos);
+            }
+            value = value.substring(0, fragmentPos);
+        }
+
+        String query = null;
+        final int queryPos = value.indexOf('?');
+        if (queryPos != -1) {
+            query = canonicalizeQuery(value.substring(queryPos + 1));
+            value = value.substring(0, queryPos);
+        }
+
+        final StringBuilder buf = new StringBuilder(url.length());
+        final int schemePos = value.indexOf("://");
+        if (schemePos > 0) {
+            final String scheme = value.substring(0, schemePos);
+            int pathPos = value.indexOf('/', schemePos + 3);
+            if (pathPos == -1) {
+                pathPos = value.length();
+            }
+            buf.append(lowerCaseSchemeAndHost ? scheme.toLowerCase(Locale.ROOT) : scheme).append("://");
+            buf.append(canonicalizeAuthority(scheme.toLowerCase(Locale.ROOT), value.substring(schemePos + 3, pathPos)));
+            buf.append(canonicalizePath(value.substring(pathPos)));
+        } else {
+            buf.append(canonicalizePath(value));
+        }
+        if (query != null) {
+            buf.append('?').append(query);
+        }
+        buf.append(fragment);
+        return buf.toString();
+    }
+
+    protected String canonicalizeAuthority(final String scheme, final String authority) {
+        final int hostPos = authority.lastIndexOf('@') + 1;
+        String host = authority.substring(hostPos);
+        if (lowerCaseSchemeAndHost) {
+            host = host.toLowerCase(Locale.ROOT);
+        }
+        if (removeDefaultPort) {
+            final int portPos = host.lastIndexOf(':');
+            if (portPos != -1 && host.indexOf(':', host.lastIndexOf(']') + 1) == portPos) {
+                final String port = host.substring(portPos + 1);
+                if ("http".equals(scheme) && "80".equals(port) || "https".equals(scheme) && "443".equals(port)) {
+                    host = host.substring(0, portPos);
+                }
+            }
+        }
+        return authority.substring(0, hostPos) + host;
+    }
+
+    protected String canonicalizePath(final String path) {
+        if (removedParameterNameSet.isEmpty() || path.indexOf(';') == -1) {
+            return path;
+        }
+        // e.g. /index.html;jsessionid=...
+        final StringBuilder buf = new StringBuilder(path.length());
+        int pos = 0;
+        while (pos < path.length()) {
+            final int start = path.indexOf(';', pos);
+            if (start == -1) {
+                buf.append(path, pos, path.length());
+                break;
+            }
+            buf.append(path, pos, start);
+            int end = start + 1;
+            while (end < path.length() && path.charAt(end) != ';' && path.charAt(end) != '/') {
+                end++;
+            }
+            if (!isRemovedParameter(path.substring(start + 1, end))) {
+                buf.append(path, start, end);
+            }
+            pos = end;
+        }
+        return buf.toString();
+    }
+
+    protected String canonicalizeQuery(final String query) {
+        if (removedParameterNameSet.isEmpty() && !sortQueryParameters) {
+            return query;
+        }
+        final List<String> paramList = new ArrayList<>();
+        boolean removed = false;
+        for (final String param : query.split("&", -1)) {
+            if (isRemovedParameter(param)) {
+                removed = true;
+            } else {
+                paramList.add(param);
+            }
+        }
+        if (removed && paramList.stream().allMatch(String::isEmpty)) {
+            return null;
+        }
+        if (sortQueryParameters) {
+            paramList.sort(Comparator.comparing(UrlConvertHelper::getParameterName));
         }
-        return convertedUrl;
+        return String.join("&", paramList);
+    }
+
+    protected boolean isRemovedParameter(final String param) {
+        return !removedParameterNameSet.isEmpty() && removedParameterNameSet.contains(getParameterName(param).toLowerCase(Locale.ROOT));
+    }
+
+    private static String getParameterName(final String param) {
+        final int pos = param.indexOf('=');
+        return pos == -1 ? param : param.substring(0, pos);
     }
 
     public void add(final String target, final String replacement) {
@@ -44,9 +194,77 @@ public class UrlConvertHelper {
             throw new CrawlerSystemException("target or replacement are null.");
         }
         convertMap.put(target, replacement);
+        convertRules = null;
     }
 
     public void setConvertMap(final Map<String, String> convertMap) {
         this.convertMap = convertMap;
+        convertRules = null;
+    }
+
+    /**
+     * Adds a parameter name, such as jsessionid, which is removed from a query string and a path.
+     *
+     * @param name a parameter name
+     */
+    public void addRemovedParameterName(final String name) {
+        if (name == null) {
+            throw new CrawlerSystemException("name is null.");
+        }
+        removedParameterNameSet.add(name.toLowerCase(Locale.ROOT));
+    }
+
+    public void setLowerCaseSchemeAndHost(final boolean lowerCaseSchemeAndHost) {
+        this.lowerCaseSchemeAndHost = lowerCaseSchemeAndHost;
+    }
+
+    public void setRemoveDefaultPort(final boolean removeDefaultPort) {
+        this.removeDefaultPort = removeDefaultPort;
+    }
+
+    public void setRemoveFragment(final boolean removeFragment) {
+        this.removeFragment = removeFragment;
+    }
+
+    public void setSortQueryParameters(final boolean sortQueryParameters) {
+        this.sortQueryParameters = sortQueryParameters;
+    }
+
+    /**
+     * ConvertRules keeps compiled patterns of convertMap, which are applied in order.
+     */
+    protected static class ConvertRules {
+        protected final Map<String, String> source;
+
+        protected final int size;
+
+        protected final Pattern[] patterns;
+
+        protected final String[] replacements;
+
+        protected ConvertRules(final Map<String, String> convertMap) {
+            source = convertMap;
+            size = convertMap.size();
+            patterns = new Pattern[size];
+            replacements = new String[size];
+            int i = 0;
+            for (final Map.Entry<String, String> entry : convertMap.entrySet()) {
+                patterns[i] = Pattern.compile(entry.getKey());
+                replacements[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        protected boolean isCreatedFrom(final Map<String, String> convertMap) {
+            return source == convertMap && size == convertMap.size();
+        }
+
+        protected String convert(final String url) {
+            String convertedUrl = url;
+            for (int i = 0; i < patterns.length; i++) {
+                convertedUrl = patterns[i].matcher(convertedUrl).replaceAll(replacements[i]);
+            }
+            return convertedUrl;
+        }
     }
 }
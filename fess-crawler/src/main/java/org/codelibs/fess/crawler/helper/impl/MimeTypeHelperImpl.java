@@ -18,8 +18,14 @@ package org.codelibs.fess.crawler.helper.impl;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
@@ -30,24 +36,44 @@ import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.exception.MimeTypeException;
 import org.codelibs.fess.crawler.helper.MimeTypeHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * @author shinsuke
  *
  */
 public class MimeTypeHelperImpl implements MimeTypeHelper {
+    private static final Logger logger = LoggerFactory.getLogger(MimeTypeHelperImpl.class);
+
     protected static final String MIME_TYPES_RESOURCE_NAME = "/org/codelibs/fess/crawler/mime/tika-mimetypes.xml";
 
+    private static final Pattern SIMPLE_EXTENSION_GLOB = Pattern.compile("\\*\\.[^.*?\\[\\]]+");
+
     protected MimeTypes mimeTypes;
 
     protected boolean useFilename = true;
 
+    protected int maxCacheSize = 10000;
+
+    protected Cache<String, MediaType> filenameCache;
+
+    /** names which may match a glob other than a simple extension, such as Makefile */
+    protected Pattern uncacheableNamePattern;
+
     public MimeTypeHelperImpl() {
         try {
             mimeTypes = MimeTypesFactory.create(MIME_TYPES_RESOURCE_NAME);
+            uncacheableNamePattern = createUncacheableNamePattern(MIME_TYPES_RESOURCE_NAME);
         } catch (final Exception e) {
             throw new CrawlerSystemException("Could not initialize MimeTypeHelper.", e);
         }
+        filenameCache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build();
     }
 
     @Override
@@ -55,9 +81,7 @@ public class MimeTypeHelperImpl implements MimeTypeHelper {
         if (StringUtil.isEmpty(filename)) {
             throw new MimeTypeException("The filename is empty.");
         }
-        final Map<String, String> params = new HashMap<>();
-        params.put(ExtractData.RESOURCE_NAME_KEY, filename);
-        return getContentType(is, params);
+        return detect(is, filename);
     }
 
     @Override
@@ -66,18 +90,27 @@ public class MimeTypeHelperImpl implements MimeTypeHelper {
         if (StringUtil.isEmpty(filename) && is == null) {
             throw new MimeTypeException("The filename or input stream is empty.");
         }
+        return detect(is, filename);
+    }
 
-        final Metadata metadata = new Metadata();
-        metadata.add(ExtractData.RESOURCE_NAME_KEY, normalizeFilename(filename));
+    @Override
+    public int getPrefixSize() {
+        return mimeTypes.getMinLength();
+    }
 
+    protected String detect(final InputStream is, final String filename) {
         try {
             if (useFilename) {
-                final MediaType mediaType = mimeTypes.detect(null, metadata);
+                final MediaType mediaType = detectByFilename(filename);
                 if (!MediaType.OCTET_STREAM.equals(mediaType)) {
                     return mediaType.getType() + "/" + mediaType.getSubtype();
                 }
+                if (is == null) {
+                    return MediaType.OCTET_STREAM.toString();
+                }
             }
 
+            final Metadata metadata = createMetadata(filename);
             final MediaType mediaType = mimeTypes.detect(is == null || is.markSupported() ? is : new BufferedInputStream(is), metadata);
             return mediaType.getType() + "/" + mediaType.getSubtype();
         } catch (final IOException e) {
@@ -85,6 +118,109 @@ public class MimeTypeHelperImpl implements MimeTypeHelper {
         }
     }
 
+    /**
+     * Detects a type from the filename only.
+     * The result is cached by the extension when no other glob can match the filename.
+     */
+    protected MediaType detectByFilename(final String filename) throws IOException {
+        final String key = getCacheKey(filename);
+        if (key == null) {
+            return mimeTypes.detect(null, createMetadata(filename));
+        }
+        final MediaType cached = filenameCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        final MediaType mediaType = mimeTypes.detect(null, createMetadata(filename));
+        filenameCache.put(key, mediaType);
+        return mediaType;
+    }
+
+    protected String getCacheKey(final String filename) {
+        if (filename == null) {
+            return null;
+        }
+        final int pos = filename.lastIndexOf('.');
+        if (pos == -1 || pos == filename.length() - 1) {
+            return null;
+        }
+        for (int i = pos + 1; i < filename.length(); i++) {
+            final char c = filename.charAt(i);
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z') && (c < '0' || c > '9') && c != '_' && c != '-' && c != '+') {
+                // e.g. a query string
+                return null;
+            }
+        }
+        if (uncacheableNamePattern != null && uncacheableNamePattern.matcher(filename).find()) {
+            return null;
+        }
+        return filename.substring(pos + 1);
+    }
+
+    protected Metadata createMetadata(final String filename) {
+        final Metadata metadata = new Metadata();
+        metadata.add(ExtractData.RESOURCE_NAME_KEY, normalizeFilename(filename));
+        return metadata;
+    }
+
+    /**
+     * Creates a pattern from globs which are not a simple extension, like "*.txt".
+     * The pattern is used with find(), so it matches more names than Tika does.
+     */
+    protected Pattern createUncacheableNamePattern(final String path) throws Exception {
+        final List<String> regexList = new ArrayList<>();
+        try (InputStream in = MimeTypeHelperImpl.class.getResourceAsStream(path)) {
+            if (in == null) {
+                return null;
+            }
+            final SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.newSAXParser().parse(in, new DefaultHandler() {
+                @Override
+                public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) {
+                    if (!"glob".equals(qName)) {
+                        return;
+                    }
+                    final String glob = attributes.getValue("pattern");
+                    if (StringUtil.isEmpty(glob)) {
+                        return;
+                    }
+                    if ("true".equalsIgnoreCase(attributes.getValue("isregex"))) {
+                        regexList.add(glob);
+                    } else if (!SIMPLE_EXTENSION_GLOB.matcher(glob).matches()) {
+                        regexList.add(toRegex(glob));
+                    }
+                }
+            });
+        }
+        if (regexList.isEmpty()) {
+            return null;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Uncacheable name patterns: {}", regexList);
+        }
+        return Pattern.compile(regexList.stream().map(s -> "(?:" + s + ")").collect(Collectors.joining("|")), Pattern.CASE_INSENSITIVE);
+    }
+
+    private static String toRegex(final String glob) {
+        final StringBuilder buf = new StringBuilder(glob.length() + 10);
+        int start = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (start < i) {
+                    buf.append(Pattern.quote(glob.substring(start, i)));
+                }
+                buf.append(c == '*' ? ".*" : ".");
+                start = i + 1;
+            }
+        }
+        if (start < glob.length()) {
+            buf.append(Pattern.quote(glob.substring(start)));
+        }
+        return buf.toString();
+    }
+
     protected String normalizeFilename(final String filename) {
         if (StringUtil.isBlank(filename)) {
             return filename;
@@ -119,4 +255,9 @@ public class MimeTypeHelperImpl implements MimeTypeHelper {
     public void setUseFilename(final boolean useFilename) {
         this.useFilename = useFilename;
     }
+
+    public void setMaxCacheSize(final int maxCacheSize) {
+        this.maxCacheSize = maxCacheSize;
+        filenameCache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build();
+    }
 }
@@ -18,6 +18,7 @@ package org.codelibs.fess.crawler.processor.impl;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -33,6 +34,7 @@ import org.codelibs.fess.crawler.entity.RequestData;
 import org.codelibs.fess.crawler.entity.ResponseData;
 import org.codelibs.fess.crawler.entity.ResultData;
 import org.codelibs.fess.crawler.entity.UrlQueue;
+import org.codelibs.fess.crawler.helper.UrlConvertHelper;
 import org.codelibs.fess.crawler.processor.ResponseProcessor;
 import org.codelibs.fess.crawler.service.UrlQueueService;
 import org.codelibs.fess.crawler.transformer.Transformer;
@@ -172,20 +174,24 @@ public class DefaultResponseProcessor implements ResponseProcessor {
     protected void storeChildUrls(final CrawlerContext crawlerContext, final Set<RequestData> childUrlList, final String url,
             final int depth, final String encoding) {
         // add url and filter
+        final UrlConvertHelper urlConvertHelper = crawlerContext.getUrlConvertHelper();
         final Set<String> urlSet = new HashSet<>();
-        final List<UrlQueue<?>> childList = childUrlList.stream().filter(d -> StringUtil.isNotBlank(d.getUrl())
-                && urlSet.add(d.getUrl() + "\n" + d.getMetaData()) && crawlerContext.getUrlFilter().match(d.getUrl())).map(d -> {
-                    final UrlQueue<?> uq = crawlerContainer.getComponent("urlQueue");
-                    uq.setCreateTime(SystemUtil.currentTimeMillis());
-                    uq.setDepth(depth);
-                    uq.setMethod(d.getMethod().name());
-                    uq.setEncoding(encoding);
-                    uq.setParentUrl(url);
-                    uq.setSessionId(crawlerContext.getSessionId());
-                    uq.setUrl(d.getUrl());
-                    uq.setMetaData(d.getMetaData());
-                    return uq;
-                }).collect(Collectors.toList());
+        final List<UrlQueue<?>> childList = childUrlList.stream().filter(d -> StringUtil.isNotBlank(d.getUrl())).map(d -> {
+            final String childUrl = urlConvertHelper != null ? urlConvertHelper.canonicalize(d.getUrl()) : d.getUrl();
+            if (!urlSet.add(childUrl + "\n" + d.getMetaData()) || !crawlerContext.getUrlFilter().match(childUrl)) {
+                return null;
+            }
+            final UrlQueue<?> uq = crawlerContainer.getComponent("urlQueue");
+            uq.setCreateTime(SystemUtil.currentTimeMillis());
+            uq.setDepth(depth);
+            uq.setMethod(d.getMethod().name());
+            uq.setEncoding(encoding);
+            uq.setParentUrl(url);
+            uq.setSessionId(crawlerContext.getSessionId());
+            uq.setUrl(childUrl);
+            uq.setMetaData(d.getMetaData());
+            return uq;
+        }).filter(Objects::nonNull).collect(Collectors.toList());
 
         if (!childList.isEmpty()) {
             CrawlingParameterUtil.getUrlQueueService().offerAll(crawlerContext.getSessionId(), childList);
@@ -15,14 +15,19 @@
  */
 package org.codelibs.fess.crawler.rule.impl;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.codelibs.core.beans.util.BeanUtil;
-import org.codelibs.core.beans.util.CopyOptions;
+import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.crawler.entity.ResponseData;
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 
 /**
  * @author shinsuke
@@ -32,12 +37,21 @@ public class RegexRule extends AbstractRule {
 
     private static final long serialVersionUID = 1L;
 
+    private static final ClassValue<Map<String, MethodHandle>> GETTER_MAP = new ClassValue<>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(final Class<?> type) {
+            return createGetterMap(type);
+        }
+    };
+
     protected boolean defaultRule = false;
 
     protected boolean allRequired = true;
 
     protected Map<String, Pattern> regexMap = new HashMap<>();
 
+    protected transient volatile CompiledRegex compiledRegex;
+
     /*
      * (non-Javadoc)
      *
@@ -49,15 +63,10 @@ public class RegexRule extends AbstractRule {
             return true;
         }
 
-        final Map<String, Object> map = new HashMap<>();
-        BeanUtil.copyBeanToMap(responseData, map, CopyOptions::excludeWhitespace);
-        for (final Map.Entry<String, Pattern> entry : regexMap.entrySet()) {
-            String value = "";
-            final Object obj = map.get(entry.getKey());
-            if (obj != null) {
-                value = obj.toString();
-            }
-            final Matcher matcher = entry.getValue().matcher(value);
+        final CompiledRegex compiled = getCompiledRegex();
+        final MethodHandle[] getters = compiled.getGetters(responseData.getClass());
+        for (int i = 0; i < compiled.patterns.length; i++) {
+            final Matcher matcher = compiled.patterns[i].matcher(getValue(compiled, getters, i, responseData));
             if (allRequired) {
                 if (!matcher.matches()) {
                     return false;
@@ -70,12 +79,110 @@ public class RegexRule extends AbstractRule {
         return allRequired;
     }
 
+    /**
+     * Returns the compiled form of this rule. It is compared with the regex map and the flags on each call,
+     * so any change, including a put to the map given by setRegexMap, creates a new one.
+     *
+     * @return the compiled form
+     */
+    protected CompiledRegex getCompiledRegex() {
+        final CompiledRegex compiled = compiledRegex;
+        if (compiled != null && compiled.isCompiledFrom(this)) {
+            return compiled;
+        }
+        final CompiledRegex newCompiled = new CompiledRegex(this);
+        compiledRegex = newCompiled;
+        return newCompiled;
+    }
+
+    protected String getValue(final CompiledRegex compiled, final MethodHandle[] getters, final int index,
+            final ResponseData responseData) {
+        final MethodHandle getter = getters[index];
+        if (getter == null) {
+            return StringUtil.EMPTY;
+        }
+        final Object obj;
+        try {
+            obj = getter.invokeExact((Object) responseData);
+        } catch (final Throwable t) {
+            throw new CrawlerSystemException("Failed to get " + compiled.keys[index] + " from " + responseData.getUrl(), t);
+        }
+        if (obj == null) {
+            return StringUtil.EMPTY;
+        }
+        if (obj instanceof final String value) {
+            // whitespace values are not target ones
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) > ' ') {
+                    return value;
+                }
+            }
+            return StringUtil.EMPTY;
+        }
+        return obj.toString();
+    }
+
+    /**
+     * Creates getters of bean properties.
+     *
+     * @param type a class of ResponseData
+     * @return a map of a property name and a getter
+     */
+    protected static Map<String, MethodHandle> createGetterMap(final Class<?> type) {
+        final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        final MethodType methodType = MethodType.methodType(Object.class, Object.class);
+        final Map<String, MethodHandle> getterMap = new HashMap<>();
+        for (final Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.isBridge() || method.getParameterCount() != 0
+                    || method.getReturnType() == void.class || "getClass".equals(method.getName())) {
+                continue;
+            }
+            final String name = method.getName();
+            final String propertyName;
+            if (name.length() > 3 && name.startsWith("get")) {
+                propertyName = decapitalize(name.substring(3));
+            } else if (name.length() > 2 && name.startsWith("is") && method.getReturnType() == boolean.class) {
+                propertyName = decapitalize(name.substring(2));
+            } else {
+                continue;
+            }
+            final MethodHandle getter = unreflect(lookup, method);
+            if (getter != null) {
+                getterMap.putIfAbsent(propertyName, getter.asType(methodType));
+            }
+        }
+        return getterMap;
+    }
+
+    private static MethodHandle unreflect(final MethodHandles.Lookup lookup, final Method method) {
+        try {
+            return lookup.unreflect(method);
+        } catch (final IllegalAccessException e) {
+            // a method declared in a non-public class
+        }
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (final IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String decapitalize(final String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
     public void addRule(final String key, final String regex) {
         regexMap.put(key, Pattern.compile(regex));
+        compiledRegex = null;
     }
 
     public void addRule(final String key, final Pattern pattern) {
         regexMap.put(key, pattern);
+        compiledRegex = null;
     }
 
     public boolean isDefaultRule() {
@@ -84,6 +191,7 @@ public class RegexRule extends AbstractRule {
 
     public void setDefaultRule(final boolean defaultRule) {
         this.defaultRule = defaultRule;
+        compiledRegex = null;
     }
 
     public boolean isAllRequired() {
@@ -92,6 +200,7 @@ public class RegexRule extends AbstractRule {
 
     public void setAllRequired(final boolean allRequired) {
         this.allRequired = allRequired;
+        compiledRegex = null;
     }
 
     @Override
@@ -117,5 +226,83 @@ public class RegexRule extends AbstractRule {
 
     public void setRegexMap(final Map<String, Pattern> regexMap) {
         this.regexMap = regexMap;
+        compiledRegex = null;
+    }
+
+    protected static class CompiledRegex {
+        protected final Map<String, Pattern> source;
+
+        protected final boolean defaultRule;
+
+        protected final boolean allRequired;
+
+        protected final String[] keys;
+
+        protected final Pattern[] patterns;
+
+        protected volatile TypeGetters typeGetters;
+
+        protected CompiledRegex(final RegexRule rule) {
+            source = rule.regexMap;
+            defaultRule = rule.defaultRule;
+            allRequired = rule.allRequired;
+            final int size = source.size();
+            keys = new String[size];
+            patterns = new Pattern[size];
+            int i = 0;
+            for (final Map.Entry<String, Pattern> entry : source.entrySet()) {
+                keys[i] = entry.getKey();
+                patterns[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        protected boolean isCompiledFrom(final RegexRule rule) {
+            if (source != rule.regexMap || defaultRule != rule.defaultRule || allRequired != rule.allRequired
+                    || keys.length != source.size()) {
+                return false;
+            }
+            // the same size and the same pattern for each key means the same entries
+            for (int i = 0; i < keys.length; i++) {
+                if (source.get(keys[i]) != patterns[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        protected Pattern getPattern(final String key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (key.equals(keys[i])) {
+                    return patterns[i];
+                }
+            }
+            return null;
+        }
+
+        protected MethodHandle[] getGetters(final Class<?> type) {
+            final TypeGetters current = typeGetters;
+            if (current != null && current.type == type) {
+                return current.getters;
+            }
+            final Map<String, MethodHandle> getterMap = GETTER_MAP.get(type);
+            final MethodHandle[] getters = new MethodHandle[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                getters[i] = getterMap.get(keys[i]);
+            }
+            typeGetters = new TypeGetters(type, getters);
+            return getters;
+        }
+    }
+
+    protected static class TypeGetters {
+        protected final Class<?> type;
+
+        protected final MethodHandle[] getters;
+
+        protected TypeGetters(final Class<?> type, final MethodHandle[] getters) {
+            this.type = type;
+            this.getters = getters;
+        }
     }
 }
@@ -16,11 +16,17 @@
 package org.codelibs.fess.crawler.rule.impl;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
+import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.crawler.entity.ResponseData;
 import org.codelibs.fess.crawler.rule.Rule;
 import org.codelibs.fess.crawler.rule.RuleManager;
+import org.codelibs.fess.crawler.util.PatternUtil;
 
 /**
  * @author shinsuke
@@ -30,6 +36,8 @@ public class RuleManagerImpl implements RuleManager {
 
     protected final List<Rule> ruleList = new ArrayList<>();
 
+    protected volatile RuleIndex ruleIndex;
+
     /*
      * (non-Javadoc)
      *
@@ -37,12 +45,12 @@ public class RuleManagerImpl implements RuleManager {
      */
     @Override
     public Rule getRule(final ResponseData responseData) {
-        for (final Rule rule : ruleList) {
-            if (rule.match(responseData)) {
-                return rule;
-            }
+        RuleIndex index = ruleIndex;
+        if (index == null || !index.isIndexOf(ruleList)) {
+            index = new RuleIndex(new ArrayList<>(ruleList));
+            ruleIndex = index;
         }
-        return null;
+        return index.getRule(responseData);
     }
 
     /*
@@ -54,11 +62,13 @@ public class RuleManagerImpl implements RuleManager {
     @Override
     public void addRule(final Rule rule) {
         ruleList.add(rule);
+        ruleIndex = null;
     }
 
     @Override
     public void addRule(final int index, final Rule rule) {
         ruleList.add(index, rule);
+        ruleIndex = null;
     }
 
     /*
@@ -80,6 +90,135 @@ public class RuleManagerImpl implements RuleManager {
      */
     @Override
     public boolean removeRule(final Rule rule) {
-        return ruleList.remove(rule);
+        final boolean removed = ruleList.remove(rule);
+        ruleIndex = null;
+        return removed;
+    }
+
+    /**
+     * RuleIndex narrows down rules to evaluate by a mime type and a url prefix.
+     * RegexRule which requires a literal mime type or a url starting with a literal string
+     * is only evaluated for matching responses, and the other rules are always evaluated.
+     * Rules are evaluated in the registered order, so the first matched rule is returned.
+     * The index is rebuilt when the rule list or the compiled form of an indexed RegexRule changes.
+     */
+    protected static class RuleIndex {
+        protected final Rule[] rules;
+
+        /** compiled forms of RegexRule which the index is built from */
+        protected final RegexRule.CompiledRegex[] compiledRegexes;
+
+        protected final Map<String, int[]> mimeTypeMap = new HashMap<>();
+
+        protected final Node urlRoot = new Node();
+
+        protected final int[] otherRules;
+
+        protected final boolean indexed;
+
+        protected RuleIndex(final List<Rule> ruleList) {
+            rules = ruleList.toArray(new Rule[ruleList.size()]);
+            compiledRegexes = new RegexRule.CompiledRegex[rules.length];
+            final Map<String, List<Integer>> mimeTypeListMap = new HashMap<>();
+            final List<Integer> otherList = new ArrayList<>();
+            for (int i = 0; i < rules.length; i++) {
+                if (rules[i].getClass() == RegexRule.class) {
+                    final RegexRule.CompiledRegex compiled = ((RegexRule) rules[i]).getCompiledRegex();
+                    compiledRegexes[i] = compiled;
+                    if (!compiled.defaultRule && compiled.allRequired) {
+                        final Pattern mimeTypePattern = compiled.getPattern("mimeType");
+                        final String mimeType = mimeTypePattern != null ? PatternUtil.getLiteral(mimeTypePattern) : null;
+                        if (StringUtil.isNotBlank(mimeType)) {
+                            mimeTypeListMap.computeIfAbsent(mimeType, k -> new ArrayList<>()).add(i);
+                            continue;
+                        }
+                        final Pattern urlPattern = compiled.getPattern("url");
+                        final String urlPrefix = urlPattern != null ? PatternUtil.getLiteralPrefix(urlPattern) : StringUtil.EMPTY;
+                        if (!urlPrefix.isEmpty()) {
+                            Node node = urlRoot;
+                            for (int j = 0; j < urlPrefix.length(); j++) {
+                                node = node.children.computeIfAbsent(urlPrefix.charAt(j), c -> new Node());
+                            }
+                            node.ruleList.add(i);
+                            continue;
+                        }
+                    }
+                }
+                otherList.add(i);
+            }
+            mimeTypeListMap.entrySet().forEach(e -> mimeTypeMap.put(e.getKey(), toArray(e.getValue())));
+            otherRules = toArray(otherList);
+            indexed = otherRules.length != rules.length;
+        }
+
+        protected boolean isIndexOf(final List<Rule> ruleList) {
+            if (rules.length != ruleList.size()) {
+                return false;
+            }
+            for (int i = 0; i < rules.length; i++) {
+                if (rules[i] != ruleList.get(i)) {
+                    return false;
+                }
+                if (compiledRegexes[i] != null && compiledRegexes[i] != ((RegexRule) rules[i]).getCompiledRegex()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        protected Rule getRule(final ResponseData responseData) {
+            if (!indexed) {
+                for (final Rule rule : rules) {
+                    if (rule.match(responseData)) {
+                        return rule;
+                    }
+                }
+                return null;
+            }
+
+            final BitSet candidates = new BitSet(rules.length);
+            for (final int i : otherRules) {
+                candidates.set(i);
+            }
+            final String mimeType = responseData.getMimeType();
+            if (mimeType != null) {
+                final int[] mimeTypeRules = mimeTypeMap.get(mimeType);
+                if (mimeTypeRules != null) {
+                    for (final int i : mimeTypeRules) {
+                        candidates.set(i);
+                    }
+                }
+            }
+            final String url = responseData.getUrl();
+            if (url != null) {
+                Node node = urlRoot;
+                for (int i = 0; i < url.length(); i++) {
+                    node = node.children.get(url.charAt(i));
+                    if (node == null) {
+                        break;
+                    }
+                    for (final int j : node.ruleList) {
+                        candidates.set(j);
+                    }
+                }
+            }
+
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (rules[i].match(responseData)) {
+                    return rules[i];
+                }
+            }
+            return null;
+        }
+
+        private static int[] toArray(final List<Integer> list) {
+            return list.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        protected static class Node {
+            protected final Map<Character, Node> children = new HashMap<>();
+
+            protected final List<Integer> ruleList = new ArrayList<>();
+        }
     }
 }
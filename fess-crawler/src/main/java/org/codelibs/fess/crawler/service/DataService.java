@@ -15,10 +15,12 @@
  */
 package org.codelibs.fess.crawler.service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.codelibs.fess.crawler.entity.AccessResult;
 import org.codelibs.fess.crawler.util.AccessResultCallback;
+import org.codelibs.fess.crawler.util.AccessResultListCallback;
 
 /**
  * @author shinsuke
@@ -44,4 +46,27 @@ public interface DataService<RESULT extends AccessResult<?>> {
 
     void iterate(String sessionId, final AccessResultCallback<RESULT> accessResultCallback);
 
+    /**
+     * Iterates access results of the session in lists of up to batchSize
+     * entries. An implementation may invoke the callback concurrently, so
+     * it needs to be thread-safe.
+     *
+     * @param sessionId the session id
+     * @param batchSize the maximum number of access results in a list
+     * @param accessResultListCallback the callback
+     */
+    default void iterate(final String sessionId, final int batchSize, final AccessResultListCallback<RESULT> accessResultListCallback) {
+        final List<RESULT> accessResultList = new ArrayList<>(batchSize);
+        iterate(sessionId, accessResult -> {
+            accessResultList.add(accessResult);
+            if (accessResultList.size() >= batchSize) {
+                accessResultListCallback.iterate(new ArrayList<>(accessResultList));
+                accessResultList.clear();
+            }
+        });
+        if (!accessResultList.isEmpty()) {
+            accessResultListCallback.iterate(accessResultList);
+        }
+    }
+
 }
@@ -17,6 +17,7 @@ package org.codelibs.fess.crawler.service.impl;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Resource;
 
@@ -35,9 +36,7 @@ import org.codelibs.fess.crawler.util.AccessResultCallback;
  */
 public class DataServiceImpl implements DataService<AccessResultImpl<Long>> {
 
-    protected static volatile long idCount = 0L;
-
-    private static Object idCountLock = new Object();
+    protected static final AtomicLong idCount = new AtomicLong();
 
     @Resource
     protected MemoryDataHelper dataHelper;
@@ -54,24 +53,23 @@ public class DataServiceImpl implements DataService<AccessResultImpl<Long>> {
             throw new CrawlerSystemException("AccessResult is null.");
         }
 
-        synchronized (idCountLock) {
-            idCount++;
-            accessResult.setId(idCount);
-            AccessResultData<Long> accessResultData = accessResult.getAccessResultData();
-            if (accessResultData == null) {
-                accessResultData = new AccessResultDataImpl<>();
-                accessResultData.setTransformerName(Constants.NO_TRANSFORMER);
-                accessResult.setAccessResultData(accessResultData);
-            }
-            accessResultData.setId(accessResult.getId());
-
-            final Map<String, AccessResultImpl<Long>> arMap = dataHelper.getAccessResultMap(accessResult.getSessionId());
-            if (arMap.containsKey(accessResult.getUrl())) {
-                throw new CrawlerSystemException(accessResult.getUrl() + " already exists.");
-            }
-            arMap.put(accessResult.getUrl(), accessResult);
+        if (accessResult.getUrl() == null) {
+            throw new CrawlerSystemException("URL is null.");
+        }
+
+        accessResult.setId(idCount.incrementAndGet());
+        AccessResultData<Long> accessResultData = accessResult.getAccessResultData();
+        if (accessResultData == null) {
+            accessResultData = new AccessResultDataImpl<>();
+            accessResultData.setTransformerName(Constants.NO_TRANSFORMER);
+            accessResult.setAccessResultData(accessResultData);
         }
+        accessResultData.setId(accessResult.getId());
 
+        final Map<String, AccessResultImpl<Long>> arMap = dataHelper.getAccessResultMap(accessResult.getSessionId());
+        if (arMap.putIfAbsent(accessResult.getUrl(), accessResult) != null) {
+            throw new CrawlerSystemException(accessResult.getUrl() + " already exists.");
+        }
     }
 
     /*
@@ -113,6 +111,9 @@ public class DataServiceImpl implements DataService<AccessResultImpl<Long>> {
      */
     @Override
     public AccessResultImpl<Long> getAccessResult(final String sessionId, final String url) {
+        if (url == null) {
+            return null;
+        }
         return dataHelper.getAccessResultMap(sessionId).get(url);
     }
 
@@ -151,10 +152,9 @@ public class DataServiceImpl implements DataService<AccessResultImpl<Long>> {
     @Override
     public void update(final AccessResultImpl<Long> accessResult) {
         final Map<String, AccessResultImpl<Long>> arMap = dataHelper.getAccessResultMap(accessResult.getSessionId());
-        if (!arMap.containsKey(accessResult.getUrl())) {
+        if (accessResult.getUrl() == null || arMap.replace(accessResult.getUrl(), accessResult) == null) {
             throw new CrawlerSystemException(accessResult.getUrl() + " is not found.");
         }
-        arMap.put(accessResult.getUrl(), accessResult);
     }
 
     /*
@@ -210,20 +210,23 @@ public class UrlQueueServiceImpl implements UrlQueueService<UrlQueueImpl<Long>>
 
     @Override
     public void generateUrlQueues(final String previousSessionId, final String sessionId) {
-        final Queue<UrlQueueImpl<Long>> urlQueueList = dataHelper.getUrlQueueList(sessionId);
         final Map<String, AccessResultImpl<Long>> arMap = dataHelper.getAccessResultMap(previousSessionId);
-        for (final Map.Entry<String, AccessResultImpl<Long>> entry : arMap.entrySet()) {
-            synchronized (urlQueueList) {
-                final UrlQueueImpl<Long> urlQueue = new UrlQueueImpl<>();
-                urlQueue.setSessionId(sessionId);
-                urlQueue.setMethod(entry.getValue().getMethod());
-                urlQueue.setUrl(entry.getValue().getUrl());
-                urlQueue.setParentUrl(entry.getValue().getParentUrl());
-                urlQueue.setDepth(0);
-                urlQueue.setLastModified(entry.getValue().getLastModified());
-                urlQueue.setCreateTime(SystemUtil.currentTimeMillis());
-                urlQueueList.add(urlQueue);
-            }
+        final List<UrlQueueImpl<Long>> targetList = new ArrayList<>(arMap.size());
+        for (final AccessResultImpl<Long> accessResult : arMap.values()) {
+            final UrlQueueImpl<Long> urlQueue = new UrlQueueImpl<>();
+            urlQueue.setSessionId(sessionId);
+            urlQueue.setMethod(accessResult.getMethod());
+            urlQueue.setUrl(accessResult.getUrl());
+            urlQueue.setParentUrl(accessResult.getParentUrl());
+            urlQueue.setDepth(0);
+            urlQueue.setLastModified(accessResult.getLastModified());
+            urlQueue.setCreateTime(SystemUtil.currentTimeMillis());
+            targetList.add(urlQueue);
+        }
+
+        final Queue<UrlQueueImpl<Long>> urlQueueList = dataHelper.getUrlQueueList(sessionId);
+        synchronized (urlQueueList) {
+            urlQueueList.addAll(targetList);
         }
     }
 }
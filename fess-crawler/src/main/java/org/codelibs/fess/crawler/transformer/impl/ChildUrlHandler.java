@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.transformer.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codelibs.core.lang.StringUtil;
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * ChildUrlHandler collects attribute values for child URLs from SAX events
+ * without building a DOM. Only rules with a simple "//TAG" path are
+ * supported.
+ *
+ * @author shinsuke
+ *
+ */
+public class ChildUrlHandler extends DefaultHandler {
+
+    private static final Pattern TAG_PATH_PATTERN = Pattern.compile("^//([a-zA-Z][a-zA-Z0-9_\\-]*)$");
+
+    protected static final String BASE_TAG = "BASE";
+
+    protected static final String HREF_ATTR = "href";
+
+    protected final Map<String, String[]> tagRuleMap = new HashMap<>();
+
+    protected final Map<String, List<String>> attrValueMap = new LinkedHashMap<>();
+
+    protected boolean baseFound = false;
+
+    protected String baseHref;
+
+    public ChildUrlHandler(final Map<String, String> childUrlRuleMap) {
+        for (final Map.Entry<String, String> entry : childUrlRuleMap.entrySet()) {
+            final String tagName = getTagName(entry.getKey());
+            if (tagName == null) {
+                throw new CrawlerSystemException("Unsupported path: " + entry.getKey());
+            }
+            tagRuleMap.put(tagName, new String[] { entry.getKey(), entry.getValue() });
+            attrValueMap.put(entry.getKey(), new ArrayList<>());
+        }
+    }
+
+    /**
+     * Checks if all rules can be handled by this handler.
+     *
+     * @param childUrlRuleMap a map of a path and an attribute name
+     * @return true if all paths are "//TAG" style
+     */
+    public static boolean isSupported(final Map<String, String> childUrlRuleMap) {
+        if (childUrlRuleMap == null) {
+            return false;
+        }
+        for (final String path : childUrlRuleMap.keySet()) {
+            if (getTagName(path) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected static String getTagName(final String path) {
+        if (path == null) {
+            return null;
+        }
+        final Matcher matcher = TAG_PATH_PATTERN.matcher(path.trim());
+        if (matcher.matches()) {
+            return matcher.group(1).toUpperCase(Locale.ROOT);
+        }
+        return null;
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) {
+        final String name = StringUtil.isNotBlank(qName) ? qName : localName;
+        if (name == null) {
+            return;
+        }
+        final String tagName = name.toUpperCase(Locale.ROOT);
+
+        if (!baseFound && BASE_TAG.equals(tagName)) {
+            baseFound = true;
+            final String value = getAttributeValue(attributes, HREF_ATTR);
+            if (StringUtil.isNotBlank(value)) {
+                baseHref = value;
+            }
+        }
+
+        final String[] rule = tagRuleMap.get(tagName);
+        if (rule != null) {
+            final String value = getAttributeValue(attributes, rule[1]);
+            if (value != null) {
+                attrValueMap.get(rule[0]).add(value);
+            }
+        }
+    }
+
+    protected String getAttributeValue(final Attributes attributes, final String attrName) {
+        for (int i = 0; i < attributes.getLength(); i++) {
+            if (attrName.equalsIgnoreCase(attributes.getQName(i))) {
+                return attributes.getValue(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a href value of the first BASE tag.
+     *
+     * @return a href value, or null
+     */
+    public String getBaseHref() {
+        return baseHref;
+    }
+
+    /**
+     * Returns attribute values per rule path in the rule order.
+     *
+     * @return a map of a path and attribute values
+     */
+    public Map<String, List<String>> getAttrValueMap() {
+        return attrValueMap;
+    }
+}
@@ -16,6 +16,8 @@
 package org.codelibs.fess.crawler.transformer.impl;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -34,7 +36,6 @@ import java.util.regex.Pattern;
 import javax.annotation.Resource;
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.CachedXPathAPI;
 import org.codelibs.core.io.InputStreamUtil;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.crawler.Constants;
@@ -49,7 +50,9 @@ import org.codelibs.fess.crawler.exception.CrawlingAccessException;
 import org.codelibs.fess.crawler.helper.EncodingHelper;
 import org.codelibs.fess.crawler.helper.UrlConvertHelper;
 import org.codelibs.fess.crawler.util.CharUtil;
+import org.codelibs.fess.crawler.util.CompiledXPathAPI;
 import org.codelibs.nekohtml.parsers.DOMParser;
+import org.codelibs.nekohtml.parsers.SAXParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
@@ -98,7 +101,21 @@ public class HtmlTransformer extends AbstractTransformer {
             + "^\\s*ios-app:|" //
             + "^\\s*callto:", Pattern.CASE_INSENSITIVE);
 
-    private final ThreadLocal<CachedXPathAPI> xpathAPI = new ThreadLocal<>();
+    /** a flag to read a response body only once per transformation. */
+    protected boolean singlePassEnabled = false;
+
+    /**
+     * the maximum size of a response body kept in memory by a single-pass mode.
+     * A larger body is read from ResponseData for each step as in a default mode.
+     */
+    protected int singlePassMaxSize = 1024 * 1024;
+
+    /** a flag to collect child URLs from SAX events instead of DOM. */
+    protected boolean streamingChildUrlEnabled = false;
+
+    private final ThreadLocal<CompiledXPathAPI> xpathAPI = new ThreadLocal<>();
+
+    private final ThreadLocal<byte[]> responseBodyBytes = new ThreadLocal<>();
 
     @Override
     public ResultData transform(final ResponseData responseData) {
@@ -106,13 +123,17 @@ public class HtmlTransformer extends AbstractTransformer {
             throw new CrawlingAccessException("No response body.");
         }
 
-        // encoding
-        updateCharset(responseData);
+        if (singlePassEnabled) {
+            loadResponseBody(responseData);
+        }
 
         final ResultData resultData = new ResultData();
         resultData.setTransformerName(getName());
 
         try {
+            // encoding
+            updateCharset(responseData);
+
             // data
             storeData(responseData, resultData);
 
@@ -122,6 +143,7 @@ public class HtmlTransformer extends AbstractTransformer {
             }
         } finally {
             xpathAPI.remove();
+            responseBodyBytes.remove();
         }
 
         final Object redirectUrlObj = responseData.getMetaDataMap().get(LOCATION_HEADER);
@@ -133,6 +155,46 @@ public class HtmlTransformer extends AbstractTransformer {
         return resultData;
     }
 
+    protected void loadResponseBody(final ResponseData responseData) {
+        if (responseData.getContentLength() > singlePassMaxSize) {
+            return;
+        }
+        try (final InputStream is = responseData.getResponseBody()) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(singlePassMaxSize, 8192));
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                if (out.size() + n > singlePassMaxSize) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("{} is larger than {} bytes. A single-pass mode is disabled.", responseData.getUrl(), singlePassMaxSize);
+                    }
+                    return;
+                }
+                out.write(buffer, 0, n);
+            }
+            responseBodyBytes.set(out.toByteArray());
+        } catch (final CrawlerSystemException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new CrawlerSystemException("Could not load response data: " + responseData.getUrl(), e);
+        }
+    }
+
+    /**
+     * Returns a response body. If a single-pass mode is enabled, the body loaded
+     * at the beginning of the transformation is returned instead of reading it again.
+     *
+     * @param responseData response data
+     * @return a stream of the response body
+     */
+    protected InputStream getResponseBody(final ResponseData responseData) {
+        final byte[] bytes = responseBodyBytes.get();
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        return responseData.getResponseBody();
+    }
+
     protected boolean isHtml(final ResponseData responseData) {
         final String mimeType = responseData.getMimeType();
         if ("text/html".equals(mimeType) || "application/xhtml+xml".equals(mimeType)) {
@@ -147,10 +209,10 @@ public class HtmlTransformer extends AbstractTransformer {
         }
     }
 
-    protected CachedXPathAPI getXPathAPI() {
-        CachedXPathAPI cachedXPathAPI = xpathAPI.get();
+    protected CompiledXPathAPI getXPathAPI() {
+        CompiledXPathAPI cachedXPathAPI = xpathAPI.get();
         if (cachedXPathAPI == null) {
-            cachedXPathAPI = new CachedXPathAPI();
+            cachedXPathAPI = new CompiledXPathAPI();
             xpathAPI.set(cachedXPathAPI);
         }
         return cachedXPathAPI;
@@ -158,22 +220,30 @@ public class HtmlTransformer extends AbstractTransformer {
 
     protected void storeChildUrls(final ResponseData responseData, final ResultData resultData) {
         List<RequestData> requestDataList = new ArrayList<>();
-        try (final InputStream is = responseData.getResponseBody()) {
-            final DOMParser parser = getDomParser();
-            parser.parse(new InputSource(is));
-            final Document document = parser.getDocument();
-            // base href
-            final String baseHref = getBaseHref(document);
-            URL url;
-            try {
-                url = new URL(baseHref == null ? responseData.getUrl() : baseHref);
-            } catch (final MalformedURLException e) {
-                url = new URL(responseData.getUrl());
-            }
-            for (final Map.Entry<String, String> entry : childUrlRuleMap.entrySet()) {
-                for (final String childUrl : getUrlFromTagAttribute(url, document, entry.getKey(), entry.getValue(),
-                        responseData.getCharSet())) {
-                    requestDataList.add(RequestDataBuilder.newRequestData().get().url(childUrl).build());
+        try (final InputStream is = getResponseBody(responseData)) {
+            if (streamingChildUrlEnabled && ChildUrlHandler.isSupported(childUrlRuleMap)) {
+                final ChildUrlHandler handler = new ChildUrlHandler(childUrlRuleMap);
+                final SAXParser parser = getSaxParser();
+                parser.setContentHandler(handler);
+                parser.parse(new InputSource(is));
+                // base href
+                final URL url = getBaseUrl(responseData.getUrl(), normalizeBaseHref(handler.getBaseHref()));
+                for (final Map.Entry<String, List<String>> entry : handler.getAttrValueMap().entrySet()) {
+                    for (final String childUrl : getUrlFromAttrValues(url, entry.getValue(), responseData.getCharSet())) {
+                        requestDataList.add(RequestDataBuilder.newRequestData().get().url(childUrl).build());
+                    }
+                }
+            } else {
+                final DOMParser parser = getDomParser();
+                parser.parse(new InputSource(is));
+                final Document document = parser.getDocument();
+                // base href
+                final URL url = getBaseUrl(responseData.getUrl(), getBaseHref(document));
+                for (final Map.Entry<String, String> entry : childUrlRuleMap.entrySet()) {
+                    for (final String childUrl : getUrlFromTagAttribute(url, document, entry.getKey(), entry.getValue(),
+                            responseData.getCharSet())) {
+                        requestDataList.add(RequestDataBuilder.newRequestData().get().url(childUrl).build());
+                    }
                 }
             }
             requestDataList = convertChildUrlList(requestDataList);
@@ -191,6 +261,14 @@ public class HtmlTransformer extends AbstractTransformer {
         }
     }
 
+    protected URL getBaseUrl(final String currentUrl, final String baseHref) throws MalformedURLException {
+        try {
+            return new URL(baseHref == null ? currentUrl : baseHref);
+        } catch (final MalformedURLException e) {
+            return new URL(currentUrl);
+        }
+    }
+
     protected List<RequestData> convertChildUrlList(final List<RequestData> requestDataList) {
         try {
             final UrlConvertHelper urlConvertHelper = crawlerContainer.getComponent("urlConvertHelper");
@@ -205,6 +283,12 @@ public class HtmlTransformer extends AbstractTransformer {
     }
 
     protected void storeData(final ResponseData responseData, final ResultData resultData) {
+        final byte[] bytes = responseBodyBytes.get();
+        if (bytes != null) {
+            resultData.setData(bytes);
+            resultData.setEncoding(responseData.getCharSet());
+            return;
+        }
         try (final InputStream is = responseData.getResponseBody()) {
             final byte[] data = InputStreamUtil.getBytes(is);
             resultData.setData(data);
@@ -217,7 +301,7 @@ public class HtmlTransformer extends AbstractTransformer {
     }
 
     protected void updateCharset(final ResponseData responseData) {
-        try (final InputStream is = responseData.getResponseBody()) {
+        try (final InputStream is = getResponseBody(responseData)) {
             final String encoding = loadCharset(is);
             if (encoding == null) {
                 if (defaultEncoding == null) {
@@ -317,6 +401,25 @@ public class HtmlTransformer extends AbstractTransformer {
         return parser;
     }
 
+    protected SAXParser getSaxParser() {
+        final SAXParser parser = new SAXParser();
+        try {
+            // feature
+            for (final Map.Entry<String, String> entry : featureMap.entrySet()) {
+                parser.setFeature(entry.getKey(), "true".equalsIgnoreCase(entry.getValue()));
+            }
+
+            // property
+            for (final Map.Entry<String, String> entry : propertyMap.entrySet()) {
+                parser.setProperty(entry.getKey(), entry.getValue());
+            }
+        } catch (final Exception e) {
+            throw new CrawlerSystemException("Invalid parser configuration.", e);
+        }
+
+        return parser;
+    }
+
     protected String getBaseHref(final Document document) {
         NodeList list;
         try {
@@ -327,14 +430,18 @@ public class HtmlTransformer extends AbstractTransformer {
         }
         if (list.getLength() > 0) {
             final Element element = (Element) list.item(0);
-            String attrValue = element.getAttribute("href");
-            if (StringUtil.isNotBlank(attrValue)) {
-                // if starting with www, append a protocol
-                if (attrValue.startsWith("www.")) {
-                    attrValue = "http://" + attrValue;
-                }
-                return attrValue;
+            return normalizeBaseHref(element.getAttribute("href"));
+        }
+        return null;
+    }
+
+    protected String normalizeBaseHref(final String attrValue) {
+        if (StringUtil.isNotBlank(attrValue)) {
+            // if starting with www, append a protocol
+            if (attrValue.startsWith("www.")) {
+                return "http://" + attrValue;
             }
+            return attrValue;
         }
         return null;
     }
@@ -360,6 +467,19 @@ public class HtmlTransformer extends AbstractTransformer {
         return urlList;
     }
 
+    protected List<String> getUrlFromAttrValues(final URL url, final List<String> attrValueList, final String encoding) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Base URL: {}", url);
+        }
+        final List<String> urlList = new ArrayList<>();
+        for (final String attrValue : attrValueList) {
+            if (isValidPath(attrValue)) {
+                addChildUrlFromTagAttribute(urlList, url, attrValue, encoding);
+            }
+        }
+        return urlList;
+    }
+
     protected void addChildUrlFromTagAttribute(final List<String> urlList, final URL url, final String attrValue, final String encoding) {
         try {
             final String childUrlValue = attrValue.trim();
@@ -531,6 +651,30 @@ public class HtmlTransformer extends AbstractTransformer {
         this.preloadSizeForCharset = preloadSizeForCharset;
     }
 
+    public boolean isSinglePassEnabled() {
+        return singlePassEnabled;
+    }
+
+    public void setSinglePassEnabled(final boolean singlePassEnabled) {
+        this.singlePassEnabled = singlePassEnabled;
+    }
+
+    public int getSinglePassMaxSize() {
+        return singlePassMaxSize;
+    }
+
+    public void setSinglePassMaxSize(final int singlePassMaxSize) {
+        this.singlePassMaxSize = singlePassMaxSize;
+    }
+
+    public boolean isStreamingChildUrlEnabled() {
+        return streamingChildUrlEnabled;
+    }
+
+    public void setStreamingChildUrlEnabled(final boolean streamingChildUrlEnabled) {
+        this.streamingChildUrlEnabled = streamingChildUrlEnabled;
+    }
+
     public Pattern getInvalidUrlPattern() {
         return invalidUrlPattern;
     }
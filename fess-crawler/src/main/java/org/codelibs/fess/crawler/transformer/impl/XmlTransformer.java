@@ -22,19 +22,15 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.annotation.Resource;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.TransformerException;
 
 import org.apache.xml.utils.PrefixResolverDefault;
-import org.apache.xpath.CachedXPathAPI;
 import org.codelibs.core.beans.util.BeanUtil;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.crawler.Constants;
@@ -43,6 +39,7 @@ import org.codelibs.fess.crawler.entity.ResponseData;
 import org.codelibs.fess.crawler.entity.ResultData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.exception.CrawlingAccessException;
+import org.codelibs.fess.crawler.util.CompiledXPathAPI;
 import org.codelibs.fess.crawler.util.XmlUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,10 +47,6 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-
 /**
  * @author shinsuke
  *
@@ -94,22 +87,15 @@ public class XmlTransformer extends AbstractTransformer {
      */
     protected Class<?> dataClass = null;
 
-    protected LoadingCache<String, CachedXPathAPI> xpathAPICache;
-
-    protected long cacheDuration = 10; // min
+    private final ThreadLocal<CompiledXPathAPI> xpathAPI = new ThreadLocal<>();
 
-    @Resource
+    /**
+     * @deprecated compiled XPath expressions are shared by {@link CompiledXPathAPI}
+     *             and no cache needs to be initialized.
+     */
+    @Deprecated
     public void init() {
-        xpathAPICache = CacheBuilder.newBuilder().expireAfterAccess(cacheDuration, TimeUnit.MINUTES)
-                .build(new CacheLoader<String, CachedXPathAPI>() {
-                    @Override
-                    public CachedXPathAPI load(final String key) {
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("created CachedXPathAPI by {}", key);
-                        }
-                        return new CachedXPathAPI();
-                    }
-                });
+        // NOP
     }
 
     /**
@@ -236,6 +222,8 @@ public class XmlTransformer extends AbstractTransformer {
             throw e;
         } catch (final Exception e) {
             throw new CrawlerSystemException("Could not store data.", e);
+        } finally {
+            xpathAPI.remove();
         }
     }
 
@@ -245,15 +233,13 @@ public class XmlTransformer extends AbstractTransformer {
         return getXPathAPI().eval(doc, xpath, prefixResolver).nodelist();
     }
 
-    protected CachedXPathAPI getXPathAPI() {
-        try {
-            return xpathAPICache.get(Thread.currentThread().getName());
-        } catch (final ExecutionException e) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("Failed to retrieval a cache.", e);
-            }
-            return new CachedXPathAPI();
+    protected CompiledXPathAPI getXPathAPI() {
+        CompiledXPathAPI compiledXPathAPI = xpathAPI.get();
+        if (compiledXPathAPI == null) {
+            compiledXPathAPI = new CompiledXPathAPI();
+            xpathAPI.set(compiledXPathAPI);
         }
+        return compiledXPathAPI;
     }
 
     protected String getResultDataHeader() {
@@ -488,7 +474,13 @@ public class XmlTransformer extends AbstractTransformer {
 
     }
 
+    /**
+     * @deprecated a per-thread XPath API is dropped after each document, so
+     *             this setting has no effect.
+     * @param cacheDuration the cache duration in minutes
+     */
+    @Deprecated
     public void setCacheDuration(final long cacheDuration) {
-        this.cacheDuration = cacheDuration;
+        // NOP
     }
 }
@@ -70,7 +70,7 @@ public class XpathTransformer extends HtmlTransformer {
     @Override
     protected void storeData(final ResponseData responseData, final ResultData resultData) {
         final DOMParser parser = getDomParser();
-        try (final InputStream in = responseData.getResponseBody()) {
+        try (final InputStream in = getResponseBody(responseData)) {
             final InputSource is = new InputSource(in);
             if (responseData.getCharSet() != null) {
                 is.setEncoding(responseData.getCharSet());
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.io.Writer;
+
+/**
+ * A writer which keeps up to the given number of characters.
+ *
+ * When the limit is reached, the text is truncated and
+ * {@link LimitExceededException} is thrown so that a producer can stop early.
+ *
+ * @author shinsuke
+ *
+ */
+public class BoundedWriter extends Writer {
+
+    private final StringBuilder buf;
+
+    private final long maxChars;
+
+    private boolean truncated = false;
+
+    /**
+     * @param maxChars the maximum number of characters, or -1 for no limit
+     */
+    public BoundedWriter(final long maxChars) {
+        this.maxChars = maxChars;
+        buf = new StringBuilder(maxChars >= 0 && maxChars < 1000 ? (int) maxChars : 1000);
+    }
+
+    @Override
+    public void write(final int c) {
+        checkLimit(1);
+        buf.append((char) c);
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) {
+        final int size = (int) Math.min(len, getRemaining());
+        buf.append(cbuf, off, size);
+        checkLimit(len - size);
+    }
+
+    @Override
+    public void write(final char[] cbuf) {
+        write(cbuf, 0, cbuf.length);
+    }
+
+    @Override
+    public void write(final String str) {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) {
+        final int size = (int) Math.min(len, getRemaining());
+        buf.append(str, off, off + size);
+        checkLimit(len - size);
+    }
+
+    @Override
+    public Writer append(final CharSequence csq) {
+        final CharSequence value = csq == null ? "null" : csq;
+        final int size = (int) Math.min(value.length(), getRemaining());
+        buf.append(value, 0, size);
+        checkLimit(value.length() - size);
+        return this;
+    }
+
+    private long getRemaining() {
+        if (truncated) {
+            return 0;
+        }
+        return maxChars < 0 ? Integer.MAX_VALUE : maxChars - buf.length();
+    }
+
+    private void checkLimit(final int overflow) {
+        if (truncated || overflow > 0 && maxChars >= 0 && buf.length() + overflow > maxChars) {
+            truncated = true;
+            throw new LimitExceededException(maxChars);
+        }
+    }
+
+    @Override
+    public void flush() {
+        // nothing
+    }
+
+    @Override
+    public void close() {
+        // nothing
+    }
+
+    public long getMaxChars() {
+        return maxChars;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public int length() {
+        return buf.length();
+    }
+
+    @Override
+    public String toString() {
+        return buf.toString();
+    }
+
+    /**
+     * Thrown when a writer reaches the limit. This exception has no stack trace.
+     */
+    public static class LimitExceededException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public LimitExceededException(final long maxChars) {
+            super("The output exceeds " + maxChars + " chars.", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.xml.transform.TransformerException;
+
+import org.apache.xml.utils.PrefixResolver;
+import org.apache.xml.utils.PrefixResolverDefault;
+import org.apache.xpath.XPath;
+import org.apache.xpath.XPathContext;
+import org.apache.xpath.objects.XObject;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * CompiledXPathAPI evaluates XPath expressions like CachedXPathAPI, but
+ * compiled expressions are shared by all instances. An instance holds an
+ * evaluation context, so it must not be shared between threads.
+ *
+ * @author shinsuke
+ *
+ */
+public class CompiledXPathAPI {
+
+    private static final Cache<String, CompiledXPath> xpathCache =
+            CacheBuilder.newBuilder().maximumSize(1000).recordStats().build();
+
+    protected final XPathContext xpathSupport = new XPathContext(false);
+
+    public NodeList selectNodeList(final Node contextNode, final String str) throws TransformerException {
+        return eval(contextNode, str).nodelist();
+    }
+
+    public XObject eval(final Node contextNode, final String str) throws TransformerException {
+        final PrefixResolverDefault prefixResolver = new PrefixResolverDefault(
+                contextNode.getNodeType() == Node.DOCUMENT_NODE ? ((Document) contextNode).getDocumentElement() : contextNode);
+        return eval(contextNode, str, prefixResolver);
+    }
+
+    public XObject eval(final Node contextNode, final String str, final PrefixResolver prefixResolver) throws TransformerException {
+        final XPath xpath = getXPath(str, prefixResolver);
+        final int ctxtNode = xpathSupport.getDTMHandleFromNode(contextNode);
+        return xpath.execute(xpathSupport, ctxtNode, prefixResolver);
+    }
+
+    protected XPath getXPath(final String str, final PrefixResolver prefixResolver) throws TransformerException {
+        final CompiledXPath cached = xpathCache.getIfPresent(str);
+        if (cached != null && cached.isValid(prefixResolver)) {
+            return cached.xpath;
+        }
+        // namespace prefixes are resolved at compile time
+        final NamespaceRecorder recorder = new NamespaceRecorder(prefixResolver);
+        final CompiledXPath compiled = new CompiledXPath(new XPath(str, null, recorder, XPath.SELECT, null), recorder.namespaceMap);
+        xpathCache.put(str, compiled);
+        return compiled.xpath;
+    }
+
+    public static CacheStats getCacheStats() {
+        return xpathCache.stats();
+    }
+
+    public static void clearCache() {
+        xpathCache.invalidateAll();
+    }
+
+    protected static class CompiledXPath {
+        protected final XPath xpath;
+
+        protected final Map<String, String> namespaceMap;
+
+        protected CompiledXPath(final XPath xpath, final Map<String, String> namespaceMap) {
+            this.xpath = xpath;
+            this.namespaceMap = namespaceMap;
+        }
+
+        protected boolean isValid(final PrefixResolver prefixResolver) {
+            for (final Map.Entry<String, String> entry : namespaceMap.entrySet()) {
+                if (!Objects.equals(entry.getValue(), prefixResolver.getNamespaceForPrefix(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    protected static class NamespaceRecorder implements PrefixResolver {
+        protected final PrefixResolver prefixResolver;
+
+        protected final Map<String, String> namespaceMap = new HashMap<>();
+
+        protected NamespaceRecorder(final PrefixResolver prefixResolver) {
+            this.prefixResolver = prefixResolver;
+        }
+
+        @Override
+        public String getNamespaceForPrefix(final String prefix) {
+            final String namespace = prefixResolver.getNamespaceForPrefix(prefix);
+            namespaceMap.put(prefix, namespace);
+            return namespace;
+        }
+
+        @Override
+        public String getNamespaceForPrefix(final String prefix, final Node context) {
+            final String namespace = prefixResolver.getNamespaceForPrefix(prefix, context);
+            namespaceMap.put(prefix, namespace);
+            return namespace;
+        }
+
+        @Override
+        public String getBaseIdentifier() {
+            return prefixResolver.getBaseIdentifier();
+        }
+
+        @Override
+        public boolean handlesNullPrefixes() {
+            return prefixResolver.handlesNullPrefixes();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * This printstream routes output to a stream bound to the current thread.
+ * If no stream is bound, output goes to the original stream. It is installed
+ * once as System.out/System.err instead of swapping them per call.
+ *
+ * @author shinsuke
+ *
+ */
+public class DemuxPrintStream extends PrintStream {
+
+    private final PrintStream defaultStream;
+
+    private final ThreadLocal<PrintStream> streamLocal = new ThreadLocal<>();
+
+    public DemuxPrintStream(final PrintStream defaultStream) {
+        super(defaultStream, true);
+        this.defaultStream = defaultStream;
+    }
+
+    /**
+     * Installs DemuxPrintStream as System.out if it is not installed.
+     *
+     * @return DemuxPrintStream for System.out
+     */
+    public static synchronized DemuxPrintStream installOut() {
+        final PrintStream out = System.out;
+        if (out instanceof DemuxPrintStream) {
+            return (DemuxPrintStream) out;
+        }
+        final DemuxPrintStream demuxStream = new DemuxPrintStream(out);
+        System.setOut(demuxStream);
+        return demuxStream;
+    }
+
+    /**
+     * Installs DemuxPrintStream as System.err if it is not installed.
+     *
+     * @return DemuxPrintStream for System.err
+     */
+    public static synchronized DemuxPrintStream installErr() {
+        final PrintStream err = System.err;
+        if (err instanceof DemuxPrintStream) {
+            return (DemuxPrintStream) err;
+        }
+        final DemuxPrintStream demuxStream = new DemuxPrintStream(err);
+        System.setErr(demuxStream);
+        return demuxStream;
+    }
+
+    /**
+     * Binds a stream to the current thread.
+     *
+     * @param stream a stream for the current thread
+     * @return a previously bound stream, or null
+     */
+    public PrintStream bind(final PrintStream stream) {
+        final PrintStream previous = streamLocal.get();
+        streamLocal.set(stream);
+        return previous;
+    }
+
+    /**
+     * Restores a stream returned by {@link #bind(PrintStream)}.
+     *
+     * @param previous a previously bound stream, or null
+     */
+    public void unbind(final PrintStream previous) {
+        if (previous == null) {
+            streamLocal.remove();
+        } else {
+            streamLocal.set(previous);
+        }
+    }
+
+    protected PrintStream getStream() {
+        final PrintStream stream = streamLocal.get();
+        if (stream != null) {
+            return stream;
+        }
+        return defaultStream;
+    }
+
+    public PrintStream getDefaultStream() {
+        return defaultStream;
+    }
+
+    @Override
+    public void write(final int b) {
+        getStream().write(b);
+    }
+
+    @Override
+    public void write(final byte[] buf, final int off, final int len) {
+        getStream().write(buf, off, len);
+    }
+
+    @Override
+    public void flush() {
+        getStream().flush();
+    }
+
+    @Override
+    public void close() {
+        getStream().close();
+    }
+
+    @Override
+    public boolean checkError() {
+        return getStream().checkError();
+    }
+
+    @Override
+    public void print(final boolean b) {
+        getStream().print(b);
+    }
+
+    @Override
+    public void print(final char c) {
+        getStream().print(c);
+    }
+
+    @Override
+    public void print(final int i) {
+        getStream().print(i);
+    }
+
+    @Override
+    public void print(final long l) {
+        getStream().print(l);
+    }
+
+    @Override
+    public void print(final float f) {
+        getStream().print(f);
+    }
+
+    @Override
+    public void print(final double d) {
+        getStream().print(d);
+    }
+
+    @Override
+    public void print(final char[] s) {
+        getStream().print(s);
+    }
+
+    @Override
+    public void print(final String s) {
+        getStream().print(s);
+    }
+
+    @Override
+    public void print(final Object obj) {
+        getStream().print(obj);
+    }
+
+    @Override
+    public void println() {
+        getStream().println();
+    }
+
+    @Override
+    public void println(final boolean x) {
+        getStream().println(x);
+    }
+
+    @Override
+    public void println(final char x) {
+        getStream().println(x);
+    }
+
+    @Override
+    public void println(final int x) {
+        getStream().println(x);
+    }
+
+    @Override
+    public void println(final long x) {
+        getStream().println(x);
+    }
+
+    @Override
+    public void println(final float x) {
+        getStream().println(x);
+    }
+
+    @Override
+    public void println(final double x) {
+        getStream().println(x);
+    }
+
+    @Override
+    public void println(final char[] x) {
+        getStream().println(x);
+    }
+
+    @Override
+    public void println(final String x) {
+        getStream().println(x);
+    }
+
+    @Override
+    public void println(final Object x) {
+        getStream().println(x);
+    }
+
+    @Override
+    public PrintStream format(final String format, final Object... args) {
+        getStream().format(format, args);
+        return this;
+    }
+
+    @Override
+    public PrintStream format(final Locale l, final String format, final Object... args) {
+        getStream().format(l, format, args);
+        return this;
+    }
+}
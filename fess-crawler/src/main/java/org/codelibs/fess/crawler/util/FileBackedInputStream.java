@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * This inputstream keeps a file it reads, so that consumers can access
+ * the file directly instead of copying the stream.
+ *
+ * @author shinsuke
+ *
+ */
+public class FileBackedInputStream extends FileInputStream {
+
+    private final File file;
+
+    public FileBackedInputStream(final File file) throws FileNotFoundException {
+        super(file);
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Checks if no data is read from this stream.
+     *
+     * @return true if the current position is the beginning of the file
+     */
+    public boolean isUnread() {
+        try {
+            return getChannel().position() == 0;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Utilities to find literal strings in regular expressions.
+ *
+ * @author shinsuke
+ *
+ */
+public final class PatternUtil {
+
+    private static final String META_CHARS = ".[]()*+?{}$^|";
+
+    private PatternUtil() {
+    }
+
+    /**
+     * Returns a literal string which all matched strings start with.
+     *
+     * @param pattern a pattern
+     * @return a literal prefix, or an empty string if not found
+     */
+    public static String getLiteralPrefix(final Pattern pattern) {
+        final String literal = parse(pattern, false);
+        return literal == null ? "" : literal;
+    }
+
+    /**
+     * Returns a literal string if a pattern only matches it.
+     *
+     * @param pattern a pattern
+     * @return a literal string, or null if the pattern is not a literal one
+     */
+    public static String getLiteral(final Pattern pattern) {
+        return parse(pattern, true);
+    }
+
+    private static String parse(final Pattern pattern, final boolean whole) {
+        final String regex = pattern.pattern();
+        if (pattern.flags() != 0 || regex.indexOf('|') != -1) {
+            return null;
+        }
+        final StringBuilder buf = new StringBuilder();
+        int i = regex.startsWith("^") ? 1 : 0;
+        while (i < regex.length()) {
+            final char c = regex.charAt(i);
+            final char literal;
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    return whole ? null : buf.toString();
+                }
+                final char next = regex.charAt(i + 1);
+                if (next >= 0x80 || Character.isLetterOrDigit(next)) {
+                    // character classes, \Q, back references and so on
+                    return whole ? null : buf.toString();
+                }
+                literal = next;
+                i += 2;
+            } else if (c >= 0x80 || META_CHARS.indexOf(c) != -1) {
+                if (whole) {
+                    return c == '$' && i == regex.length() - 1 ? buf.toString() : null;
+                }
+                return buf.toString();
+            } else {
+                literal = c;
+                i++;
+            }
+            if (!whole && i < regex.length() && "?*{".indexOf(regex.charAt(i)) != -1) {
+                // an optional character
+                return buf.toString();
+            }
+            buf.append(literal);
+        }
+        return buf.toString();
+    }
+}
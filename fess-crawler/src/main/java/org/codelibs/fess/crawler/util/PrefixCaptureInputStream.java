@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * This inputstream keeps the first bytes it reads, so that a content type
+ * can be detected from them without reading the content again.
+ *
+ * @author shinsuke
+ *
+ */
+public class PrefixCaptureInputStream extends FilterInputStream {
+
+    private final byte[] prefix;
+
+    private int size = 0;
+
+    public PrefixCaptureInputStream(final InputStream in, final int prefixSize) {
+        super(in);
+        prefix = new byte[prefixSize];
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = super.read();
+        if (b != -1 && size < prefix.length) {
+            prefix[size++] = (byte) b;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int length = super.read(b, off, len);
+        if (length > 0 && size < prefix.length) {
+            final int count = Math.min(length, prefix.length - size);
+            System.arraycopy(b, off, prefix, size, count);
+            size += count;
+        }
+        return length;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        // read through so that skipped bytes are also captured
+        final byte[] buf = new byte[(int) Math.min(n, 8192)];
+        final int length = read(buf, 0, buf.length);
+        return length < 0 ? 0 : length;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * @return the bytes read so far, up to the prefix size
+     */
+    public byte[] getPrefix() {
+        return Arrays.copyOf(prefix, size);
+    }
+
+    /**
+     * @return a new stream of the captured prefix
+     */
+    public InputStream getPrefixStream() {
+        return new ByteArrayInputStream(prefix, 0, size);
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+import org.codelibs.fess.crawler.exception.ExecutionTimeoutException;
+import org.codelibs.fess.crawler.exception.ExtractException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of long-lived helper processes.
+ *
+ * At most poolSize jobs run at the same time. A worker is reused while it is
+ * alive and has run fewer than maxJobsPerWorker jobs. A worker whose job
+ * throws an exception other than {@link WorkerJobException}, or which is dead
+ * after a job, for example killed by a timeout, is discarded and a new one is
+ * started by the factory on the next request.
+ *
+ * @author shinsuke
+ *
+ * @param <W> the worker type
+ */
+public class ProcessWorkerPool<W extends ProcessWorkerPool.PooledWorker> {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessWorkerPool.class);
+
+    protected final String name;
+
+    protected final Supplier<W> workerFactory;
+
+    protected int poolSize = 1;
+
+    protected int maxJobsPerWorker = 1000;
+
+    protected long acquireTimeout = -1; // no timeout
+
+    protected final BlockingQueue<W> idleWorkers = new LinkedBlockingQueue<>();
+
+    protected final Set<W> workers = ConcurrentHashMap.newKeySet();
+
+    protected volatile Semaphore permits;
+
+    protected volatile boolean destroyed = false;
+
+    /**
+     * @param name the name used in messages
+     * @param workerFactory starts a new worker which is ready to take a job
+     */
+    public ProcessWorkerPool(final String name, final Supplier<W> workerFactory) {
+        this.name = name;
+        this.workerFactory = workerFactory;
+    }
+
+    /**
+     * Runs the job on an idle worker, starting one if needed.
+     *
+     * @param job the job
+     * @param <T> the result type
+     * @return the result of the job
+     */
+    public <T> T execute(final Function<W, T> job) {
+        if (destroyed) {
+            throw new CrawlerSystemException(name + " is destroyed.");
+        }
+
+        final Semaphore semaphore = getPermits();
+        try {
+            if (acquireTimeout < 0) {
+                semaphore.acquire();
+            } else if (!semaphore.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+                throw new ExecutionTimeoutException("Could not get a worker of " + name + " in " + acquireTimeout + "ms.");
+            }
+        } catch (final InterruptedException e) {
+            throw new ExtractException("Interrupted while waiting for a worker of " + name + ".", e);
+        }
+        try {
+            final W worker = borrowWorker();
+            boolean reusable = false;
+            try {
+                final T result = job.apply(worker);
+                reusable = true;
+                return result;
+            } catch (final WorkerJobException e) {
+                // the worker itself is still healthy
+                reusable = true;
+                throw e;
+            } finally {
+                returnWorker(worker, reusable);
+            }
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    public void destroy() {
+        destroyed = true;
+        for (final W worker : workers) {
+            discard(worker);
+        }
+        idleWorkers.clear();
+    }
+
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    protected Semaphore getPermits() {
+        Semaphore semaphore = permits;
+        if (semaphore == null) {
+            synchronized (this) {
+                semaphore = permits;
+                if (semaphore == null) {
+                    semaphore = new Semaphore(poolSize, true);
+                    permits = semaphore;
+                }
+            }
+        }
+        return semaphore;
+    }
+
+    protected W borrowWorker() {
+        W worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            if (worker.isHealthy()) {
+                return worker;
+            }
+            if (logger.isInfoEnabled()) {
+                logger.info("Discard an unhealthy worker of {}: {}", name, worker);
+            }
+            discard(worker);
+        }
+        worker = workerFactory.get();
+        workers.add(worker);
+        if (destroyed) {
+            discard(worker);
+            throw new CrawlerSystemException(name + " is destroyed.");
+        }
+        return worker;
+    }
+
+    protected void returnWorker(final W worker, final boolean reusable) {
+        if (!reusable || destroyed || !worker.isAlive()) {
+            if (logger.isInfoEnabled()) {
+                logger.info("Restart a worker of {}: {}", name, worker);
+            }
+            discard(worker);
+        } else if (worker.getJobCount() >= maxJobsPerWorker) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Recycle {} after {} jobs.", worker, worker.getJobCount());
+            }
+            discard(worker);
+        } else {
+            idleWorkers.offer(worker);
+        }
+    }
+
+    protected void discard(final W worker) {
+        workers.remove(worker);
+        worker.close();
+    }
+
+    public void setPoolSize(final int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public void setMaxJobsPerWorker(final int maxJobsPerWorker) {
+        this.maxJobsPerWorker = maxJobsPerWorker;
+    }
+
+    public void setAcquireTimeout(final long acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Thrown by a job when the helper reports an error; the worker is kept.
+     */
+    public static class WorkerJobException extends ExtractException {
+
+        private static final long serialVersionUID = 1L;
+
+        public WorkerJobException(final String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * A worker managed by {@link ProcessWorkerPool}.
+     */
+    public interface PooledWorker {
+
+        /**
+         * @return true if the process is running and was not killed
+         */
+        boolean isAlive();
+
+        /**
+         * Checks the worker before it is reused.
+         *
+         * @return true if the worker can take a job
+         */
+        default boolean isHealthy() {
+            return isAlive();
+        }
+
+        int getJobCount();
+
+        /**
+         * Stops the process, forcibly if it does not exit.
+         */
+        void close();
+    }
+}
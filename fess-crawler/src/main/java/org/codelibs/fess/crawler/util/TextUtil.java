@@ -17,10 +17,11 @@ package org.codelibs.fess.crawler.util;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.util.HashSet;
-import java.util.Set;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.lang3.StringUtils;
 import org.codelibs.core.lang.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,9 +34,62 @@ import org.slf4j.LoggerFactory;
 public final class TextUtil {
     private static final Logger logger = LoggerFactory.getLogger(TextUtil.class);
 
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final byte TYPE_OTHER = 0;
+
+    private static final byte TYPE_SPACE = 1;
+
+    private static final byte TYPE_ALPHANUM = 2;
+
+    private static final byte TYPE_SYMBOL = 3;
+
+    private static final int[] DEFAULT_SPACE_CHARS = { '\u0020', '\u00a0', '\u3000', '\ufffd' };
+
+    private static final byte[] DEFAULT_CHAR_TYPES = createCharTypes(DEFAULT_SPACE_CHARS);
+
+    private static final Map<String, byte[]> charTypesCache = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<char[]> readBuffer = ThreadLocal.withInitial(() -> new char[BUFFER_SIZE]);
+
     private TextUtil() {
     }
 
+    private static byte[] createCharTypes(final int[] spaceChars) {
+        final byte[] types = new byte[0x10000];
+        for (int c = 0; c < types.length; c++) {
+            if (Character.isISOControl(c)) {
+                types[c] = TYPE_SPACE;
+            } else if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+                types[c] = TYPE_ALPHANUM;
+            } else if ((c >= '!' && c <= '/') || (c >= ':' && c <= '@') || (c >= '[' && c <= '`') || (c >= '{' && c <= '~')) {
+                types[c] = TYPE_SYMBOL;
+            }
+        }
+        for (final int c : spaceChars) {
+            if (c >= 0 && c < types.length) {
+                types[c] = TYPE_SPACE;
+            }
+        }
+        return types;
+    }
+
+    private static byte[] getCharTypes(final int[] spaceChars) {
+        if (spaceChars == DEFAULT_SPACE_CHARS || Arrays.equals(spaceChars, DEFAULT_SPACE_CHARS)) {
+            return DEFAULT_CHAR_TYPES;
+        }
+        final String key = Arrays.toString(spaceChars);
+        final byte[] types = charTypesCache.get(key);
+        if (types != null) {
+            return types;
+        }
+        final byte[] newTypes = createCharTypes(spaceChars);
+        if (charTypesCache.size() < 100) {
+            charTypesCache.put(key, newTypes);
+        }
+        return newTypes;
+    }
+
     public static class TextNormalizeContext {
 
         private final Reader reader;
@@ -48,7 +102,7 @@ public final class TextUtil {
 
         private boolean duplicateTermRemoved = false;
 
-        private int[] spaceChars = { '\u0020', '\u00a0', '\u3000', '\ufffd' };
+        private int[] spaceChars = DEFAULT_SPACE_CHARS;
 
         public TextNormalizeContext(final Reader reader) {
             this.reader = reader;
@@ -58,90 +112,60 @@ public final class TextUtil {
             if (reader == null) {
                 return StringUtil.EMPTY;
             }
-            final StringBuilder buf = new StringBuilder(initialCapacity);
-            boolean isSpace = false;
-            int alphanumSize = 0;
-            int symbolSize = 0;
-            int c;
-            final Set<String> termCache = new HashSet<>(1000);
+            final TextNormalizeWriter writer = writer();
             try {
-                while ((c = reader.read()) != -1) {
-                    if (Character.isISOControl(c) || isSpaceChar(c)) {
-                        if (duplicateTermRemoved) {
-                            if (alphanumSize > 0) {
-                                isSpace = removeLastDuplication(buf, alphanumSize, isSpace, termCache);
-                            } else if (symbolSize > 0) {
-                                isSpace = removeLastDuplication(buf, symbolSize, isSpace, termCache);
-                            }
-                        }
-                        // space
-                        if (!isSpace && !isLastSpaceChar(buf)) {
-                            buf.appendCodePoint(' ');
-                            isSpace = true;
-                        }
-                        alphanumSize = 0;
-                        symbolSize = 0;
-                    } else if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
-                        if (duplicateTermRemoved && symbolSize > 0) {
-                            isSpace = removeLastDuplication(buf, symbolSize, isSpace, termCache);
-                        }
-                        // alphanum
-                        if (maxAlphanumTermSize >= 0) {
-                            if (alphanumSize < maxAlphanumTermSize) {
-                                buf.appendCodePoint(c);
-                                alphanumSize++;
-                            }
-                        } else {
-                            buf.appendCodePoint(c);
-                            alphanumSize++;
-                        }
-                        isSpace = false;
-                        symbolSize = 0;
-                    } else if ((c >= '!' && c <= '/') || (c >= ':' && c <= '@') || (c >= '[' && c <= '`') || (c >= '{' && c <= '~')) {
-                        if (duplicateTermRemoved && alphanumSize > 0) {
-                            isSpace = removeLastDuplication(buf, alphanumSize, isSpace, termCache);
-                        }
-                        // symbol
-                        if (maxSymbolTermSize >= 0) {
-                            if (symbolSize < maxSymbolTermSize) {
-                                buf.appendCodePoint(c);
-                                symbolSize++;
-                            }
-                        } else {
-                            buf.appendCodePoint(c);
-                            symbolSize++;
-                        }
-                        isSpace = false;
-                        alphanumSize = 0;
-                    } else {
-                        if (duplicateTermRemoved) {
-                            if (alphanumSize > 0) {
-                                isSpace = removeLastDuplication(buf, alphanumSize, isSpace, termCache);
-                            } else if (symbolSize > 0) {
-                                isSpace = removeLastDuplication(buf, symbolSize, isSpace, termCache);
-                            }
-                        }
-                        buf.appendCodePoint(c);
-                        isSpace = false;
-                        alphanumSize = 0;
-                        symbolSize = 0;
-                    }
-                }
-                if (duplicateTermRemoved) {
-                    if (alphanumSize > 0) {
-                        removeLastDuplication(buf, alphanumSize, isSpace, termCache);
-                    } else if (symbolSize > 0) {
-                        removeLastDuplication(buf, symbolSize, isSpace, termCache);
-                    }
-                }
+                copy(reader, writer);
             } catch (final IOException e) {
                 if (logger.isDebugEnabled()) {
                     logger.debug("Failed to read data.", e);
                 }
                 return StringUtil.EMPTY;
             }
+            return writer.getText();
+        }
+
+        /**
+         * Normalizes the text of the reader and writes it to the given writer.
+         *
+         * @param out the writer to store the normalized text
+         * @throws IOException if reading or writing fails
+         */
+        public void execute(final Writer out) throws IOException {
+            if (reader == null) {
+                return;
+            }
+            final TextNormalizeWriter writer = writer(out);
+            copy(reader, writer);
+            writer.finish();
+        }
+
+        private void copy(final Reader in, final TextNormalizeWriter writer) throws IOException {
+            final char[] buf = readBuffer.get();
+            int length;
+            while ((length = in.read(buf)) != -1) {
+                writer.write(buf, 0, length);
+            }
+        }
+
+        /**
+         * Creates a writer which normalizes written characters with this context.
+         *
+         * @return a writer for normalization
+         */
+        public TextNormalizeWriter writer() {
+            return new TextNormalizeWriter(this, null);
+        }
 
-            return buf.toString().trim();
+        /**
+         * Creates a writer which normalizes written characters and passes them
+         * to the given writer. Call {@link TextNormalizeWriter#finish()} or
+         * close the writer at the end.
+         *
+         * @param out the writer to store the normalized text
+         * @return a writer for normalization
+         */
+        public TextNormalizeWriter writer(final Writer out) {
+            return new TextNormalizeWriter(this, out);
         }
 
         private boolean isSpaceChar(final int c) {
@@ -183,6 +207,264 @@ public final class TextUtil {
         return new TextNormalizeContext(reader);
     }
 
+    /**
+     * Creates a context to normalize text written to {@link TextNormalizeContext#writer()}.
+     *
+     * @return a context without a reader
+     */
+    public static TextNormalizeContext normalizeText() {
+        return new TextNormalizeContext(null);
+    }
+
+    /**
+     * This writer normalizes written characters on the fly. The result is
+     * returned by {@link #getText()}, or passed to the downstream writer.
+     * When a downstream writer is given, only the current term and trailing
+     * spaces are kept in memory because they may still be removed.
+     */
+    public static class TextNormalizeWriter extends Writer {
+
+        private final TextNormalizeContext context;
+
+        private final byte[] charTypes;
+
+        private final StringBuilder buf;
+
+        private final TermSet termCache;
+
+        private final Writer out;
+
+        private boolean isSpace = false;
+
+        private int alphanumSize = 0;
+
+        private int symbolSize = 0;
+
+        private int flushSize = BUFFER_SIZE;
+
+        private boolean started = false;
+
+        private boolean finished = false;
+
+        protected TextNormalizeWriter(final TextNormalizeContext context, final Writer out) {
+            this.context = context;
+            this.out = out;
+            charTypes = getCharTypes(context.spaceChars);
+            buf = new StringBuilder(out == null ? context.initialCapacity : BUFFER_SIZE * 2);
+            termCache = context.duplicateTermRemoved ? new TermSet(1024) : null;
+        }
+
+        @Override
+        public void write(final int c) throws IOException {
+            append(c);
+            if (out != null && buf.length() >= flushSize) {
+                flushBuffer();
+            }
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) throws IOException {
+            final int end = off + len;
+            for (int i = off; i < end; i++) {
+                append(cbuf[i]);
+                if (out != null && buf.length() >= flushSize) {
+                    flushBuffer();
+                }
+            }
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) throws IOException {
+            final int end = off + len;
+            for (int i = off; i < end; i++) {
+                append(str.charAt(i));
+                if (out != null && buf.length() >= flushSize) {
+                    flushBuffer();
+                }
+            }
+        }
+
+        private void append(final int c) {
+            final byte type;
+            if (c >= 0 && c < 0x10000) {
+                type = charTypes[c];
+            } else if (Character.isISOControl(c) || context.isSpaceChar(c)) {
+                type = TYPE_SPACE;
+            } else {
+                type = TYPE_OTHER;
+            }
+
+            switch (type) {
+            case TYPE_SPACE:
+                if (termCache != null) {
+                    if (alphanumSize > 0) {
+                        isSpace = removeLastDuplication(buf, alphanumSize, isSpace, termCache);
+                    } else if (symbolSize > 0) {
+                        isSpace = removeLastDuplication(buf, symbolSize, isSpace, termCache);
+                    }
+                }
+                // space
+                if (!isSpace && !isLastSpaceChar(buf)) {
+                    buf.append(' ');
+                    isSpace = true;
+                }
+                alphanumSize = 0;
+                symbolSize = 0;
+                break;
+            case TYPE_ALPHANUM:
+                if (termCache != null && symbolSize > 0) {
+                    isSpace = removeLastDuplication(buf, symbolSize, isSpace, termCache);
+                }
+                // alphanum
+                if (context.maxAlphanumTermSize < 0 || alphanumSize < context.maxAlphanumTermSize) {
+                    buf.append((char) c);
+                    alphanumSize++;
+                }
+                isSpace = false;
+                symbolSize = 0;
+                break;
+            case TYPE_SYMBOL:
+                if (termCache != null && alphanumSize > 0) {
+                    isSpace = removeLastDuplication(buf, alphanumSize, isSpace, termCache);
+                }
+                // symbol
+                if (context.maxSymbolTermSize < 0 || symbolSize < context.maxSymbolTermSize) {
+                    buf.append((char) c);
+                    symbolSize++;
+                }
+                isSpace = false;
+                alphanumSize = 0;
+                break;
+            default:
+                if (termCache != null) {
+                    if (alphanumSize > 0) {
+                        isSpace = removeLastDuplication(buf, alphanumSize, isSpace, termCache);
+                    } else if (symbolSize > 0) {
+                        isSpace = removeLastDuplication(buf, symbolSize, isSpace, termCache);
+                    }
+                }
+                buf.appendCodePoint(c);
+                isSpace = false;
+                alphanumSize = 0;
+                symbolSize = 0;
+                break;
+            }
+        }
+
+        /**
+         * Passes the committed text to the downstream writer. The current term
+         * and trailing spaces stay in the buffer.
+         */
+        private void flushBuffer() throws IOException {
+            int end = buf.length() - Math.max(alphanumSize, symbolSize) - 1;
+            while (end > 0 && buf.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (end <= 0) {
+                // a long term or space run; retry after the next block
+                flushSize = buf.length() + BUFFER_SIZE;
+                return;
+            }
+            flushSize = BUFFER_SIZE;
+            int start = 0;
+            if (!started) {
+                while (start < end && buf.charAt(start) <= ' ') {
+                    start++;
+                }
+                if (start < end) {
+                    started = true;
+                }
+            }
+            if (start < end) {
+                out.append(buf, start, end);
+            }
+            buf.delete(0, end);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                flushBuffer();
+                out.flush();
+            }
+        }
+
+        /**
+         * Removes the last duplicated term and, if a downstream writer is
+         * given, writes the rest of the text to it. No more characters should
+         * be written after calling this method.
+         *
+         * @throws IOException if writing fails
+         */
+        public void finish() throws IOException {
+            if (!finished) {
+                finished = true;
+                if (termCache != null) {
+                    if (alphanumSize > 0) {
+                        removeLastDuplication(buf, alphanumSize, isSpace, termCache);
+                    } else if (symbolSize > 0) {
+                        removeLastDuplication(buf, symbolSize, isSpace, termCache);
+                    }
+                }
+                if (out != null) {
+                    int end = buf.length();
+                    while (end > 0 && buf.charAt(end - 1) <= ' ') {
+                        end--;
+                    }
+                    int start = 0;
+                    if (!started) {
+                        while (start < end && buf.charAt(start) <= ' ') {
+                            start++;
+                        }
+                    }
+                    if (start < end) {
+                        out.append(buf, start, end);
+                        started = true;
+                    }
+                    buf.setLength(0);
+                    out.flush();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                finish();
+                out.close();
+            }
+        }
+
+        /**
+         * Returns the normalized text. No more characters should be written after calling this method.
+         *
+         * @return normalized text
+         */
+        public String getText() {
+            if (out != null) {
+                throw new IllegalStateException("The text is written to the downstream writer.");
+            }
+            if (!finished) {
+                try {
+                    finish();
+                } catch (final IOException e) {
+                    // never happens without a downstream writer
+                    throw new IllegalStateException(e);
+                }
+            }
+            // trim without an intermediate copy
+            int start = 0;
+            int end = buf.length();
+            while (start < end && buf.charAt(start) <= ' ') {
+                start++;
+            }
+            while (start < end && buf.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            return buf.substring(start, end);
+        }
+    }
+
     private static boolean isLastSpaceChar(final StringBuilder buf) {
         if (buf.length() == 0) {
             return false;
@@ -190,28 +472,91 @@ public final class TextUtil {
         return buf.charAt(buf.length() - 1) == ' ';
     }
 
-    private static boolean removeLastDuplication(final StringBuilder buf, final int size, final boolean isSpace,
-            final Set<String> termCache) {
-        final String target = rightString(buf, size);
-        if (!termCache.contains(target)) {
-            termCache.add(target);
+    private static boolean removeLastDuplication(final StringBuilder buf, final int size, final boolean isSpace, final TermSet termCache) {
+        final int start = Math.max(buf.length() - size, 0);
+        if (termCache.add(buf, start, buf.length())) {
             return isSpace;
         }
         buf.setLength(buf.length() - size);
         if (!isSpace && !isLastSpaceChar(buf)) {
-            buf.appendCodePoint(' ');
+            buf.append(' ');
             return true;
         }
         return isSpace;
     }
 
-    private static String rightString(final StringBuilder buf, final int length) {
-        if (length <= 0) {
-            return StringUtils.EMPTY;
+    /**
+     * A set of terms which looks up a range of a buffer without creating a string.
+     */
+    private static class TermSet {
+        private String[] terms;
+
+        private int[] hashes;
+
+        private int size = 0;
+
+        TermSet(final int capacity) {
+            terms = new String[capacity];
+            hashes = new int[capacity];
         }
-        if (length >= buf.length()) {
-            return buf.toString();
+
+        /**
+         * @return true if the term is added, false if it already exists
+         */
+        boolean add(final CharSequence seq, final int start, final int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + seq.charAt(i);
+            }
+            final int mask = terms.length - 1;
+            int index = mix(hash) & mask;
+            while (terms[index] != null) {
+                if (hashes[index] == hash && equals(terms[index], seq, start, end)) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            terms[index] = seq.subSequence(start, end).toString();
+            hashes[index] = hash;
+            size++;
+            if (size * 2 > terms.length) {
+                resize();
+            }
+            return true;
+        }
+
+        private static int mix(final int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean equals(final String term, final CharSequence seq, final int start, final int end) {
+            if (term.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < term.length(); i++) {
+                if (term.charAt(i) != seq.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void resize() {
+            final String[] oldTerms = terms;
+            final int[] oldHashes = hashes;
+            terms = new String[oldTerms.length * 2];
+            hashes = new int[oldHashes.length * 2];
+            final int mask = terms.length - 1;
+            for (int i = 0; i < oldTerms.length; i++) {
+                if (oldTerms[i] != null) {
+                    int index = mix(oldHashes[i]) & mask;
+                    while (terms[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    terms[index] = oldTerms[i];
+                    hashes[index] = oldHashes[i];
+                }
+            }
         }
-        return buf.substring(buf.length() - length, buf.length());
     }
 }
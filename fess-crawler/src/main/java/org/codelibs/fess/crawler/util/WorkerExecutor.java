@@ -0,0 +1,211 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codelibs.fess.crawler.CrawlerContext;
+
+/**
+ * A lazily created thread pool shared by extractors which run parts of an
+ * extraction in parallel.
+ *
+ * The queue is bounded by queueSize. When it is full, a task runs on the
+ * submitting thread instead, so a burst of submissions slows the producer
+ * down rather than piling up work. If maxThreads is 0, the pool grows to the
+ * number of threads of the crawlers that submit tasks, so that each crawler
+ * thread can have one task running.
+ *
+ * @author shinsuke
+ *
+ */
+public class WorkerExecutor {
+
+    private static final ThreadLocal<WorkerExecutor> currentExecutor = new ThreadLocal<>();
+
+    protected final String name;
+
+    protected int maxThreads = 0; // crawler threads
+
+    protected int queueSize = 100;
+
+    protected boolean daemon = true;
+
+    private volatile ThreadPoolExecutor executor;
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    /**
+     * @param name the prefix of thread names
+     */
+    public WorkerExecutor(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Submits the task. The task runs on the current thread if the queue is
+     * full.
+     *
+     * @param task the task
+     * @param <T> the result type
+     * @return the future of the task
+     */
+    public <T> WorkerFuture<T> submit(final Callable<T> task) {
+        final WorkerFuture<T> future = new WorkerFuture<>(task);
+        getExecutor().execute(future);
+        return future;
+    }
+
+    /**
+     * @return true if the current thread is a worker of this executor
+     */
+    public boolean isWorkerThread() {
+        return currentExecutor.get() == this;
+    }
+
+    /**
+     * @return true if the current thread is a worker of any executor
+     */
+    public static boolean isAnyWorkerThread() {
+        return currentExecutor.get() != null;
+    }
+
+    public void shutdown() {
+        final ThreadPoolExecutor threadPoolExecutor = executor;
+        if (threadPoolExecutor != null) {
+            executor = null;
+            threadPoolExecutor.shutdownNow();
+        }
+    }
+
+    protected ThreadPoolExecutor getExecutor() {
+        final int poolSize = getPoolSize();
+        ThreadPoolExecutor threadPoolExecutor = executor;
+        if (threadPoolExecutor == null) {
+            synchronized (this) {
+                threadPoolExecutor = executor;
+                if (threadPoolExecutor == null) {
+                    threadPoolExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(Math.max(queueSize, 1)), r -> {
+                                final Thread thread = new Thread(() -> {
+                                    currentExecutor.set(this);
+                                    r.run();
+                                }, name + "-" + threadCounter.incrementAndGet());
+                                thread.setDaemon(daemon);
+                                return thread;
+                            }, (r, e) -> {
+                                if (e.isShutdown()) {
+                                    throw new RejectedExecutionException(name + " is shut down.");
+                                }
+                                r.run();
+                            });
+                    threadPoolExecutor.allowCoreThreadTimeOut(true);
+                    executor = threadPoolExecutor;
+                }
+            }
+        }
+        if (poolSize > threadPoolExecutor.getMaximumPoolSize()) {
+            synchronized (this) {
+                if (poolSize > threadPoolExecutor.getMaximumPoolSize()) {
+                    // another crawler with more threads started
+                    threadPoolExecutor.setMaximumPoolSize(poolSize);
+                    threadPoolExecutor.setCorePoolSize(poolSize);
+                }
+            }
+        }
+        return threadPoolExecutor;
+    }
+
+    protected int getPoolSize() {
+        if (maxThreads > 0) {
+            return maxThreads;
+        }
+        final CrawlerContext crawlerContext = CrawlingParameterUtil.getCrawlerContext();
+        if (crawlerContext != null && crawlerContext.getNumOfThread() > 0) {
+            return crawlerContext.getNumOfThread();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    public void setMaxThreads(final int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    public void setQueueSize(final int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setDaemon(final boolean daemon) {
+        this.daemon = daemon;
+    }
+
+    /**
+     * A future which knows when the task started to run.
+     *
+     * @param <T> the result type
+     */
+    public static class WorkerFuture<T> extends FutureTask<T> {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private volatile long startTime;
+
+        protected WorkerFuture(final Callable<T> task) {
+            super(task);
+        }
+
+        @Override
+        public void run() {
+            startTime = System.currentTimeMillis();
+            started.countDown();
+            super.run();
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            started.countDown();
+            return cancelled;
+        }
+
+        /**
+         * Waits for the result. The timeout is measured from the start of the
+         * task, and waiting in the queue is limited by the same timeout.
+         *
+         * @param timeout the timeout in milliseconds
+         * @return the result
+         * @throws InterruptedException if the current thread is interrupted
+         * @throws ExecutionException if the task throws an exception
+         * @throws TimeoutException if the task does not start or finish in time
+         */
+        public T await(final long timeout) throws InterruptedException, ExecutionException, TimeoutException {
+            if (!started.await(timeout, TimeUnit.MILLISECONDS)) {
+                throw new TimeoutException("The task did not start in " + timeout + " msec.");
+            }
+            final long elapsed = startTime == 0L ? 0L : System.currentTimeMillis() - startTime;
+            return get(Math.max(timeout - elapsed, 0L), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -241,6 +241,7 @@ public class CrawlerTest extends PlainTestCase {
         crawler.urlFilter.addInclude(url + ".*");
         final String sessionId = crawler.execute();
         assertEquals(maxCount, dataService.getCount(sessionId));
+        assertNotNull(crawler.crawlerContext.getUrlConvertHelper());
         dataService.delete(sessionId);
     }
 
@@ -407,4 +408,46 @@ public class CrawlerTest extends PlainTestCase {
         }
     }
 
+    public void test_cleanup() {
+        final String sessionId = crawler.getSessionId();
+        crawler.addUrl("http://localhost:7070/");
+        final AccessResultImpl<Long> accessResult = new AccessResultImpl<>();
+        accessResult.setSessionId(sessionId);
+        accessResult.setUrl("http://localhost:7070/");
+        dataService.store(accessResult);
+        assertEquals(1, dataService.getCount(sessionId));
+
+        crawler.cleanup(sessionId);
+        crawler.awaitCleanup(10000);
+        assertEquals(0, dataService.getCount(sessionId));
+        assertNull(urlQueueService.poll(sessionId));
+
+        crawler.setBackgroundCleanup(false);
+        crawler.addUrl("http://localhost:7070/");
+        dataService.store(accessResult);
+        crawler.cleanup(sessionId);
+        assertEquals(0, dataService.getCount(sessionId));
+        assertNull(urlQueueService.poll(sessionId));
+    }
+
+    public void test_cleanup_multiple() {
+        final String[] sessionIds = { "cleanup1", "cleanup2", "cleanup3" };
+        for (final String sessionId : sessionIds) {
+            urlQueueService.add(sessionId, "http://localhost:7070/");
+            final AccessResultImpl<Long> accessResult = new AccessResultImpl<>();
+            accessResult.setSessionId(sessionId);
+            accessResult.setUrl("http://localhost:7070/");
+            dataService.store(accessResult);
+            assertEquals(1, dataService.getCount(sessionId));
+        }
+
+        for (final String sessionId : sessionIds) {
+            crawler.cleanup(sessionId);
+        }
+        crawler.awaitCleanup(0);
+        for (final String sessionId : sessionIds) {
+            assertEquals(0, dataService.getCount(sessionId));
+            assertNull(urlQueueService.poll(sessionId));
+        }
+    }
 }
@@ -102,6 +102,24 @@ public class CrawlerClientFactoryTest extends PlainTestCase {
 
     }
 
+    public void test_getClient_order() {
+        final CrawlerClient pdfClient = createClient();
+        clientFactory.addClient(".*\\.pdf", pdfClient, 1);
+
+        assertTrue(clientFactory.getClient("http://hoge.com/a.pdf") instanceof FaultTolerantClient);
+        assertSame(pdfClient, clientFactory.getClient("https://hoge.com/a.pdf"));
+        assertSame(pdfClient, clientFactory.getClient("ftp://hoge.com/a.pdf"));
+        assertTrue(clientFactory.getClient("ftp://hoge.com/a.txt") instanceof FtpClient);
+        assertNull(clientFactory.getClient("hoge:/a.txt"));
+        assertNull(clientFactory.getClient("HTTP://hoge.com/"));
+        assertNull(clientFactory.getClient("http://hoge.com/\n"));
+
+        final CrawlerClient hogeClient = createClient();
+        clientFactory.addClient("hoge:.*", hogeClient);
+        assertSame(hogeClient, clientFactory.getClient("hoge:/a.txt"));
+        assertSame(pdfClient, clientFactory.getClient("hoge:/a.pdf"));
+    }
+
     public void test_setInitParameterMap() {
         final Map<String, Object> paramMap = new HashMap<String, Object>();
         paramMap.put("hoge", "test");
@@ -141,4 +159,17 @@ public class CrawlerClientFactoryTest extends PlainTestCase {
         client = clientFactory.getClient(url);
         assertNull(client);
     }
+
+    private CrawlerClient createClient() {
+        return new CrawlerClient() {
+            @Override
+            public ResponseData execute(final RequestData request) {
+                return null;
+            }
+
+            @Override
+            public void setInitParameterMap(final Map<String, Object> params) {
+            }
+        };
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.entity;
+
+import java.util.Date;
+
+import org.codelibs.fess.crawler.Constants;
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class AccessResultImplTest extends PlainTestCase {
+
+    public void test_init() {
+        final ResponseData responseData = createResponseData(new ResponseData());
+        final ResultData resultData = createResultData(new ResultData());
+
+        final AccessResultImpl<Long> accessResult = new AccessResultImpl<>();
+        accessResult.init(responseData, resultData);
+        assertAccessResult(accessResult);
+    }
+
+    public void test_init_subclass() {
+        final ResponseData responseData = createResponseData(new ResponseData() {
+        });
+        final ResultData resultData = createResultData(new ResultData() {
+            private static final long serialVersionUID = 1L;
+        });
+
+        final AccessResultImpl<Long> accessResult = new AccessResultImpl<>();
+        accessResult.init(responseData, resultData);
+        assertAccessResult(accessResult);
+    }
+
+    public void test_init_null() {
+        final AccessResultImpl<Long> accessResult = new AccessResultImpl<>();
+        accessResult.init(new ResponseData(), new ResultData());
+        assertNull(accessResult.getUrl());
+        assertEquals(Integer.valueOf(Constants.OK_STATUS), accessResult.getStatus());
+        assertEquals(Integer.valueOf(0), accessResult.getHttpStatusCode());
+        assertEquals(Integer.valueOf(0), accessResult.getExecutionTime());
+        assertEquals(Long.valueOf(0), accessResult.getContentLength());
+        assertNull(accessResult.getLastModified());
+        assertNotNull(accessResult.getCreateTime());
+        assertNull(accessResult.getAccessResultData().getData());
+
+        accessResult.init(null, null);
+        assertNotNull(accessResult.getAccessResultData());
+    }
+
+    private ResponseData createResponseData(final ResponseData responseData) {
+        responseData.setSessionId("sid");
+        responseData.setRuleId("rule");
+        responseData.setUrl("http://example.com/");
+        responseData.setParentUrl("http://example.com/parent");
+        responseData.setStatus(Constants.NOT_MODIFIED_STATUS);
+        responseData.setHttpStatusCode(200);
+        responseData.setMethod(Constants.GET_METHOD);
+        responseData.setMimeType("text/html");
+        responseData.setExecutionTime(123L);
+        responseData.setContentLength(456L);
+        responseData.setLastModified(new Date(1000L));
+        return responseData;
+    }
+
+    private ResultData createResultData(final ResultData resultData) {
+        resultData.setTransformerName("transformer");
+        resultData.setData(new byte[] { 1, 2, 3 });
+        resultData.setEncoding("UTF-8");
+        return resultData;
+    }
+
+    private void assertAccessResult(final AccessResultImpl<Long> accessResult) {
+        assertEquals("sid", accessResult.getSessionId());
+        assertEquals("rule", accessResult.getRuleId());
+        assertEquals("http://example.com/", accessResult.getUrl());
+        assertEquals("http://example.com/parent", accessResult.getParentUrl());
+        assertEquals(Integer.valueOf(Constants.NOT_MODIFIED_STATUS), accessResult.getStatus());
+        assertEquals(Integer.valueOf(200), accessResult.getHttpStatusCode());
+        assertEquals(Constants.GET_METHOD, accessResult.getMethod());
+        assertEquals("text/html", accessResult.getMimeType());
+        assertEquals(Integer.valueOf(123), accessResult.getExecutionTime());
+        assertEquals(Long.valueOf(456L), accessResult.getContentLength());
+        assertEquals(Long.valueOf(1000L), accessResult.getLastModified());
+        assertNotNull(accessResult.getCreateTime());
+
+        final AccessResultData<Long> accessResultData = accessResult.getAccessResultData();
+        assertEquals("transformer", accessResultData.getTransformerName());
+        assertEquals(3, accessResultData.getData().length);
+        assertEquals("UTF-8", accessResultData.getEncoding());
+    }
+}
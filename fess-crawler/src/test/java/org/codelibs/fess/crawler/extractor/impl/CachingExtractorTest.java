@@ -0,0 +1,231 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.extractor.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codelibs.core.io.FileUtil;
+import org.codelibs.core.io.InputStreamUtil;
+import org.codelibs.fess.crawler.Constants;
+import org.codelibs.fess.crawler.container.StandardCrawlerContainer;
+import org.codelibs.fess.crawler.entity.ExtractData;
+import org.codelibs.fess.crawler.util.FileBackedInputStream;
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class CachingExtractorTest extends PlainTestCase {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private File cacheDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        cacheDir = File.createTempFile("extcache", "");
+        cacheDir.delete();
+        cacheDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        final File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+        cacheDir.delete();
+        super.tearDown();
+    }
+
+    private CachingExtractor createExtractor(final File dir) {
+        final StandardCrawlerContainer container = new StandardCrawlerContainer();
+        container.singleton("cachingExtractor", CachingExtractor.class, extractor -> {
+            extractor.setExtractor(new CountingExtractor(counter));
+            extractor.setCacheDirectory(dir);
+        });
+        return container.getComponent("cachingExtractor");
+    }
+
+    private InputStream stream(final String value) {
+        return new ByteArrayInputStream(value.getBytes(Constants.UTF_8_CHARSET));
+    }
+
+    public void test_getText() {
+        final CachingExtractor extractor = createExtractor(null);
+
+        assertEquals("abc", extractor.getText(stream("abc"), null).getContent());
+        assertEquals(1, counter.get());
+        assertEquals("abc", extractor.getText(stream("abc"), null).getContent());
+        assertEquals(1, counter.get());
+        assertEquals("def", extractor.getText(stream("def"), null).getContent());
+        assertEquals(2, counter.get());
+
+        assertEquals(1, extractor.getHitCount());
+        assertEquals(2, extractor.getMissCount());
+        assertEquals(1.0 / 3.0, extractor.getHitRatio(), 0.0001);
+        assertTrue(extractor.getSavedCpuSeconds() >= 0.0);
+    }
+
+    public void test_getText_params() {
+        final CachingExtractor extractor = createExtractor(null);
+        final Map<String, String> params1 = newHashMap();
+        params1.put(ExtractData.CONTENT_TYPE, "text/plain");
+        params1.put(ExtractData.RESOURCE_NAME_KEY, "a.txt");
+        params1.put(ExtractData.URL, "http://localhost/a.txt");
+        final Map<String, String> params2 = newHashMap();
+        params2.put(ExtractData.CONTENT_TYPE, "text/plain");
+        params2.put(ExtractData.RESOURCE_NAME_KEY, "b.txt");
+        params2.put(ExtractData.URL, "http://localhost/b.txt");
+        final Map<String, String> params3 = newHashMap();
+        params3.put(ExtractData.CONTENT_TYPE, "text/html");
+
+        assertEquals("a.txt", extractor.getText(stream("abc"), params1).getValues(ExtractData.RESOURCE_NAME_KEY)[0]);
+        assertEquals(1, counter.get());
+        assertEquals("b.txt", extractor.getText(stream("abc"), params2).getValues(ExtractData.RESOURCE_NAME_KEY)[0]);
+        assertEquals(1, counter.get());
+        final Map<String, String> params4 = newHashMap();
+        params4.put(ExtractData.CONTENT_TYPE, "text/plain");
+        final ExtractData data4 = extractor.getText(stream("abc"), params4);
+        assertNull(data4.getValues(ExtractData.RESOURCE_NAME_KEY));
+        assertEquals("abc", data4.getContent());
+        assertEquals(1, counter.get());
+        extractor.getText(stream("abc"), params3);
+        assertEquals(2, counter.get());
+        extractor.getText(stream("abc"), null);
+        assertEquals(3, counter.get());
+    }
+
+    public void test_getText_keyParamNames() {
+        final CachingExtractor extractor = createExtractor(null);
+        extractor.setKeyParamNames(Arrays.asList(ExtractData.RESOURCE_NAME_KEY));
+        final Map<String, String> params1 = newHashMap();
+        params1.put(ExtractData.RESOURCE_NAME_KEY, "a.txt");
+        final Map<String, String> params2 = newHashMap();
+        params2.put(ExtractData.RESOURCE_NAME_KEY, "b.txt");
+
+        assertEquals("a.txt", extractor.getText(stream("abc"), params1).getValues(ExtractData.RESOURCE_NAME_KEY)[0]);
+        assertEquals("b.txt", extractor.getText(stream("abc"), params2).getValues(ExtractData.RESOURCE_NAME_KEY)[0]);
+        assertEquals(2, counter.get());
+        assertEquals("a.txt", extractor.getText(stream("abc"), params1).getValues(ExtractData.RESOURCE_NAME_KEY)[0]);
+        assertEquals(2, counter.get());
+    }
+
+    public void test_getText_copy() {
+        final CachingExtractor extractor = createExtractor(null);
+        final ExtractData data1 = extractor.getText(stream("abc"), null);
+        data1.setContent("modified");
+        data1.putValue("key", "value");
+        final ExtractData data2 = extractor.getText(stream("abc"), null);
+        assertEquals("abc", data2.getContent());
+        assertNull(data2.getValues("key"));
+    }
+
+    public void test_getText_disk() {
+        final CachingExtractor extractor1 = createExtractor(cacheDir);
+        assertEquals("abc", extractor1.getText(stream("abc"), null).getContent());
+        assertEquals(1, counter.get());
+        assertEquals(1, cacheDir.listFiles((dir, name) -> name.endsWith(".dat.gz")).length);
+
+        final CachingExtractor extractor2 = createExtractor(cacheDir);
+        assertEquals("abc", extractor2.getText(stream("abc"), null).getContent());
+        assertEquals(1, counter.get());
+        assertEquals(1, extractor2.getDiskHitCount());
+    }
+
+    public void test_getText_diskMetadata() {
+        final Map<String, String> params = newHashMap();
+        params.put(ExtractData.RESOURCE_NAME_KEY, "a.txt");
+        final CachingExtractor extractor1 = createExtractor(cacheDir);
+        extractor1.getText(stream("abc"), params);
+
+        final CachingExtractor extractor2 = createExtractor(cacheDir);
+        final ExtractData data = extractor2.getText(stream("abc"), params);
+        assertEquals(1, counter.get());
+        assertEquals("abc", data.getContent());
+        assertEquals("a.txt", data.getValues(ExtractData.RESOURCE_NAME_KEY)[0]);
+        assertFalse(data.isTruncated());
+        params.put(ExtractData.RESOURCE_NAME_KEY, "b.txt");
+        assertEquals("b.txt", extractor2.getText(stream("abc"), params).getValues(ExtractData.RESOURCE_NAME_KEY)[0]);
+        assertEquals(1, counter.get());
+    }
+
+    public void test_getText_diskBroken() throws Exception {
+        final CachingExtractor extractor1 = createExtractor(cacheDir);
+        extractor1.getText(stream("abc"), null);
+        final File[] files = cacheDir.listFiles((dir, name) -> name.endsWith(".dat.gz"));
+        assertEquals(1, files.length);
+        FileUtil.writeBytes(files[0].getAbsolutePath(), "broken".getBytes(Constants.UTF_8_CHARSET));
+
+        final CachingExtractor extractor2 = createExtractor(cacheDir);
+        assertEquals("abc", extractor2.getText(stream("abc"), null).getContent());
+        assertEquals(2, counter.get());
+        assertEquals(0, extractor2.getDiskHitCount());
+    }
+
+    public void test_getText_diskEviction() {
+        final CachingExtractor extractor = createExtractor(cacheDir);
+        extractor.setMaxDiskCacheSize(1);
+        extractor.getText(stream("abc"), null);
+        extractor.getText(stream("def"), null);
+        extractor.setMaxMemoryCacheSize(1);
+        extractor.init();
+        extractor.getText(stream("abc"), null);
+        assertEquals(3, counter.get());
+    }
+
+    public void test_getText_fileBacked() throws Exception {
+        final CachingExtractor extractor = createExtractor(null);
+        final File file = File.createTempFile("extcache", ".txt");
+        try {
+            FileUtil.writeBytes(file.getAbsolutePath(), "abc".getBytes(Constants.UTF_8_CHARSET));
+            try (InputStream in = new FileBackedInputStream(file)) {
+                assertEquals("abc", extractor.getText(in, null).getContent());
+            }
+            assertEquals("abc", extractor.getText(stream("abc"), null).getContent());
+            assertEquals(1, counter.get());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static class CountingExtractor extends AbstractExtractor {
+        private final AtomicInteger counter;
+
+        private CountingExtractor(final AtomicInteger counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public ExtractData getText(final InputStream in, final Map<String, String> params) {
+            counter.incrementAndGet();
+            final ExtractData extractData = new ExtractData(new String(InputStreamUtil.getBytes(in), Constants.UTF_8_CHARSET));
+            if (params != null && params.get(ExtractData.RESOURCE_NAME_KEY) != null) {
+                extractData.putValue(ExtractData.RESOURCE_NAME_KEY, params.get(ExtractData.RESOURCE_NAME_KEY));
+            }
+            return extractData;
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.codelibs.fess.crawler.extractor.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -26,6 +27,8 @@ import org.codelibs.core.exception.IORuntimeException;
 import org.codelibs.core.io.FileUtil;
 import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.ExecutionTimeoutException;
+import org.codelibs.fess.crawler.exception.ExtractException;
+import org.codelibs.fess.crawler.util.FileBackedInputStream;
 import org.dbflute.utflute.core.PlainTestCase;
 
 /**
@@ -111,6 +114,136 @@ public class CommandExtractorTest extends PlainTestCase {
         }
     }
 
+    private File createWorkerScriptTempFile() {
+        final String content = "#!/bin/bash\nexport LC_ALL=C\n" //
+                + "while read -r cmd len name; do\n" //
+                + "  case \"$cmd\" in\n" //
+                + "    PING) echo PONG ;;\n" //
+                + "    QUIT) exit 0 ;;\n" //
+                + "    EXTRACT)\n" //
+                + "      data=$(head -c \"$len\")\n" //
+                + "      if [ \"$data\" = \"sleep\" ]; then sleep 10; fi\n" //
+                + "      if [ \"$data\" = \"error\" ]; then echo \"ERROR bad input\"; continue; fi\n" //
+                + "      if [ \"$data\" = \"name\" ]; then data=\"$name\"; fi\n" //
+                + "      out=$(echo -n \"$data\" | tr a-z A-Z)\n" //
+                + "      printf 'OK %d\\n%s' \"${#out}\" \"$out\"\n" //
+                + "      ;;\n" //
+                + "  esac\n" //
+                + "done\n";
+        try {
+            final File file = File.createTempFile("worker", ".sh");
+            file.deleteOnExit();
+            FileUtil.writeBytes(file.getAbsolutePath(), content.getBytes());
+            return file;
+        } catch (final IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+
+    private CommandExtractor createWorkerExtractor() {
+        final CommandExtractor extractor = new CommandExtractor();
+        extractor.command = "bash " + createWorkerScriptTempFile().getAbsolutePath();
+        extractor.setWorkerMode(true);
+        return extractor;
+    }
+
+    public void test_getText_workerMode() throws IOException {
+        if (!File.separator.equals("/")) {
+            return;
+        }
+        final CommandExtractor extractor = createWorkerExtractor();
+        try {
+            final Map<String, String> params = new HashMap<String, String>();
+            params.put(ExtractData.RESOURCE_NAME_KEY, "hoge/fuga.txt");
+            for (int i = 0; i < 3; i++) {
+                final ExtractData text = extractor.getText(new ByteArrayInputStream(("test" + i).getBytes()), params);
+                assertEquals("TEST" + i, text.getContent());
+                assertEquals("hoge/fuga.txt", text.getValues("resourceName")[0]);
+            }
+            assertEquals(1, extractor.getWorkerCount());
+
+            final File contentFile = createContentFile(".txt", "file".getBytes());
+            try (FileBackedInputStream in = new FileBackedInputStream(contentFile)) {
+                assertEquals("FILE", extractor.getText(in, params).getContent());
+            }
+            assertEquals(1, extractor.getWorkerCount());
+        } finally {
+            extractor.destroy();
+        }
+        assertEquals(0, extractor.getWorkerCount());
+    }
+
+    public void test_getText_workerMode_fileName() throws IOException {
+        if (!File.separator.equals("/")) {
+            return;
+        }
+        final CommandExtractor extractor = createWorkerExtractor();
+        try {
+            final Map<String, String> params = new HashMap<String, String>();
+            params.put(ExtractData.RESOURCE_NAME_KEY, "hoge/foo bar.pdf");
+            assertEquals("FOO_BAR.PDF", extractor.getText(new ByteArrayInputStream("name".getBytes()), params).getContent());
+            assertEquals("NONE", extractor.getText(new ByteArrayInputStream("name".getBytes()), null).getContent());
+        } finally {
+            extractor.destroy();
+        }
+    }
+
+    public void test_getText_workerMode_error() throws IOException {
+        if (!File.separator.equals("/")) {
+            return;
+        }
+        final CommandExtractor extractor = createWorkerExtractor();
+        try {
+            extractor.getText(new ByteArrayInputStream("error".getBytes()), null);
+            fail();
+        } catch (final ExtractException e) {
+            assertTrue(e.getMessage().contains("bad input"));
+        }
+        try {
+            assertEquals(1, extractor.getWorkerCount());
+            assertEquals("ABC", extractor.getText(new ByteArrayInputStream("abc".getBytes()), null).getContent());
+        } finally {
+            extractor.destroy();
+        }
+    }
+
+    public void test_getText_workerMode_timeout() throws IOException {
+        if (!File.separator.equals("/")) {
+            return;
+        }
+        final CommandExtractor extractor = createWorkerExtractor();
+        extractor.setExecutionTimeout(1000L);
+        try {
+            extractor.getText(new ByteArrayInputStream("sleep".getBytes()), null);
+            fail();
+        } catch (final ExecutionTimeoutException e) {
+            // pass
+        }
+        try {
+            assertEquals(0, extractor.getWorkerCount());
+            assertEquals("ABC", extractor.getText(new ByteArrayInputStream("abc".getBytes()), null).getContent());
+        } finally {
+            extractor.destroy();
+        }
+    }
+
+    public void test_getText_workerMode_recycle() throws IOException {
+        if (!File.separator.equals("/")) {
+            return;
+        }
+        final CommandExtractor extractor = createWorkerExtractor();
+        extractor.setMaxJobsPerWorker(2);
+        extractor.setHealthCheckInterval(0L);
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertEquals("ABC" + i, extractor.getText(new ByteArrayInputStream(("abc" + i).getBytes()), null).getContent());
+                assertTrue(extractor.getWorkerCount() <= 1);
+            }
+        } finally {
+            extractor.destroy();
+        }
+    }
+
     public void test_getText() throws IOException {
         final File scriptFile = createScriptTempFile(3);
         final String content = "TEST";
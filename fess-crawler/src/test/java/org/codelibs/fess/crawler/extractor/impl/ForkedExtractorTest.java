@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.extractor.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.codelibs.core.io.CloseableUtil;
+import org.codelibs.core.io.InputStreamUtil;
+import org.codelibs.core.io.ResourceUtil;
+import org.codelibs.core.lang.ThreadUtil;
+import org.codelibs.fess.crawler.Constants;
+import org.codelibs.fess.crawler.container.StandardCrawlerContainer;
+import org.codelibs.fess.crawler.entity.ExtractData;
+import org.codelibs.fess.crawler.exception.ExecutionTimeoutException;
+import org.codelibs.fess.crawler.exception.ExtractException;
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class ForkedExtractorTest extends PlainTestCase {
+
+    public ForkedExtractor forkedExtractor;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        StandardCrawlerContainer container = new StandardCrawlerContainer().singleton("forkedExtractor", ForkedExtractor.class);
+        forkedExtractor = container.getComponent("forkedExtractor");
+        forkedExtractor.setPoolSize(1);
+        forkedExtractor.setMaxHeapSize("64m");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        forkedExtractor.destroy();
+        super.tearDown();
+    }
+
+    public void test_getText() {
+        forkedExtractor.setExtractorClassName(TextExtractor.class.getName());
+        final InputStream in = ResourceUtil.getResourceAsStream("extractor/test.txt");
+        final String content = forkedExtractor.getText(in, null).getContent();
+        CloseableUtil.closeQuietly(in);
+        assertTrue(content.contains("テスト"));
+        assertEquals(1, forkedExtractor.getWorkerCount());
+
+        final ExtractData extractData = forkedExtractor.getText(new ByteArrayInputStream("abc".getBytes(Constants.UTF_8_CHARSET)), null);
+        assertEquals("abc", extractData.getContent());
+        assertEquals(1, forkedExtractor.getWorkerCount());
+    }
+
+    public void test_getText_metadata() {
+        forkedExtractor.setExtractorClassName(EchoExtractor.class.getName());
+        final Map<String, String> params = newHashMap();
+        params.put(ExtractData.RESOURCE_NAME_KEY, "test.txt");
+        final ExtractData extractData = forkedExtractor.getText(new ByteArrayInputStream("abc".getBytes(Constants.UTF_8_CHARSET)), params);
+        assertEquals("abc", extractData.getContent());
+        assertEquals("test.txt", extractData.getValues(ExtractData.RESOURCE_NAME_KEY)[0]);
+        assertEquals(2, extractData.getValues("multi").length);
+        assertEquals("b", extractData.getValues("multi")[1]);
+    }
+
+    public void test_getText_error() {
+        forkedExtractor.setExtractorClassName(ErrorExtractor.class.getName());
+        try {
+            forkedExtractor.getText(new ByteArrayInputStream("abc".getBytes(Constants.UTF_8_CHARSET)), null);
+            fail();
+        } catch (final ExtractException e) {
+            assertTrue(e.getMessage().contains("error:abc"));
+        }
+        // the worker is reused
+        assertEquals(1, forkedExtractor.getWorkerCount());
+    }
+
+    public void test_getText_timeout() {
+        forkedExtractor.setExtractorClassName(SleepExtractor.class.getName());
+        forkedExtractor.setExecutionTimeout(1);
+        try {
+            forkedExtractor.getText(new ByteArrayInputStream("sleep".getBytes(Constants.UTF_8_CHARSET)), null);
+            fail();
+        } catch (final ExecutionTimeoutException e) {
+            // ok
+        }
+        assertEquals(0, forkedExtractor.getWorkerCount());
+
+        final ExtractData extractData = forkedExtractor.getText(new ByteArrayInputStream("abc".getBytes(Constants.UTF_8_CHARSET)), null);
+        assertEquals("abc", extractData.getContent());
+        assertEquals(1, forkedExtractor.getWorkerCount());
+    }
+
+    public void test_getText_outOfMemory() {
+        forkedExtractor.setExtractorClassName(SleepExtractor.class.getName());
+        try {
+            forkedExtractor.getText(new ByteArrayInputStream("oom".getBytes(Constants.UTF_8_CHARSET)), null);
+            fail();
+        } catch (final ExtractException e) {
+            // ok
+        }
+        assertEquals(0, forkedExtractor.getWorkerCount());
+
+        final ExtractData extractData = forkedExtractor.getText(new ByteArrayInputStream("abc".getBytes(Constants.UTF_8_CHARSET)), null);
+        assertEquals("abc", extractData.getContent());
+    }
+
+    public void test_getText_recycle() {
+        forkedExtractor.setExtractorClassName(TextExtractor.class.getName());
+        forkedExtractor.setMaxJobsPerWorker(2);
+        for (int i = 0; i < 5; i++) {
+            final ExtractData extractData =
+                    forkedExtractor.getText(new ByteArrayInputStream(("abc" + i).getBytes(Constants.UTF_8_CHARSET)), null);
+            assertEquals("abc" + i, extractData.getContent());
+        }
+        assertTrue(forkedExtractor.getWorkerCount() <= 1);
+    }
+
+    public static class EchoExtractor extends AbstractExtractor {
+        @Override
+        public ExtractData getText(final InputStream in, final Map<String, String> params) {
+            final ExtractData extractData = new ExtractData(new String(InputStreamUtil.getBytes(in), Constants.UTF_8_CHARSET));
+            extractData.putValue(ExtractData.RESOURCE_NAME_KEY, params.get(ExtractData.RESOURCE_NAME_KEY));
+            extractData.putValues("multi", new String[] { "a", "b" });
+            return extractData;
+        }
+    }
+
+    public static class ErrorExtractor extends AbstractExtractor {
+        @Override
+        public ExtractData getText(final InputStream in, final Map<String, String> params) {
+            throw new ExtractException("error:" + new String(InputStreamUtil.getBytes(in), Constants.UTF_8_CHARSET));
+        }
+    }
+
+    public static class SleepExtractor extends AbstractExtractor {
+        @Override
+        public ExtractData getText(final InputStream in, final Map<String, String> params) {
+            final String value = new String(InputStreamUtil.getBytes(in), Constants.UTF_8_CHARSET);
+            if ("sleep".equals(value)) {
+                ThreadUtil.sleepQuietly(60000L);
+            } else if ("oom".equals(value)) {
+                final List<byte[]> list = new ArrayList<>();
+                while (true) {
+                    list.add(new byte[1024 * 1024]);
+                }
+            }
+            return new ExtractData(value);
+        }
+    }
+}
@@ -15,17 +15,26 @@
  */
 package org.codelibs.fess.crawler.extractor.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.codelibs.core.io.CloseableUtil;
+import org.codelibs.core.io.FileUtil;
 import org.codelibs.core.io.ResourceUtil;
 import org.codelibs.fess.crawler.container.StandardCrawlerContainer;
 import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.extractor.ExtractorFactory;
 import org.codelibs.fess.crawler.helper.impl.MimeTypeHelperImpl;
+import org.codelibs.fess.crawler.util.FileBackedInputStream;
 import org.dbflute.utflute.core.PlainTestCase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -83,6 +92,96 @@ public class PdfExtractorTest extends PlainTestCase {
         assertTrue(content.contains("テスト"));
     }
 
+    public void test_getText_splitPages() throws Exception {
+        final byte[] data = createPdf(10);
+        final String expected = pdfExtractor.getText(new ByteArrayInputStream(data), null).getContent();
+        for (int i = 1; i <= 10; i++) {
+            assertTrue(expected.contains("Page " + i + " "));
+        }
+
+        pdfExtractor.setSplitPageThreshold(5);
+        pdfExtractor.setPagesPerTask(3);
+        assertEquals(expected, pdfExtractor.getText(new ByteArrayInputStream(data), null).getContent());
+
+        final File file = File.createTempFile("pdftest", ".pdf");
+        try {
+            FileUtil.writeBytes(file.getAbsolutePath(), data);
+            try (InputStream in = new FileBackedInputStream(file)) {
+                assertEquals(expected, pdfExtractor.getText(in, null).getContent());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void test_getText_splitPages_fullQueue() throws Exception {
+        final byte[] data = createPdf(10);
+        final String expected = pdfExtractor.getText(new ByteArrayInputStream(data), null).getContent();
+
+        final PdfExtractor extractor = new PdfExtractor();
+        extractor.setMaxThreads(1);
+        extractor.setQueueSize(1);
+        extractor.setSplitPageThreshold(5);
+        extractor.setPagesPerTask(1);
+        final File file = File.createTempFile("pdftest", ".pdf");
+        try {
+            FileUtil.writeBytes(file.getAbsolutePath(), data);
+            try (InputStream in = new FileBackedInputStream(file)) {
+                // ranges which do not fit in the queue run on the caller
+                assertEquals(expected, extractor.getText(in, null).getContent());
+            }
+        } finally {
+            extractor.destroy();
+            file.delete();
+        }
+    }
+
+    public void test_getText_splitPages_belowThreshold() throws Exception {
+        final byte[] data = createPdf(3);
+        pdfExtractor.setSplitPageThreshold(5);
+        final String content = pdfExtractor.getText(new ByteArrayInputStream(data), null).getContent();
+        assertTrue(content.indexOf("Page 1 ") < content.indexOf("Page 3 "));
+    }
+
+    public void test_getText_maxOutputChars() throws Exception {
+        final byte[] data = createPdf(10);
+        final String expected = pdfExtractor.getText(new ByteArrayInputStream(data), null).getContent();
+
+        pdfExtractor.setMaxOutputChars(20);
+        ExtractData extractData = pdfExtractor.getText(new ByteArrayInputStream(data), null);
+        assertEquals(expected.substring(0, 20), extractData.getContent());
+        assertTrue(extractData.isTruncated());
+
+        pdfExtractor.setSplitPageThreshold(5);
+        pdfExtractor.setPagesPerTask(3);
+        extractData = pdfExtractor.getText(new ByteArrayInputStream(data), null);
+        assertEquals(expected.substring(0, 20), extractData.getContent());
+        assertTrue(extractData.isTruncated());
+
+        pdfExtractor.setMaxOutputChars(expected.length());
+        extractData = pdfExtractor.getText(new ByteArrayInputStream(data), null);
+        assertEquals(expected, extractData.getContent());
+        assertFalse(extractData.isTruncated());
+    }
+
+    private byte[] createPdf(final int pages) throws Exception {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 1; i <= pages; i++) {
+                final PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    contents.beginText();
+                    contents.setFont(PDType1Font.HELVETICA, 12);
+                    contents.newLineAtOffset(100, 700);
+                    contents.showText("Page " + i + " text");
+                    contents.endText();
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
     public void test_getText_null() {
         try {
             pdfExtractor.getText(null, null);
@@ -15,12 +15,17 @@
  */
 package org.codelibs.fess.crawler.extractor.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.codelibs.core.io.CloseableUtil;
 import org.codelibs.core.io.ResourceUtil;
 import org.codelibs.fess.crawler.container.StandardCrawlerContainer;
+import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+import org.codelibs.fess.crawler.helper.OutputLengthHelper;
 import org.dbflute.utflute.core.PlainTestCase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +42,8 @@ public class TextExtractorTest extends PlainTestCase {
     @Override
     protected void setUp() throws Exception {
         super.setUp();
-        StandardCrawlerContainer container = new StandardCrawlerContainer().singleton("textExtractor", TextExtractor.class);
+        StandardCrawlerContainer container = new StandardCrawlerContainer().singleton("outputLengthHelper", OutputLengthHelper.class)
+                .singleton("textExtractor", TextExtractor.class);
         textExtractor = container.getComponent("textExtractor");
     }
 
@@ -57,4 +63,32 @@ public class TextExtractorTest extends PlainTestCase {
             // NOP
         }
     }
+
+    public void test_getText_maxOutputChars() throws Exception {
+        final byte[] bytes = "あいうえおかきくけこ".getBytes("UTF-8");
+
+        textExtractor.setMaxOutputChars(5);
+        ExtractData extractData = textExtractor.getText(new ByteArrayInputStream(bytes), null);
+        assertEquals("あいうえお", extractData.getContent());
+        assertTrue(extractData.isTruncated());
+
+        textExtractor.setMaxOutputChars(10);
+        extractData = textExtractor.getText(new ByteArrayInputStream(bytes), null);
+        assertEquals("あいうえおかきくけこ", extractData.getContent());
+        assertFalse(extractData.isTruncated());
+
+        textExtractor.setMaxOutputChars(-1);
+        final OutputLengthHelper outputLengthHelper = textExtractor.crawlerContainer.getComponent("outputLengthHelper");
+        outputLengthHelper.addMaxChars("text/plain", 3);
+        final Map<String, String> params = new HashMap<>();
+        params.put(ExtractData.CONTENT_TYPE, "text/plain");
+        extractData = textExtractor.getText(new ByteArrayInputStream(bytes), params);
+        assertEquals("あいう", extractData.getContent());
+        assertTrue(extractData.isTruncated());
+
+        params.put(ExtractData.CONTENT_TYPE, "text/csv");
+        extractData = textExtractor.getText(new ByteArrayInputStream(bytes), params);
+        assertEquals("あいうえおかきくけこ", extractData.getContent());
+        assertFalse(extractData.isTruncated());
+    }
 }
@@ -16,6 +16,7 @@
 package org.codelibs.fess.crawler.extractor.impl;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
@@ -30,6 +31,7 @@ import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.exception.ExtractException;
 import org.codelibs.fess.crawler.extractor.ExtractorFactory;
 import org.codelibs.fess.crawler.helper.impl.MimeTypeHelperImpl;
+import org.codelibs.fess.crawler.util.FileBackedInputStream;
 import org.dbflute.utflute.core.PlainTestCase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,6 +70,36 @@ public class TikaExtractorTest extends PlainTestCase {
         assertTrue(content.contains("テスト"));
     }
 
+    public void test_getTika_text_maxOutputChars() throws Exception {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            buf.append("word").append(i).append(' ');
+        }
+        final byte[] data = buf.toString().getBytes(Constants.UTF_8);
+        final Map<String, String> params = new HashMap<>();
+        params.put(ExtractData.CONTENT_TYPE, "text/plain");
+
+        tikaExtractor.setMaxOutputChars(1000);
+        try {
+            ExtractData extractData = tikaExtractor.getText(new ByteArrayInputStream(data), params);
+            assertTrue(extractData.getContent().startsWith("word0 word1 "));
+            assertTrue(extractData.getContent().length() <= 1000);
+            assertTrue(extractData.isTruncated());
+
+            params.put(TikaExtractor.NORMALIZE_TEXT, Constants.FALSE);
+            extractData = tikaExtractor.getText(new ByteArrayInputStream(data), params);
+            assertTrue(extractData.getContent().startsWith("word0 word1 "));
+            assertTrue(extractData.getContent().length() <= 1000);
+            assertTrue(extractData.isTruncated());
+
+            final ExtractData smallData = tikaExtractor.getText(new ByteArrayInputStream("word".getBytes(Constants.UTF_8)), params);
+            assertEquals("word", smallData.getContent().trim());
+            assertFalse(smallData.isTruncated());
+        } finally {
+            tikaExtractor.setMaxOutputChars(-1);
+        }
+    }
+
     public void test_getTika_text_sjis() {
         final InputStream in = ResourceUtil.getResourceAsStream("extractor/test_sjis.txt");
         Map<String, String> params = new HashMap<>();
@@ -324,6 +356,27 @@ public class TikaExtractorTest extends PlainTestCase {
         assertTrue(content.contains("テキスト"));
     }
 
+    public void test_getTika_fileBacked() throws Exception {
+        final File file = ResourceUtil.getResourceAsFile("extractor/zip/test.zip");
+        try (final InputStream in = new FileBackedInputStream(file)) {
+            final ExtractData extractData = tikaExtractor.getText(in, null);
+            final String content = extractData.getContent();
+            logger.info(content);
+            assertTrue(content.contains("テスト"));
+            assertTrue(content.contains("テキスト"));
+        }
+        assertTrue(file.exists());
+
+        try (final InputStream in = new FileBackedInputStream(ResourceUtil.getResourceAsFile("extractor/test.txt"))) {
+            assertEquals(3, in.read(new byte[3]));
+            // a partially read stream is copied
+            final ExtractData extractData = tikaExtractor.getText(in, null);
+            final String content = extractData.getContent();
+            logger.info(content);
+            assertFalse(content.contains("テ"));
+        }
+    }
+
     public void test_getTika_zip_bom() {
         final InputStream in = ResourceUtil.getResourceAsStream("extractor/zip/test_size.zip");
         tikaExtractor.maxCompressionRatio = 1;
@@ -22,6 +22,7 @@ import java.io.InputStream;
 import org.codelibs.core.io.CloseableUtil;
 import org.codelibs.core.io.ResourceUtil;
 import org.codelibs.fess.crawler.container.StandardCrawlerContainer;
+import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.dbflute.utflute.core.PlainTestCase;
 import org.slf4j.Logger;
@@ -95,6 +96,24 @@ public class XmlExtractorTest extends PlainTestCase {
         assertEquals("", content);
     }
 
+    public void test_getXml_maxOutputChars() throws Exception {
+        final byte[] bytes = "<doc><a>one two</a> <b attr=\"three\">four</b>  five</doc>".getBytes("UTF-8");
+        ExtractData extractData = xmlExtractor.getText(new ByteArrayInputStream(bytes), null);
+        assertEquals("one two three four five", extractData.getContent());
+        assertFalse(extractData.isTruncated());
+
+        xmlExtractor.setMaxOutputChars(8);
+        extractData = xmlExtractor.getText(new ByteArrayInputStream(bytes), null);
+        assertEquals("one two", extractData.getContent());
+        assertTrue(extractData.isTruncated());
+
+        xmlExtractor.setMaxOutputChars(23);
+        extractData = xmlExtractor.getText(new ByteArrayInputStream(bytes), null);
+        assertEquals("one two three four five", extractData.getContent());
+        assertFalse(extractData.isTruncated());
+        xmlExtractor.setMaxOutputChars(-1);
+    }
+
     public void test_getEncoding_utf8() {
         final InputStream in = ResourceUtil.getResourceAsStream("extractor/test_utf8.xml");
         final BufferedInputStream bis = new BufferedInputStream(in);
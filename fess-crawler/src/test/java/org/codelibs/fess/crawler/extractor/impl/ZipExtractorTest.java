@@ -15,13 +15,18 @@
  */
 package org.codelibs.fess.crawler.extractor.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.compress.archivers.ArchiveStreamFactory;
 import org.apache.commons.compress.compressors.CompressorStreamFactory;
 import org.codelibs.core.io.CloseableUtil;
 import org.codelibs.core.io.ResourceUtil;
+import org.codelibs.fess.crawler.Constants;
 import org.codelibs.fess.crawler.container.StandardCrawlerContainer;
 import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.exception.MaxLengthExceededException;
@@ -80,6 +85,72 @@ public class ZipExtractorTest extends PlainTestCase {
         zipExtractor.setMaxContentSize(-1);
     }
 
+    public void test_getText_parallel() throws IOException {
+        final byte[] data = createZip();
+        final String expected = zipExtractor.getText(new ByteArrayInputStream(data), null).getContent();
+        assertTrue(expected.indexOf("text0") < expected.indexOf("text9"));
+        assertTrue(expected.indexOf("text9") < expected.indexOf("nested"));
+
+        zipExtractor.setMaxThreads(3);
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertEquals(expected, zipExtractor.getText(new ByteArrayInputStream(data), null).getContent());
+            }
+        } finally {
+            zipExtractor.destroy();
+            zipExtractor.setMaxThreads(0);
+        }
+    }
+
+    public void test_getText_maxNestedDepth() throws IOException {
+        final byte[] data = createZip();
+        assertTrue(zipExtractor.getText(new ByteArrayInputStream(data), null).getContent().contains("nested"));
+
+        zipExtractor.setMaxNestedDepth(0);
+        try {
+            final String content = zipExtractor.getText(new ByteArrayInputStream(data), null).getContent();
+            assertTrue(content.contains("text9"));
+            assertFalse(content.contains("nested"));
+        } finally {
+            zipExtractor.setMaxNestedDepth(5);
+        }
+    }
+
+    public void test_getText_maxOutputChars() throws IOException {
+        final byte[] data = createZip();
+        zipExtractor.setMaxOutputChars(20);
+        try {
+            final String content = zipExtractor.getText(new ByteArrayInputStream(data), null).getContent();
+            assertTrue(content.length() <= 20);
+            assertTrue(content.startsWith("text0"));
+            assertFalse(content.contains("text9"));
+        } finally {
+            zipExtractor.setMaxOutputChars(-1);
+        }
+    }
+
+    private byte[] createZip() throws IOException {
+        final ByteArrayOutputStream nested = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(nested)) {
+            zos.putNextEntry(new ZipEntry("nested.txt"));
+            zos.write("nested".getBytes(Constants.UTF_8_CHARSET));
+            zos.closeEntry();
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(out)) {
+            for (int i = 0; i < 10; i++) {
+                zos.putNextEntry(new ZipEntry("test" + i + ".txt"));
+                zos.write(("text" + i).getBytes(Constants.UTF_8_CHARSET));
+                zos.closeEntry();
+            }
+            zos.putNextEntry(new ZipEntry("inner.zip"));
+            zos.write(nested.toByteArray());
+            zos.closeEntry();
+        }
+        return out.toByteArray();
+    }
+
     public void test_getText_null() {
         try {
             zipExtractor.getText(null, null);
@@ -174,6 +174,58 @@ public class UrlFilterImplTest extends PlainTestCase {
         assertFalse(urlFilter.match("http://test.com/a"));
     }
 
+    public void test_match_patternAdded() {
+        urlFilter.addInclude("http://example.com/.*");
+
+        final String sessionId = "id1";
+        urlFilter.init(sessionId);
+
+        assertTrue(urlFilter.match("http://example.com/a"));
+        assertFalse(urlFilter.match("http://test.com/a"));
+
+        urlFilter.addInclude("http://test.com/.*");
+        urlFilter.addExclude(".*/a");
+
+        assertFalse(urlFilter.match("http://example.com/a"));
+        assertTrue(urlFilter.match("http://example.com/b"));
+        assertFalse(urlFilter.match("http://test.com/a"));
+        assertTrue(urlFilter.match("http://test.com/b"));
+
+        urlFilter.clear();
+
+        assertTrue(urlFilter.match("http://example.com/a"));
+        assertTrue(urlFilter.match("http://foo.com/a"));
+    }
+
+    public void test_match_cache() {
+        urlFilter.addInclude("http://example.com/.*");
+
+        final String sessionId = "id1";
+        urlFilter.init(sessionId);
+
+        assertTrue(urlFilter.match("http://example.com/a"));
+        assertTrue(urlFilter.match("http://example.com/a"));
+        assertFalse(urlFilter.match("http://test.com/a"));
+        assertFalse(urlFilter.match("http://test.com/a"));
+        assertEquals(2, urlFilter.getMatchCacheStats().hitCount());
+        assertEquals(2, urlFilter.getMatchCacheStats().missCount());
+
+        urlFilter.addInclude("http://test.com/.*");
+        assertTrue(urlFilter.match("http://test.com/a"));
+        assertEquals(2, urlFilter.getMatchCacheStats().hitCount());
+        assertEquals(3, urlFilter.getMatchCacheStats().missCount());
+
+        dataHelper.addExcludeUrlPattern(sessionId, ".*/a");
+        assertFalse(urlFilter.match("http://test.com/a"));
+        assertEquals(4, urlFilter.getMatchCacheStats().missCount());
+
+        urlFilter.setMatchCacheSize(0);
+        assertFalse(urlFilter.match("http://test.com/a"));
+        assertTrue(urlFilter.match("http://test.com/b"));
+        assertEquals(2, urlFilter.getMatchCacheStats().hitCount());
+        assertEquals(4, urlFilter.getMatchCacheStats().missCount());
+    }
+
     public void test_processUrl() {
         assertEquals(0, urlFilter.cachedIncludeSet.size());
         assertEquals(0, urlFilter.cachedExcludeSet.size());
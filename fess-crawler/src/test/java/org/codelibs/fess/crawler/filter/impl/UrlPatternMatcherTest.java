@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.filter.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class UrlPatternMatcherTest extends PlainTestCase {
+
+    public void test_matches() {
+        final List<Pattern> patternList = new ArrayList<>();
+        patternList.add(Pattern.compile("http://example\\.com/.*"));
+        patternList.add(Pattern.compile("http://example\\.com"));
+        patternList.add(Pattern.compile("https?://test\\.com/a.*"));
+        patternList.add(Pattern.compile(".*\\.pdf"));
+        final UrlPatternMatcher matcher = new UrlPatternMatcher(patternList);
+        assertFalse(matcher.isEmpty());
+        assertTrue(matcher.matches("http://example.com/"));
+        assertTrue(matcher.matches("http://example.com"));
+        assertTrue(matcher.matches("http://test.com/a"));
+        assertTrue(matcher.matches("https://test.com/abc"));
+        assertTrue(matcher.matches("ftp://foo/bar.pdf"));
+        assertFalse(matcher.matches("http://example.co"));
+        assertFalse(matcher.matches("http://test.com/b"));
+        assertFalse(matcher.matches(""));
+    }
+
+    public void test_isCompiledFrom() {
+        final List<Pattern> patternList = new ArrayList<>();
+        final UrlPatternMatcher matcher = new UrlPatternMatcher(patternList);
+        assertTrue(matcher.isEmpty());
+        assertFalse(matcher.matches("http://example.com/"));
+        assertTrue(matcher.isCompiledFrom(patternList));
+        assertFalse(matcher.isCompiledFrom(new ArrayList<>()));
+        patternList.add(Pattern.compile(".*"));
+        assertFalse(matcher.isCompiledFrom(patternList));
+    }
+
+    public void test_updateSource() {
+        final List<Pattern> patternList = new ArrayList<>();
+        patternList.add(Pattern.compile("http://example\\.com/.*"));
+        final UrlPatternMatcher matcher = new UrlPatternMatcher(patternList);
+        assertTrue(matcher.updateSource(patternList));
+
+        final List<Pattern> sameList = new ArrayList<>();
+        sameList.add(Pattern.compile("http://example\\.com/.*"));
+        assertFalse(matcher.isCompiledFrom(sameList));
+        assertTrue(matcher.updateSource(sameList));
+        assertTrue(matcher.isCompiledFrom(sameList));
+        assertFalse(matcher.isCompiledFrom(patternList));
+
+        final List<Pattern> flagList = new ArrayList<>();
+        flagList.add(Pattern.compile("http://example\\.com/.*", Pattern.CASE_INSENSITIVE));
+        assertFalse(matcher.updateSource(flagList));
+
+        final List<Pattern> otherList = new ArrayList<>();
+        otherList.add(Pattern.compile("http://example\\.org/.*"));
+        assertFalse(matcher.updateSource(otherList));
+        assertFalse(matcher.updateSource(new ArrayList<>()));
+        assertTrue(matcher.isCompiledFrom(sameList));
+    }
+}
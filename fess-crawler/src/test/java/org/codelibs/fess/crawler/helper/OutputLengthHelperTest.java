@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.helper;
+
+import org.codelibs.fess.crawler.container.StandardCrawlerContainer;
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class OutputLengthHelperTest extends PlainTestCase {
+
+    public OutputLengthHelper outputLengthHelper;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        StandardCrawlerContainer container = new StandardCrawlerContainer().singleton("outputLengthHelper", OutputLengthHelper.class);
+        outputLengthHelper = container.getComponent("outputLengthHelper");
+    }
+
+    public void test_getMaxChars() {
+        final String mimeType = "text/plain";
+
+        assertEquals(-1L, outputLengthHelper.getMaxChars(mimeType));
+        outputLengthHelper.addMaxChars(mimeType, 1000L);
+        assertEquals(1000L, outputLengthHelper.getMaxChars(mimeType));
+        assertEquals(1000L, outputLengthHelper.getMaxChars("text/plain; charset=UTF-8"));
+        assertEquals(-1L, outputLengthHelper.getMaxChars("text/html"));
+
+        outputLengthHelper.setDefaultMaxChars(5000L);
+        assertEquals(5000L, outputLengthHelper.getMaxChars("text/html"));
+        outputLengthHelper.addMaxChars("text/html", -10L);
+        assertEquals(-1L, outputLengthHelper.getMaxChars("text/html"));
+    }
+
+    public void test_getMaxChars_blank() {
+        assertEquals(-1L, outputLengthHelper.getMaxChars(null));
+        assertEquals(-1L, outputLengthHelper.getMaxChars(""));
+        assertEquals(-1L, outputLengthHelper.getMaxChars(" "));
+
+        try {
+            outputLengthHelper.addMaxChars(" ", 100L);
+            fail();
+        } catch (final CrawlerSystemException e) {
+            // NOP
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package org.codelibs.fess.crawler.helper;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.codelibs.fess.crawler.container.StandardCrawlerContainer;
 import org.dbflute.utflute.core.PlainTestCase;
 
@@ -73,4 +76,52 @@ public class UrlConvertHelperTest extends PlainTestCase {
         assertEquals(" ", urlConvertHelper.convert(url));
 
     }
+
+    public void test_convert_changed() {
+        final Map<String, String> convertMap = new LinkedHashMap<>();
+        convertMap.put("a", "b");
+        urlConvertHelper.setConvertMap(convertMap);
+        assertEquals("http://b.com/b", urlConvertHelper.convert("http://a.com/a"));
+
+        urlConvertHelper.add("b", "c");
+        assertEquals("http://c.com/c", urlConvertHelper.convert("http://a.com/a"));
+
+        urlConvertHelper.add("a", "c");
+        assertEquals("http://c.com/c", urlConvertHelper.convert("http://a.com/a"));
+        assertEquals("http://$1.com/", urlConvertHelper.convert("http://$1.com/"));
+    }
+
+    public void test_canonicalize() {
+        final String url = "HTTP://User@WWW.Example.COM:80/Path/index.html;jsessionid=ABC?b=2&PHPSESSID=x&a=1#top";
+        assertEquals(url, urlConvertHelper.canonicalize(url));
+
+        urlConvertHelper.setLowerCaseSchemeAndHost(true);
+        assertEquals("http://User@www.example.com:80/Path/index.html;jsessionid=ABC?b=2&PHPSESSID=x&a=1#top",
+                urlConvertHelper.canonicalize(url));
+
+        urlConvertHelper.setRemoveDefaultPort(true);
+        assertEquals("http://User@www.example.com/Path/index.html;jsessionid=ABC?b=2&PHPSESSID=x&a=1#top", urlConvertHelper.canonicalize(url));
+        assertEquals("https://www.example.com:80/", urlConvertHelper.canonicalize("https://www.example.com:80/"));
+        assertEquals("https://www.example.com", urlConvertHelper.canonicalize("https://www.example.com:443"));
+        assertEquals("http://[::1]/", urlConvertHelper.canonicalize("http://[::1]:80/"));
+
+        urlConvertHelper.setRemoveFragment(true);
+        assertEquals("http://User@www.example.com/Path/index.html;jsessionid=ABC?b=2&PHPSESSID=x&a=1", urlConvertHelper.canonicalize(url));
+
+        urlConvertHelper.addRemovedParameterName("JSESSIONID");
+        urlConvertHelper.addRemovedParameterName("phpsessid");
+        assertEquals("http://User@www.example.com/Path/index.html?b=2&a=1", urlConvertHelper.canonicalize(url));
+        assertEquals("http://www.example.com/a/b", urlConvertHelper.canonicalize("http://www.example.com/a;jsessionid=1/b?jsessionid=2"));
+
+        urlConvertHelper.setSortQueryParameters(true);
+        final String canonicalUrl = urlConvertHelper.canonicalize(url);
+        assertEquals("http://User@www.example.com/Path/index.html?a=1&b=2", canonicalUrl);
+        assertEquals(canonicalUrl, urlConvertHelper.canonicalize(canonicalUrl));
+        assertEquals("http://www.example.com/?a=2&a=1&b", urlConvertHelper.canonicalize("http://www.example.com/?b&a=2&a=1"));
+
+        assertEquals(canonicalUrl, urlConvertHelper.convert(url));
+        assertNull(urlConvertHelper.canonicalize(null));
+        assertEquals("", urlConvertHelper.canonicalize(""));
+        assertEquals("file:/home/hoge", urlConvertHelper.canonicalize("file:/home/hoge#a"));
+    }
 }
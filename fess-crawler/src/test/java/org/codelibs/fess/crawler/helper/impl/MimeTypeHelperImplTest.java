@@ -15,13 +15,19 @@
  */
 package org.codelibs.fess.crawler.helper.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 
+import org.codelibs.core.io.InputStreamUtil;
 import org.codelibs.core.io.ResourceUtil;
 import org.codelibs.fess.crawler.container.StandardCrawlerContainer;
+import org.codelibs.fess.crawler.entity.ExtractData;
 import org.codelibs.fess.crawler.exception.MimeTypeException;
 import org.codelibs.fess.crawler.helper.MimeTypeHelper;
+import org.codelibs.fess.crawler.util.PrefixCaptureInputStream;
 import org.dbflute.utflute.core.PlainTestCase;
 
 /**
@@ -170,6 +176,63 @@ public class MimeTypeHelperImplTest extends PlainTestCase {
         assertContentType("application/javascript", "extractor/program/test.js", "test.js");
     }
 
+    public void test_getContentType_cache() throws IOException {
+        final MimeTypeHelperImpl cachedHelper = new MimeTypeHelperImpl();
+        final MimeTypeHelperImpl uncachedHelper = new MimeTypeHelperImpl();
+        uncachedHelper.setMaxCacheSize(0);
+        final String[] names = { "hoge.txt", "Makefile", "README", "KEYS.txt", "i_test.txt", "s_test.txt", "heap.hprof.txt", "doc.adoc.txt",
+                ".htaccess", "hoge.tar.gz", "hoge.gz", "hoge-gz", "hoge.PDF", "hoge.pdf", "http://localhost/hoge.pdf",
+                "http://localhost/hoge.pdf?a=1", "http://localhost/dir.d/hoge", "hoge.", "rdf", "hoge.rdf" };
+        for (int i = 0; i < 3; i++) {
+            for (final String name : names) {
+                assertEquals(name, uncachedHelper.getContentType(null, name), cachedHelper.getContentType(null, name));
+            }
+        }
+        assertNull(cachedHelper.getCacheKey("Makefile"));
+        assertNull(cachedHelper.getCacheKey("i_test.txt"));
+        assertNull(cachedHelper.getCacheKey("http://localhost/hoge.pdf?a=1"));
+        assertEquals("pdf", cachedHelper.getCacheKey("http://localhost/hoge.pdf"));
+    }
+
+    public void test_getContentType_declaredType() throws IOException {
+        final MimeTypeHelper mimeTypeHelper = container.getComponent("mimeTypeHelper");
+        final Map<String, String> params = new HashMap<>();
+        params.put(ExtractData.CONTENT_TYPE, "text/plain");
+        try (final InputStream is = ResourceUtil.getResourceAsStream("extractor/test.pdf")) {
+            assertEquals("application/pdf", mimeTypeHelper.getContentType(is, params));
+        }
+
+        params.put(ExtractData.RESOURCE_NAME_KEY, "hoge.xml");
+        params.put(ExtractData.CONTENT_TYPE, "text/html");
+        assertEquals("application/xml", mimeTypeHelper.getContentType(null, params));
+        params.put(ExtractData.CONTENT_TYPE, "application/pdf");
+        assertEquals("application/xml", mimeTypeHelper.getContentType(null, params));
+
+        params.put(ExtractData.RESOURCE_NAME_KEY, "hoge");
+        try (final InputStream is = ResourceUtil.getResourceAsStream("test/text1.txt")) {
+            assertEquals("text/plain", mimeTypeHelper.getContentType(is, params));
+        }
+    }
+
+    public void test_getContentType_prefix() throws IOException {
+        final MimeTypeHelperImpl mimeTypeHelper = container.getComponent("mimeTypeHelper");
+        mimeTypeHelper.useFilename = false;
+        assertTrue(mimeTypeHelper.getPrefixSize() > 0);
+        for (final String path : new String[] { "extractor/msoffice/test.docx", "extractor/msoffice/test.xls", "extractor/test.pdf",
+                "extractor/zip/test.zip", "test/text1.txt" }) {
+            final byte[] prefix;
+            try (PrefixCaptureInputStream in = new PrefixCaptureInputStream(ResourceUtil.getResourceAsStream(path),
+                    mimeTypeHelper.getPrefixSize())) {
+                InputStreamUtil.getBytes(in);
+                prefix = in.getPrefix();
+            }
+            try (final InputStream is = ResourceUtil.getResourceAsStream(path)) {
+                assertEquals(path, mimeTypeHelper.getContentType(is, "hoge"),
+                        mimeTypeHelper.getContentType(new ByteArrayInputStream(prefix), "hoge"));
+            }
+        }
+    }
+
     private void assertContentType(final String expect, final String path, final String name) throws IOException {
         final MimeTypeHelper mimeTypeHelper = container.getComponent("mimeTypeHelper");
         if (path != null) {
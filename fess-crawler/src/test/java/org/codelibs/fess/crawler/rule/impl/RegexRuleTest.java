@@ -15,6 +15,8 @@
  */
 package org.codelibs.fess.crawler.rule.impl;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.codelibs.fess.crawler.entity.ResponseData;
@@ -101,6 +103,98 @@ public class RegexRuleTest extends PlainTestCase {
         assertFalse(regexRule.match(getTestData4()));
     }
 
+    public void test_match_property() {
+        final RegexRule regexRule = new RegexRule();
+        regexRule.addRule("noFollow", Pattern.compile("false"));
+        regexRule.addRule("contentLength", Pattern.compile("0"));
+        regexRule.addRule("charSet", Pattern.compile(""));
+        regexRule.addRule("unknown", Pattern.compile(""));
+        assertTrue(regexRule.match(getTestData1()));
+
+        final ResponseData responseData = getTestData1();
+        responseData.setCharSet(" ");
+        assertTrue(regexRule.match(responseData));
+        responseData.setCharSet("UTF-8");
+        assertFalse(regexRule.match(responseData));
+        responseData.setCharSet(null);
+        responseData.setNoFollow(true);
+        assertFalse(regexRule.match(responseData));
+    }
+
+    public void test_match_subclass() {
+        final RegexRule regexRule = new RegexRule();
+        regexRule.addRule("url", Pattern.compile("http:.*"));
+        regexRule.addRule("extra", Pattern.compile("abc"));
+
+        assertFalse(regexRule.match(getTestData1()));
+
+        final ResponseData responseData = new ResponseData() {
+            public String getExtra() {
+                return "abc";
+            }
+        };
+        responseData.setUrl("http://example.com/");
+        assertTrue(regexRule.match(responseData));
+        assertFalse(regexRule.match(getTestData1()));
+    }
+
+    public void test_match_modified() {
+        final RegexRule regexRule = new RegexRule();
+        final Map<String, Pattern> regexMap = new HashMap<>();
+        regexMap.put("url", Pattern.compile("http://example.com/.*"));
+        regexRule.setRegexMap(regexMap);
+        assertTrue(regexRule.match(getTestData1()));
+
+        regexMap.put("url", Pattern.compile("http://example.org/.*"));
+        assertFalse(regexRule.match(getTestData1()));
+
+        regexMap.put("url", Pattern.compile("http://example.com/.*"));
+        regexMap.put("mimeType", Pattern.compile("text/plain"));
+        assertFalse(regexRule.match(getTestData1()));
+
+        regexMap.entrySet().iterator().forEachRemaining(e -> e.setValue(Pattern.compile(".*")));
+        assertTrue(regexRule.match(getTestData1()));
+
+        regexMap.replaceAll((k, v) -> Pattern.compile("none"));
+        assertFalse(regexRule.match(getTestData1()));
+
+        regexRule.setAllRequired(false);
+        regexMap.put("url", Pattern.compile("http://example.com/.*"));
+        assertTrue(regexRule.match(getTestData1()));
+
+        regexMap.clear();
+        assertFalse(regexRule.match(getTestData1()));
+        regexRule.setAllRequired(true);
+        assertTrue(regexRule.match(getTestData1()));
+    }
+
+    public void test_match_rules() {
+        final RuleManagerImpl ruleManager = new RuleManagerImpl();
+        for (int i = 0; i < 9; i++) {
+            final RegexRule regexRule = new RegexRule();
+            regexRule.setRuleId("rule" + i);
+            regexRule.addRule("url", "https?://host" + i + "/.*");
+            regexRule.addRule("mimeType", "text/.*");
+            ruleManager.addRule(regexRule);
+        }
+        final RegexRule defaultRule = new RegexRule();
+        defaultRule.setRuleId("default");
+        defaultRule.setDefaultRule(true);
+        ruleManager.addRule(defaultRule);
+
+        final ResponseData responseData = new ResponseData();
+        responseData.setMimeType("text/html");
+        for (int i = 0; i < 9; i++) {
+            responseData.setUrl("http://host" + i + "/index.html");
+            assertEquals("rule" + i, ruleManager.getRule(responseData).getRuleId());
+        }
+        responseData.setUrl("http://host9/index.html");
+        assertEquals("default", ruleManager.getRule(responseData).getRuleId());
+        responseData.setUrl("http://host1/index.html");
+        responseData.setMimeType("application/pdf");
+        assertEquals("default", ruleManager.getRule(responseData).getRuleId());
+    }
+
     private ResponseData getTestData1() {
         final ResponseData responseData = new ResponseData();
         responseData.setHttpStatusCode(200);
@@ -16,6 +16,9 @@
 package org.codelibs.fess.crawler.rule.impl;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.codelibs.core.io.CloseableUtil;
 import org.codelibs.core.io.ResourceUtil;
@@ -161,4 +164,94 @@ public class RuleManagerImplTest extends PlainTestCase {
         assertFalse(ruleManager.hasRule(rule2));
         assertFalse(ruleManager.hasRule(rule3));
     }
+
+    public void test_getRule_index() {
+        final RuleManagerImpl ruleManager = new RuleManagerImpl();
+        final RegexRule htmlRule = new RegexRule();
+        htmlRule.setRuleId("htmlRule");
+        htmlRule.addRule("mimeType", "text/html");
+        final RegexRule excelRule = new RegexRule();
+        excelRule.setRuleId("excelRule");
+        excelRule.addRule("mimeType", "application/vnd\\.ms-excel");
+        final RegexRule hostRule = new RegexRule();
+        hostRule.setRuleId("hostRule");
+        hostRule.addRule("url", "https?://www\\.example\\.com/.*");
+        final RegexRule textRule = new RegexRule();
+        textRule.setRuleId("textRule");
+        textRule.addRule("mimeType", "text/.*");
+        final RegexRule orRule = new RegexRule();
+        orRule.setRuleId("orRule");
+        orRule.setAllRequired(false);
+        orRule.addRule("mimeType", "application/pdf");
+        final RegexRule defaultRule = new RegexRule();
+        defaultRule.setRuleId("defaultRule");
+        defaultRule.setDefaultRule(true);
+
+        ruleManager.addRule(hostRule);
+        ruleManager.addRule(htmlRule);
+        ruleManager.addRule(textRule);
+        ruleManager.addRule(orRule);
+        ruleManager.addRule(defaultRule);
+        ruleManager.addRule(1, excelRule);
+
+        assertEquals("hostRule", ruleManager.getRule(createResponseData("http://www.example.com/", "text/html")).getRuleId());
+        assertEquals("htmlRule", ruleManager.getRule(createResponseData("http://test.com/", "text/html")).getRuleId());
+        assertEquals("excelRule", ruleManager.getRule(createResponseData("http://test.com/", "application/vnd.ms-excel")).getRuleId());
+        assertEquals("textRule", ruleManager.getRule(createResponseData("http://test.com/", "text/plain")).getRuleId());
+        assertEquals("orRule", ruleManager.getRule(createResponseData("http://test.com/", "application/pdf")).getRuleId());
+        assertEquals("defaultRule", ruleManager.getRule(createResponseData("http://test.com/", "image/png")).getRuleId());
+        assertEquals("defaultRule", ruleManager.getRule(createResponseData(null, null)).getRuleId());
+
+        ruleManager.removeRule(hostRule);
+        assertEquals("htmlRule", ruleManager.getRule(createResponseData("http://www.example.com/", "text/html")).getRuleId());
+        ruleManager.removeRule(defaultRule);
+        assertNull(ruleManager.getRule(createResponseData("http://test.com/", "image/png")));
+    }
+
+    public void test_getRule_index_modified() {
+        final RuleManagerImpl ruleManager = new RuleManagerImpl();
+        final RegexRule htmlRule = new RegexRule();
+        htmlRule.setRuleId("htmlRule");
+        htmlRule.addRule("mimeType", "text/html");
+        final RegexRule hostRule = new RegexRule();
+        hostRule.setRuleId("hostRule");
+        hostRule.addRule("url", "http://www\\.example\\.com/.*");
+        final RegexRule defaultRule = new RegexRule();
+        defaultRule.setRuleId("defaultRule");
+        defaultRule.setDefaultRule(true);
+        ruleManager.addRule(htmlRule);
+        ruleManager.addRule(hostRule);
+        ruleManager.addRule(defaultRule);
+
+        assertEquals("htmlRule", ruleManager.getRule(createResponseData("http://test.com/", "text/html")).getRuleId());
+        assertEquals("hostRule", ruleManager.getRule(createResponseData("http://www.example.com/", "text/plain")).getRuleId());
+
+        htmlRule.addRule("mimeType", "text/plain");
+        assertEquals("htmlRule", ruleManager.getRule(createResponseData("http://test.com/", "text/plain")).getRuleId());
+        assertEquals("defaultRule", ruleManager.getRule(createResponseData("http://test.com/", "text/html")).getRuleId());
+        assertEquals("htmlRule", ruleManager.getRule(createResponseData("http://www.example.com/", "text/plain")).getRuleId());
+
+        final Map<String, Pattern> regexMap = new HashMap<>();
+        regexMap.put("url", Pattern.compile("http://test\\.com/.*"));
+        hostRule.setRegexMap(regexMap);
+        assertEquals("hostRule", ruleManager.getRule(createResponseData("http://test.com/", "image/png")).getRuleId());
+        regexMap.put("url", Pattern.compile("http://test\\.org/.*"));
+        assertEquals("hostRule", ruleManager.getRule(createResponseData("http://test.org/", "image/png")).getRuleId());
+        assertEquals("defaultRule", ruleManager.getRule(createResponseData("http://test.com/", "image/png")).getRuleId());
+
+        htmlRule.addRule("url", "http://test\\.net/.*");
+        htmlRule.setAllRequired(false);
+        assertEquals("htmlRule", ruleManager.getRule(createResponseData("http://test.net/", "image/png")).getRuleId());
+        assertEquals("htmlRule", ruleManager.getRule(createResponseData("http://test.org/", "text/plain")).getRuleId());
+
+        htmlRule.setDefaultRule(true);
+        assertEquals("htmlRule", ruleManager.getRule(createResponseData("http://test.org/", "image/png")).getRuleId());
+    }
+
+    private ResponseData createResponseData(final String url, final String mimeType) {
+        final ResponseData responseData = new ResponseData();
+        responseData.setUrl(url);
+        responseData.setMimeType(mimeType);
+        return responseData;
+    }
 }
@@ -15,18 +15,32 @@
  */
 package org.codelibs.fess.crawler.service.impl;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.codelibs.fess.crawler.container.StandardCrawlerContainer;
 import org.codelibs.fess.crawler.entity.AccessResult;
 import org.codelibs.fess.crawler.entity.AccessResultImpl;
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
 import org.codelibs.fess.crawler.helper.MemoryDataHelper;
 import org.codelibs.fess.crawler.service.DataService;
 import org.dbflute.utflute.core.PlainTestCase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * @author shinsuke
  *
  */
 public class DataServiceImplTest extends PlainTestCase {
+    private static final Logger logger = LoggerFactory.getLogger(DataServiceImplTest.class);
+
     public DataService dataService;
 
     @Override
@@ -69,4 +83,47 @@ public class DataServiceImplTest extends PlainTestCase {
         final AccessResult accessResult4 = dataService.getAccessResult("id1", "http://www.id1.com/");
         assertNull(accessResult4);
     }
+
+    public void test_store_multithread() throws Exception {
+        final int numThreads = 8;
+        final int numUrls = 2000;
+        final List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            tasks.add(() -> {
+                int count = 0;
+                for (int j = 0; j < numUrls; j++) {
+                    final AccessResultImpl<Long> accessResult = new AccessResultImpl<>();
+                    accessResult.setSessionId("mt");
+                    accessResult.setUrl("http://www.example.com/" + j);
+                    try {
+                        dataService.store(accessResult);
+                        count++;
+                    } catch (final CrawlerSystemException e) {
+                        // stored by another thread
+                    }
+                }
+                return count;
+            });
+        }
+
+        final long time = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        int stored = 0;
+        try {
+            for (final Future<Integer> future : executor.invokeAll(tasks)) {
+                stored += future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        final long elapsed = (System.nanoTime() - time) / 1000000;
+        logger.info("stored {} results with {} threads in {}ms", numThreads * numUrls, numThreads, elapsed);
+
+        assertEquals(numUrls, stored);
+        assertEquals(numUrls, dataService.getCount("mt"));
+        final Set<Long> idSet = new HashSet<>();
+        dataService.iterate("mt", accessResult -> idSet.add((Long) accessResult.getId()));
+        assertEquals(numUrls, idSet.size());
+        dataService.delete("mt");
+    }
 }
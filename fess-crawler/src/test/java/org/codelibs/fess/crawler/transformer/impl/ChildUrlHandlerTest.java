@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.transformer.impl;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+import org.dbflute.utflute.core.PlainTestCase;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class ChildUrlHandlerTest extends PlainTestCase {
+
+    public void test_isSupported() {
+        final Map<String, String> childUrlRuleMap = new LinkedHashMap<>();
+        childUrlRuleMap.put("//A", "href");
+        childUrlRuleMap.put("//img", "src");
+        assertTrue(ChildUrlHandler.isSupported(childUrlRuleMap));
+
+        childUrlRuleMap.put("//DIV[@class='nav']/A", "href");
+        assertFalse(ChildUrlHandler.isSupported(childUrlRuleMap));
+
+        assertFalse(ChildUrlHandler.isSupported(null));
+
+        try {
+            new ChildUrlHandler(childUrlRuleMap);
+            fail();
+        } catch (final CrawlerSystemException e) {
+            // ok
+        }
+    }
+
+    public void test_startElement() {
+        final Map<String, String> childUrlRuleMap = new LinkedHashMap<>();
+        childUrlRuleMap.put("//A", "href");
+        childUrlRuleMap.put("//IMG", "src");
+        final ChildUrlHandler handler = new ChildUrlHandler(childUrlRuleMap);
+
+        handler.startElement(null, null, "BASE", newAttributes("href", "http://base/"));
+        handler.startElement(null, null, "BASE", newAttributes("href", "http://base2/"));
+        handler.startElement(null, null, "A", newAttributes("href", "a1.html"));
+        handler.startElement(null, null, "IMG", newAttributes("SRC", "i1.png"));
+        handler.startElement(null, null, "a", newAttributes("name", "x"));
+        handler.startElement(null, null, "DIV", newAttributes("href", "d.html"));
+        handler.startElement(null, null, "A", newAttributes("href", "a2.html"));
+
+        assertEquals("http://base/", handler.getBaseHref());
+        final Map<String, List<String>> attrValueMap = handler.getAttrValueMap();
+        assertEquals(2, attrValueMap.size());
+        assertEquals("[a1.html, a2.html]", attrValueMap.get("//A").toString());
+        assertEquals("[i1.png]", attrValueMap.get("//IMG").toString());
+    }
+
+    private AttributesImpl newAttributes(final String name, final String value) {
+        final AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute("", name, name, "CDATA", value);
+        return attributes;
+    }
+}
@@ -15,8 +15,11 @@
  */
 package org.codelibs.fess.crawler.transformer.impl;
 
+import java.io.File;
 import java.util.Map;
 
+import org.codelibs.core.io.FileUtil;
+
 import org.codelibs.fess.crawler.Constants;
 import org.codelibs.fess.crawler.builder.RequestDataBuilder;
 import org.codelibs.fess.crawler.entity.AccessResultDataImpl;
@@ -109,6 +112,78 @@ public class HtmlTransformerTest extends PlainTestCase {
         assertEquals("http://hoge/test.html?q=hoge", resultData.getChildUrlSet().iterator().next().getUrl());
     }
 
+    public void test_transform_singlePass() throws Exception {
+        final String content = "<html><head><meta http-equiv=\"Content-Type\" content=\"text/html; charset=Shift_JIS\">"
+                + "<base href=\"http://fuga/\"></head><body><a href=\"test2.html\">test</a><img src=\"/img.png\"></body></html>";
+        final File file = File.createTempFile("htmltransformer-", ".html");
+        file.deleteOnExit();
+        FileUtil.writeBytes(file.getAbsolutePath(), content.getBytes("Shift_JIS"));
+
+        htmlTransformer.setSinglePassEnabled(true);
+        try (final ResponseData responseData = new ResponseData()) {
+            responseData.setUrl("http://hoge/test.html");
+            responseData.setResponseBody(file, false);
+            responseData.setMimeType("text/html");
+            final ResultData resultData = htmlTransformer.transform(responseData);
+            assertEquals(content, new String(resultData.getData(), "Shift_JIS"));
+            assertEquals("Shift_JIS", resultData.getEncoding());
+            assertEquals(2, resultData.getChildUrlSet().size());
+            assertTrue(resultData.getChildUrlSet().contains(RequestDataBuilder.newRequestData().get().url("http://fuga/test2.html").build()));
+            assertTrue(resultData.getChildUrlSet().contains(RequestDataBuilder.newRequestData().get().url("http://fuga/img.png").build()));
+        }
+
+        // a body larger than singlePassMaxSize is read as the default mode
+        htmlTransformer.setSinglePassMaxSize(100);
+        try (final ResponseData responseData = new ResponseData()) {
+            responseData.setUrl("http://hoge/test.html");
+            responseData.setResponseBody(file, false);
+            responseData.setMimeType("text/html");
+            final ResultData resultData = htmlTransformer.transform(responseData);
+            assertEquals(content, new String(resultData.getData(), "Shift_JIS"));
+            assertEquals("Shift_JIS", resultData.getEncoding());
+            assertEquals(2, resultData.getChildUrlSet().size());
+        } finally {
+            htmlTransformer.setSinglePassMaxSize(1024 * 1024);
+        }
+
+        // the result is same as the default mode
+        htmlTransformer.setSinglePassEnabled(false);
+        try (final ResponseData responseData = new ResponseData()) {
+            responseData.setUrl("http://hoge/test.html");
+            responseData.setResponseBody(file, false);
+            responseData.setMimeType("text/html");
+            final ResultData resultData = htmlTransformer.transform(responseData);
+            assertEquals(content, new String(resultData.getData(), "Shift_JIS"));
+            assertEquals("Shift_JIS", resultData.getEncoding());
+            assertEquals(2, resultData.getChildUrlSet().size());
+        }
+    }
+
+    public void test_transform_streamingChildUrl() throws Exception {
+        final String content = "<html><head><base href=\"http://fuga/\"><link href=\"style.css\"></head>"
+                + "<body><a href=\"test2.html\">test</a><a href=\"javascript:void(0)\">js</a><a>none</a>"
+                + "<img src=\"/img.png\"><iframe src=\"?q=1\"></iframe></body></html>";
+        final ResponseData domResponseData = new ResponseData();
+        domResponseData.setUrl("http://hoge/test.html");
+        domResponseData.setResponseBody(content.getBytes());
+        domResponseData.setCharSet("ISO-8859-1");
+        domResponseData.setMimeType("text/html");
+        final ResultData domResultData = htmlTransformer.transform(domResponseData);
+
+        htmlTransformer.setStreamingChildUrlEnabled(true);
+        final ResponseData responseData = new ResponseData();
+        responseData.setUrl("http://hoge/test.html");
+        responseData.setResponseBody(content.getBytes());
+        responseData.setCharSet("ISO-8859-1");
+        responseData.setMimeType("text/html");
+        final ResultData resultData = htmlTransformer.transform(responseData);
+        assertEquals(content, new String(resultData.getData()));
+        assertEquals(4, resultData.getChildUrlSet().size());
+        assertEquals(domResultData.getChildUrlSet(), resultData.getChildUrlSet());
+        assertTrue(resultData.getChildUrlSet().contains(RequestDataBuilder.newRequestData().get().url("http://fuga/test2.html").build()));
+        assertTrue(resultData.getChildUrlSet().contains(RequestDataBuilder.newRequestData().get().url("http://fuga/?q=1").build()));
+    }
+
     public void test_transform_null() {
         try {
             htmlTransformer.transform(null);
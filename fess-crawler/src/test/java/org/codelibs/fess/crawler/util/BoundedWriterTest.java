@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class BoundedWriterTest extends PlainTestCase {
+
+    public void test_write() {
+        final BoundedWriter writer = new BoundedWriter(-1);
+        writer.write("abc");
+        writer.write('d');
+        writer.write("xefx".toCharArray(), 1, 2);
+        writer.append("g");
+        assertEquals("abcdefg", writer.toString());
+        assertFalse(writer.isTruncated());
+    }
+
+    public void test_write_limit() {
+        final BoundedWriter writer = new BoundedWriter(5);
+        writer.write("abc");
+        writer.write('d');
+        try {
+            writer.write("efg");
+            fail();
+        } catch (final BoundedWriter.LimitExceededException e) {
+            // pass
+        }
+        assertEquals("abcde", writer.toString());
+        assertTrue(writer.isTruncated());
+
+        try {
+            writer.write('h');
+            fail();
+        } catch (final BoundedWriter.LimitExceededException e) {
+            // pass
+        }
+        assertEquals("abcde", writer.toString());
+    }
+
+    public void test_write_exactLimit() {
+        final BoundedWriter writer = new BoundedWriter(3);
+        writer.write("abc");
+        assertEquals("abc", writer.toString());
+        assertFalse(writer.isTruncated());
+        try {
+            writer.write('d');
+            fail();
+        } catch (final BoundedWriter.LimitExceededException e) {
+            // pass
+        }
+        assertTrue(writer.isTruncated());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.dbflute.utflute.core.PlainTestCase;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class CompiledXPathAPITest extends PlainTestCase {
+
+    private Document parse(final String xml, final boolean namespaceAware) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(namespaceAware);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    public void test_selectNodeList() throws Exception {
+        final CompiledXPathAPI xpathAPI = new CompiledXPathAPI();
+        final String path = "//item/name";
+        final long hitCount = CompiledXPathAPI.getCacheStats().hitCount();
+
+        final Document doc1 = parse("<doc><item><name>a</name></item><item><name>b</name></item></doc>", false);
+        NodeList nodeList = xpathAPI.selectNodeList(doc1, path);
+        assertEquals(2, nodeList.getLength());
+        assertEquals("a", nodeList.item(0).getTextContent());
+        assertEquals("b", nodeList.item(1).getTextContent());
+
+        final Document doc2 = parse("<doc><item><name>c</name></item></doc>", false);
+        nodeList = new CompiledXPathAPI().selectNodeList(doc2, path);
+        assertEquals(1, nodeList.getLength());
+        assertEquals("c", nodeList.item(0).getTextContent());
+
+        assertTrue(CompiledXPathAPI.getCacheStats().hitCount() > hitCount);
+    }
+
+    public void test_eval_namespace() throws Exception {
+        final CompiledXPathAPI xpathAPI = new CompiledXPathAPI();
+        final String path = "//ns:item";
+
+        final Document doc1 = parse("<doc xmlns:ns=\"http://example.com/a\"><ns:item>a</ns:item></doc>", true);
+        assertEquals("a", xpathAPI.eval(doc1, path).str());
+
+        // same prefix bound to another namespace
+        final Document doc2 = parse("<doc xmlns:ns=\"http://example.com/b\"><ns:item>b</ns:item></doc>", true);
+        assertEquals("b", xpathAPI.eval(doc2, path).str());
+    }
+
+    public void test_eval_number() throws Exception {
+        final CompiledXPathAPI xpathAPI = new CompiledXPathAPI();
+        final Document doc = parse("<doc><item/><item/><item/></doc>", false);
+        assertEquals(3.0, xpathAPI.eval(doc, "count(//item)").num(), 0.0);
+    }
+}
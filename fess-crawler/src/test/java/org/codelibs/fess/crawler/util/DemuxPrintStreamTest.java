@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class DemuxPrintStreamTest extends PlainTestCase {
+
+    public void test_bind() throws Exception {
+        final ByteArrayOutputStream defaultOut = new ByteArrayOutputStream();
+        final DemuxPrintStream demuxStream = new DemuxPrintStream(new PrintStream(defaultOut, true));
+
+        demuxStream.print("a");
+
+        final ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+        final PrintStream previous1 = demuxStream.bind(new PrintStream(out1, true));
+        assertNull(previous1);
+        demuxStream.print("b");
+
+        final ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+        final PrintStream previous2 = demuxStream.bind(new PrintStream(out2, true));
+        assertNotNull(previous2);
+        demuxStream.println("c");
+        demuxStream.unbind(previous2);
+
+        final Thread thread = new Thread(() -> demuxStream.print("d"));
+        thread.start();
+        thread.join();
+
+        demuxStream.format("%s", "e");
+        demuxStream.unbind(previous1);
+        demuxStream.write('f');
+        demuxStream.flush();
+
+        assertEquals("adf", defaultOut.toString());
+        assertEquals("be", out1.toString());
+        assertEquals("c" + System.lineSeparator(), out2.toString());
+    }
+
+    public void test_install() {
+        final PrintStream originalOut = System.out;
+        final PrintStream originalErr = System.err;
+        try {
+            final DemuxPrintStream out = DemuxPrintStream.installOut();
+            assertSame(out, System.out);
+            assertSame(out, DemuxPrintStream.installOut());
+            final DemuxPrintStream err = DemuxPrintStream.installErr();
+            assertSame(err, System.err);
+            assertSame(err, DemuxPrintStream.installErr());
+        } finally {
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+    }
+}
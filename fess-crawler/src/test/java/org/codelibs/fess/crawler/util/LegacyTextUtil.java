@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The text normalization of TextUtil before the table lookup and block
+ * reads, kept as the reference of {@link TextUtilTest} and the baseline of
+ * TextUtilBenchmark in fess-crawler-benchmark.
+ *
+ * @author shinsuke
+ *
+ */
+public final class LegacyTextUtil {
+
+    public static final int[] SPACE_CHARS = { '\u0020', '\u00a0', '\u3000', '\ufffd' };
+
+    private LegacyTextUtil() {
+    }
+
+    public static String normalizeText(final Reader reader, final int maxAlphanumTermSize, final int maxSymbolTermSize,
+            final boolean duplicateTermRemoved) throws IOException {
+        return normalizeText(reader, maxAlphanumTermSize, maxSymbolTermSize, duplicateTermRemoved, SPACE_CHARS);
+    }
+
+    public static String normalizeText(final Reader reader, final int maxAlphanumTermSize, final int maxSymbolTermSize,
+            final boolean duplicateTermRemoved, final int[] spaceChars) throws IOException {
+        final StringBuilder buf = new StringBuilder(10000);
+        boolean isSpace = false;
+        int alphanumSize = 0;
+        int symbolSize = 0;
+        int c;
+        final Set<String> termCache = new HashSet<>(1000);
+        while ((c = reader.read()) != -1) {
+            if (Character.isISOControl(c) || isSpaceChar(c, spaceChars)) {
+                if (duplicateTermRemoved) {
+                    if (alphanumSize > 0) {
+                        isSpace = removeLastDuplication(buf, alphanumSize, isSpace, termCache);
+                    } else if (symbolSize > 0) {
+                        isSpace = removeLastDuplication(buf, symbolSize, isSpace, termCache);
+                    }
+                }
+                if (!isSpace && !isLastSpaceChar(buf)) {
+                    buf.appendCodePoint(' ');
+                    isSpace = true;
+                }
+                alphanumSize = 0;
+                symbolSize = 0;
+            } else if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+                if (duplicateTermRemoved && symbolSize > 0) {
+                    isSpace = removeLastDuplication(buf, symbolSize, isSpace, termCache);
+                }
+                if (maxAlphanumTermSize < 0 || alphanumSize < maxAlphanumTermSize) {
+                    buf.appendCodePoint(c);
+                    alphanumSize++;
+                }
+                isSpace = false;
+                symbolSize = 0;
+            } else if ((c >= '!' && c <= '/') || (c >= ':' && c <= '@') || (c >= '[' && c <= '`') || (c >= '{' && c <= '~')) {
+                if (duplicateTermRemoved && alphanumSize > 0) {
+                    isSpace = removeLastDuplication(buf, alphanumSize, isSpace, termCache);
+                }
+                if (maxSymbolTermSize < 0 || symbolSize < maxSymbolTermSize) {
+                    buf.appendCodePoint(c);
+                    symbolSize++;
+                }
+                isSpace = false;
+                alphanumSize = 0;
+            } else {
+                if (duplicateTermRemoved) {
+                    if (alphanumSize > 0) {
+                        isSpace = removeLastDuplication(buf, alphanumSize, isSpace, termCache);
+                    } else if (symbolSize > 0) {
+                        isSpace = removeLastDuplication(buf, symbolSize, isSpace, termCache);
+                    }
+                }
+                buf.appendCodePoint(c);
+                isSpace = false;
+                alphanumSize = 0;
+                symbolSize = 0;
+            }
+        }
+        if (duplicateTermRemoved) {
+            if (alphanumSize > 0) {
+                removeLastDuplication(buf, alphanumSize, isSpace, termCache);
+            } else if (symbolSize > 0) {
+                removeLastDuplication(buf, symbolSize, isSpace, termCache);
+            }
+        }
+        return buf.toString().trim();
+    }
+
+    private static boolean isSpaceChar(final int c, final int[] spaceChars) {
+        for (final int spaceChar : spaceChars) {
+            if (c == spaceChar) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLastSpaceChar(final StringBuilder buf) {
+        return buf.length() > 0 && buf.charAt(buf.length() - 1) == ' ';
+    }
+
+    private static boolean removeLastDuplication(final StringBuilder buf, final int size, final boolean isSpace,
+            final Set<String> termCache) {
+        final String target = size >= buf.length() ? buf.toString() : buf.substring(buf.length() - size, buf.length());
+        if (!termCache.contains(target)) {
+            termCache.add(target);
+            return isSpace;
+        }
+        buf.setLength(buf.length() - size);
+        if (!isSpace && !isLastSpaceChar(buf)) {
+            buf.appendCodePoint(' ');
+            return true;
+        }
+        return isSpace;
+    }
+}
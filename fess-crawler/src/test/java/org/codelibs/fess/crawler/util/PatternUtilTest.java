@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.util.regex.Pattern;
+
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class PatternUtilTest extends PlainTestCase {
+
+    public void test_getLiteralPrefix() {
+        assertEquals("http://example", PatternUtil.getLiteralPrefix(Pattern.compile("http://example.com/.*")));
+        assertEquals("http://example.com/", PatternUtil.getLiteralPrefix(Pattern.compile("^http://example\\.com/.*")));
+        assertEquals("http", PatternUtil.getLiteralPrefix(Pattern.compile("https?://.*")));
+        assertEquals("text/html", PatternUtil.getLiteralPrefix(Pattern.compile("text/html")));
+        assertEquals("", PatternUtil.getLiteralPrefix(Pattern.compile(".*")));
+        assertEquals("", PatternUtil.getLiteralPrefix(Pattern.compile("a|b")));
+        assertEquals("http://a", PatternUtil.getLiteralPrefix(Pattern.compile("http://a+b*")));
+        assertEquals("", PatternUtil.getLiteralPrefix(Pattern.compile(".*test.*")));
+        assertEquals("", PatternUtil.getLiteralPrefix(Pattern.compile("http://a.*|http://b.*")));
+        assertEquals("", PatternUtil.getLiteralPrefix(Pattern.compile("http://a.*", Pattern.CASE_INSENSITIVE)));
+        assertEquals("", PatternUtil.getLiteralPrefix(Pattern.compile("\\Qhttp\\E.*")));
+        assertEquals("http:", PatternUtil.getLiteralPrefix(Pattern.compile("http:\\d+")));
+    }
+
+    public void test_getLiteral() {
+        assertEquals("text/html", PatternUtil.getLiteral(Pattern.compile("text/html")));
+        assertEquals("text/html", PatternUtil.getLiteral(Pattern.compile("^text/html$")));
+        assertEquals("application/vnd.ms-excel", PatternUtil.getLiteral(Pattern.compile("application/vnd\\.ms-excel")));
+        assertEquals("application/rss+xml", PatternUtil.getLiteral(Pattern.compile("application/rss\\+xml")));
+        assertNull(PatternUtil.getLiteral(Pattern.compile("application/vnd.ms-excel")));
+        assertNull(PatternUtil.getLiteral(Pattern.compile("text/.*")));
+        assertNull(PatternUtil.getLiteral(Pattern.compile("text/html?")));
+        assertNull(PatternUtil.getLiteral(Pattern.compile("text/html+")));
+        assertNull(PatternUtil.getLiteral(Pattern.compile("text/html", Pattern.CASE_INSENSITIVE)));
+        assertNull(PatternUtil.getLiteral(Pattern.compile("text/html|text/plain")));
+    }
+}
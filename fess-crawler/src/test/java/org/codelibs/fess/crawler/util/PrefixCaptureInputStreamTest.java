@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.codelibs.core.io.InputStreamUtil;
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class PrefixCaptureInputStreamTest extends PlainTestCase {
+
+    public void test_read() throws IOException {
+        final byte[] data = "0123456789".getBytes();
+        try (PrefixCaptureInputStream in = new PrefixCaptureInputStream(new ByteArrayInputStream(data), 4)) {
+            assertEquals('0', in.read());
+            final byte[] buf = new byte[2];
+            assertEquals(2, in.read(buf));
+            assertEquals("012", new String(in.getPrefix()));
+            assertEquals(2, in.skip(2));
+            assertEquals("56789", new String(InputStreamUtil.getBytes(in)));
+            assertEquals("0123", new String(in.getPrefix()));
+            assertEquals("0123", new String(InputStreamUtil.getBytes(in.getPrefixStream())));
+        }
+    }
+
+    public void test_read_short() throws IOException {
+        final byte[] data = "abc".getBytes();
+        try (PrefixCaptureInputStream in = new PrefixCaptureInputStream(new ByteArrayInputStream(data), 10)) {
+            assertEquals("abc", new String(InputStreamUtil.getBytes(in)));
+            assertEquals("abc", new String(in.getPrefix()));
+            assertFalse(in.markSupported());
+        }
+    }
+
+    public void test_read_noPrefix() throws IOException {
+        final byte[] data = "abc".getBytes();
+        try (PrefixCaptureInputStream in = new PrefixCaptureInputStream(new ByteArrayInputStream(data), 0)) {
+            assertEquals("abc", new String(InputStreamUtil.getBytes(in)));
+            assertEquals(0, in.getPrefix().length);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codelibs.fess.crawler.exception.CrawlerSystemException;
+import org.codelibs.fess.crawler.exception.ExtractException;
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class ProcessWorkerPoolTest extends PlainTestCase {
+
+    private final AtomicInteger started = new AtomicInteger();
+
+    private ProcessWorkerPool<TestWorker> createPool() {
+        return new ProcessWorkerPool<>("test", () -> new TestWorker(started.incrementAndGet()));
+    }
+
+    public void test_execute() {
+        final ProcessWorkerPool<TestWorker> pool = createPool();
+        assertEquals(Integer.valueOf(1), pool.execute(worker -> worker.id));
+        assertEquals(Integer.valueOf(1), pool.execute(worker -> worker.id));
+        assertEquals(1, pool.getWorkerCount());
+        pool.destroy();
+        assertEquals(0, pool.getWorkerCount());
+        try {
+            pool.execute(worker -> worker.id);
+            fail();
+        } catch (final CrawlerSystemException e) {
+            // pass
+        }
+    }
+
+    public void test_execute_jobException() {
+        final ProcessWorkerPool<TestWorker> pool = createPool();
+        try {
+            pool.execute(worker -> {
+                throw new ProcessWorkerPool.WorkerJobException("error");
+            });
+            fail();
+        } catch (final ProcessWorkerPool.WorkerJobException e) {
+            // pass
+        }
+        assertEquals(Integer.valueOf(1), pool.execute(worker -> worker.id));
+
+        try {
+            pool.execute(worker -> {
+                throw new ExtractException("broken");
+            });
+            fail();
+        } catch (final ExtractException e) {
+            // pass
+        }
+        assertEquals(0, pool.getWorkerCount());
+        assertEquals(Integer.valueOf(2), pool.execute(worker -> worker.id));
+    }
+
+    public void test_execute_dead() {
+        final ProcessWorkerPool<TestWorker> pool = createPool();
+        pool.execute(worker -> worker.alive = false);
+        assertEquals(0, pool.getWorkerCount());
+        assertEquals(Integer.valueOf(2), pool.execute(worker -> worker.id));
+    }
+
+    public void test_execute_recycle() {
+        final ProcessWorkerPool<TestWorker> pool = createPool();
+        pool.setMaxJobsPerWorker(2);
+        for (int i = 0; i < 6; i++) {
+            pool.execute(worker -> worker.jobCount++);
+        }
+        assertEquals(3, started.get());
+        assertEquals(0, pool.getWorkerCount());
+    }
+
+    private static class TestWorker implements ProcessWorkerPool.PooledWorker {
+        private final int id;
+
+        private volatile boolean alive = true;
+
+        private int jobCount = 0;
+
+        private TestWorker(final int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return alive;
+        }
+
+        @Override
+        public int getJobCount() {
+            return jobCount;
+        }
+
+        @Override
+        public void close() {
+            alive = false;
+        }
+    }
+}
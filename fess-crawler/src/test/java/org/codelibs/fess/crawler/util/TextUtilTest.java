@@ -18,9 +18,12 @@ package org.codelibs.fess.crawler.util;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
 
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.crawler.util.TextUtil.TextNormalizeContext;
+import org.codelibs.fess.crawler.util.TextUtil.TextNormalizeWriter;
 import org.dbflute.utflute.core.PlainTestCase;
 
 /**
@@ -126,6 +129,151 @@ public class TextUtilTest extends PlainTestCase {
         assertEquals("123# !$", normalizeText(" 123#123!$123  ", 100, -1, -1, true));
     }
 
+    public void test_writer() throws IOException {
+        final String[] values = { "", " ", "aaa \u00a0 bbb", "　１２３　あいう　", " 123\nabc ", "aaa #bbb# aaa ccc? aaa", " 123#123!$123  " };
+        for (final boolean removeDuplication : new boolean[] { false, true }) {
+            for (final String value : values) {
+                final TextNormalizeWriter writer =
+                        TextUtil.normalizeText().maxAlphanumTermSize(2).maxSymbolTermSize(1).duplicateTermRemoved(removeDuplication).writer();
+                // write in chunks
+                final int half = value.length() / 2;
+                writer.write(value, 0, half);
+                writer.write(value.substring(half).toCharArray());
+                writer.flush();
+                assertEquals(normalizeText(value, 100, 2, 1, removeDuplication), writer.getText());
+            }
+        }
+        assertEquals("", TextUtil.normalizeText().execute());
+    }
+
+    public void test_execute_writer() throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            buf.append("  aaa bbb aaa\n\u3000テスト!!!! ").append(i % 7).append(" \t");
+        }
+        final String value = "  " + buf.toString() + "   ";
+        for (final boolean removeDuplication : new boolean[] { true, false }) {
+            final String expected = normalizeText(value, 100, 2, 1, removeDuplication);
+            final StringWriter out = new StringWriter();
+            new TextNormalizeContext(new StringReader(value)).maxAlphanumTermSize(2).maxSymbolTermSize(1)
+                    .duplicateTermRemoved(removeDuplication).execute(out);
+            assertEquals(expected, out.toString());
+
+            final StringWriter out2 = new StringWriter();
+            try (TextNormalizeWriter writer = TextUtil.normalizeText().maxAlphanumTermSize(2).maxSymbolTermSize(1)
+                    .duplicateTermRemoved(removeDuplication).writer(out2)) {
+                writer.write(value);
+            }
+            assertEquals(expected, out2.toString());
+        }
+        final StringWriter empty = new StringWriter();
+        new TextNormalizeContext(new StringReader("   ")).execute(empty);
+        assertEquals("", empty.toString());
+    }
+
+    public void test_execute_equivalence() throws IOException {
+        final int[][] spaceCharsList = { { '\u0020', '\u00a0', '\u3000', '\ufffd' }, { ' ', '_', 'x' } };
+        for (int seed = 0; seed < 2; seed++) {
+            // about 64K chars
+            final String value = createRandomText(new Random(seed), 64 * 1024);
+            for (final int[] spaceChars : spaceCharsList) {
+                for (final int[] sizes : new int[][] { { -1, -1 }, { 5, 2 }, { 0, 0 } }) {
+                    for (final boolean removeDuplication : new boolean[] { false, true }) {
+                        final String expected = LegacyTextUtil.normalizeText(new StringReader(value), sizes[0], sizes[1], removeDuplication,
+                                spaceChars);
+                        final String message = "seed=" + seed + ", spaceChars=" + spaceChars.length + ", sizes=" + sizes[0] + "/"
+                                + sizes[1] + ", removeDuplication=" + removeDuplication;
+
+                        assertEquals(message, expected, new TextNormalizeContext(new StringReader(value)).maxAlphanumTermSize(sizes[0])
+                                .maxSymbolTermSize(sizes[1]).duplicateTermRemoved(removeDuplication).spaceChars(spaceChars).execute());
+
+                        final StringWriter out = new StringWriter();
+                        new TextNormalizeContext(new StringReader(value)).maxAlphanumTermSize(sizes[0]).maxSymbolTermSize(sizes[1])
+                                .duplicateTermRemoved(removeDuplication).spaceChars(spaceChars).execute(out);
+                        assertEquals(message, expected, out.toString());
+
+                        // irregular chunks across the internal buffer size
+                        final StringWriter out2 = new StringWriter();
+                        final Random random = new Random(seed);
+                        try (TextNormalizeWriter writer = TextUtil.normalizeText().maxAlphanumTermSize(sizes[0])
+                                .maxSymbolTermSize(sizes[1]).duplicateTermRemoved(removeDuplication).spaceChars(spaceChars).writer(out2)) {
+                            int pos = 0;
+                            while (pos < value.length()) {
+                                final int len = Math.min(value.length() - pos, random.nextInt(20000));
+                                if (len == 1) {
+                                    writer.write(value.charAt(pos));
+                                } else {
+                                    writer.write(value, pos, len);
+                                }
+                                pos += len;
+                            }
+                        }
+                        assertEquals(message, expected, out2.toString());
+                    }
+                }
+            }
+        }
+    }
+
+    private static String createRandomText(final Random random, final int size) {
+        final String[] terms = new String[200];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = "t" + Integer.toString(random.nextInt(1000000), 36);
+        }
+        final String symbols = "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~";
+        final String others = "あいう漢字テスト１２３ａｂｃéü\uD842\uDFB7";
+        final StringBuilder buf = new StringBuilder(size + 100);
+        while (buf.length() < size) {
+            switch (random.nextInt(12)) {
+            case 0:
+            case 1:
+            case 2:
+                // repeated terms for duplicate removal
+                buf.append(terms[random.nextInt(terms.length)]);
+                break;
+            case 3:
+                for (int i = random.nextInt(30); i >= 0; i--) {
+                    buf.append((char) ('a' + random.nextInt(26)));
+                }
+                break;
+            case 4:
+                // long terms over the internal buffer
+                if (random.nextInt(50) == 0) {
+                    for (int i = 8192 + random.nextInt(4096); i >= 0; i--) {
+                        buf.append((char) ('0' + random.nextInt(10)));
+                    }
+                } else {
+                    buf.append(random.nextInt(100000));
+                }
+                break;
+            case 5:
+                for (int i = random.nextInt(5); i >= 0; i--) {
+                    buf.append(symbols.charAt(random.nextInt(symbols.length())));
+                }
+                break;
+            case 6:
+                buf.append(others, random.nextInt(others.length() - 2), others.length());
+                break;
+            case 7:
+                buf.append("\u3000\u00a0\ufffd".charAt(random.nextInt(3)));
+                break;
+            case 8:
+                buf.append((char) random.nextInt(0x20));
+                break;
+            case 9:
+                // long space runs
+                for (int i = random.nextInt(random.nextInt(50) == 0 ? 10000 : 10); i >= 0; i--) {
+                    buf.append(' ');
+                }
+                break;
+            default:
+                buf.append(' ');
+                break;
+            }
+        }
+        return buf.toString();
+    }
+
     public static String normalizeText(final String str, final int initialCapacity, final int maxAlphanumTermSize,
             final int maxSymbolTermSize, final boolean removeDuplication) {
         if (str == null) {
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2022 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.crawler.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.codelibs.fess.crawler.CrawlerContext;
+import org.codelibs.fess.crawler.util.WorkerExecutor.WorkerFuture;
+import org.dbflute.utflute.core.PlainTestCase;
+
+/**
+ * @author shinsuke
+ *
+ */
+public class WorkerExecutorTest extends PlainTestCase {
+
+    public void test_submit() throws Exception {
+        final WorkerExecutor executor = new WorkerExecutor("test");
+        executor.setMaxThreads(2);
+        try {
+            final WorkerFuture<Boolean> future = executor.submit(() -> executor.isWorkerThread() && WorkerExecutor.isAnyWorkerThread());
+            assertTrue(future.await(10000L));
+            assertFalse(executor.isWorkerThread());
+            assertFalse(WorkerExecutor.isAnyWorkerThread());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void test_submit_fullQueue() throws Exception {
+        final WorkerExecutor executor = new WorkerExecutor("test");
+        executor.setMaxThreads(1);
+        executor.setQueueSize(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        try {
+            final WorkerFuture<String> future1 = executor.submit(() -> {
+                latch.await();
+                return Thread.currentThread().getName();
+            });
+            final WorkerFuture<String> future2 = executor.submit(() -> Thread.currentThread().getName());
+            // the queue is full, so the task runs on this thread
+            final WorkerFuture<String> future3 = executor.submit(() -> Thread.currentThread().getName());
+            assertTrue(future3.isDone());
+            assertEquals(Thread.currentThread().getName(), future3.await(0L));
+            latch.countDown();
+            assertEquals("test-1", future1.await(10000L));
+            assertEquals("test-1", future2.await(10000L));
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+        }
+    }
+
+    public void test_await_fromStart() throws Exception {
+        final WorkerExecutor executor = new WorkerExecutor("test");
+        executor.setMaxThreads(1);
+        try {
+            final WorkerFuture<String> future1 = executor.submit(() -> {
+                Thread.sleep(500L);
+                return "a";
+            });
+            final WorkerFuture<String> future2 = executor.submit(() -> {
+                Thread.sleep(300L);
+                return "b";
+            });
+            assertEquals("a", future1.await(5000L));
+            // waited about 800ms since the submission, but 300ms since the start
+            assertEquals("b", future2.await(600L));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void test_await_timeout() throws Exception {
+        final WorkerExecutor executor = new WorkerExecutor("test");
+        executor.setMaxThreads(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        try {
+            final WorkerFuture<String> future = executor.submit(() -> {
+                latch.await(10, TimeUnit.SECONDS);
+                return "a";
+            });
+            try {
+                future.await(100L);
+                fail();
+            } catch (final TimeoutException e) {
+                // pass
+            }
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+        }
+    }
+
+    public void test_getPoolSize() {
+        final WorkerExecutor executor = new WorkerExecutor("test");
+        assertEquals(Runtime.getRuntime().availableProcessors(), executor.getPoolSize());
+
+        final CrawlerContext crawlerContext = new CrawlerContext();
+        crawlerContext.setNumOfThread(3);
+        CrawlingParameterUtil.setCrawlerContext(crawlerContext);
+        try {
+            assertEquals(3, executor.getPoolSize());
+            assertEquals(3, executor.getExecutor().getMaximumPoolSize());
+            crawlerContext.setNumOfThread(5);
+            assertEquals(5, executor.getExecutor().getMaximumPoolSize());
+            assertEquals(5, executor.getExecutor().getCorePoolSize());
+        } finally {
+            CrawlingParameterUtil.setCrawlerContext(null);
+            executor.shutdown();
+        }
+
+        executor.setMaxThreads(2);
+        assertEquals(2, executor.getPoolSize());
+    }
+}